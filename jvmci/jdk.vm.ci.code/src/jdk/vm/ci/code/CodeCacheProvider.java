@@ -26,6 +26,7 @@ package jdk.vm.ci.code;
 
 import jdk.vm.ci.code.site.Call;
 import jdk.vm.ci.code.site.Mark;
+import jdk.vm.ci.meta.Assumptions;
 import jdk.vm.ci.meta.ResolvedJavaMethod;
 import jdk.vm.ci.meta.SpeculationLog;
 
@@ -88,6 +89,21 @@ public interface CodeCacheProvider {
      */
     InstalledCode installCode(ResolvedJavaMethod method, CompiledCode compiledCode, InstalledCode installedCode, SpeculationLog log, boolean isDefault);
 
+    /**
+     * Determines if the assumptions recorded so far by a compilation still hold. A compiler can
+     * call this before the final stage of a compilation to bail out early instead of having
+     * {@link #installCode} fail because the assumptions have been invalidated in the meantime. A
+     * result of {@code true} does not guarantee that {@link #installCode} will succeed since the
+     * assumptions can be invalidated at any time.
+     *
+     * @param assumptions the assumptions recorded by a compilation
+     * @return {@code false} if at least one of {@code assumptions} is known to no longer hold,
+     *         {@code true} otherwise
+     */
+    default boolean validateAssumptions(Assumptions assumptions) {
+        return true;
+    }
+
     /**
      * Invalidates {@code installedCode} such that {@link InvalidInstalledCodeException} will be
      * raised the next time {@code installedCode} is
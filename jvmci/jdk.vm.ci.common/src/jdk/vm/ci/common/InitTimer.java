@@ -24,61 +24,239 @@
  */
 package jdk.vm.ci.common;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import jdk.vm.ci.services.Services;
 
 /**
  * A facility for timing a step in the runtime initialization sequence. This is independent from all
- * other JVMCI code so as to not perturb the initialization sequence. It is enabled by setting the
- * {@code "jvmci.inittimer"} system property to {@code "true"}.
+ * other JVMCI code so as to not perturb the initialization sequence.
+ * <p>
+ * Steps are only timed if one of the {@code "jvmci.InitTimer"}, {@code "jvmci.PrintInitPhases"}
+ * or {@code "jvmci.InitPhaseEvents"} system properties is {@code "true"}. Otherwise
+ * {@link #timer(String)} returns {@code null}. Each timed step is recorded as a {@link Phase} with
+ * nanosecond resolution, regardless of the thread performing it. The recorded phases can be
+ * retrieved with {@link #getPhases()} and printed as a machine readable report with
+ * {@link #printReport(PrintStream)}. Setting {@code "jvmci.InitTimer"} to {@code "true"}
+ * additionally prints each step as it starts and completes and records the number of bytes
+ * allocated by the thread during each step.
  */
 public final class InitTimer implements AutoCloseable {
+
+    /**
+     * A completed step in the runtime initialization sequence.
+     */
+    public static final class Phase {
+        private final String name;
+        private final String thread;
+        private final int depth;
+        private final long startNanos;
+        private final long durationNanos;
+        private final long allocatedBytes;
+
+        Phase(String name, String thread, int depth, long startNanos, long durationNanos, long allocatedBytes) {
+            this.name = name;
+            this.thread = thread;
+            this.depth = depth;
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the name of the thread that performed this phase.
+         */
+        public String getThread() {
+            return thread;
+        }
+
+        /**
+         * Gets the number of phases enclosing this phase on the same thread.
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Gets the start time of this phase in nanoseconds relative to the start of the first
+         * recorded phase.
+         */
+        public long getStartNanos() {
+            return startNanos;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        /**
+         * Gets the number of bytes allocated by the thread during this phase (including enclosed
+         * phases) or -1 if allocation was not measured.
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("{\"phase\":");
+            appendJSONString(sb, name);
+            sb.append(",\"thread\":");
+            appendJSONString(sb, thread);
+            sb.append(",\"depth\":").append(depth);
+            sb.append(",\"startNanos\":").append(startNanos);
+            sb.append(",\"durationNanos\":").append(durationNanos);
+            sb.append(",\"allocatedBytes\":").append(allocatedBytes);
+            return sb.append('}').toString();
+        }
+    }
+
     private final String name;
+    private final InitTimer parent;
+    private final int depth;
+    private final long startAllocatedBytes;
     private final long start;
 
     private InitTimer(String name) {
-        int n = nesting.getAndIncrement();
-        if (n == 0) {
-            initializingThread = Thread.currentThread();
-            System.out.println("INITIALIZING THREAD: " + initializingThread);
-        } else {
-            assert Thread.currentThread() == initializingThread : Thread.currentThread() + " != " + initializingThread;
-        }
         this.name = name;
-        this.start = System.currentTimeMillis();
-        System.out.println("START: " + SPACES.substring(0, n * 2) + name);
+        this.parent = current.get();
+        this.depth = parent == null ? 0 : parent.depth + 1;
+        current.set(this);
+        if (enabledPropertyValue) {
+            if (depth == 0) {
+                System.out.println("INITIALIZING THREAD: " + Thread.currentThread());
+            }
+            System.out.println("START: " + indent(depth) + name);
+        }
+        this.startAllocatedBytes = allocatedBytes();
+        this.start = System.nanoTime();
     }
 
     @Override
-    @SuppressFBWarnings(value = "ST_WRITE_TO_STATIC_FROM_INSTANCE_METHOD", justification = "only the initializing thread accesses this field")
     public void close() {
-        final long end = System.currentTimeMillis();
-        int n = nesting.decrementAndGet();
-        System.out.println(" DONE: " + SPACES.substring(0, n * 2) + name + " [" + (end - start) + " ms]");
-        if (n == 0) {
-            initializingThread = null;
+        final long end = System.nanoTime();
+        long allocated = allocatedBytes();
+        if (allocated >= 0) {
+            allocated -= startAllocatedBytes;
+        }
+        if (parent == null) {
+            current.remove();
+        } else {
+            current.set(parent);
+        }
+        String thread = Thread.currentThread().getName();
+        synchronized (InitTimer.class) {
+            if (phases.size() < MAX_PHASES) {
+                phases.add(new Phase(name, thread, depth, start - origin, end - start, allocated));
+            }
+        }
+        if (enabledPropertyValue) {
+            String allocation = allocated < 0 ? "" : ", " + allocated + " bytes";
+            System.out.println(" DONE: " + indent(depth) + name + " [" + String.format("%.3f", (end - start) / 1_000_000D) + " ms" + allocation + "]");
         }
     }
 
     public static InitTimer timer(String name) {
-        return isEnabled() ? new InitTimer(name) : null;
+        return isRecording() ? new InitTimer(name) : null;
     }
 
     public static InitTimer timer(String name, Object suffix) {
-        return isEnabled() ? new InitTimer(name + suffix) : null;
+        return isRecording() ? new InitTimer(name + suffix) : null;
+    }
+
+    /**
+     * Gets the phases recorded so far in the order in which they completed. The list is empty if
+     * initialization steps are not being timed.
+     */
+    public static List<Phase> getPhases() {
+        if (!isRecording()) {
+            return Collections.emptyList();
+        }
+        synchronized (InitTimer.class) {
+            return Collections.unmodifiableList(new ArrayList<>(phases));
+        }
+    }
+
+    /**
+     * Prints the phases recorded so far to {@code out}, one JSON object per line.
+     */
+    public static void printReport(PrintStream out) {
+        for (Phase phase : getPhases()) {
+            out.println(phase);
+        }
     }
 
     /**
-     * Determines if initialization timing is enabled. Note: This property cannot use
+     * Determines if initialization steps are timed. Note: The properties cannot use
      * {@code HotSpotJVMCIRuntime.Option} since that class is not visible from this package.
      */
-    private static boolean isEnabled() {
-        if (enabledPropertyValue == null) {
-            enabledPropertyValue = Boolean.parseBoolean(Services.getSavedProperty("jvmci.InitTimer"));
-            nesting = new AtomicInteger();
+    private static boolean isRecording() {
+        if (recordingPropertyValue == null) {
+            synchronized (InitTimer.class) {
+                if (recordingPropertyValue == null) {
+                    boolean enabled = Boolean.parseBoolean(Services.getSavedProperty("jvmci.InitTimer"));
+                    boolean recording = enabled || Boolean.parseBoolean(Services.getSavedProperty("jvmci.PrintInitPhases")) ||
+                                    Boolean.parseBoolean(Services.getSavedProperty("jvmci.InitPhaseEvents"));
+                    if (recording) {
+                        phases = new ArrayList<>();
+                        origin = System.nanoTime();
+                    }
+                    enabledPropertyValue = enabled;
+                    recordingPropertyValue = recording;
+                }
+            }
         }
-        return enabledPropertyValue;
+        return recordingPropertyValue;
+    }
+
+    /**
+     * Gets the number of bytes allocated so far by the current thread or -1 if allocation is not
+     * measured. Allocation is only measured if initialization timing is enabled since the
+     * management API used to measure it would otherwise perturb the initialization sequence.
+     */
+    private static long allocatedBytes() {
+        if (!enabledPropertyValue || Services.IS_IN_NATIVE_IMAGE) {
+            return -1;
+        }
+        try {
+            java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+                if (threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled()) {
+                    return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+                }
+            }
+        } catch (UnsupportedOperationException e) {
+            // fall through
+        }
+        return -1;
+    }
+
+    private static String indent(int depth) {
+        return depth * 2 <= SPACES.length() ? SPACES.substring(0, depth * 2) : SPACES;
+    }
+
+    private static void appendJSONString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < ' ') {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
     }
 
     /**
@@ -86,11 +264,29 @@ public final class InitTimer implements AutoCloseable {
      */
     @NativeImageReinitialize private static Boolean enabledPropertyValue;
 
-    private static AtomicInteger nesting;
-    private static final String SPACES = "                                            ";
+    /**
+     * Specifies if initialization steps are timed. Set after {@link #enabledPropertyValue},
+     * {@link #phases} and {@link #origin}.
+     */
+    @NativeImageReinitialize private static volatile Boolean recordingPropertyValue;
 
     /**
-     * Used to assert the invariant that all related initialization happens on the same thread.
+     * The completed phases. Recording stops once {@link #MAX_PHASES} have been recorded.
      */
-    static Thread initializingThread;
+    @NativeImageReinitialize private static List<Phase> phases;
+
+    /**
+     * The time at which the first phase was started. Only read with the {@code InitTimer} class
+     * lock held.
+     */
+    @NativeImageReinitialize private static long origin;
+
+    private static final int MAX_PHASES = 1024;
+
+    /**
+     * The innermost phase being timed on each thread.
+     */
+    private static final ThreadLocal<InitTimer> current = new ThreadLocal<>();
+
+    private static final String SPACES = "                                            ";
 }
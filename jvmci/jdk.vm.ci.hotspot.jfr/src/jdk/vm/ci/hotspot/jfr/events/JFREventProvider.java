@@ -141,6 +141,12 @@ public final class JFREventProvider implements EventProvider {
         @com.oracle.jrockit.jfr.ValueDefinition(name = "On Stack Replacement") public boolean isOsr;
         @com.oracle.jrockit.jfr.ValueDefinition(name = "Compiled Code Size", contentType = com.oracle.jrockit.jfr.ContentType.Bytes) public int codeSize;
         @com.oracle.jrockit.jfr.ValueDefinition(name = "Inlined Code Size", contentType = com.oracle.jrockit.jfr.ContentType.Bytes) public int inlinedBytes;
+        @com.oracle.jrockit.jfr.ValueDefinition(name = "Queue Wait Time", description = "-1 if unknown", contentType = com.oracle.jrockit.jfr.ContentType.Nanos) public long queueWaitNanos;
+        @com.oracle.jrockit.jfr.ValueDefinition(name = "Install Preparation Time", contentType = com.oracle.jrockit.jfr.ContentType.Nanos) public long installPrepareNanos;
+        @com.oracle.jrockit.jfr.ValueDefinition(name = "Install VM Time", contentType = com.oracle.jrockit.jfr.ContentType.Nanos) public long installVMNanos;
+        @com.oracle.jrockit.jfr.ValueDefinition(name = "Allocated", contentType = com.oracle.jrockit.jfr.ContentType.Bytes) public long allocatedBytes;
+        @com.oracle.jrockit.jfr.ValueDefinition(name = "Speculations") public int speculationCount;
+        @com.oracle.jrockit.jfr.ValueDefinition(name = "Decompile Count", description = "Number of deoptimization related recompilations of the method") public int decompileCount;
 
         @Override
         public void setMethod(String method) {
@@ -176,6 +182,36 @@ public final class JFREventProvider implements EventProvider {
         public void setInlinedBytes(int inlinedBytes) {
             this.inlinedBytes = inlinedBytes;
         }
+
+        @Override
+        public void setQueueWaitNanos(long queueWaitNanos) {
+            this.queueWaitNanos = queueWaitNanos;
+        }
+
+        @Override
+        public void setInstallPrepareNanos(long installPrepareNanos) {
+            this.installPrepareNanos = installPrepareNanos;
+        }
+
+        @Override
+        public void setInstallVMNanos(long installVMNanos) {
+            this.installVMNanos = installVMNanos;
+        }
+
+        @Override
+        public void setAllocatedBytes(long allocatedBytes) {
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        @Override
+        public void setSpeculationCount(int speculationCount) {
+            this.speculationCount = speculationCount;
+        }
+
+        @Override
+        public void setDecompileCount(int decompileCount) {
+            this.decompileCount = decompileCount;
+        }
     }
 
     @Override
@@ -209,4 +245,56 @@ public final class JFREventProvider implements EventProvider {
         }
     }
 
+    @Override
+    public InitPhaseEvent newInitPhaseEvent() {
+        if (enabled) {
+            return new JFRInitPhaseEvent();
+        }
+        return EventProvider.createEmptyInitPhaseEvent();
+    }
+
+    /**
+     * A JFR event for a completed phase of the JVMCI runtime initialization.
+     */
+    @com.oracle.jrockit.jfr.EventDefinition(name = "JVMCI Initialization Phase", path = "vm/compiler/jvmci_init_phase")
+    public static class JFRInitPhaseEvent extends com.oracle.jrockit.jfr.InstantEvent implements InitPhaseEvent {
+
+        @com.oracle.jrockit.jfr.ValueDefinition(name = "Phase") public String phase;
+        @com.oracle.jrockit.jfr.ValueDefinition(name = "Thread Name") public String thread;
+        @com.oracle.jrockit.jfr.ValueDefinition(name = "Nesting Depth") public int depth;
+        @com.oracle.jrockit.jfr.ValueDefinition(name = "Start", description = "Start relative to the first phase", contentType = com.oracle.jrockit.jfr.ContentType.Nanos) public long startNanos;
+        @com.oracle.jrockit.jfr.ValueDefinition(name = "Duration", contentType = com.oracle.jrockit.jfr.ContentType.Nanos) public long durationNanos;
+        @com.oracle.jrockit.jfr.ValueDefinition(name = "Allocated", description = "-1 if not measured", contentType = com.oracle.jrockit.jfr.ContentType.Bytes) public long allocatedBytes;
+
+        @Override
+        public void setPhase(String phase) {
+            this.phase = phase;
+        }
+
+        @Override
+        public void setThread(String thread) {
+            this.thread = thread;
+        }
+
+        @Override
+        public void setDepth(int depth) {
+            this.depth = depth;
+        }
+
+        @Override
+        public void setStartNanos(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void setDurationNanos(long durationNanos) {
+            this.durationNanos = durationNanos;
+        }
+
+        @Override
+        public void setAllocatedBytes(long allocatedBytes) {
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot.test;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import jdk.vm.ci.meta.Assumptions;
+import jdk.vm.ci.meta.Assumptions.Assumption;
+import jdk.vm.ci.meta.MetaAccessProvider;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.ResolvedJavaType;
+
+/**
+ * Measures recording the assumptions of an inlining heavy compilation, in which the same
+ * assumption is recorded many times, and retrieving them as the array passed to the VM when the
+ * code is installed. The {@link #hashSet} benchmark records the assumptions the way
+ * {@link Assumptions} did before it stopped allocating an {@link Assumption} per recording. Run
+ * with {@code -prof gc} to compare the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-XX:+UnlockExperimentalVMOptions", "-XX:+EnableJVMCI"})
+public class AssumptionsBenchmark {
+
+    private static final Class<?>[] RECEIVERS = {ArrayList.class, HashMap.class, String.class, StringBuilder.class, Thread.class, Object.class};
+
+    /**
+     * The number of times each distinct assumption is recorded.
+     */
+    @Param({"1", "10", "100"}) public int duplicates;
+
+    private ResolvedJavaType[] types;
+    private ResolvedJavaMethod[] methods;
+    private ResolvedJavaType abstractList;
+    private ResolvedJavaType arrayList;
+    private ResolvedJavaType abstractMap;
+    private ResolvedJavaType hashMap;
+
+    @Setup
+    public void setup() {
+        MetaAccessProvider metaAccess = HotSpotJVMCIRuntime.runtime().getHostJVMCIBackend().getMetaAccess();
+        types = new ResolvedJavaType[RECEIVERS.length];
+        ArrayList<ResolvedJavaMethod> list = new ArrayList<>();
+        for (int i = 0; i < RECEIVERS.length; i++) {
+            types[i] = metaAccess.lookupJavaType(RECEIVERS[i]);
+            for (ResolvedJavaMethod m : types[i].getDeclaredMethods()) {
+                if (!m.isStatic() && !m.isAbstract()) {
+                    list.add(m);
+                }
+            }
+        }
+        methods = list.toArray(new ResolvedJavaMethod[list.size()]);
+        abstractList = metaAccess.lookupJavaType(AbstractList.class);
+        arrayList = metaAccess.lookupJavaType(ArrayList.class);
+        abstractMap = metaAccess.lookupJavaType(AbstractMap.class);
+        hashMap = metaAccess.lookupJavaType(HashMap.class);
+    }
+
+    @Benchmark
+    public Assumption[] assumptions() {
+        Assumptions assumptions = new Assumptions();
+        for (int d = 0; d < duplicates; d++) {
+            for (ResolvedJavaType type : types) {
+                assumptions.recordNoFinalizableSubclassAssumption(type);
+            }
+            assumptions.recordConcreteSubtype(abstractList, arrayList);
+            assumptions.recordConcreteSubtype(abstractMap, hashMap);
+            for (ResolvedJavaMethod method : methods) {
+                assumptions.recordConcreteMethod(method, method.getDeclaringClass(), method);
+            }
+        }
+        return assumptions.toArray();
+    }
+
+    @Benchmark
+    public Assumption[] hashSet() {
+        HashSet<Assumption> assumptions = new HashSet<>();
+        for (int d = 0; d < duplicates; d++) {
+            for (ResolvedJavaType type : types) {
+                assumptions.add(new Assumptions.NoFinalizableSubclass(type));
+            }
+            assumptions.add(new Assumptions.ConcreteSubtype(abstractList, arrayList));
+            assumptions.add(new Assumptions.ConcreteSubtype(abstractMap, hashMap));
+            for (ResolvedJavaMethod method : methods) {
+                assumptions.add(new Assumptions.ConcreteMethod(method, method.getDeclaringClass(), method));
+            }
+        }
+        return assumptions.toArray(new Assumption[assumptions.size()]);
+    }
+}
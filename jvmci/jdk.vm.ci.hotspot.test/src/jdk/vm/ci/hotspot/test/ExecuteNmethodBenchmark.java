@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot.test;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jdk.vm.ci.code.InvalidInstalledCodeException;
+import jdk.vm.ci.hotspot.HotSpotNmethod;
+
+/**
+ * Compares executing an installed nmethod via {@link HotSpotNmethod#executeVarargs} with the
+ * arity specialized {@link HotSpotNmethod#executeLong(long, long)} and
+ * {@link HotSpotNmethod#executeObject(Object)}.
+ * <p>
+ * The installed code is hand assembled and relies on the Java calling convention used by HotSpot
+ * on AMD64 platforms other than Windows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-XX:+UnlockExperimentalVMOptions", "-XX:+EnableJVMCI"})
+public class ExecuteNmethodBenchmark {
+
+    /**
+     * {@code lea rax, [rsi + rdx]; ret}.
+     */
+    private static final byte[] ADD_CODE = {0x48, (byte) 0x8D, 0x04, 0x16, (byte) 0xC3};
+
+    /**
+     * {@code mov rax, rsi; ret}.
+     */
+    private static final byte[] IDENTITY_CODE = {0x48, (byte) 0x8B, (byte) 0xC6, (byte) 0xC3};
+
+    static long add(long a, long b) {
+        return a + b;
+    }
+
+    static Object identity(Object o) {
+        return o;
+    }
+
+    private HotSpotNmethod addNmethod;
+    private HotSpotNmethod identityNmethod;
+
+    private long a = 17;
+    private long b = 25;
+    private Object o = "object";
+
+    @Setup
+    public void setup() throws Exception {
+        if (!HandAssembledNmethod.isSupported()) {
+            throw new IllegalStateException("Benchmark requires AMD64 on a platform other than Windows");
+        }
+        addNmethod = HandAssembledNmethod.install(ExecuteNmethodBenchmark.class.getDeclaredMethod("add", long.class, long.class), ADD_CODE);
+        identityNmethod = HandAssembledNmethod.install(ExecuteNmethodBenchmark.class.getDeclaredMethod("identity", Object.class), IDENTITY_CODE);
+        if (addNmethod.executeLong(a, b) != add(a, b) || identityNmethod.executeObject(o) != o) {
+            throw new IllegalStateException("Installed code computes wrong result");
+        }
+    }
+
+    @Benchmark
+    public long executeVarargsLong() throws InvalidInstalledCodeException {
+        return (Long) addNmethod.executeVarargs(a, b);
+    }
+
+    @Benchmark
+    public long executeLong() throws InvalidInstalledCodeException {
+        return addNmethod.executeLong(a, b);
+    }
+
+    @Benchmark
+    public Object executeVarargsObject() throws InvalidInstalledCodeException {
+        return identityNmethod.executeVarargs(o);
+    }
+
+    @Benchmark
+    public Object executeObject() throws InvalidInstalledCodeException {
+        return identityNmethod.executeObject(o);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot.test;
+
+import java.lang.reflect.Array;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import jdk.vm.ci.hotspot.HotSpotConstantReflectionProvider;
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import jdk.vm.ci.hotspot.HotSpotMemoryAccessProvider;
+import jdk.vm.ci.hotspot.HotSpotVMConfigAccess;
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.runtime.JVMCIBackend;
+
+/**
+ * Measures the throughput of materializing JVMCI types from klass pointers as the number of
+ * concurrent threads grows. Reading the klass pointer in the header of an object with
+ * {@link HotSpotMemoryAccessProvider#readKlassPointerConstant} is used as the driver since the VM
+ * answers every such read by looking up the type with
+ * {@code HotSpotResolvedObjectTypeImpl.fromMetaspace}. Unlike most type queries, the result of
+ * this read is not cached by the type.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-XX:+UnlockExperimentalVMOptions", "-XX:+EnableJVMCI"})
+public class FromMetaspaceBenchmark {
+
+    private static final Class<?>[] ARRAY_CLASSES = {
+                    Object[].class,
+                    String[].class,
+                    Class[].class,
+                    Thread[].class,
+                    Integer[].class,
+                    Long[].class,
+                    Runnable[].class,
+                    Number[].class,
+                    CharSequence[].class,
+                    StringBuilder[].class,
+                    Throwable[].class,
+                    Exception[].class,
+                    ClassLoader[].class,
+                    Object[][].class,
+                    String[][].class,
+                    FromMetaspaceBenchmark[].class
+    };
+
+    private HotSpotMemoryAccessProvider memoryAccess;
+    private JavaConstant[] arrays;
+    private long hubOffset;
+    private boolean compressedClassPointers;
+
+    @Setup
+    public void setup() {
+        JVMCIBackend backend = HotSpotJVMCIRuntime.runtime().getHostJVMCIBackend();
+        HotSpotConstantReflectionProvider constantReflection = (HotSpotConstantReflectionProvider) backend.getConstantReflection();
+        memoryAccess = (HotSpotMemoryAccessProvider) constantReflection.getMemoryAccessProvider();
+        HotSpotVMConfigAccess config = new HotSpotVMConfigAccess(HotSpotJVMCIRuntime.runtime().getConfigStore());
+        hubOffset = config.getFieldOffset("oopDesc::_metadata._klass", Integer.class, "Klass*");
+        compressedClassPointers = config.getFlag("UseCompressedClassPointers", Boolean.class);
+        arrays = new JavaConstant[ARRAY_CLASSES.length];
+        for (int i = 0; i < ARRAY_CLASSES.length; i++) {
+            arrays[i] = constantReflection.forObject(Array.newInstance(ARRAY_CLASSES[i].getComponentType(), 0));
+        }
+    }
+
+    private void lookup(Blackhole bh) {
+        for (JavaConstant array : arrays) {
+            if (compressedClassPointers) {
+                bh.consume(memoryAccess.readNarrowKlassPointerConstant(array, hubOffset));
+            } else {
+                bh.consume(memoryAccess.readKlassPointerConstant(array, hubOffset));
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void lookup1(Blackhole bh) {
+        lookup(bh);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public void lookup2(Blackhole bh) {
+        lookup(bh);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void lookup4(Blackhole bh) {
+        lookup(bh);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void lookup8(Blackhole bh) {
+        lookup(bh);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void lookup16(Blackhole bh) {
+        lookup(bh);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot.test;
+
+import java.lang.reflect.Method;
+
+import jdk.vm.ci.code.site.DataPatch;
+import jdk.vm.ci.code.site.Mark;
+import jdk.vm.ci.code.site.Site;
+import jdk.vm.ci.hotspot.HotSpotCompiledCode.Comment;
+import jdk.vm.ci.hotspot.HotSpotCompiledNmethod;
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import jdk.vm.ci.hotspot.HotSpotNmethod;
+import jdk.vm.ci.hotspot.HotSpotResolvedJavaMethod;
+import jdk.vm.ci.hotspot.HotSpotVMConfigAccess;
+import jdk.vm.ci.meta.Assumptions.Assumption;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.runtime.JVMCIBackend;
+import jdk.vm.ci.runtime.JVMCICompiler;
+
+/**
+ * Installs hand assembled machine code as an nmethod for a Java method. The code is entered at
+ * offset 0 and must not need any relocations, frame information or debug info. Code that reads
+ * its arguments relies on the Java calling convention used by HotSpot on AMD64 platforms other
+ * than Windows, where the first argument is in {@code rsi} and the current thread in {@code r15}.
+ */
+final class HandAssembledNmethod {
+
+    private HandAssembledNmethod() {
+    }
+
+    /**
+     * Determines if the current platform uses the calling convention assumed by the hand assembled
+     * code.
+     */
+    static boolean isSupported() {
+        String arch = HotSpotJVMCIRuntime.runtime().getHostJVMCIBackend().getTarget().arch.getName();
+        return arch.equals("AMD64") && !System.getProperty("os.name").startsWith("Windows");
+    }
+
+    /**
+     * Installs {@code code} as the compiled code of {@code javaMethod}.
+     */
+    static HotSpotNmethod install(Method javaMethod, byte[] code) {
+        JVMCIBackend backend = HotSpotJVMCIRuntime.runtime().getHostJVMCIBackend();
+        ResolvedJavaMethod method = backend.getMetaAccess().lookupJavaMethod(javaMethod);
+        HotSpotVMConfigAccess config = new HotSpotVMConfigAccess(HotSpotJVMCIRuntime.runtime().getConfigStore());
+        int verifiedEntry = config.getConstant("CodeInstaller::VERIFIED_ENTRY", Integer.class);
+        Site[] sites = {new Mark(0, verifiedEntry)};
+        HotSpotCompiledNmethod compiled = new HotSpotCompiledNmethod(javaMethod.getName(), code, code.length, sites, new Assumption[0], new ResolvedJavaMethod[]{method}, new Comment[0], new byte[0], 1,
+                        new DataPatch[0], false, backend.getTarget().wordSize, null, (HotSpotResolvedJavaMethod) method, JVMCICompiler.INVOCATION_ENTRY_BCI, -1, 0L, false);
+        return (HotSpotNmethod) backend.getCodeCache().addCode(method, compiled, null, null);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot.test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime.OutputBufferScope;
+
+/**
+ * Measures the cost of writing the log output of a simulated compilation to
+ * {@link HotSpotJVMCIRuntime#getLogStream()} with and without
+ * {@linkplain HotSpotJVMCIRuntime#bufferOutput() buffering}. The number of transitions into the
+ * VM made per compilation is reported as the {@code transitions} secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-XX:+UnlockExperimentalVMOptions", "-XX:+EnableJVMCI", "-XX:+UnlockDiagnosticVMOptions", "-XX:-DisplayVMOutput"})
+public class LogStreamBenchmark {
+
+    /**
+     * Number of log lines written per simulated compilation.
+     */
+    private static final int LINES = 200;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Transitions {
+        public long transitions;
+    }
+
+    private HotSpotJVMCIRuntime runtime;
+    private OutputStream log;
+    private byte[][] lines;
+
+    @Setup
+    public void setup() {
+        runtime = HotSpotJVMCIRuntime.runtime();
+        log = runtime.getLogStream();
+        lines = new byte[LINES][];
+        for (int i = 0; i < LINES; i++) {
+            lines[i] = ("[" + i + "] node " + (i * 31) + " canonicalized").getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private void compile() throws IOException {
+        for (byte[] line : lines) {
+            log.write(line);
+            log.write('\n');
+        }
+    }
+
+    private long transitions() {
+        return runtime.getOutputStatistics()[1];
+    }
+
+    @Benchmark
+    public void unbuffered(Transitions counters) throws IOException {
+        long start = transitions();
+        compile();
+        counters.transitions += transitions() - start;
+    }
+
+    @Benchmark
+    public void buffered(Transitions counters) throws IOException {
+        long start = transitions();
+        try (OutputBufferScope scope = runtime.bufferOutput()) {
+            compile();
+        }
+        counters.transitions += transitions() - start;
+    }
+}
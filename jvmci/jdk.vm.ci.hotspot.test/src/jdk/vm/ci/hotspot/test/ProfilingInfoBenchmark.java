@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import jdk.vm.ci.hotspot.HotSpotResolvedJavaMethod;
+import jdk.vm.ci.meta.MetaAccessProvider;
+import jdk.vm.ci.meta.ProfilingInfo;
+
+/**
+ * Measures the cost of querying the profile of every BCI of a method in random order, as done by
+ * a graph builder, for methods of increasing size. Each invocation creates a new
+ * {@link ProfilingInfo} view of the same {@code MethodData}, either reading the live profile or a
+ * snapshot of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-XX:+UnlockExperimentalVMOptions", "-XX:+EnableJVMCI"})
+public class ProfilingInfoBenchmark {
+
+    /**
+     * The number of branches in the profiled method.
+     */
+    @Param({"4", "32", "256"}) public int branches;
+
+    private HotSpotResolvedJavaMethod method;
+    private int[] bcis;
+
+    /**
+     * Consumes the results of executing the profiled method.
+     */
+    int sink;
+
+    @Setup
+    public void setup() throws Exception {
+        String name = ProfilingInfoBenchmark.class.getName() + "$Branches" + branches;
+        Class<?> c = new BranchesLoader().define(name, generateBranches(name, branches));
+        Method javaMethod = c.getDeclaredMethod("branches", int.class);
+        MetaAccessProvider metaAccess = HotSpotJVMCIRuntime.runtime().getHostJVMCIBackend().getMetaAccess();
+        method = (HotSpotResolvedJavaMethod) metaAccess.lookupJavaMethod(javaMethod);
+
+        // Execute the method enough for the VM to allocate a MethodData for it
+        int sum = 0;
+        for (int i = 0; i < 20000; i++) {
+            sum += (Integer) javaMethod.invoke(null, i);
+        }
+        sink = sum;
+
+        bcis = new int[method.getCodeSize()];
+        for (int i = 0; i < bcis.length; i++) {
+            bcis[i] = i;
+        }
+        Random random = new Random(42);
+        for (int i = bcis.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = bcis[i];
+            bcis[i] = bcis[j];
+            bcis[j] = tmp;
+        }
+    }
+
+    @Benchmark
+    public void queryAll(Blackhole bh) {
+        query(method.getProfilingInfo(), bh);
+    }
+
+    @Benchmark
+    public void queryAllSnapshot(Blackhole bh) {
+        query(method.getProfilingInfo(true, true, true), bh);
+    }
+
+    private void query(ProfilingInfo info, Blackhole bh) {
+        for (int bci : bcis) {
+            bh.consume(info.getExceptionSeen(bci));
+            bh.consume(info.getNullSeen(bci));
+        }
+    }
+
+    /**
+     * Loads the class defined by {@link #generateBranches}.
+     */
+    static final class BranchesLoader extends ClassLoader {
+        Class<?> define(String name, byte[] classFile) {
+            return defineClass(name, classFile, 0, classFile.length);
+        }
+    }
+
+    /**
+     * Generates a class file for a class {@code name} declaring the method
+     * {@code static int branches(int x)} whose body is {@code count} times
+     * {@code x = (x & mask) != 0 ? x * 3 + 1 : x >>> 1} with varying masks, followed by
+     * {@code return x}. Each of the conditional branches gets its own profile entry. The class file
+     * version predates stack maps so none need to be generated.
+     */
+    static byte[] generateBranches(String name, int count) {
+        ByteArrayOutputStream code = new ByteArrayOutputStream();
+        for (int i = 0; i < count; i++) {
+            int mask = 1 << (i % 15);
+            code.write(0x1a); // iload_0
+            code.write(0x11); // sipush mask
+            code.write(mask >>> 8);
+            code.write(mask);
+            code.write(0x7e); // iand
+            code.write(0x99); // ifeq +12
+            code.write(0);
+            code.write(12);
+            code.write(0x1a); // iload_0
+            code.write(0x06); // iconst_3
+            code.write(0x68); // imul
+            code.write(0x04); // iconst_1
+            code.write(0x60); // iadd
+            code.write(0x3b); // istore_0
+            code.write(0xa7); // goto +7
+            code.write(0);
+            code.write(7);
+            code.write(0x1a); // iload_0
+            code.write(0x04); // iconst_1
+            code.write(0x7c); // iushr
+            code.write(0x3b); // istore_0
+        }
+        code.write(0x1a); // iload_0
+        code.write(0xac); // ireturn
+
+        try {
+            ByteArrayOutputStream classFile = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(classFile);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0); // minor version
+            out.writeShort(49); // major version
+            out.writeShort(8); // constant pool count
+            out.writeByte(1); // #1 = Utf8
+            out.writeUTF(name.replace('.', '/'));
+            out.writeByte(7); // #2 = Class #1
+            out.writeShort(1);
+            out.writeByte(1); // #3 = Utf8
+            out.writeUTF("java/lang/Object");
+            out.writeByte(7); // #4 = Class #3
+            out.writeShort(3);
+            out.writeByte(1); // #5 = Utf8
+            out.writeUTF("branches");
+            out.writeByte(1); // #6 = Utf8
+            out.writeUTF("(I)I");
+            out.writeByte(1); // #7 = Utf8
+            out.writeUTF("Code");
+            out.writeShort(Modifier.PUBLIC | 0x20 /* ACC_SUPER */);
+            out.writeShort(2); // this class
+            out.writeShort(4); // super class
+            out.writeShort(0); // interfaces
+            out.writeShort(0); // fields
+            out.writeShort(1); // methods
+            out.writeShort(Modifier.PUBLIC | Modifier.STATIC);
+            out.writeShort(5); // name
+            out.writeShort(6); // descriptor
+            out.writeShort(1); // attributes
+            out.writeShort(7); // Code
+            out.writeInt(12 + code.size());
+            out.writeShort(2); // max stack
+            out.writeShort(1); // max locals
+            out.writeInt(code.size());
+            code.writeTo(out);
+            out.writeShort(0); // exception table
+            out.writeShort(0); // attributes
+            out.writeShort(0); // class attributes
+            out.flush();
+            return classFile.toByteArray();
+        } catch (IOException e) {
+            throw new InternalError(e);
+        }
+    }
+}
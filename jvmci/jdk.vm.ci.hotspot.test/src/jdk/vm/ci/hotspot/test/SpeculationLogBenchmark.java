@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot.test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import jdk.vm.ci.hotspot.HotSpotSpeculationLog;
+import jdk.vm.ci.meta.SpeculationLog.SpeculationReason;
+import jdk.vm.ci.meta.SpeculationLog.SpeculationReasonEncoding;
+
+/**
+ * Measures the cost of querying and making speculations in a {@link HotSpotSpeculationLog} as
+ * the number of failed speculations grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-XX:+UnlockExperimentalVMOptions", "-XX:+EnableJVMCI"})
+public class SpeculationLogBenchmark {
+
+    /**
+     * Number of speculations queried or made per benchmark invocation.
+     */
+    private static final int QUERIES = 64;
+
+    static final class Reason implements SpeculationReason {
+
+        final String name;
+        final int bci;
+
+        Reason(String name, int bci) {
+            this.name = name;
+            this.bci = bci;
+        }
+
+        @Override
+        public SpeculationReasonEncoding encode(Supplier<SpeculationReasonEncoding> encodingSupplier) {
+            SpeculationReasonEncoding encoding = encodingSupplier.get();
+            encoding.addString(name);
+            encoding.addInt(bci);
+            return encoding;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Reason) {
+                Reason that = (Reason) obj;
+                return this.name.equals(that.name) && this.bci == that.bci;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode() * 31 + bci;
+        }
+
+        @Override
+        public String toString() {
+            return name + "@" + bci;
+        }
+    }
+
+    @Param({"1", "100", "1000"}) public int failures;
+
+    private HotSpotSpeculationLog log;
+
+    /**
+     * Reasons queried by the benchmarks. Half of them have failed.
+     */
+    private Reason[] reasons;
+
+    @Setup
+    public void setup() {
+        log = new HotSpotSpeculationLog();
+        for (int i = 0; i < failures; i++) {
+            if (!log.addFailedSpeculation(log.speculate(new Reason("failed", i)))) {
+                throw new IllegalStateException("could not add failed speculation " + i);
+            }
+        }
+        log.collectFailedSpeculations();
+        reasons = new Reason[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            reasons[i] = i % 2 == 0 ? new Reason("failed", (i * 7919) % failures) : new Reason("active", i);
+        }
+    }
+
+    @Benchmark
+    public void maySpeculate(Blackhole bh) {
+        for (Reason reason : reasons) {
+            bh.consume(log.maySpeculate(reason));
+        }
+    }
+
+    @Benchmark
+    public void speculate(Blackhole bh) {
+        for (Reason reason : reasons) {
+            bh.consume(log.speculate(reason));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot.test;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import jdk.vm.ci.hotspot.HotSpotFrameBuffer;
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import jdk.vm.ci.hotspot.HotSpotStackIntrospection;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Measures the cost of walking all frames of a stack of the given depth with a
+ * {@link jdk.vm.ci.code.stack.InspectedFrameVisitor} compared to walking them in batches with a
+ * {@link HotSpotFrameBuffer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-XX:+UnlockExperimentalVMOptions", "-XX:+EnableJVMCI"})
+public class StackWalkBenchmark {
+
+    @Param({"10", "100", "1000"}) public int depth;
+
+    private HotSpotStackIntrospection introspection;
+    private ResolvedJavaMethod[] recurse;
+    private final HotSpotFrameBuffer buffer = new HotSpotFrameBuffer(64);
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        HotSpotJVMCIRuntime runtime = HotSpotJVMCIRuntime.runtime();
+        introspection = (HotSpotStackIntrospection) runtime.getHostJVMCIBackend().getStackIntrospection();
+        recurse = new ResolvedJavaMethod[]{runtime.getHostJVMCIBackend().getMetaAccess().lookupJavaMethod(
+                        StackWalkBenchmark.class.getDeclaredMethod("recurse", int.class, boolean.class, Blackhole.class))};
+    }
+
+    private int recurse(int n, boolean buffered, Blackhole bh) {
+        if (n > 0) {
+            return recurse(n - 1, buffered, bh) + 1;
+        }
+        int frames = 0;
+        if (buffered) {
+            for (int size = introspection.iterateFrames(recurse, 0, buffer); size != 0; size = introspection.nextFrames(buffer)) {
+                for (int i = 0; i < size; i++) {
+                    bh.consume(buffer.getMethod(i));
+                    bh.consume(buffer.getBytecodeIndex(i));
+                }
+                frames += size;
+            }
+        } else {
+            int[] count = {0};
+            introspection.iterateFrames(recurse, recurse, 0, frame -> {
+                bh.consume(frame.getMethod());
+                bh.consume(frame.getBytecodeIndex());
+                count[0]++;
+                return null;
+            });
+            frames = count[0];
+        }
+        return frames;
+    }
+
+    @Benchmark
+    public int visitor(Blackhole bh) {
+        return recurse(depth, false, bh);
+    }
+
+    @Benchmark
+    public int buffered(Blackhole bh) {
+        return recurse(depth, true, bh);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot.test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Support for running a Java main class in a subprocess that uses the same VM, VM options and
+ * class path as the current process.
+ */
+final class Subprocess {
+
+    private Subprocess() {
+    }
+
+    /**
+     * The exit code and lines of output (stdout and stderr interleaved) of a subprocess.
+     */
+    static final class Result {
+        final int exitCode;
+        final List<String> output;
+
+        Result(int exitCode, List<String> output) {
+            this.exitCode = exitCode;
+            this.output = output;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("exit code ").append(exitCode);
+            for (String line : output) {
+                sb.append(System.lineSeparator()).append(line);
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Gets the VM options of the current process minus those that would interfere with running
+     * a second VM, such as a debugger agent listening on a fixed port.
+     */
+    private static List<String> getVMOptions() {
+        List<String> options = new ArrayList<>();
+        for (String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (option.startsWith("-agentlib:jdwp") || option.startsWith("-Xrunjdwp") || option.startsWith("-Xdebug")) {
+                continue;
+            }
+            options.add(option);
+        }
+        return options;
+    }
+
+    /**
+     * Runs {@code mainClass} in a subprocess with the VM options of the current process followed
+     * by {@code extraVMOptions}.
+     */
+    static Result java(List<String> extraVMOptions, Class<?> mainClass, String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(getVMOptions());
+        command.addAll(extraVMOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(mainClass.getName());
+        command.addAll(Arrays.asList(args));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String> output = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                output.add(line);
+            }
+        }
+        return new Result(process.waitFor(), output);
+    }
+}
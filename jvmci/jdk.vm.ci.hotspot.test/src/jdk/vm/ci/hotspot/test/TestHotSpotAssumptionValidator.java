@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import jdk.vm.ci.code.CodeCacheProvider;
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import jdk.vm.ci.meta.Assumptions;
+import jdk.vm.ci.meta.Assumptions.ConcreteSubtype;
+import jdk.vm.ci.meta.Assumptions.LeafType;
+import jdk.vm.ci.meta.MetaAccessProvider;
+import jdk.vm.ci.meta.ResolvedJavaType;
+import jdk.vm.ci.runtime.JVMCIBackend;
+
+/**
+ * Tests {@link CodeCacheProvider#validateAssumptions} on HotSpot.
+ */
+public class TestHotSpotAssumptionValidator {
+
+    abstract static class Base {
+    }
+
+    static class OnlyImpl extends Base {
+    }
+
+    /**
+     * Only loaded by {@link #loadSubclassTest()}. It is never referenced by a class literal so that
+     * it is not loaded before.
+     */
+    static class LateSubclass extends OnlyImpl {
+    }
+
+    private static final JVMCIBackend backend = HotSpotJVMCIRuntime.runtime().getHostJVMCIBackend();
+
+    /**
+     * Gets the changes of the counters returned by
+     * {@link HotSpotJVMCIRuntime#getAssumptionValidationCounters()} since {@code before}.
+     */
+    private static long[] counterDeltas(long[] before) {
+        long[] after = HotSpotJVMCIRuntime.runtime().getAssumptionValidationCounters();
+        long[] deltas = new long[after.length];
+        for (int i = 0; i < after.length; i++) {
+            deltas[i] = after[i] - before[i];
+        }
+        return deltas;
+    }
+
+    private static Assumptions hierarchyAssumptions() {
+        MetaAccessProvider metaAccess = backend.getMetaAccess();
+        ResolvedJavaType base = metaAccess.lookupJavaType(Base.class);
+        ResolvedJavaType onlyImpl = metaAccess.lookupJavaType(OnlyImpl.class);
+        Assumptions assumptions = new Assumptions();
+        assumptions.record(new ConcreteSubtype(base, onlyImpl));
+        assumptions.record(new LeafType(onlyImpl));
+        return assumptions;
+    }
+
+    /**
+     * Checks that validating assumptions that have been validated before does not call into the
+     * VM, unless another thread modified the class hierarchy in between.
+     */
+    @Test
+    public void unchangedTest() {
+        CodeCacheProvider codeCache = backend.getCodeCache();
+        for (int attempt = 0;; attempt++) {
+            Assumptions assumptions = hierarchyAssumptions();
+            long[] before = HotSpotJVMCIRuntime.runtime().getAssumptionValidationCounters();
+            Assert.assertTrue(codeCache.validateAssumptions(assumptions));
+            Assert.assertTrue(codeCache.validateAssumptions(assumptions));
+            long[] deltas = counterDeltas(before);
+            if (deltas[0] == 0 && attempt < 10) {
+                // A class loaded concurrently forced the second validation into the VM
+                continue;
+            }
+            Assert.assertEquals("unchanged", 1, deltas[0]);
+            Assert.assertEquals("checked", 1, deltas[1]);
+            Assert.assertEquals("failed", 0, deltas[2]);
+            break;
+        }
+    }
+
+    /**
+     * Checks that loading a class that invalidates a validated assumption makes the next
+     * validation fail.
+     */
+    @Test
+    public void loadSubclassTest() throws ClassNotFoundException {
+        CodeCacheProvider codeCache = backend.getCodeCache();
+        Assumptions assumptions = hierarchyAssumptions();
+        Assert.assertTrue(codeCache.validateAssumptions(assumptions));
+
+        Class.forName(TestHotSpotAssumptionValidator.class.getName() + "$LateSubclass");
+
+        long[] before = HotSpotJVMCIRuntime.runtime().getAssumptionValidationCounters();
+        Assert.assertFalse(codeCache.validateAssumptions(assumptions));
+        long[] deltas = counterDeltas(before);
+        Assert.assertEquals("checked", 1, deltas[1]);
+        Assert.assertEquals("failed", 1, deltas[2]);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import jdk.vm.ci.hotspot.HotSpotCounters;
+import jdk.vm.ci.hotspot.HotSpotCounters.Exporter;
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import jdk.vm.ci.hotspot.HotSpotNmethod;
+import jdk.vm.ci.hotspot.HotSpotVMConfigAccess;
+
+/**
+ * Tests {@link HotSpotCounters}. The counters are incremented by hand assembled code that relies
+ * on the Java calling convention used by HotSpot on AMD64 platforms other than Windows.
+ */
+public class TestHotSpotCounters {
+
+    static void increment(long n) {
+        throw new UnsupportedOperationException("replaced by installed code");
+    }
+
+    /**
+     * Installs code for {@link #increment(long)} that adds its argument to the counter at
+     * {@code index} of the current thread.
+     */
+    private static HotSpotNmethod installIncrement(int index) throws Exception {
+        Assume.assumeTrue(HandAssembledNmethod.isSupported());
+
+        HotSpotVMConfigAccess config = new HotSpotVMConfigAccess(HotSpotJVMCIRuntime.runtime().getConfigStore());
+        int countersOffset = config.getFieldOffset("JavaThread::_jvmci_counters", Integer.class, "jlong*", null);
+        ByteBuffer code = ByteBuffer.allocate(15).order(ByteOrder.LITTLE_ENDIAN);
+        // mov rax, [r15 + countersOffset]
+        code.put((byte) 0x49).put((byte) 0x8B).put((byte) 0x87).putInt(countersOffset);
+        // add [rax + index * 8], rsi
+        code.put((byte) 0x48).put((byte) 0x01).put((byte) 0xB0).putInt(index * 8);
+        // ret
+        code.put((byte) 0xC3);
+        return HandAssembledNmethod.install(TestHotSpotCounters.class.getDeclaredMethod("increment", long.class), code.array());
+    }
+
+    private static long readUnsigned(DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Decodes the output of an {@link Exporter} and sums up the changes of the counter at
+     * {@code index} over all samples.
+     */
+    private static long sumDeltas(byte[] exported, int index) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(exported));
+        Assert.assertEquals(Exporter.MAGIC, in.readInt());
+        Assert.assertEquals(Exporter.VERSION, in.readInt());
+        long sum = 0;
+        int samples = 0;
+        while (in.available() > 0) {
+            byte tag = in.readByte();
+            if (tag == Exporter.GROUP_RECORD) {
+                readUnsigned(in);
+                long size = readUnsigned(in);
+                in.readUTF();
+                for (long i = 0; i < size; i++) {
+                    in.readUTF();
+                }
+            } else {
+                Assert.assertEquals(Exporter.SAMPLE_RECORD, tag);
+                readUnsigned(in);
+                long count = readUnsigned(in);
+                for (long i = 0; i < count; i++) {
+                    long zigzag = readUnsigned(in);
+                    long delta = (zigzag >>> 1) ^ -(zigzag & 1);
+                    if (i == index) {
+                        sum += delta;
+                    }
+                }
+                samples++;
+            }
+        }
+        Assert.assertTrue("no samples exported", samples > 0);
+        return sum;
+    }
+
+    /**
+     * Checks that the samples written by an exporter only include the changes made after it was
+     * started.
+     */
+    @Test
+    public void exporterBaselineTest() throws Exception {
+        HotSpotCounters counters = HotSpotJVMCIRuntime.runtime().getCounters();
+        int index = counters.register("TestHotSpotCounters.exporterBaselineTest", "increments").getIndex(0);
+        HotSpotNmethod increment = installIncrement(index);
+        increment.executeLong(1000);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Exporter exporter = counters.startExporter(out, 10);
+        // The header is written once the baseline has been established
+        while (out.size() < 8) {
+            Thread.sleep(1);
+        }
+        increment.executeLong(3);
+        increment.executeLong(4);
+        exporter.close();
+
+        Assert.assertEquals(7, sumDeltas(out.toByteArray(), index));
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import jdk.vm.ci.code.stack.InspectedFrame;
+import jdk.vm.ci.hotspot.HotSpotFrameBuffer;
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import jdk.vm.ci.hotspot.HotSpotStackFrameReference;
+import jdk.vm.ci.hotspot.HotSpotStackIntrospection;
+import jdk.vm.ci.meta.MetaAccessProvider;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.runtime.JVMCIBackend;
+
+/**
+ * Tests walking the stack in batches with a {@link HotSpotFrameBuffer} against walking it with
+ * an {@link jdk.vm.ci.code.stack.InspectedFrameVisitor}. The frames walked are
+ * {@link #recurse(int)} frames, each with {@link #level1(int, Box)} and
+ * {@link #level2(int, Box)} frames that are inlined once the code is compiled.
+ */
+public class TestHotSpotFrameBuffer {
+
+    /**
+     * A buffer much smaller than the number of walked frames so that the walk is resumed several
+     * times, including in the middle of a physical frame.
+     */
+    private static final int CAPACITY = 4;
+
+    private static final int DEPTH = 5;
+
+    /**
+     * Allocated by each {@link #recurse(int)} frame and held in local 1 of the frames of that
+     * level. Once compiled with escape analysis, it is a virtual object.
+     */
+    static final class Box {
+        final int depth;
+
+        Box(int depth) {
+            this.depth = depth;
+        }
+    }
+
+    private static final HotSpotStackIntrospection stackIntrospection;
+    private static final ResolvedJavaMethod[] methods;
+
+    static {
+        JVMCIBackend backend = HotSpotJVMCIRuntime.runtime().getHostJVMCIBackend();
+        stackIntrospection = (HotSpotStackIntrospection) backend.getStackIntrospection();
+        MetaAccessProvider metaAccess = backend.getMetaAccess();
+        try {
+            methods = new ResolvedJavaMethod[]{
+                            metaAccess.lookupJavaMethod(TestHotSpotFrameBuffer.class.getDeclaredMethod("recurse", int.class)),
+                            metaAccess.lookupJavaMethod(TestHotSpotFrameBuffer.class.getDeclaredMethod("level1", int.class, Box.class)),
+                            metaAccess.lookupJavaMethod(TestHotSpotFrameBuffer.class.getDeclaredMethod("level2", int.class, Box.class))};
+        } catch (NoSuchMethodException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private final HotSpotFrameBuffer buffer = new HotSpotFrameBuffer(CAPACITY);
+
+    /**
+     * Set once a walk has seen a compiled frame inlined into another frame.
+     */
+    private boolean sawInlinedFrame;
+
+    private int recurse(int depth) {
+        Box box = new Box(depth);
+        return level1(depth, box) + box.depth;
+    }
+
+    private int level1(int depth, Box box) {
+        return level2(depth, box) + box.depth;
+    }
+
+    private int level2(int depth, Box box) {
+        if (depth == 0) {
+            return walk() + box.depth;
+        }
+        return recurse(depth - 1) + box.depth;
+    }
+
+    private int walk() {
+        List<InspectedFrame> expected = new ArrayList<>();
+        stackIntrospection.iterateFrames(methods, methods, 0, frame -> {
+            expected.add(frame);
+            return null;
+        });
+
+        List<InspectedFrame> actual = new ArrayList<>();
+        int batches = 0;
+        for (int size = stackIntrospection.iterateFrames(methods, 0, buffer); size != 0; size = stackIntrospection.nextFrames(buffer)) {
+            Assert.assertTrue(size <= CAPACITY);
+            for (int i = 0; i < size; i++) {
+                int index = actual.size();
+                Assert.assertTrue("too many frames", index < expected.size());
+                InspectedFrame expectedFrame = expected.get(index);
+                Assert.assertEquals(expectedFrame.getMethod(), buffer.getMethod(i));
+                Assert.assertEquals(expectedFrame.getBytecodeIndex(), buffer.getBytecodeIndex(i));
+
+                InspectedFrame frame = buffer.getFrame(i);
+                Assert.assertSame("frame must be cached", frame, buffer.getFrame(i));
+                checkFrame(expectedFrame, frame, buffer.isCompiled(i));
+                if (i > 0) {
+                    checkSharedVirtualObjects(buffer.getFrame(i - 1), frame);
+                }
+                actual.add(frame);
+            }
+            batches++;
+        }
+        Assert.assertEquals(expected.size(), actual.size());
+        Assert.assertEquals(3 * (DEPTH + 1), actual.size());
+        Assert.assertTrue("expected several batches: " + batches, batches > 1);
+        return actual.size();
+    }
+
+    /**
+     * Checks that {@code frame} from the buffer denotes the same frame with the same locals as
+     * {@code expected} from the visitor.
+     */
+    private void checkFrame(InspectedFrame expected, InspectedFrame frame, boolean compiled) {
+        HotSpotStackFrameReference expectedRef = (HotSpotStackFrameReference) expected;
+        HotSpotStackFrameReference ref = (HotSpotStackFrameReference) frame;
+        Assert.assertEquals(expectedRef.getStackPointer(), ref.getStackPointer());
+        Assert.assertEquals(expectedRef.getFrameNumber(), ref.getFrameNumber());
+        Assert.assertEquals(expected.getMethod(), frame.getMethod());
+        Assert.assertEquals(expected.getBytecodeIndex(), frame.getBytecodeIndex());
+        Assert.assertEquals(expected.hasVirtualObjects(), frame.hasVirtualObjects());
+
+        // Only compiled frames have inlined frames or virtual objects
+        if (ref.getFrameNumber() != 0 || frame.hasVirtualObjects()) {
+            Assert.assertTrue("frame must be compiled: " + ref, compiled);
+        }
+        if (ref.getFrameNumber() != 0) {
+            sawInlinedFrame = true;
+        }
+
+        for (int i = 0; i < frame.getMethod().getMaxLocals(); i++) {
+            Assert.assertEquals(expected.isVirtual(i), frame.isVirtual(i));
+            if (frame.isVirtual(i)) {
+                // Both walks reallocate the virtual object
+                Assert.assertNotNull(frame.getLocal(i));
+                Assert.assertEquals(expected.getLocal(i).getClass(), frame.getLocal(i).getClass());
+            } else {
+                Assert.assertSame(expected.getLocal(i), frame.getLocal(i));
+            }
+        }
+    }
+
+    /**
+     * Checks that two frames of the same physical frame that hold the same virtual {@link Box}
+     * get the same reallocated object.
+     */
+    private static void checkSharedVirtualObjects(InspectedFrame caller, InspectedFrame callee) {
+        HotSpotStackFrameReference callerRef = (HotSpotStackFrameReference) caller;
+        HotSpotStackFrameReference calleeRef = (HotSpotStackFrameReference) callee;
+        if (callerRef.getStackPointer() == calleeRef.getStackPointer() && caller.isVirtual(1) && callee.isVirtual(1)) {
+            Box callerBox = (Box) caller.getLocal(1);
+            Box calleeBox = (Box) callee.getLocal(1);
+            if (callerBox.depth == calleeBox.depth) {
+                Assert.assertSame(callerBox, calleeBox);
+            }
+        }
+    }
+
+    @Test
+    public void walkTest() {
+        // Repeat the walk until the frames are compiled with inlining
+        for (int i = 0; i < 10000 && !sawInlinedFrame; i++) {
+            recurse(DEPTH);
+        }
+        Assume.assumeTrue("no inlined frames were walked", sawInlinedFrame);
+    }
+}
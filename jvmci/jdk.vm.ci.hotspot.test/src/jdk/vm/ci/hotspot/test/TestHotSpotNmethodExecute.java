@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot.test;
+
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import jdk.vm.ci.code.InvalidInstalledCodeException;
+import jdk.vm.ci.hotspot.HotSpotNmethod;
+
+/**
+ * Tests the arity specialized {@link HotSpotNmethod#executeLong} and
+ * {@link HotSpotNmethod#executeObject} methods. Except for the tests requiring AMD64, the installed
+ * code is never executed since the arguments are rejected before the call.
+ */
+public class TestHotSpotNmethodExecute {
+
+    /**
+     * {@code mov eax, esi; ret}, i.e. returns the first Java argument on AMD64 platforms other than
+     * Windows.
+     */
+    private static final byte[] RETURN_FIRST_INT_ARG = {(byte) 0x8B, (byte) 0xC6, (byte) 0xC3};
+
+    static int passByte(byte b) {
+        return b;
+    }
+
+    static int passChar(char c) {
+        return c;
+    }
+
+    static int passBoolean(boolean z) {
+        return z ? 1 : 0;
+    }
+
+    static String passString(String s) {
+        return s;
+    }
+
+    Object receiver() {
+        return this;
+    }
+
+    private static HotSpotNmethod install(String name, Class<?>... parameterTypes) throws Exception {
+        return HandAssembledNmethod.install(TestHotSpotNmethodExecute.class.getDeclaredMethod(name, parameterTypes), RETURN_FIRST_INT_ARG);
+    }
+
+    private static void assumeCanExecute() {
+        Assume.assumeTrue(HandAssembledNmethod.isSupported());
+    }
+
+    @Test
+    public void narrowSubwordArgumentsTest() throws Exception {
+        assumeCanExecute();
+        Assert.assertEquals(-1L, install("passByte", byte.class).executeLong(0x1FFL));
+        Assert.assertEquals(0xFFFFL, install("passChar", char.class).executeLong(0x1FFFFL));
+        Assert.assertEquals(1L, install("passBoolean", boolean.class).executeLong(2L));
+        Assert.assertEquals(0L, install("passBoolean", boolean.class).executeLong(0x100000000L));
+    }
+
+    private static void assertIllegalArgument(Executable executable) throws InvalidInstalledCodeException {
+        try {
+            executable.execute();
+            Assert.fail("expected " + IllegalArgumentException.class.getName());
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    interface Executable {
+        void execute() throws InvalidInstalledCodeException;
+    }
+
+    @Test
+    public void signatureMismatchTest() throws Exception {
+        HotSpotNmethod passByte = install("passByte", byte.class);
+        HotSpotNmethod passString = install("passString", String.class);
+        assertIllegalArgument(() -> passByte.executeLong());
+        assertIllegalArgument(() -> passByte.executeLong(1, 2));
+        assertIllegalArgument(() -> passByte.executeObject("string"));
+        assertIllegalArgument(() -> passString.executeObject());
+        assertIllegalArgument(() -> passString.executeObject("string", "string"));
+        assertIllegalArgument(() -> passString.executeLong(1));
+    }
+
+    @Test
+    public void argumentTypeMismatchTest() throws Exception {
+        HotSpotNmethod passString = install("passString", String.class);
+        assertIllegalArgument(() -> passString.executeObject(Integer.valueOf(42)));
+        assertIllegalArgument(() -> passString.executeObject(new Object()));
+    }
+
+    @Test
+    public void receiverTypeMismatchTest() throws Exception {
+        HotSpotNmethod receiver = install("receiver");
+        assertIllegalArgument(() -> receiver.executeObject("not a receiver"));
+        try {
+            receiver.executeObject((Object) null);
+            Assert.fail("expected " + NullPointerException.class.getName());
+        } catch (NullPointerException e) {
+            // expected
+        }
+    }
+}
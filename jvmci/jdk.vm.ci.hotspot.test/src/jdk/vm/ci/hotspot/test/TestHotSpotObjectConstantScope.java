@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot.test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import jdk.vm.ci.hotspot.HotSpotObjectConstant;
+import jdk.vm.ci.hotspot.HotSpotObjectConstantScope;
+import sun.misc.Unsafe;
+
+/**
+ * Tests {@link HotSpotObjectConstantScope}s. Scopes and the foreign object references they manage
+ * only exist in the JVMCI shared library so they are created reflectively here.
+ */
+public class TestHotSpotObjectConstantScope {
+
+    /**
+     * Reflective access to the package-private parts of {@link HotSpotObjectConstantScope}.
+     */
+    static class Scopes {
+        final Constructor<HotSpotObjectConstantScope> newScope;
+        final ThreadLocal<?> current;
+        final Method add;
+        final Method clearForeignObjects;
+        final Class<?> indirectConstantClass;
+        final Field objectHandle;
+
+        Scopes() throws Exception {
+            newScope = HotSpotObjectConstantScope.class.getDeclaredConstructor(Object.class);
+            newScope.setAccessible(true);
+            Field currentField = HotSpotObjectConstantScope.class.getDeclaredField("CURRENT");
+            currentField.setAccessible(true);
+            current = (ThreadLocal<?>) currentField.get(null);
+            indirectConstantClass = Class.forName("jdk.vm.ci.hotspot.IndirectHotSpotObjectConstantImpl");
+            add = HotSpotObjectConstantScope.class.getDeclaredMethod("add", indirectConstantClass);
+            add.setAccessible(true);
+            clearForeignObjects = HotSpotObjectConstantScope.class.getDeclaredMethod("clearForeignObjects");
+            clearForeignObjects.setAccessible(true);
+            objectHandle = indirectConstantClass.getDeclaredField("objectHandle");
+            objectHandle.setAccessible(true);
+        }
+
+        HotSpotObjectConstantScope open(Object description) throws Exception {
+            return newScope.newInstance(description);
+        }
+
+        /**
+         * Creates a foreign object reference with a fake {@code handle} and adds it to
+         * {@code scope}. The constructor is bypassed since it requires a valid handle.
+         */
+        HotSpotObjectConstant addForeignObject(HotSpotObjectConstantScope scope, long handle) throws Exception {
+            Object constant = getUnsafe().allocateInstance(indirectConstantClass);
+            objectHandle.setLong(constant, handle);
+            add.invoke(scope, constant);
+            return (HotSpotObjectConstant) constant;
+        }
+    }
+
+    private static Unsafe getUnsafe() throws Exception {
+        Field theUnsafeField = Unsafe.class.getDeclaredField("theUnsafe");
+        theUnsafeField.setAccessible(true);
+        return (Unsafe) theUnsafeField.get(null);
+    }
+
+    @Test
+    public void nestedScopesTest() throws Exception {
+        Scopes scopes = new Scopes();
+        HotSpotJVMCIRuntime runtime = HotSpotJVMCIRuntime.runtime();
+        long localScopesBefore = runtime.getObjectConstantScopeCounters()[0];
+        int localScopes = 0;
+
+        Random random = new Random(42);
+        ArrayDeque<HotSpotObjectConstantScope> stack = new ArrayDeque<>();
+        for (int i = 0; i < 10000; i++) {
+            if (stack.isEmpty() || (stack.size() < 64 && random.nextInt(3) != 0)) {
+                // Global scopes are only entered from within a local scope
+                boolean global = !stack.isEmpty() && random.nextInt(4) == 0;
+                stack.push(scopes.open(global ? null : "scope" + i));
+                if (!global) {
+                    localScopes++;
+                }
+            } else {
+                HotSpotObjectConstantScope scope = stack.pop();
+                if (!stack.isEmpty()) {
+                    try {
+                        stack.peek().close();
+                        Assert.fail("closing a non-active scope must fail");
+                    } catch (IllegalStateException e) {
+                        // expected
+                    }
+                }
+                scope.close();
+            }
+            Assert.assertSame(stack.peek(), scopes.current.get());
+        }
+        while (!stack.isEmpty()) {
+            stack.pop().close();
+        }
+        Assert.assertNull(scopes.current.get());
+        Assert.assertEquals(localScopesBefore + localScopes, runtime.getObjectConstantScopeCounters()[0]);
+    }
+
+    /**
+     * Tests that the handles of the foreign object references added to a scope are released in
+     * bulk and that the references can no longer be used afterwards. The handles are fake so the
+     * scope is emptied before it is closed to prevent them being passed to the VM.
+     */
+    @Test
+    public void releaseHandlesTest() throws Exception {
+        Scopes scopes = new Scopes();
+        HotSpotJVMCIRuntime runtime = HotSpotJVMCIRuntime.runtime();
+        long[] before = runtime.getObjectConstantScopeCounters();
+
+        String description = "releaseHandlesTest";
+        HotSpotObjectConstantScope scope = scopes.open(description);
+        // More than the initial capacity of the scope's arrays
+        int count = 100;
+        HotSpotObjectConstant[] constants = new HotSpotObjectConstant[count];
+        long[] expectedHandles = new long[count];
+        for (int i = 0; i < count; i++) {
+            expectedHandles[i] = 0x1000 + i * 8;
+            constants[i] = scopes.addForeignObject(scope, expectedHandles[i]);
+        }
+
+        long[] handles = (long[]) scopes.clearForeignObjects.invoke(scope);
+        Assert.assertArrayEquals(expectedHandles, handles);
+        Assert.assertEquals(0, ((long[]) scopes.clearForeignObjects.invoke(scope)).length);
+        scope.close();
+
+        long[] after = runtime.getObjectConstantScopeCounters();
+        Assert.assertEquals(before[0] + 1, after[0]);
+        Assert.assertEquals(before[1] + count, after[1]);
+        Assert.assertTrue(after[2] >= count);
+
+        for (HotSpotObjectConstant constant : constants) {
+            try {
+                constant.getType();
+                Assert.fail("a cleared foreign object reference must not be usable");
+            } catch (NullPointerException e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().contains(description));
+            }
+            try {
+                constant.getIdentityHashCode();
+                Assert.fail("a cleared foreign object reference must not be usable");
+            } catch (NullPointerException e) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot.test;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import jdk.vm.ci.hotspot.HotSpotResolvedJavaMethod;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.ProfilingInfo;
+
+/**
+ * Tests that a snapshot of a profile answers all queries like the live profile it was copied from
+ * as long as the profile does not change, and that it does not observe later changes.
+ */
+public class TestHotSpotProfilingInfoSnapshot {
+
+    private static final int INVOCATIONS = 20000;
+
+    /**
+     * A method with branch, switch, type check, virtual call and exception profiles.
+     */
+    static int profiled(Object o, int i) {
+        int result = 0;
+        if ((i & 3) == 0) {
+            result++;
+        }
+        switch (i % 5) {
+            case 0:
+                result += 2;
+                break;
+            case 1:
+                result += 3;
+                break;
+            case 3:
+                result += 5;
+                break;
+            default:
+                break;
+        }
+        if (o instanceof String) {
+            result += ((String) o).length();
+        }
+        result += o.hashCode() & 1;
+        try {
+            if (i % 1000 == 7) {
+                throw new IllegalStateException();
+            }
+        } catch (IllegalStateException e) {
+            result--;
+        }
+        return result;
+    }
+
+    private static final Object[] RECEIVERS = {"string", Integer.valueOf(42), new Object()};
+
+    private static void run(int invocations) {
+        for (int i = 0; i < invocations; i++) {
+            profiled(RECEIVERS[i % RECEIVERS.length], i);
+        }
+    }
+
+    private static void assertSameAnswers(ProfilingInfo expected, ProfilingInfo actual, int codeSize) {
+        Assert.assertEquals(expected.isMature(), actual.isMature());
+        Assert.assertEquals(expected.getCodeSize(), actual.getCodeSize());
+        Assert.assertArrayEquals(expected.getParameterTypeProfiles(), actual.getParameterTypeProfiles());
+        for (DeoptimizationReason reason : DeoptimizationReason.values()) {
+            Assert.assertEquals(reason.toString(), expected.getDeoptimizationCount(reason), actual.getDeoptimizationCount(reason));
+        }
+        for (int bci = 0; bci < codeSize; bci++) {
+            String msg = "bci " + bci;
+            Assert.assertEquals(msg, Double.valueOf(expected.getBranchTakenProbability(bci)), Double.valueOf(actual.getBranchTakenProbability(bci)));
+            Assert.assertTrue(msg, Arrays.equals(expected.getSwitchProbabilities(bci), actual.getSwitchProbabilities(bci)));
+            Assert.assertEquals(msg, expected.getTypeProfile(bci), actual.getTypeProfile(bci));
+            Assert.assertEquals(msg, expected.getMethodProfile(bci), actual.getMethodProfile(bci));
+            Assert.assertArrayEquals(expected.getArgumentTypeProfiles(bci), actual.getArgumentTypeProfiles(bci));
+            Assert.assertEquals(msg, expected.getReturnTypeProfile(bci), actual.getReturnTypeProfile(bci));
+            Assert.assertEquals(msg, expected.getExceptionSeen(bci), actual.getExceptionSeen(bci));
+            Assert.assertEquals(msg, expected.getNullSeen(bci), actual.getNullSeen(bci));
+            Assert.assertEquals(msg, expected.getExecutionCount(bci), actual.getExecutionCount(bci));
+        }
+    }
+
+    @Test
+    public void snapshotMatchesLiveTest() throws NoSuchMethodException {
+        run(INVOCATIONS);
+        HotSpotResolvedJavaMethod method = (HotSpotResolvedJavaMethod) HotSpotJVMCIRuntime.runtime().getHostJVMCIBackend().getMetaAccess().lookupJavaMethod(
+                        TestHotSpotProfilingInfoSnapshot.class.getDeclaredMethod("profiled", Object.class, int.class));
+        ProfilingInfo live = method.getProfilingInfo(true, true, false);
+        ProfilingInfo snapshot = method.getProfilingInfo(true, true, true);
+        Assert.assertNotSame(live, snapshot);
+        assertSameAnswers(live, snapshot, method.getCodeSize());
+
+        // The snapshot does not observe further profiling
+        int[] counts = new int[method.getCodeSize()];
+        for (int bci = 0; bci < counts.length; bci++) {
+            counts[bci] = snapshot.getExecutionCount(bci);
+        }
+        run(INVOCATIONS);
+        for (int bci = 0; bci < counts.length; bci++) {
+            Assert.assertEquals("bci " + bci, counts[bci], snapshot.getExecutionCount(bci));
+        }
+        ProfilingInfo later = method.getProfilingInfo(true, true, true);
+        assertSameAnswers(method.getProfilingInfo(true, true, false), later, method.getCodeSize());
+    }
+}
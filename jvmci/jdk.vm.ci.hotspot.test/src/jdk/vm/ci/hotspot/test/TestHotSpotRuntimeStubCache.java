@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import jdk.vm.ci.code.CodeCacheProvider;
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.code.site.DataPatch;
+import jdk.vm.ci.code.site.Site;
+import jdk.vm.ci.hotspot.HotSpotCompiledCode;
+import jdk.vm.ci.hotspot.HotSpotCompiledCode.Comment;
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import jdk.vm.ci.meta.Assumptions.Assumption;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests reuse of installed runtime stubs with identical content. The code of the stubs is never
+ * executed.
+ */
+public class TestHotSpotRuntimeStubCache {
+
+    private static HotSpotCompiledCode newStub(String name, byte[] code) {
+        return new HotSpotCompiledCode(name, code, code.length, new Site[0], new Assumption[0], new ResolvedJavaMethod[0], new Comment[0], new byte[0], 1, new DataPatch[0], false,
+                        HotSpotJVMCIRuntime.runtime().getHostJVMCIBackend().getTarget().wordSize, null);
+    }
+
+    @Test
+    public void hitAndMissTest() {
+        HotSpotJVMCIRuntime runtime = HotSpotJVMCIRuntime.runtime();
+        Assert.assertTrue(HotSpotJVMCIRuntime.Option.RuntimeStubCache.getBoolean());
+        CodeCacheProvider codeCache = runtime.getHostJVMCIBackend().getCodeCache();
+        String name = "TestHotSpotRuntimeStubCache" + System.nanoTime();
+        byte[] code = {1, 2, 3, 4, 5, 6, 7, 8};
+        byte[] otherCode = {8, 7, 6, 5, 4, 3, 2, 1};
+
+        long[] before = runtime.getRuntimeStubCacheCounters();
+        InstalledCode first = codeCache.addCode(null, newStub(name, code), null, null);
+        long[] afterFirst = runtime.getRuntimeStubCacheCounters();
+        Assert.assertEquals(before[1] + 1, afterFirst[1]);
+
+        // The key must not depend on the identity of the compiled code or its code array
+        InstalledCode second = codeCache.addCode(null, newStub(name, code.clone()), null, null);
+        long[] afterSecond = runtime.getRuntimeStubCacheCounters();
+        Assert.assertSame(first, second);
+        Assert.assertEquals(afterFirst[0] + 1, afterSecond[0]);
+
+        InstalledCode other = codeCache.addCode(null, newStub(name, otherCode), null, null);
+        long[] afterOther = runtime.getRuntimeStubCacheCounters();
+        Assert.assertNotSame(first, other);
+        Assert.assertEquals(afterSecond[1] + 1, afterOther[1]);
+
+        InstalledCode renamed = codeCache.addCode(null, newStub(name + "Renamed", code), null, null);
+        Assert.assertNotSame(first, renamed);
+    }
+}
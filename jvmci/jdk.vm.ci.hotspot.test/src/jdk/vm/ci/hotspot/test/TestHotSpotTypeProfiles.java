@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot.test;
+
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import jdk.vm.ci.hotspot.HotSpotVMConfigAccess;
+import jdk.vm.ci.meta.JavaTypeProfile;
+import jdk.vm.ci.meta.MetaAccessProvider;
+import jdk.vm.ci.meta.ProfilingInfo;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.ResolvedJavaType;
+import jdk.vm.ci.meta.TriState;
+
+/**
+ * Tests decoding of the argument, return and parameter type profiles recorded by the VM in
+ * {@code CallTypeData} and {@code ParametersTypeData} records. The profiles are only recorded for
+ * all methods with {@code -XX:TypeProfileLevel=222} so unless the current VM uses that level, each
+ * test runs itself in a subprocess that does.
+ */
+public class TestHotSpotTypeProfiles {
+
+    private static final int INVOCATIONS = 20000;
+
+    static Object callee(Object o) {
+        return o;
+    }
+
+    static Object monomorphicCaller(Object o) {
+        return callee(o);
+    }
+
+    static Object polymorphicCaller(Object o) {
+        return callee(o);
+    }
+
+    static Object nullCaller(Object o) {
+        return callee(o);
+    }
+
+    private static final MetaAccessProvider metaAccess = HotSpotJVMCIRuntime.runtime().getHostJVMCIBackend().getMetaAccess();
+
+    private static final String TYPE_PROFILE_LEVEL = "-XX:TypeProfileLevel=222";
+
+    /**
+     * Runs {@code test} in a subprocess with {@link #TYPE_PROFILE_LEVEL} unless the current VM
+     * already profiles argument, return and parameter types for all methods.
+     *
+     * @return {@code true} if the test was run in a subprocess
+     */
+    private static boolean runInSubprocess(String test) throws Exception {
+        HotSpotVMConfigAccess config = new HotSpotVMConfigAccess(HotSpotJVMCIRuntime.runtime().getConfigStore());
+        if (config.getFlag("TypeProfileLevel", Long.class) == 222) {
+            return false;
+        }
+        Subprocess.Result result = Subprocess.java(Collections.singletonList(TYPE_PROFILE_LEVEL), TestHotSpotTypeProfiles.class, test);
+        Assert.assertEquals(result.toString(), 0, result.exitCode);
+        return true;
+    }
+
+    /**
+     * Runs the tests named by {@code args}. Used by {@link #runInSubprocess(String)}.
+     */
+    public static void main(String[] args) throws Exception {
+        TestHotSpotTypeProfiles test = new TestHotSpotTypeProfiles();
+        for (String name : args) {
+            TestHotSpotTypeProfiles.class.getMethod(name).invoke(test);
+        }
+    }
+
+    private static ResolvedJavaMethod lookup(String name) throws NoSuchMethodException {
+        return metaAccess.lookupJavaMethod(TestHotSpotTypeProfiles.class.getDeclaredMethod(name, Object.class));
+    }
+
+    private static ProfilingInfo getProfilingInfo(ResolvedJavaMethod method) {
+        ProfilingInfo info = method.getProfilingInfo();
+        // Maturity depends on the compilation policy which is irrelevant here
+        info.setMature();
+        return info;
+    }
+
+    /**
+     * Gets the BCI of the single invoke in {@code method}.
+     */
+    private static int getInvokeBCI(ResolvedJavaMethod method) {
+        byte[] code = method.getCode();
+        for (int bci = 0; bci < code.length; bci++) {
+            if ((code[bci] & 0xFF) == 0xB8 /* invokestatic */) {
+                return bci;
+            }
+        }
+        throw new AssertionError("no invoke in " + method);
+    }
+
+    private static void assertSingleType(Class<?> expected, TriState nullSeen, JavaTypeProfile profile) {
+        Assert.assertNotNull(profile);
+        Assert.assertEquals(nullSeen, profile.getNullSeen());
+        ResolvedJavaType type = metaAccess.lookupJavaType(expected);
+        Assert.assertEquals(profile.toString(), type, profile.asSingleType());
+        Assert.assertEquals(0.0D, profile.getNotRecordedProbability(), 0.0D);
+    }
+
+    @Test
+    public void argumentAndReturnTypesTest() throws Exception {
+        if (runInSubprocess("argumentAndReturnTypesTest")) {
+            return;
+        }
+        for (int i = 0; i < INVOCATIONS; i++) {
+            monomorphicCaller("string");
+        }
+        ResolvedJavaMethod method = lookup("monomorphicCaller");
+        ProfilingInfo info = getProfilingInfo(method);
+        int bci = getInvokeBCI(method);
+
+        JavaTypeProfile[] arguments = info.getArgumentTypeProfiles(bci);
+        Assert.assertNotNull(arguments);
+        Assert.assertEquals(1, arguments.length);
+        assertSingleType(String.class, TriState.FALSE, arguments[0]);
+        assertSingleType(String.class, TriState.FALSE, info.getReturnTypeProfile(bci));
+
+        // The invoke is the only profiled BCI
+        for (int b = 0; b < method.getCodeSize(); b++) {
+            if (b != bci) {
+                Assert.assertNull(info.getArgumentTypeProfiles(b));
+                Assert.assertNull(info.getReturnTypeProfile(b));
+            }
+        }
+    }
+
+    @Test
+    public void polymorphicArgumentTypesTest() throws Exception {
+        if (runInSubprocess("polymorphicArgumentTypesTest")) {
+            return;
+        }
+        for (int i = 0; i < INVOCATIONS; i++) {
+            polymorphicCaller((i & 1) == 0 ? "string" : Integer.valueOf(i));
+        }
+        ResolvedJavaMethod method = lookup("polymorphicCaller");
+        JavaTypeProfile[] arguments = getProfilingInfo(method).getArgumentTypeProfiles(getInvokeBCI(method));
+        Assert.assertNotNull(arguments);
+        JavaTypeProfile profile = arguments[0];
+        Assert.assertNotNull(profile);
+        Assert.assertEquals(0, profile.getTypes().length);
+        Assert.assertEquals(1.0D, profile.getNotRecordedProbability(), 0.0D);
+        Assert.assertEquals(TriState.FALSE, profile.getNullSeen());
+    }
+
+    @Test
+    public void nullArgumentTest() throws Exception {
+        if (runInSubprocess("nullArgumentTest")) {
+            return;
+        }
+        for (int i = 0; i < INVOCATIONS; i++) {
+            nullCaller(null);
+        }
+        ResolvedJavaMethod method = lookup("nullCaller");
+        JavaTypeProfile[] arguments = getProfilingInfo(method).getArgumentTypeProfiles(getInvokeBCI(method));
+        Assert.assertNotNull(arguments);
+        JavaTypeProfile profile = arguments[0];
+        Assert.assertNotNull(profile);
+        Assert.assertEquals(TriState.TRUE, profile.getNullSeen());
+        Assert.assertEquals(0, profile.getTypes().length);
+    }
+
+    @Test
+    public void parameterTypesTest() throws Exception {
+        if (runInSubprocess("parameterTypesTest")) {
+            return;
+        }
+        ResolvedJavaMethod method = metaAccess.lookupJavaMethod(TestHotSpotTypeProfiles.class.getDeclaredMethod("parameterProfiled", Object.class, long.class, Object.class));
+        for (int i = 0; i < INVOCATIONS; i++) {
+            parameterProfiled("string", i, Integer.valueOf(i));
+        }
+        JavaTypeProfile[] parameters = getProfilingInfo(method).getParameterTypeProfiles();
+        Assert.assertNotNull(parameters);
+        // The long parameter occupies slots 1 and 2
+        Assert.assertEquals(4, parameters.length);
+        assertSingleType(String.class, TriState.FALSE, parameters[0]);
+        Assert.assertNull(parameters[1]);
+        Assert.assertNull(parameters[2]);
+        assertSingleType(Integer.class, TriState.FALSE, parameters[3]);
+    }
+
+    static int parameterProfiled(Object a, long b, Object c) {
+        return a.hashCode() + (int) b + c.hashCode();
+    }
+}
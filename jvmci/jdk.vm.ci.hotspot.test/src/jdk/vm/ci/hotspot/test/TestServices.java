@@ -24,12 +24,21 @@ package jdk.vm.ci.hotspot.test;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import jdk.vm.ci.hotspot.HotSpotJVMCIBackendFactory;
+import jdk.vm.ci.services.JVMCIServiceLocator;
 import jdk.vm.ci.services.Services;
 
 public class TestServices {
@@ -79,4 +88,71 @@ public class TestServices {
             Assert.assertEquals(expect, actual);
         }
     }
+
+    private static List<String> classNames(Iterable<?> providers) {
+        List<String> names = new ArrayList<>();
+        for (Object provider : providers) {
+            names.add(provider.getClass().getName());
+        }
+        return names;
+    }
+
+    /**
+     * Prints a provider index entry for each service named in {@code args}, listing the providers
+     * returned by {@link Services#load}. Used by {@link #providerIndexTest()}.
+     */
+    public static void main(String[] args) throws Exception {
+        for (String service : args) {
+            System.out.println(service + "=" + String.join(",", classNames(Services.load(Class.forName(service)))));
+        }
+    }
+
+    /**
+     * Checks that {@link Services#load} finds the providers listed in a provider index instead of
+     * scanning {@code META-INF/services}. The index lists the providers of one service in reverse
+     * order and no providers for another service so that the subprocess reading it can only
+     * report the listed providers if the index was used.
+     */
+    @Test
+    public void providerIndexTest() throws Exception {
+        Class<?>[] services = {HotSpotJVMCIBackendFactory.class, JVMCIServiceLocator.class};
+        List<String> backendFactories = classNames(Services.load(HotSpotJVMCIBackendFactory.class));
+        Assert.assertFalse("no " + HotSpotJVMCIBackendFactory.class.getName() + " providers found", backendFactories.isEmpty());
+        Collections.reverse(backendFactories);
+
+        List<String> index = new ArrayList<>();
+        index.add(HotSpotJVMCIBackendFactory.class.getName() + "=" + String.join(",", backendFactories));
+        index.add(JVMCIServiceLocator.class.getName() + "=");
+        Path indexFile = Files.createTempFile("service-providers", null);
+        try {
+            Files.write(indexFile, index, StandardCharsets.ISO_8859_1);
+            String[] args = new String[services.length];
+            for (int i = 0; i < services.length; i++) {
+                args[i] = services[i].getName();
+            }
+            Subprocess.Result result = Subprocess.java(Collections.singletonList("-Djvmci.ServiceProviderIndex=" + indexFile), TestServices.class, args);
+            Assert.assertEquals(result.toString(), 0, result.exitCode);
+            Assert.assertEquals(result.toString(), index, result.output);
+        } finally {
+            Files.delete(indexFile);
+        }
+    }
+
+    /**
+     * Checks that {@link Services#load} instantiates providers as they are iterated over rather
+     * than returning cached instances.
+     */
+    @Test
+    public void lazyProvidersTest() {
+        Iterator<HotSpotJVMCIBackendFactory> first = Services.load(HotSpotJVMCIBackendFactory.class).iterator();
+        Iterator<HotSpotJVMCIBackendFactory> second = Services.load(HotSpotJVMCIBackendFactory.class).iterator();
+        while (first.hasNext()) {
+            Assert.assertTrue(second.hasNext());
+            HotSpotJVMCIBackendFactory provider = first.next();
+            HotSpotJVMCIBackendFactory other = second.next();
+            Assert.assertEquals(provider.getClass(), other.getClass());
+            Assert.assertNotSame(provider, other);
+        }
+        Assert.assertFalse(second.hasNext());
+    }
 }
@@ -54,7 +54,7 @@ public class TestTranslatedException {
         Class<?> translatedExceptionClass = Class.forName("jdk.vm.ci.hotspot.TranslatedException");
 
         Method encode = translatedExceptionClass.getDeclaredMethod("encodeThrowable", Throwable.class);
-        Method decode = translatedExceptionClass.getDeclaredMethod("decodeThrowable", String.class);
+        Method decode = translatedExceptionClass.getDeclaredMethod("decodeThrowable", byte[].class);
         encode.setAccessible(true);
         decode.setAccessible(true);
 
@@ -63,7 +63,7 @@ public class TestTranslatedException {
             throwable = new ExceptionInInitializerError(new InvocationTargetException(new RuntimeException(String.valueOf(i), throwable), "invoke"));
         }
         String before = printToString(throwable);
-        String encoding = (String) encode.invoke(null, throwable);
+        byte[] encoding = (byte[]) encode.invoke(null, throwable);
         Throwable decoded = (Throwable) decode.invoke(null, encoding);
         String after = printToString(decoded);
 
@@ -73,4 +73,30 @@ public class TestTranslatedException {
 
         Assert.assertEquals("before:\n" + before + "\nafter:\n" + after, before, after);
     }
+
+    @Test
+    public void encodeDecodeStackDepthTest() throws Exception {
+
+        Class<?> translatedExceptionClass = Class.forName("jdk.vm.ci.hotspot.TranslatedException");
+
+        Method encode = translatedExceptionClass.getDeclaredMethod("encodeThrowable", Throwable.class, int.class);
+        Method decode = translatedExceptionClass.getDeclaredMethod("decodeThrowable", byte[].class);
+        encode.setAccessible(true);
+        decode.setAccessible(true);
+
+        RuntimeException throwable = new RuntimeException("a|b", new IllegalStateException(""));
+        throwable.setStackTrace(new StackTraceElement[]{
+                        new StackTraceElement("A", "a", null, -2),
+                        new StackTraceElement("B", "b", "B.java", 42),
+                        new StackTraceElement("A", "a", null, -2)});
+        Throwable decoded = (Throwable) decode.invoke(null, encode.invoke(null, throwable, 2));
+
+        Assert.assertEquals(RuntimeException.class, decoded.getClass());
+        Assert.assertEquals("a|b", decoded.getMessage());
+        Assert.assertEquals("", decoded.getCause().getMessage());
+        StackTraceElement[] stackTrace = decoded.getStackTrace();
+        Assert.assertEquals(throwable.getStackTrace()[0], stackTrace[0]);
+        Assert.assertEquals(throwable.getStackTrace()[1], stackTrace[1]);
+        Assert.assertFalse(stackTrace[2].getClassName().equals("A"));
+    }
 }
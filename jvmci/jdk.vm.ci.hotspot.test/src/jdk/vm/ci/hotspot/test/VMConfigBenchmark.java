@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot.test;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import jdk.vm.ci.hotspot.HotSpotVMConfigAccess;
+
+/**
+ * Measures the time it takes to initialize the JVMCI runtime and read a typical set of VM
+ * configuration entries, comparing the binary VM configuration format against the VM
+ * configuration materialized as Java objects. Each fork measures a single initialization of the
+ * runtime.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class VMConfigBenchmark {
+
+    private static void readConfig(Blackhole bh) {
+        HotSpotVMConfigAccess access = new HotSpotVMConfigAccess(HotSpotJVMCIRuntime.runtime().getConfigStore());
+        bh.consume(access.getFieldOffset("Klass::_super", Integer.class, "Klass*"));
+        bh.consume(access.getFieldOffset("InstanceKlass::_init_state", Integer.class, "u1"));
+        bh.consume(access.getFieldOffset("Method::_constMethod", Integer.class, "ConstMethod*"));
+        bh.consume(access.getConstant("Method::_dont_inline", Integer.class));
+        bh.consume(access.getConstant("JVM_ACC_HAS_FINALIZER", Integer.class));
+        bh.consume(access.getFlag("UseCompressedOops", Boolean.class));
+        bh.consume(access.getFlag("CodeEntryAlignment", Integer.class));
+        bh.consume(access.getAddress("SharedRuntime::register_finalizer"));
+    }
+
+    @Benchmark
+    @Fork(value = 10, jvmArgsAppend = {"-XX:+UnlockExperimentalVMOptions", "-XX:+EnableJVMCI", "-Djvmci.VMConfigBlob=true"})
+    public void blob(Blackhole bh) {
+        readConfig(bh);
+    }
+
+    @Benchmark
+    @Fork(value = 10, jvmArgsAppend = {"-XX:+UnlockExperimentalVMOptions", "-XX:+EnableJVMCI", "-Djvmci.VMConfigBlob=false"})
+    public void objects(Blackhole bh) {
+        readConfig(bh);
+    }
+}
@@ -22,26 +22,107 @@
  */
 package jdk.vm.ci.hotspot;
 
+import static jdk.vm.ci.hotspot.CompilerToVM.compilerToVM;
+import static jdk.vm.ci.services.Services.IS_IN_NATIVE_IMAGE;
+
+import java.io.PrintStream;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import jdk.vm.ci.common.NativeImageReinitialize;
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime.Option;
 import jdk.vm.ci.meta.ResolvedJavaType;
 
 /**
- * A cleaner tracks a referent object and includes some {@linkplain #doCleanup() cleanup code} that
- * is run some time after the referent object has become weakly-reachable.
+ * A cleaner tracks a referent object and includes some {@linkplain #doCleanup(Batch) cleanup code}
+ * that is run some time after the referent object has become weakly-reachable.
  *
  * This is like {@link sun.misc.Cleaner} but with weak semantics instead of phantom. Objects
  * referenced by this might be referenced by {@link ResolvedJavaType} which is kept alive by a
  * {@link WeakReference} so we need equivalent reference strength.
+ *
+ * Cleaners are kept alive by a fixed number of linked lists (stripes), each guarded by its own
+ * lock. The stripe of a cleaner is selected by the registering thread which means that compiler
+ * threads rarely contend with each other. Unless disabled by {@link Option#CleanerThread} (or
+ * running in a native image), cleaners whose referents have become unreachable are processed by a
+ * low priority daemon thread in batches of up to {@link #BATCH_SIZE}. Otherwise, each
+ * registration processes at most one batch.
  */
 abstract class Cleaner extends WeakReference<Object> {
 
     /**
-     * Head of linked list of cleaners.
+     * Number of linked lists cleaners are registered in. Must be a power of 2.
+     */
+    private static final int STRIPE_COUNT = 8;
+
+    /**
+     * Maximum number of cleaners processed by a single {@link #drain} call.
+     */
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * A linked list of cleaners.
+     */
+    private static final class Stripe {
+
+        /**
+         * Head of linked list of cleaners. Guarded by {@code this}.
+         */
+        private Cleaner first;
+
+        synchronized void add(Cleaner cl) {
+            if (first != null) {
+                cl.next = first;
+                first.prev = cl;
+            }
+            first = cl;
+        }
+
+        /**
+         * Removes {@code cl} from the linked list of cleaners.
+         */
+        synchronized void remove(Cleaner cl) {
+            // If already removed, do nothing
+            if (cl.next == cl) {
+                return;
+            }
+
+            // Update list
+            if (first == cl) {
+                if (cl.next != null) {
+                    first = cl.next;
+                } else {
+                    first = cl.prev;
+                }
+            }
+            if (cl.next != null) {
+                cl.next.prev = cl.prev;
+            }
+            if (cl.prev != null) {
+                cl.prev.next = cl.next;
+            }
+
+            // Indicate removal by pointing the cleaner to itself
+            cl.next = cl;
+            cl.prev = cl;
+        }
+    }
+
+    @NativeImageReinitialize private static volatile Stripe[] stripes;
+
+    /**
+     * Specifies if the daemon processing the cleaners has been started. The daemon is started by
+     * the first registration of a cleaner.
+     */
+    @NativeImageReinitialize private static volatile boolean cleanerThreadStarted;
+
+    /**
+     * The stripe this cleaner is registered in.
      */
-    @NativeImageReinitialize private static Cleaner first;
+    private final Stripe stripe;
 
     /**
      * Linked list pointers.
@@ -51,67 +132,205 @@ abstract class Cleaner extends WeakReference<Object> {
 
     Cleaner(Object referent) {
         super(referent, queue);
-        add(this);
+        Stripe[] s = stripes;
+        if (s == null) {
+            // First registration
+            s = initialize();
+        }
+        stripe = s[(int) Thread.currentThread().getId() & (STRIPE_COUNT - 1)];
+        stripe.add(this);
+        registered.increment();
+        if (!cleanerThreadStarted) {
+            drain((Cleaner) queue.poll());
+        }
     }
 
-    private static synchronized Cleaner add(Cleaner cl) {
-        if (first != null) {
-            clean();
-        }
-        if (first != null) {
-            cl.next = first;
-            first.prev = cl;
+    private static synchronized Stripe[] initialize() {
+        if (stripes == null) {
+            Stripe[] s = new Stripe[STRIPE_COUNT];
+            for (int i = 0; i < STRIPE_COUNT; i++) {
+                s[i] = new Stripe();
+            }
+            if (!IS_IN_NATIVE_IMAGE && Option.CleanerThread.getBoolean()) {
+                new CleanerThread().start();
+                cleanerThreadStarted = true;
+            }
+            stripes = s;
         }
-        first = cl;
-        return cl;
+        return stripes;
     }
 
     /**
-     * Removes {@code cl} from the linked list of cleaners.
+     * Performs the cleanup action now that this object's referent has become weakly reachable.
+     * Releasing of native resources that can be done in bulk should be deferred to
+     * {@code batch}.
      */
-    private static synchronized void remove(Cleaner cl) {
-        // If already removed, do nothing
-        if (cl.next == cl) {
-            return;
-        }
+    abstract void doCleanup(Batch batch);
 
-        // Update list
-        if (first == cl) {
-            if (cl.next != null) {
-                first = cl.next;
-            } else {
-                first = cl.prev;
+    /**
+     * Collects the native resources released by a batch of cleaners such that they can be
+     * released with a single call into the VM.
+     */
+    static final class Batch {
+
+        private long[] globalHandles = new long[16];
+        private int globalHandlesCount;
+
+        private long[] metadataHandles = new long[16];
+        private int metadataHandlesCount;
+
+        private long[] failedSpeculationsAddresses = new long[16];
+        private int failedSpeculationsCount;
+
+        private static long[] append(long[] array, int count, long value) {
+            long[] result = array;
+            if (count == result.length) {
+                result = Arrays.copyOf(result, count * 2);
             }
+            result[count] = value;
+            return result;
+        }
+
+        /**
+         * Schedules the global JNI {@code handle} to be deleted.
+         */
+        void deleteGlobalHandle(long handle) {
+            globalHandles = append(globalHandles, globalHandlesCount++, handle);
         }
-        if (cl.next != null) {
-            cl.next.prev = cl.prev;
+
+        /**
+         * Schedules the {@code jmetadata} {@code handle} to be released.
+         */
+        void releaseMetadataHandle(long handle) {
+            metadataHandles = append(metadataHandles, metadataHandlesCount++, handle);
         }
-        if (cl.prev != null) {
-            cl.prev.next = cl.next;
+
+        /**
+         * Schedules the failed speculations list pointed to by {@code *failedSpeculationsAddress}
+         * to be released. The native memory at {@code failedSpeculationsAddress} is freed
+         * afterwards.
+         */
+        void releaseFailedSpeculations(long failedSpeculationsAddress) {
+            failedSpeculationsAddresses = append(failedSpeculationsAddresses, failedSpeculationsCount++, failedSpeculationsAddress);
         }
 
-        // Indicate removal by pointing the cleaner to itself
-        cl.next = cl;
-        cl.prev = cl;
+        /**
+         * Releases the resources collected in this batch.
+         */
+        void flush() {
+            if (globalHandlesCount != 0) {
+                compilerToVM().deleteGlobalHandles(Arrays.copyOf(globalHandles, globalHandlesCount));
+                globalHandlesCount = 0;
+            }
+            if (metadataHandlesCount != 0) {
+                compilerToVM().releaseMetadataHandles(Arrays.copyOf(metadataHandles, metadataHandlesCount));
+                metadataHandlesCount = 0;
+            }
+            if (failedSpeculationsCount != 0) {
+                long[] addresses = Arrays.copyOf(failedSpeculationsAddresses, failedSpeculationsCount);
+                compilerToVM().releaseFailedSpeculations(addresses);
+                for (long address : addresses) {
+                    UnsafeAccess.UNSAFE.freeMemory(address);
+                }
+                failedSpeculationsCount = 0;
+            }
+        }
     }
 
     /**
-     * Performs the cleanup action now that this object's referent has become weakly reachable.
+     * Processes up to {@link #BATCH_SIZE} cleaners from {@link #queue}, starting with
+     * {@code first}.
+     *
+     * @return the number of cleaners processed
      */
-    abstract void doCleanup();
+    private static int drain(Cleaner first) {
+        if (first == null) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        Batch batch = new Batch();
+        int count = 0;
+        Cleaner c = first;
+        try {
+            while (c != null) {
+                c.stripe.remove(c);
+                count++;
+                c.doCleanup(batch);
+                if (count == BATCH_SIZE) {
+                    break;
+                }
+                c = (Cleaner) queue.poll();
+            }
+        } finally {
+            batch.flush();
+        }
+        long nanos = System.nanoTime() - start;
+        cleaned.add(count);
+        batches.increment();
+        drainNanos.add(nanos);
+        long max = maxDrainNanos.get();
+        while (nanos > max && !maxDrainNanos.compareAndSet(max, nanos)) {
+            max = maxDrainNanos.get();
+        }
+        return count;
+    }
 
     /**
      * Remove the cleaners whose referents have become weakly reachable.
      */
     static void clean() {
-        Cleaner c = (Cleaner) queue.poll();
-        while (c != null) {
-            remove(c);
-            c.doCleanup();
-            c = (Cleaner) queue.poll();
+        while (drain((Cleaner) queue.poll()) != 0) {
         }
     }
 
+    /**
+     * Daemon thread processing the cleaners as they are enqueued.
+     */
+    private static final class CleanerThread extends Thread {
+
+        CleanerThread() {
+            super("JVMCI Cleaner");
+            setDaemon(true);
+            setPriority(Thread.MIN_PRIORITY);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    drain((Cleaner) queue.remove());
+                } catch (InterruptedException e) {
+                    // Ignore
+                } catch (Throwable t) {
+                    // Report the failure on the VM log stream and keep processing cleaners
+                    PrintStream out = new PrintStream(HotSpotJVMCIRuntime.runtime().getLogStream());
+                    out.println("Exception in " + getName() + ":");
+                    t.printStackTrace(out);
+                    out.flush();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets statistics about the cleaners processed so far.
+     *
+     * @return an array of 5 values: the number of registered cleaners that have not been
+     *         processed, the number of processed cleaners, the number of batches in which they
+     *         were processed, the total time in nanoseconds spent processing them and the maximum
+     *         time in nanoseconds spent processing a single batch
+     */
+    static long[] getStatistics() {
+        long processed = cleaned.sum();
+        return new long[]{registered.sum() - processed, processed, batches.sum(), drainNanos.sum(), maxDrainNanos.get()};
+    }
+
+    private static final LongAdder registered = new LongAdder();
+    private static final LongAdder cleaned = new LongAdder();
+    private static final LongAdder batches = new LongAdder();
+    private static final LongAdder drainNanos = new LongAdder();
+    private static final AtomicLong maxDrainNanos = new AtomicLong();
+
     /**
      * The {@link ReferenceQueue} to which {@link Cleaner}s are enqueued once their referents'
      * become unreachable.
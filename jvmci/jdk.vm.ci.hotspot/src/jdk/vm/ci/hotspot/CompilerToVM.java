@@ -377,6 +377,10 @@ final class CompilerToVM {
      * @param target the target where this code should be installed
      * @param compiledCode the result of a compilation
      * @param code the details of the installed CodeBlob are written to this object
+     * @param failedSpeculationsAddress the address of the failed speculations list updated when
+     *            the installed code fails a speculation
+     * @param speculations the flattened speculations referenced by the installed code
+     * @param speculationsLength the number of valid bytes at the start of {@code speculations}
      * @return the outcome of the installation which will be one of
      *         {@link HotSpotVMConfig#codeInstallResultOk},
      *         {@link HotSpotVMConfig#codeInstallResultCacheFull},
@@ -386,7 +390,19 @@ final class CompilerToVM {
      * @throws JVMCIError if there is something wrong with the compiled code or the associated
      *             metadata.
      */
-    native int installCode(TargetDescription target, HotSpotCompiledCode compiledCode, InstalledCode code, long failedSpeculationsAddress, byte[] speculations);
+    native int installCode(TargetDescription target, HotSpotCompiledCode compiledCode, InstalledCode code, long failedSpeculationsAddress, byte[] speculations, int speculationsLength);
+
+    /**
+     * Determines if the first {@code length} elements of {@code assumptions} still hold. This
+     * performs the same dependency checks as {@link #installCode} without installing any code.
+     * {@code null} elements are ignored.
+     *
+     * @param assumptions an array whose non-null elements are {@link jdk.vm.ci.meta.Assumptions.Assumption}s
+     * @return {@code true} if all the assumptions hold, {@code false} otherwise
+     * @throws ArrayIndexOutOfBoundsException if {@code length} is negative or greater than
+     *             {@code assumptions.length}
+     */
+    native boolean validateAssumptions(Object[] assumptions, int length);
 
     /**
      * Generates the VM metadata for some compiled code and copies them into {@code metaData}. This
@@ -429,6 +445,12 @@ final class CompilerToVM {
      */
     native Object[] readConfiguration();
 
+    /**
+     * Reads the database of VM info in the compact binary format described by
+     * {@link HotSpotVMConfigBlob}.
+     */
+    native byte[] readConfigurationBlob();
+
     /**
      * Resolves the implementation of {@code method} for virtual dispatches on objects of dynamic
      * type {@code exactReceiver}. This resolution process only searches "up" the class hierarchy of
@@ -489,6 +511,33 @@ final class CompilerToVM {
      */
     native Object executeHotSpotNmethod(Object[] args, HotSpotNmethod nmethodMirror) throws InvalidInstalledCodeException;
 
+    /**
+     * Executes {@code nmethodMirror} with the first {@code argc} of {@code arg0}, {@code arg1} and
+     * {@code arg2} as arguments without boxing them. The method of {@code nmethodMirror} must be
+     * static and its parameter and return types must be {@code void} or integral types. Arguments
+     * are narrowed to the parameter types.
+     *
+     * @return the result of executing {@code nmethodMirror} or 0 if its return type is {@code void}
+     * @throws InvalidInstalledCodeException if {@code nmethodMirror} has been invalidated
+     * @throws IllegalArgumentException if the signature of the method of {@code nmethodMirror}
+     *             does not match the arguments
+     */
+    native long executeHotSpotNmethodLong(HotSpotNmethod nmethodMirror, int argc, long arg0, long arg1, long arg2) throws InvalidInstalledCodeException;
+
+    /**
+     * Executes {@code nmethodMirror} with the first {@code argc} of {@code arg0}, {@code arg1} and
+     * {@code arg2} as arguments. The receiver of the method of {@code nmethodMirror}, if any, is
+     * the first argument. The parameter and return types of the method must be {@code void} or
+     * reference types.
+     *
+     * @return the result of executing {@code nmethodMirror} or {@code null} if its return type is
+     *         {@code void}
+     * @throws InvalidInstalledCodeException if {@code nmethodMirror} has been invalidated
+     * @throws IllegalArgumentException if the signature of the method of {@code nmethodMirror}
+     *             does not match the arguments
+     */
+    native Object executeHotSpotNmethodObject(HotSpotNmethod nmethodMirror, int argc, Object arg0, Object arg1, Object arg2) throws InvalidInstalledCodeException;
+
     /**
      * Gets the line number table for {@code method}. The line number table is encoded as (bci,
      * source line number) pairs.
@@ -560,6 +609,15 @@ final class CompilerToVM {
      */
     native long[] collectCounters();
 
+    /**
+     * Collects the current values of the first {@code values.length} JVMCI benchmark counters,
+     * summed up over all threads, into {@code values}.
+     *
+     * @return the current number of counters which may be greater or less than
+     *         {@code values.length}
+     */
+    native int collectCountersInto(long[] values);
+
     /**
      * Get the current number of counters allocated for use by JVMCI. Should be the same value as
      * the flag {@code JVMCICounterSize}.
@@ -567,11 +625,17 @@ final class CompilerToVM {
     native int getCountersSize();
 
     /**
-     * Attempt to change the size of the counters allocated for JVMCI. This requires a safepoint to
-     * safely reallocate the storage but it's advisable to increase the size in reasonable chunks.
+     * Attempt to change the size of the counters allocated for JVMCI. This only requires a
+     * safepoint if the storage has to be reallocated, in which case its capacity is at least
+     * doubled.
      */
     native boolean setCountersSize(int newSize);
 
+    /**
+     * Gets the number of bytes allocated in the HotSpot heap by the current thread so far.
+     */
+    native long getThreadAllocatedBytes();
+
     /**
      * Determines if {@code metaspaceMethodData} is mature.
      */
@@ -606,6 +670,35 @@ final class CompilerToVM {
      */
     native void materializeVirtualObjects(HotSpotStackFrameReference stackFrame, boolean invalidate);
 
+    /**
+     * Fills {@code methods} and {@code frames} with the compiled and interpreted frames of the
+     * current thread whose method is in {@code matchingMethods}, without materializing their
+     * locals. Each frame is described by {@link HotSpotFrameBuffer#STRIDE} entries in
+     * {@code frames}: the stack pointer of its physical frame, its bci and its virtual frame
+     * number within the physical frame shifted left by one, or'ed with 1 if the frame is compiled.
+     *
+     * @param matchingMethods the methods of the frames to be returned or {@code null} to return
+     *            all frames
+     * @param resumeStackPointer 0 to start from the top of the stack, otherwise the walk resumes
+     *            after the frame denoted by this stack pointer and {@code resumeFrameNumber}
+     * @param skip the number of matching frames to skip
+     * @return the number of frames written to the buffers
+     * @throws IllegalStateException if the frame to resume from is not on the stack
+     */
+    native int iterateFramesInto(ResolvedJavaMethod[] matchingMethods, long resumeStackPointer, int resumeFrameNumber, int skip, Object[] methods, long[] frames);
+
+    /**
+     * Creates a {@link HotSpotStackFrameReference} with materialized locals for each frame in
+     * {@code [from .. to)} of a buffer filled by
+     * {@link #iterateFramesInto(ResolvedJavaMethod[], long, int, int, Object[], long[])} and stores
+     * it at the same index in {@code references}. The frames must be virtual frames of the same
+     * physical frame in ascending frame number order. Virtual objects of the physical frame are
+     * reallocated once and shared by the created frames.
+     *
+     * @throws IllegalStateException if a frame is not on the stack
+     */
+    native void getStackFrameReferences(long[] frames, int from, int to, HotSpotStackFrameReference[] references);
+
     /**
      * Gets the v-table index for interface method {@code method} in the receiver {@code type} or
      * {@link HotSpotVMConfig#invalidVtableIndex} if {@code method} is not in {@code type}'s
@@ -732,6 +825,18 @@ final class CompilerToVM {
      */
     native int methodDataProfileDataSize(long metaspaceMethodData, int position);
 
+    /**
+     * Gets the type recorded in the {@code TypeEntries} cell at {@code offset} in a
+     * {@code MethodData}. The status bits of the cell are ignored.
+     *
+     * @param metaspaceMethodData
+     * @param offset the offset of the cell in bytes from the start of the {@code MethodData}
+     * @return {@code null} if no single type has been recorded in the cell
+     * @throws IllegalArgumentException if {@code offset} is outside the data of the
+     *             {@code MethodData}
+     */
+    native HotSpotResolvedObjectTypeImpl getTypeEntryKlass(long metaspaceMethodData, int offset);
+
     /**
      * Gets the fingerprint for a given Klass*.
      *
@@ -832,6 +937,17 @@ final class CompilerToVM {
      */
     native ResolvedJavaMethod[] getDeclaredMethods(HotSpotResolvedObjectTypeImpl holder);
 
+    /**
+     * Retrieves the metadata of {@code type} used to initialize a
+     * {@link HotSpotResolvedObjectTypeSnapshot} in a single call.
+     *
+     * @param includeDeclaredMembers specifies if the declared methods and constructors are to be
+     *            retrieved as well. This links {@code type} if it is not yet linked.
+     * @param references the array into which the object values are stored
+     * @param values the array into which the primitive values are stored
+     */
+    native void getTypeSnapshot(HotSpotResolvedObjectTypeImpl type, boolean includeDeclaredMembers, Object[] references, long[] values);
+
     /**
      * Reads the current value of a static field.
      */
@@ -960,6 +1076,19 @@ final class CompilerToVM {
      */
     native void deleteGlobalHandle(long handle);
 
+    /**
+     * Releases the resources backing each global JNI handle in {@code handles}. This is
+     * equivalent to calling {@link #deleteGlobalHandle(long)} for each element of
+     * {@code handles}.
+     */
+    native void deleteGlobalHandles(long[] handles);
+
+    /**
+     * Releases each {@code jmetadata} handle in {@code handles} such that it can be reused for a
+     * different {@code Metadata*} value.
+     */
+    native void releaseMetadataHandles(long[] handles);
+
     /**
      * Gets the failed speculations pointed to by {@code *failedSpeculationsAddress}.
      *
@@ -977,9 +1106,10 @@ final class CompilerToVM {
     native long getFailedSpeculationsAddress(HotSpotResolvedJavaMethodImpl method);
 
     /**
-     * Frees the failed speculations pointed to by {@code *failedSpeculationsAddress}.
+     * Frees the failed speculations pointed to by {@code *failedSpeculationsAddress} for each
+     * element of {@code failedSpeculationsAddresses}.
      */
-    native void releaseFailedSpeculations(long failedSpeculationsAddress);
+    native void releaseFailedSpeculations(long[] failedSpeculationsAddresses);
 
     /**
      * Adds a speculation to the failed speculations pointed to by
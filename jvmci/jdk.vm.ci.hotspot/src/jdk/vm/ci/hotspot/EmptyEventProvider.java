@@ -91,6 +91,36 @@ final class EmptyEventProvider implements EventProvider {
         public void setInlinedBytes(int inlinedBytes) {
             throw shouldNotReachHere();
         }
+
+        @Override
+        public void setQueueWaitNanos(long queueWaitNanos) {
+            throw shouldNotReachHere();
+        }
+
+        @Override
+        public void setInstallPrepareNanos(long installPrepareNanos) {
+            throw shouldNotReachHere();
+        }
+
+        @Override
+        public void setInstallVMNanos(long installVMNanos) {
+            throw shouldNotReachHere();
+        }
+
+        @Override
+        public void setAllocatedBytes(long allocatedBytes) {
+            throw shouldNotReachHere();
+        }
+
+        @Override
+        public void setSpeculationCount(int speculationCount) {
+            throw shouldNotReachHere();
+        }
+
+        @Override
+        public void setDecompileCount(int decompileCount) {
+            throw shouldNotReachHere();
+        }
     }
 
     @Override
@@ -121,4 +151,47 @@ final class EmptyEventProvider implements EventProvider {
         }
     }
 
+    static class EmptyInitPhaseEvent implements InitPhaseEvent {
+        @Override
+        public void commit() {
+            throw shouldNotReachHere();
+        }
+
+        @Override
+        public boolean shouldWrite() {
+            // Events of this class should never been written.
+            return false;
+        }
+
+        @Override
+        public void setPhase(String phase) {
+            throw shouldNotReachHere();
+        }
+
+        @Override
+        public void setThread(String thread) {
+            throw shouldNotReachHere();
+        }
+
+        @Override
+        public void setDepth(int depth) {
+            throw shouldNotReachHere();
+        }
+
+        @Override
+        public void setStartNanos(long startNanos) {
+            throw shouldNotReachHere();
+        }
+
+        @Override
+        public void setDurationNanos(long durationNanos) {
+            throw shouldNotReachHere();
+        }
+
+        @Override
+        public void setAllocatedBytes(long allocatedBytes) {
+            throw shouldNotReachHere();
+        }
+    }
+
 }
@@ -24,6 +24,7 @@ package jdk.vm.ci.hotspot;
 
 import jdk.vm.ci.hotspot.EmptyEventProvider.EmptyCompilationEvent;
 import jdk.vm.ci.hotspot.EmptyEventProvider.EmptyCompilerFailureEvent;
+import jdk.vm.ci.hotspot.EmptyEventProvider.EmptyInitPhaseEvent;
 
 /**
  * Service-provider class for logging compiler related events.
@@ -46,12 +47,19 @@ public interface EventProvider {
     }
 
     /**
-     * Creates and returns an empty implementation for {@link CompilationEvent}.
+     * Creates and returns an empty implementation for {@link CompilerFailureEvent}.
      */
     static CompilerFailureEvent createEmptyCompilerFailureEvent() {
         return new EmptyCompilerFailureEvent();
     }
 
+    /**
+     * Creates and returns an empty implementation for {@link InitPhaseEvent}.
+     */
+    static InitPhaseEvent createEmptyInitPhaseEvent() {
+        return new EmptyInitPhaseEvent();
+    }
+
     /**
      * An instant event is an event that is not considered to have taken any time.
      */
@@ -110,6 +118,39 @@ public interface EventProvider {
         void setCodeSize(int codeSize);
 
         void setInlinedBytes(int inlinedBytes);
+
+        /**
+         * Sets the time in nanoseconds the compilation spent in the compile queue or -1 if
+         * unknown.
+         */
+        void setQueueWaitNanos(long queueWaitNanos);
+
+        /**
+         * Sets the time in nanoseconds spent preparing the installation of the compiled code
+         * before transitioning into the VM.
+         */
+        void setInstallPrepareNanos(long installPrepareNanos);
+
+        /**
+         * Sets the time in nanoseconds spent in the VM installing the compiled code.
+         */
+        void setInstallVMNanos(long installVMNanos);
+
+        /**
+         * Sets the number of bytes allocated by the compiler thread during the compilation.
+         */
+        void setAllocatedBytes(long allocatedBytes);
+
+        /**
+         * Sets the number of speculations recorded by the compiled code.
+         */
+        void setSpeculationCount(int speculationCount);
+
+        /**
+         * Sets the number of times the method was deoptimized and recompiled before this
+         * compilation.
+         */
+        void setDecompileCount(int decompileCount);
     }
 
     /**
@@ -127,4 +168,32 @@ public interface EventProvider {
 
         void setMessage(String message);
     }
+
+    /**
+     * Creates a new {@link InitPhaseEvent}. The default implementation returns an event that is
+     * never written.
+     *
+     * @return a JVMCI initialization phase event
+     */
+    default InitPhaseEvent newInitPhaseEvent() {
+        return new EmptyEventProvider.EmptyInitPhaseEvent();
+    }
+
+    /**
+     * An event describing a completed phase of the JVMCI runtime initialization. Since these
+     * events are committed after the fact, the time of the phase is described by its fields.
+     */
+    public interface InitPhaseEvent extends InstantEvent {
+        void setPhase(String phase);
+
+        void setThread(String thread);
+
+        void setDepth(int depth);
+
+        void setStartNanos(long startNanos);
+
+        void setDurationNanos(long durationNanos);
+
+        void setAllocatedBytes(long allocatedBytes);
+    }
 }
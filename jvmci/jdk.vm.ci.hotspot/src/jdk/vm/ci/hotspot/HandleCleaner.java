@@ -22,8 +22,6 @@
  */
 package jdk.vm.ci.hotspot;
 
-import static jdk.vm.ci.hotspot.UnsafeAccess.UNSAFE;
-
 /**
  * This class manages a set of {@code jobject} and {@code jmetadata} handles whose lifetimes are
  * dependent on associated {@link IndirectHotSpotObjectConstantImpl} and
@@ -57,18 +55,17 @@ final class HandleCleaner extends Cleaner {
      * Releases the resource associated with {@code this.handle}.
      */
     @Override
-    void doCleanup() {
+    void doCleanup(Batch batch) {
         if (isJObject) {
             // The sentinel value used to denote a free handle is
             // an object on the HotSpot heap so we call into the
             // VM to set the target of an object handle to this value.
-            CompilerToVM.compilerToVM().deleteGlobalHandle(handle);
+            batch.deleteGlobalHandle(handle);
         } else {
-            // Setting the target of a jmetadata handle to 0 enables
+            // Chaining a jmetadata handle on the free list enables
             // the handle to be reused. See MetadataHandleBlock in
-            // jvmciRuntime.cpp for more info.
-            long value = UNSAFE.getLong(null, handle);
-            UNSAFE.compareAndSwapLong(null, handle, value, 0);
+            // metadataHandleBlock.hpp for more info.
+            batch.releaseMetadataHandle(handle);
         }
     }
 
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot;
+
+import static jdk.vm.ci.hotspot.UnsafeAccess.UNSAFE;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.vm.ci.meta.Assumptions;
+import jdk.vm.ci.meta.Assumptions.Assumption;
+import jdk.vm.ci.meta.Assumptions.CallSiteTargetValue;
+
+/**
+ * Incrementally validates the {@link Assumptions} of a compilation against the current state of
+ * the VM.
+ * <p>
+ * All assumptions other than {@link CallSiteTargetValue} depend only on the class hierarchy. The
+ * VM increments {@link HotSpotVMConfig#systemDictionaryModificationsAddress the number of
+ * modifications to the class hierarchy} each time a class is added to it. As long as that number
+ * is unchanged, an assumption that has been validated still holds. Since {@link Assumptions}
+ * records assumptions in order and never removes them, the validated assumptions are a prefix of
+ * the {@link Assumptions} object and only the assumptions recorded after that prefix need to be
+ * checked by the VM. Validating an unchanged {@link Assumptions} object costs O(1). The target of
+ * a {@link java.lang.invoke.CallSite} can change without modifying the class hierarchy so
+ * {@link CallSiteTargetValue} assumptions are not validated here and are only checked when the
+ * code is installed.
+ * <p>
+ * A validator is used by a single thread. It is {@linkplain #release() released} when a
+ * compilation requested by HotSpot completes so that it does not keep the {@link Assumptions} of
+ * a finished compilation alive.
+ */
+final class HotSpotAssumptionValidator {
+
+    /**
+     * Counters across all validators. Exposed via
+     * {@link HotSpotJVMCIRuntime#getAssumptionValidationCounters()}.
+     */
+    static final LongAdder unchanged = new LongAdder();
+    static final LongAdder checked = new LongAdder();
+    static final LongAdder failed = new LongAdder();
+
+    private static final ThreadLocal<HotSpotAssumptionValidator> current = new ThreadLocal<>();
+
+    private final CompilerToVM compilerToVM;
+    private final long modificationsAddress;
+
+    /**
+     * The assumptions last validated by this object.
+     */
+    private Assumptions assumptions;
+
+    /**
+     * The number of modifications to the class hierarchy before the first {@link #validatedSize}
+     * elements of {@link #assumptions} were checked.
+     */
+    private int modifications;
+
+    /**
+     * The number of elements of {@link #assumptions} known to hold as long as the class hierarchy
+     * is not modified.
+     */
+    private int validatedSize;
+
+    private final ArrayList<Assumption> pending = new ArrayList<>();
+
+    private HotSpotAssumptionValidator(HotSpotJVMCIRuntime runtime) {
+        this.compilerToVM = runtime.getCompilerToVM();
+        this.modificationsAddress = runtime.getConfig().systemDictionaryModificationsAddress;
+    }
+
+    /**
+     * Gets the validator of the current thread.
+     */
+    static HotSpotAssumptionValidator current(HotSpotJVMCIRuntime runtime) {
+        HotSpotAssumptionValidator validator = current.get();
+        if (validator == null) {
+            validator = new HotSpotAssumptionValidator(runtime);
+            current.set(validator);
+        }
+        return validator;
+    }
+
+    /**
+     * Releases the state of the current thread's validator, if any.
+     */
+    static void release() {
+        HotSpotAssumptionValidator validator = current.get();
+        if (validator != null) {
+            validator.assumptions = null;
+        }
+    }
+
+    boolean validate(Assumptions toValidate) {
+        // Must be read before the VM checks the assumptions so that a concurrent
+        // modification forces a full validation the next time.
+        int currentModifications = UNSAFE.getIntVolatile(null, modificationsAddress);
+        int size = toValidate.size();
+        int start = 0;
+        if (toValidate == assumptions && currentModifications == modifications) {
+            if (size == validatedSize) {
+                unchanged.increment();
+                return true;
+            }
+            start = validatedSize;
+        }
+        for (int i = start; i < size; i++) {
+            Assumption assumption = toValidate.get(i);
+            if (!(assumption instanceof CallSiteTargetValue)) {
+                pending.add(assumption);
+            }
+        }
+        try {
+            if (!pending.isEmpty()) {
+                checked.increment();
+                Object[] array = pending.toArray();
+                if (!compilerToVM.validateAssumptions(array, array.length)) {
+                    failed.increment();
+                    assumptions = null;
+                    return false;
+                }
+            } else {
+                unchanged.increment();
+            }
+            assumptions = toValidate;
+            modifications = currentModifications;
+            validatedSize = size;
+            return true;
+        } finally {
+            pending.clear();
+        }
+    }
+}
@@ -34,6 +34,7 @@ import jdk.vm.ci.code.RegisterConfig;
 import jdk.vm.ci.code.TargetDescription;
 import jdk.vm.ci.code.site.Call;
 import jdk.vm.ci.code.site.Mark;
+import jdk.vm.ci.meta.Assumptions;
 import jdk.vm.ci.meta.ResolvedJavaMethod;
 import jdk.vm.ci.meta.SpeculationLog;
 
@@ -42,16 +43,20 @@ import jdk.vm.ci.meta.SpeculationLog;
  */
 public class HotSpotCodeCacheProvider implements CodeCacheProvider {
 
+    private static final byte[] NO_SPECULATIONS = {};
+
     protected final HotSpotJVMCIRuntime runtime;
     private final HotSpotVMConfig config;
     protected final TargetDescription target;
     protected final RegisterConfig regConfig;
+    private final HotSpotRuntimeStubCache stubCache;
 
     public HotSpotCodeCacheProvider(HotSpotJVMCIRuntime runtime, TargetDescription target, RegisterConfig regConfig) {
         this.runtime = runtime;
         this.config = runtime.getConfig();
         this.target = target;
         this.regConfig = regConfig;
+        this.stubCache = HotSpotJVMCIRuntime.Option.RuntimeStubCache.getBoolean() ? new HotSpotRuntimeStubCache() : null;
     }
 
     @Override
@@ -109,8 +114,19 @@ public class HotSpotCodeCacheProvider implements CodeCacheProvider {
         HotSpotCompiledCode hsCompiledCode = (HotSpotCompiledCode) compiledCode;
         String name = hsCompiledCode.getName();
         HotSpotCompiledNmethod hsCompiledNmethod = null;
+        HotSpotRuntimeStubCache.Key stubKey = null;
         if (method == null) {
             // Must be a stub
+            if (stubCache != null) {
+                stubKey = HotSpotRuntimeStubCache.Key.create(hsCompiledCode);
+            }
+            if (stubKey != null) {
+                HotSpotRuntimeStub stub = stubCache.lookup(stubKey);
+                if (stub != null) {
+                    // Identical code has already been installed
+                    return stub;
+                }
+            }
             resultInstalledCode = new HotSpotRuntimeStub(name);
         } else {
             hsCompiledNmethod = (HotSpotCompiledNmethod) hsCompiledCode;
@@ -118,6 +134,9 @@ public class HotSpotCodeCacheProvider implements CodeCacheProvider {
             resultInstalledCode = new HotSpotNmethod(hsMethod, name, isDefault, hsCompiledNmethod.id);
         }
 
+        HotSpotCompilationMetrics metrics = hsCompiledNmethod != null ? HotSpotCompilationMetrics.current() : null;
+        long start = metrics != null ? System.nanoTime() : 0L;
+
         HotSpotSpeculationLog speculationLog = null;
         if (log != null) {
             if (log.hasSpeculations()) {
@@ -126,15 +145,24 @@ public class HotSpotCodeCacheProvider implements CodeCacheProvider {
         }
 
         byte[] speculations;
+        int speculationsLength;
         long failedSpeculationsAddress;
         if (speculationLog != null) {
             speculations = speculationLog.getFlattenedSpeculations(true);
+            speculationsLength = speculationLog.getFlattenedSpeculationsLength();
             failedSpeculationsAddress = speculationLog.getFailedSpeculationsAddress();
         } else {
-            speculations = new byte[0];
+            speculations = NO_SPECULATIONS;
+            speculationsLength = 0;
             failedSpeculationsAddress = 0L;
         }
-        int result = runtime.getCompilerToVM().installCode(target, (HotSpotCompiledCode) compiledCode, resultInstalledCode, failedSpeculationsAddress, speculations);
+        // Keep buffered output ordered before the output the VM emits while installing
+        HotSpotOutputBuffers.current().drain();
+        long vmStart = metrics != null ? System.nanoTime() : 0L;
+        int result = runtime.getCompilerToVM().installCode(target, (HotSpotCompiledCode) compiledCode, resultInstalledCode, failedSpeculationsAddress, speculations, speculationsLength);
+        if (metrics != null) {
+            metrics.recordInstall(vmStart - start, System.nanoTime() - vmStart, speculationLog != null ? speculationLog.getSpeculationCount() : 0);
+        }
         if (result != config.codeInstallResultOk) {
             String resultDesc = config.getCodeInstallResultDescription(result);
             if (hsCompiledNmethod != null) {
@@ -152,9 +180,19 @@ public class HotSpotCodeCacheProvider implements CodeCacheProvider {
                 throw new BailoutException("Error installing %s: %s", ((HotSpotCompiledCode) compiledCode).getName(), resultDesc);
             }
         }
+        if (stubKey != null) {
+            stubCache.add(stubKey, (HotSpotRuntimeStub) resultInstalledCode);
+        }
         return logOrDump(resultInstalledCode, compiledCode);
     }
 
+    @Override
+    public boolean validateAssumptions(Assumptions assumptions) {
+        // Compilations are usually confined to a single thread so the state for
+        // incrementally validating the assumptions of a compilation is kept per thread
+        return HotSpotAssumptionValidator.current(runtime).validate(assumptions);
+    }
+
     @Override
     public void invalidateInstalledCode(InstalledCode installedCode) {
         if (installedCode instanceof HotSpotNmethod) {
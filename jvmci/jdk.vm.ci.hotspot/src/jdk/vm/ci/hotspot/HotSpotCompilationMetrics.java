@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot;
+
+import static jdk.vm.ci.hotspot.HotSpotJVMCIRuntime.runtime;
+import static jdk.vm.ci.hotspot.UnsafeAccess.UNSAFE;
+
+/**
+ * Measurements of a compilation requested by HotSpot that are not otherwise visible to a compiler.
+ * They are gathered by {@link HotSpotJVMCIRuntime} and {@link HotSpotCodeCacheProvider} while the
+ * compilation is in progress and can be used to fill in an {@link EventProvider.CompilationEvent}.
+ */
+public final class HotSpotCompilationMetrics {
+
+    /**
+     * The metrics of the compilation in progress on the current thread.
+     */
+    private static final ThreadLocal<HotSpotCompilationMetrics> current = new ThreadLocal<>();
+
+    private final long queueWaitNanos;
+    private final int decompileCount;
+    private final long startAllocatedBytes;
+    private long allocatedBytes = -1;
+
+    private long installPrepareNanos;
+    private long installVMNanos;
+    private int installations;
+    private int speculationCount;
+
+    private HotSpotCompilationMetrics previous;
+
+    /**
+     * @param compileState address of a native {@code JVMCICompileState} object or 0L
+     */
+    HotSpotCompilationMetrics(long compileState) {
+        HotSpotJVMCIRuntime runtime = runtime();
+        if (compileState != 0L) {
+            HotSpotVMConfig config = runtime.getConfig();
+            queueWaitNanos = UNSAFE.getLong(compileState + config.compileStateQueueWaitNanosOffset);
+            decompileCount = UNSAFE.getInt(compileState + config.compileStateDecompileCountOffset);
+        } else {
+            queueWaitNanos = -1;
+            decompileCount = 0;
+        }
+        startAllocatedBytes = runtime.getCompilerToVM().getThreadAllocatedBytes();
+    }
+
+    /**
+     * Gets the metrics of the compilation in progress on the current thread or {@code null} if
+     * the current thread is not performing a compilation requested by HotSpot.
+     */
+    public static HotSpotCompilationMetrics current() {
+        return current.get();
+    }
+
+    void begin() {
+        previous = current.get();
+        current.set(this);
+    }
+
+    void end() {
+        allocatedBytes = runtime().getCompilerToVM().getThreadAllocatedBytes() - startAllocatedBytes;
+        if (previous == null) {
+            current.remove();
+        } else {
+            current.set(previous);
+            previous = null;
+        }
+    }
+
+    /**
+     * Records the installation of an nmethod produced by this compilation.
+     *
+     * @param prepareNanos time spent preparing the installation (e.g. validating speculations)
+     * @param vmNanos time spent in {@link CompilerToVM#installCode}
+     * @param speculations number of speculations recorded by the installed code
+     */
+    void recordInstall(long prepareNanos, long vmNanos, int speculations) {
+        installPrepareNanos += prepareNanos;
+        installVMNanos += vmNanos;
+        installations++;
+        speculationCount += speculations;
+    }
+
+    /**
+     * Gets the time in nanoseconds the compilation spent in HotSpot's compile queue or -1 if it is
+     * not known.
+     */
+    public long getQueueWaitNanos() {
+        return queueWaitNanos;
+    }
+
+    /**
+     * Gets the number of times the method being compiled has been deoptimized and recompiled.
+     */
+    public int getDecompileCount() {
+        return decompileCount;
+    }
+
+    /**
+     * Gets the number of bytes allocated in the HotSpot heap by the compiling thread during the
+     * compilation. If the compilation is still in progress, this is the number of bytes allocated
+     * so far.
+     */
+    public long getAllocatedBytes() {
+        if (allocatedBytes < 0) {
+            return runtime().getCompilerToVM().getThreadAllocatedBytes() - startAllocatedBytes;
+        }
+        return allocatedBytes;
+    }
+
+    /**
+     * Gets the time in nanoseconds spent in {@link HotSpotCodeCacheProvider#installCode} before
+     * transitioning into the VM to install the code.
+     */
+    public long getInstallPrepareNanos() {
+        return installPrepareNanos;
+    }
+
+    /**
+     * Gets the time in nanoseconds spent in the VM installing the code.
+     */
+    public long getInstallVMNanos() {
+        return installVMNanos;
+    }
+
+    /**
+     * Gets the number of nmethods installed by the compilation.
+     */
+    public int getInstallations() {
+        return installations;
+    }
+
+    /**
+     * Gets the number of speculations recorded by the nmethods installed by the compilation.
+     */
+    public int getSpeculationCount() {
+        return speculationCount;
+    }
+
+    /**
+     * Sets the fields of {@code event} that are derived from these metrics.
+     */
+    public void fill(EventProvider.CompilationEvent event) {
+        event.setQueueWaitNanos(queueWaitNanos);
+        event.setDecompileCount(decompileCount);
+        event.setAllocatedBytes(getAllocatedBytes());
+        event.setInstallPrepareNanos(installPrepareNanos);
+        event.setInstallVMNanos(installVMNanos);
+        event.setSpeculationCount(speculationCount);
+    }
+}
@@ -39,6 +39,11 @@ public class HotSpotCompilationRequest extends CompilationRequest {
      */
     private final int id;
 
+    /**
+     * Measurements of the compilation if it was requested by HotSpot.
+     */
+    HotSpotCompilationMetrics metrics;
+
     /**
      * Creates a request to compile a method starting at a given BCI and allocates an identifier to
      * the request.
@@ -88,6 +93,14 @@ public class HotSpotCompilationRequest extends CompilationRequest {
         return id;
     }
 
+    /**
+     * Gets the measurements of this compilation or {@code null} if it was not requested by
+     * HotSpot.
+     */
+    public HotSpotCompilationMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public String toString() {
         return id + ":" + super.toString();
@@ -42,11 +42,13 @@ public class HotSpotConstantReflectionProvider implements ConstantReflectionProv
     protected final HotSpotJVMCIRuntime runtime;
     protected final HotSpotMethodHandleAccessProvider methodHandleAccess;
     private final HotSpotMemoryAccessProviderImpl memoryAccess;
+    private final HotSpotFieldValueCache fieldValueCache;
 
     public HotSpotConstantReflectionProvider(HotSpotJVMCIRuntime runtime) {
         this.runtime = runtime;
         this.methodHandleAccess = new HotSpotMethodHandleAccessProvider(this);
         this.memoryAccess = new HotSpotMemoryAccessProviderImpl(runtime);
+        this.fieldValueCache = HotSpotJVMCIRuntime.Option.FieldValueCache.getBoolean() ? new HotSpotFieldValueCache(runtime.getConfig()) : null;
     }
 
     @Override
@@ -164,6 +166,9 @@ public class HotSpotConstantReflectionProvider implements ConstantReflectionProv
         if (hotspotField.isStatic()) {
             HotSpotResolvedObjectTypeImpl holder = (HotSpotResolvedObjectTypeImpl) hotspotField.getDeclaringClass();
             if (holder.isInitialized()) {
+                if (fieldValueCache != null) {
+                    return fieldValueCache.readStaticFieldValue(holder, hotspotField);
+                }
                 return holder.readFieldValue(hotspotField, field.isVolatile());
             }
         } else {
@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Access to the JVMCI benchmark counters (see {@code -XX:JVMCICounterSize}). The counters are
+ * per-thread values incremented by compiled code and summed up over all threads when they are
+ * read.
+ * <p>
+ * Counters can be reserved in named {@linkplain Group groups}. Reserving a group grows the number
+ * of counters, which only requires a safepoint if the per-thread storage for the counters has to
+ * be reallocated. The changes of the counters can be sampled without allocation with a
+ * {@link Sampler} and periodically written to a stream by an {@link Exporter}.
+ */
+public final class HotSpotCounters {
+
+    /**
+     * A named group of consecutive counters.
+     */
+    public static final class Group {
+        private final String name;
+        private final int base;
+        private final String[] counterNames;
+
+        Group(String name, int base, String[] counterNames) {
+            this.name = name;
+            this.base = base;
+            this.counterNames = counterNames;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the number of counters in this group.
+         */
+        public int size() {
+            return counterNames.length;
+        }
+
+        public String getCounterName(int i) {
+            return counterNames[i];
+        }
+
+        /**
+         * Gets the index of the {@code i}'th counter of this group in the JVMCI counters array
+         * (i.e. the index to be incremented by compiled code and the index in the values returned
+         * by {@link HotSpotJVMCIRuntime#collectCounters()}).
+         */
+        public int getIndex(int i) {
+            if (i < 0 || i >= counterNames.length) {
+                throw new IndexOutOfBoundsException(i + " is not in [0, " + counterNames.length + ")");
+            }
+            return base + i;
+        }
+
+        @Override
+        public String toString() {
+            return name + "[" + base + ".." + (base + counterNames.length) + ")";
+        }
+    }
+
+    private final CompilerToVM compilerToVm;
+
+    /**
+     * The registered groups in order of their base index. Guarded by {@code this}.
+     */
+    private final List<Group> groups = new ArrayList<>();
+    private final Map<String, Group> groupsByName = new HashMap<>();
+
+    HotSpotCounters(CompilerToVM compilerToVm) {
+        this.compilerToVm = compilerToVm;
+    }
+
+    /**
+     * Reserves a group of counters named {@code name}, growing the number of counters as needed.
+     * The counters of the group start at 0. If a group with the same name and counter names has
+     * already been registered, that group is returned.
+     *
+     * @throws IllegalArgumentException if a group named {@code name} with different counter names
+     *             already exists
+     * @throws IllegalStateException if the counters could not be grown
+     */
+    public synchronized Group register(String name, String... counterNames) {
+        Group group = groupsByName.get(name);
+        if (group != null) {
+            if (!Arrays.equals(group.counterNames, counterNames)) {
+                throw new IllegalArgumentException("Counter group " + name + " already registered with counters " + Arrays.toString(group.counterNames));
+            }
+            return group;
+        }
+        int base = compilerToVm.getCountersSize();
+        if (!groups.isEmpty()) {
+            Group last = groups.get(groups.size() - 1);
+            base = Math.max(base, last.base + last.size());
+        }
+        int newSize = base + counterNames.length;
+        if (newSize != compilerToVm.getCountersSize() && !compilerToVm.setCountersSize(newSize)) {
+            throw new IllegalStateException("Could not grow JVMCI counters to " + newSize);
+        }
+        group = new Group(name, base, counterNames.clone());
+        groups.add(group);
+        groupsByName.put(name, group);
+        return group;
+    }
+
+    /**
+     * Gets the group named {@code name} or {@code null} if there is no such group.
+     */
+    public synchronized Group getGroup(String name) {
+        return groupsByName.get(name);
+    }
+
+    /**
+     * Gets the registered groups in the order of their indexes.
+     */
+    public synchronized List<Group> getGroups() {
+        return Collections.unmodifiableList(new ArrayList<>(groups));
+    }
+
+    /**
+     * Creates an object for sampling the changes of the counters.
+     */
+    public Sampler newSampler() {
+        return new Sampler();
+    }
+
+    /**
+     * Computes the changes of the counters between successive samples. A sample requires a
+     * single transition into the VM and only allocates when the number of counters has grown. A
+     * sampler is not thread safe.
+     */
+    public final class Sampler {
+
+        private long[] previous = new long[0];
+        private long[] current = new long[0];
+        private int size;
+
+        Sampler() {
+        }
+
+        /**
+         * Writes the change of each counter since the previous sample (or since the counter was
+         * created) into {@code deltas}. The changes of counters that do not fit into
+         * {@code deltas} are reported by a later sample.
+         *
+         * @return the number of entries written to {@code deltas}, which is the smaller of
+         *         {@code deltas.length} and the current number of counters
+         */
+        public int sample(long[] deltas) {
+            int size = compilerToVm.collectCountersInto(current);
+            while (size > current.length) {
+                int newLength = Math.max(size, current.length * 2);
+                current = new long[newLength];
+                previous = Arrays.copyOf(previous, newLength);
+                size = compilerToVm.collectCountersInto(current);
+            }
+            int count = Math.min(size, deltas.length);
+            for (int i = 0; i < count; i++) {
+                deltas[i] = current[i] - previous[i];
+            }
+            System.arraycopy(previous, count, current, count, size - count);
+            // Counters that have been dropped start at 0 if they reappear
+            Arrays.fill(current, size, current.length, 0L);
+            long[] tmp = previous;
+            previous = current;
+            current = tmp;
+            this.size = size;
+            return count;
+        }
+
+        /**
+         * Gets the number of counters seen by the last sample.
+         */
+        public int getCounterCount() {
+            return size;
+        }
+    }
+
+    /**
+     * Starts a daemon thread writing a sample of the counter changes to {@code out} every
+     * {@code periodMillis} milliseconds. The stream is not closed when the exporter is closed.
+     */
+    public Exporter startExporter(OutputStream out, long periodMillis) {
+        return new Exporter(out, periodMillis, false);
+    }
+
+    /**
+     * Starts a daemon thread writing a sample of the counter changes to the file named
+     * {@code fileName} every {@code periodMillis} milliseconds. The file is closed when the
+     * exporter is closed.
+     */
+    public Exporter startExporter(String fileName, long periodMillis) throws IOException {
+        return new Exporter(new FileOutputStream(fileName), periodMillis, true);
+    }
+
+    /**
+     * Periodically writes samples of the counter changes to a stream in a compact binary format.
+     * The stream starts with the {@code int}s {@link #MAGIC} and {@link #VERSION} followed by a
+     * sequence of records, each starting with a tag byte:
+     * <dl>
+     * <dt>{@link #GROUP_RECORD}</dt>
+     * <dd>A group registered since the previous record: its base index and size as unsigned
+     * varints, followed by its name and the names of its counters in modified UTF-8 (see
+     * {@link DataOutputStream#writeUTF}). Group records precede the first sample including their
+     * counters.</dd>
+     * <dt>{@link #SAMPLE_RECORD}</dt>
+     * <dd>The nanoseconds since the previous sample (or since the exporter started) and the number
+     * of counters as unsigned varints, followed by the change of each counter as a zig-zag encoded
+     * signed varint.</dd>
+     * </dl>
+     * Unsigned varints use 7 bits per byte, least significant group first, with the high bit of
+     * each byte denoting that another byte follows.
+     */
+    public final class Exporter implements AutoCloseable {
+
+        public static final int MAGIC = 0x4A564354;
+        public static final int VERSION = 1;
+        public static final byte GROUP_RECORD = 'G';
+        public static final byte SAMPLE_RECORD = 'S';
+
+        private final DataOutputStream out;
+        private final boolean closeStream;
+        private final long periodMillis;
+        private final Sampler sampler = new Sampler();
+        private final Thread thread;
+
+        private long[] deltas = new long[0];
+        private int exportedGroups;
+        private long lastSampleNanos;
+        private volatile boolean closed;
+        private IOException failure;
+
+        Exporter(OutputStream out, long periodMillis, boolean closeStream) {
+            if (periodMillis <= 0) {
+                throw new IllegalArgumentException("period must be positive: " + periodMillis);
+            }
+            this.out = new DataOutputStream(new BufferedOutputStream(out));
+            this.closeStream = closeStream;
+            this.periodMillis = periodMillis;
+            this.thread = new Thread(this::run, "JVMCI Counter Exporter");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void run() {
+            try {
+                lastSampleNanos = System.nanoTime();
+                // Establish the baseline for the first sample. A sample only moves the
+                // baseline of the counters for which it reports a change.
+                deltas = new long[compilerToVm.getCountersSize()];
+                while (sampler.sample(deltas) < sampler.getCounterCount()) {
+                    deltas = new long[sampler.getCounterCount()];
+                }
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.flush();
+                while (!closed) {
+                    try {
+                        Thread.sleep(periodMillis);
+                    } catch (InterruptedException e) {
+                        // closed
+                    }
+                    if (!closed) {
+                        writeSample();
+                    }
+                }
+                // Include all changes made before the exporter was closed
+                writeSample();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        private void writeSample() throws IOException {
+            List<Group> newGroups;
+            synchronized (HotSpotCounters.this) {
+                newGroups = exportedGroups == groups.size() ? Collections.emptyList() : new ArrayList<>(groups.subList(exportedGroups, groups.size()));
+            }
+            for (Group group : newGroups) {
+                out.writeByte(GROUP_RECORD);
+                writeUnsigned(group.base);
+                writeUnsigned(group.size());
+                out.writeUTF(group.name);
+                for (String counterName : group.counterNames) {
+                    out.writeUTF(counterName);
+                }
+                exportedGroups++;
+            }
+            int count = sampler.sample(deltas);
+            if (sampler.getCounterCount() > deltas.length) {
+                // The changes of the new counters are written by the next sample
+                deltas = new long[sampler.getCounterCount()];
+            }
+            long now = System.nanoTime();
+            out.writeByte(SAMPLE_RECORD);
+            writeUnsigned(now - lastSampleNanos);
+            lastSampleNanos = now;
+            writeUnsigned(count);
+            for (int i = 0; i < count; i++) {
+                long delta = deltas[i];
+                writeUnsigned((delta << 1) ^ (delta >> 63));
+            }
+            out.flush();
+        }
+
+        private void writeUnsigned(long value) throws IOException {
+            long v = value;
+            while ((v & ~0x7FL) != 0) {
+                out.writeByte((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            out.writeByte((int) v);
+        }
+
+        /**
+         * Stops the exporter after writing a final sample.
+         *
+         * @throws IOException if writing to the stream failed
+         */
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (closeStream) {
+                out.close();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
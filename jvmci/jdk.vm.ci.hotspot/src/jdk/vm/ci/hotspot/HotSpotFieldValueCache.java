@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot;
+
+import static jdk.vm.ci.hotspot.UnsafeAccess.UNSAFE;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.vm.ci.meta.JavaConstant;
+
+/**
+ * Caches the values of static fields that cannot change once their declaring class has been
+ * initialized: {@code static final} fields (other than {@code System.in}, {@code System.out} and
+ * {@code System.err}) and {@link HotSpotResolvedJavaField#isStable() stable} fields whose value is
+ * not the default value. The values are stored in the declaring type so that they do not outlive
+ * it. All values are discarded once a class has been redefined.
+ */
+final class HotSpotFieldValueCache {
+
+    /**
+     * Counters across all types. Exposed via {@link HotSpotJVMCIRuntime#getFieldValueCacheCounters()}.
+     */
+    static final LongAdder hits = new LongAdder();
+    static final LongAdder misses = new LongAdder();
+    static final LongAdder invalidations = new LongAdder();
+
+    /**
+     * The field values cached for a type.
+     */
+    static final class Values {
+        /**
+         * The number of class redefinitions performed when this object was created.
+         */
+        final int epoch;
+        final ConcurrentHashMap<HotSpotResolvedJavaField, JavaConstant> values = new ConcurrentHashMap<>();
+
+        Values(int epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+    /**
+     * Address of {@code JvmtiExport::_redefinition_count} or 0 if the VM does not support
+     * redefining classes.
+     */
+    private final long redefinitionCountAddress;
+
+    HotSpotFieldValueCache(HotSpotVMConfig config) {
+        this.redefinitionCountAddress = config.jvmtiRedefinitionCountAddress;
+    }
+
+    private int epoch() {
+        return redefinitionCountAddress == 0 ? 0 : UNSAFE.getIntVolatile(null, redefinitionCountAddress);
+    }
+
+    /**
+     * Determines if the value of {@code field} may be cached once it has been read.
+     */
+    private static boolean isCacheable(HotSpotResolvedJavaField field) {
+        if (field.isStable()) {
+            return true;
+        }
+        if (!field.isFinal()) {
+            return false;
+        }
+        // System.setIn, System.setOut and System.setErr update these fields
+        return !field.getDeclaringClass().getName().equals("Ljava/lang/System;");
+    }
+
+    /**
+     * Reads the value of the static {@code field} declared by the initialized class
+     * {@code holder}, returning a cached value if one is available.
+     */
+    @SuppressWarnings("try")
+    JavaConstant readStaticFieldValue(HotSpotResolvedObjectTypeImpl holder, HotSpotResolvedJavaField field) {
+        if (!isCacheable(field)) {
+            return holder.readFieldValue(field, field.isVolatile());
+        }
+        int epoch = epoch();
+        Values cached = holder.fieldValueCache;
+        if (cached == null || cached.epoch != epoch) {
+            if (cached != null) {
+                invalidations.increment();
+            }
+            cached = new Values(epoch);
+            holder.fieldValueCache = cached;
+        }
+        JavaConstant value = cached.values.get(field);
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        // The value may be cached across compilations so it must not be a scoped reference
+        try (HotSpotObjectConstantScope global = HotSpotObjectConstantScope.enterGlobalScope()) {
+            value = holder.readFieldValue(field, field.isVolatile());
+        }
+        if (value != null && (!field.isStable() || field.isFinal() || !value.isDefaultForKind())) {
+            cached.values.putIfAbsent(field, value);
+        }
+        return value;
+    }
+}
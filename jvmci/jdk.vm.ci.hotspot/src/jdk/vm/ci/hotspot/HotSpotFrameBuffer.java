@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot;
+
+import java.util.Arrays;
+
+import jdk.vm.ci.code.stack.InspectedFrame;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * A reusable buffer filled with batches of stack frames by
+ * {@link HotSpotStackIntrospection#iterateFrames(ResolvedJavaMethod[], int, HotSpotFrameBuffer)}
+ * and {@link HotSpotStackIntrospection#nextFrames(HotSpotFrameBuffer)}. Only the method, bci
+ * and kind of each frame are recorded. The locals of a frame are only retrieved when
+ * {@link #getFrame(int)} is called.
+ *
+ * Retrieving the locals of a compiled frame reallocates the objects that were scalar replaced in
+ * its physical frame. {@link #getFrame(int)} does this once for all frames in the buffer that
+ * belong to the same physical frame and returns the same object for a frame until the buffer is
+ * refilled, so the locals of these frames refer to the same reallocated objects. This does not
+ * hold for the frames of a physical frame that is split across two batches, nor across the frames
+ * passed to an {@link jdk.vm.ci.code.stack.InspectedFrameVisitor}.
+ *
+ * The frames in a buffer are only valid while they are on the stack, i.e. until the caller of
+ * the method filling the buffer returns.
+ */
+public final class HotSpotFrameBuffer {
+
+    /**
+     * Number of entries per frame in {@link #frames}. Must be kept in sync with
+     * {@code FRAME_BUFFER_STRIDE} in {@code jvmciCompilerToVM.cpp}.
+     */
+    static final int STRIDE = 3;
+
+    final Object[] methods;
+    final long[] frames;
+
+    /**
+     * The methods of the frames to be returned by the current walk or {@code null} for all frames.
+     */
+    ResolvedJavaMethod[] matchingMethods;
+
+    /**
+     * Number of valid frames in this buffer.
+     */
+    int size;
+
+    /**
+     * The frames created by {@link #getFrame(int)} for the current batch. Allocated on first use.
+     */
+    private HotSpotStackFrameReference[] references;
+
+    /**
+     * Creates a buffer that holds up to {@code capacity} frames.
+     */
+    public HotSpotFrameBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.methods = new Object[capacity];
+        this.frames = new long[capacity * STRIDE];
+    }
+
+    public int capacity() {
+        return methods.length;
+    }
+
+    /**
+     * Gets the number of frames in this buffer.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sets the number of frames after this buffer has been refilled.
+     */
+    void setSize(int newSize) {
+        if (references != null) {
+            Arrays.fill(references, 0, size, null);
+        }
+        size = newSize;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + size);
+        }
+        return index;
+    }
+
+    public ResolvedJavaMethod getMethod(int index) {
+        return (ResolvedJavaMethod) methods[checkIndex(index)];
+    }
+
+    public int getBytecodeIndex(int index) {
+        return (int) frames[checkIndex(index) * STRIDE + 1];
+    }
+
+    /**
+     * Determines if the frame at {@code index} is a compiled frame.
+     */
+    public boolean isCompiled(int index) {
+        return (frames[checkIndex(index) * STRIDE + 2] & 1) != 0;
+    }
+
+    long getStackPointer(int index) {
+        return frames[index * STRIDE];
+    }
+
+    int getFrameNumber(int index) {
+        return (int) (frames[index * STRIDE + 2] >>> 1);
+    }
+
+    /**
+     * Gets the frame at {@code index} including its locals. The first call for a frame transitions
+     * into the VM and creates the frames of all entries in this buffer that belong to the same
+     * physical frame. Later calls return the same frame until this buffer is refilled.
+     *
+     * @throws IllegalStateException if the frame is no longer on the stack
+     */
+    public InspectedFrame getFrame(int index) {
+        checkIndex(index);
+        if (references == null) {
+            references = new HotSpotStackFrameReference[capacity()];
+        }
+        if (references[index] == null) {
+            long stackPointer = getStackPointer(index);
+            int from = index;
+            while (from > 0 && getStackPointer(from - 1) == stackPointer) {
+                from--;
+            }
+            int to = index + 1;
+            while (to < size && getStackPointer(to) == stackPointer) {
+                to++;
+            }
+            CompilerToVM.compilerToVM().getStackFrameReferences(frames, from, to, references);
+        }
+        return references[index];
+    }
+}
@@ -41,6 +41,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
 
 import jdk.vm.ci.code.Architecture;
@@ -185,12 +186,12 @@ public final class HotSpotJVMCIRuntime implements JVMCIRuntime {
     }
 
     @VMEntryPoint
-    static Throwable decodeThrowable(String encodedThrowable) throws Throwable {
+    static Throwable decodeThrowable(byte[] encodedThrowable) throws Throwable {
         return TranslatedException.decodeThrowable(encodedThrowable);
     }
 
     @VMEntryPoint
-    static String encodeThrowable(Throwable throwable) throws Throwable {
+    static byte[] encodeThrowable(Throwable throwable) throws Throwable {
         return TranslatedException.encodeThrowable(throwable);
     }
 
@@ -210,7 +211,12 @@ public final class HotSpotJVMCIRuntime implements JVMCIRuntime {
                 "property can also be defined by the contents of <java.home>/lib/jvmci/compiler-name."),
         // Note: The following one is not used (see InitTimer.ENABLED). It is added here
         // so that -XX:+JVMCIPrintProperties shows the option.
-        InitTimer(Boolean.class, false, "Specifies if initialization timing is enabled."),
+        InitTimer(Boolean.class, false, "Specifies if initialization phases are printed as they complete " +
+                "and if the bytes allocated by each phase are measured."),
+        PrintInitPhases(Boolean.class, false, "Prints the recorded phases of the JVMCI runtime initialization as JSON " +
+                "objects, one per line, when the runtime shuts down."),
+        InitPhaseEvents(Boolean.class, false, "Commits an event for each recorded phase of the JVMCI runtime " +
+                "initialization once the compiler has been created and once the first compilation has completed."),
         PrintConfig(Boolean.class, false, "Prints VM configuration available via JVMCI."),
         AuditHandles(Boolean.class, false, "Record stack trace along with scoped foreign object reference wrappers " +
                 "to debug issue with a wrapper being used after its scope has closed."),
@@ -218,7 +224,17 @@ public final class HotSpotJVMCIRuntime implements JVMCIRuntime {
                 "Enables tracing of profiling info when read by JVMCI.",
                 "Empty value: trace all methods",
                         "Non-empty value: trace methods whose fully qualified name contains the value."),
-        UseProfilingInformation(Boolean.class, true, "");
+        UseProfilingInformation(Boolean.class, true, ""),
+        VMConfigBlob(Boolean.class, true, "Reads the VM configuration in a compact binary format whose entries " +
+                "are decoded on demand instead of as Java objects."),
+        FieldValueCache(Boolean.class, true, "Caches the values of static final and @Stable fields read " +
+                "by the compiler."),
+        RuntimeStubCache(Boolean.class, true, "Reuses an installed runtime stub when installing a stub whose " +
+                "name, code, sites and data section are identical to it."),
+        TranslatedExceptionStackDepth(Integer.class, -1, "The maximum number of stack frames of each exception " +
+                "translated from the HotSpot heap to the JVMCI shared library heap. A negative value means no limit."),
+        CleanerThread(Boolean.class, true, "Specifies if the native resources of unreachable JVMCI objects are released " +
+                "by a dedicated daemon thread instead of by the threads creating new JVMCI objects.");
         // @formatter:on
 
         /**
@@ -256,6 +272,8 @@ public final class HotSpotJVMCIRuntime implements JVMCIRuntime {
                         this.value = Boolean.parseBoolean(propertyValue);
                     } else if (type == String.class) {
                         this.value = propertyValue;
+                    } else if (type == Integer.class) {
+                        this.value = Integer.parseInt(propertyValue);
                     } else {
                         throw new JVMCIError("Unexpected option type " + type);
                     }
@@ -290,6 +308,15 @@ public final class HotSpotJVMCIRuntime implements JVMCIRuntime {
             return (String) getValue();
         }
 
+        /**
+         * Returns the option's value as int.
+         *
+         * @return option's value
+         */
+        public int getInt() {
+            return (int) getValue();
+        }
+
         private static final int PROPERTY_LINE_WIDTH = 80;
         private static final int PROPERTY_HELP_INDENT = 10;
 
@@ -372,12 +399,21 @@ public final class HotSpotJVMCIRuntime implements JVMCIRuntime {
     protected final HotSpotJVMCIReflection reflection;
     @NativeImageReinitialize private volatile boolean creatingCompiler;
 
+    /**
+     * Determines if the first compilation, which is timed as the last phase of the runtime
+     * initialization, has started.
+     */
+    private final AtomicBoolean firstCompilationStarted = new AtomicBoolean();
+
     /**
      * Cache for speeding up {@link #fromClass(Class)}.
      */
     @NativeImageReinitialize private volatile ClassValue<WeakReference<HotSpotResolvedJavaType>> resolvedJavaType;
 
-    @NativeImageReinitialize private HashMap<Long, WeakReference<ResolvedJavaType>> resolvedJavaTypes;
+    /**
+     * Cache for speeding up {@link #fromMetaspace(long, String)}.
+     */
+    @NativeImageReinitialize private volatile KlassPointerTypeCache resolvedJavaTypes;
 
     /**
      * Stores the value set by {@link #excludeFromJVMCICompilation(ClassLoader...)} so that it can
@@ -390,6 +426,8 @@ public final class HotSpotJVMCIRuntime implements JVMCIRuntime {
 
     private volatile List<HotSpotVMEventListener> vmEventListeners;
 
+    @NativeImageReinitialize private volatile HotSpotCounters counters;
+
     private Iterable<HotSpotVMEventListener> getVmEventListeners() {
         if (vmEventListeners == null) {
             synchronized (this) {
@@ -431,7 +469,9 @@ public final class HotSpotJVMCIRuntime implements JVMCIRuntime {
             hostBackend = registerBackend(factory.createJVMCIBackend(this, null));
         }
 
-        compilerFactory = HotSpotJVMCICompilerConfig.getCompilerFactory();
+        try (InitTimer t = timer("select compiler factory")) {
+            compilerFactory = HotSpotJVMCICompilerConfig.getCompilerFactory();
+        }
         if (compilerFactory instanceof HotSpotJVMCICompilerFactory) {
             hsCompilerFactory = (HotSpotJVMCICompilerFactory) compilerFactory;
             if (hsCompilerFactory.getCompilationLevelAdjustment() != None) {
@@ -513,21 +553,15 @@ public final class HotSpotJVMCIRuntime implements JVMCIRuntime {
         return fromClass0(javaClass);
     }
 
-    synchronized HotSpotResolvedObjectTypeImpl fromMetaspace(long klassPointer, String signature) {
+    HotSpotResolvedObjectTypeImpl fromMetaspace(long klassPointer, String signature) {
         if (resolvedJavaTypes == null) {
-            resolvedJavaTypes = new HashMap<>();
-        }
-        assert klassPointer != 0;
-        WeakReference<ResolvedJavaType> klassReference = resolvedJavaTypes.get(klassPointer);
-        HotSpotResolvedObjectTypeImpl javaType = null;
-        if (klassReference != null) {
-            javaType = (HotSpotResolvedObjectTypeImpl) klassReference.get();
-        }
-        if (javaType == null) {
-            javaType = new HotSpotResolvedObjectTypeImpl(klassPointer, signature);
-            resolvedJavaTypes.put(klassPointer, new WeakReference<>(javaType));
+            synchronized (this) {
+                if (resolvedJavaTypes == null) {
+                    resolvedJavaTypes = new KlassPointerTypeCache();
+                }
+            }
         }
-        return javaType;
+        return resolvedJavaTypes.get(klassPointer, signature);
     }
 
     private JVMCIBackend registerBackend(JVMCIBackend backend) {
@@ -589,6 +623,7 @@ public final class HotSpotJVMCIRuntime implements JVMCIRuntime {
         return null;
     }
 
+    @SuppressWarnings("try")
     @Override
     public JVMCICompiler getCompiler() {
         if (compiler == null) {
@@ -596,8 +631,11 @@ public final class HotSpotJVMCIRuntime implements JVMCIRuntime {
                 if (compiler == null) {
                     assert !creatingCompiler : "recursive compiler creation";
                     creatingCompiler = true;
-                    compiler = compilerFactory.createCompiler(this);
+                    try (InitTimer t = timer("create compiler")) {
+                        compiler = compilerFactory.createCompiler(this);
+                    }
                     creatingCompiler = false;
+                    commitInitPhaseEvents();
                 }
             }
         }
@@ -664,7 +702,30 @@ public final class HotSpotJVMCIRuntime implements JVMCIRuntime {
     private HotSpotCompilationRequestResult compileMethod(HotSpotResolvedJavaMethod method, int entryBCI, long compileState, int id) {
         Thread.currentThread().setContextClassLoader(HotSpotJVMCIRuntime.class.getClassLoader());
         HotSpotCompilationRequest request = new HotSpotCompilationRequest(method, entryBCI, compileState, id);
-        CompilationRequestResult result = getCompiler().compileMethod(request);
+        HotSpotCompilationMetrics metrics = new HotSpotCompilationMetrics(compileState);
+        request.metrics = metrics;
+        CompilationRequestResult result;
+        metrics.begin();
+        HotSpotOutputBuffers buffers = HotSpotOutputBuffers.current();
+        buffers.enterScope();
+        try {
+            if (!firstCompilationStarted.get() && firstCompilationStarted.compareAndSet(false, true)) {
+                try (InitTimer t = timer("first compilation")) {
+                    result = getCompiler().compileMethod(request);
+                }
+                commitInitPhaseEvents();
+            } else {
+                result = getCompiler().compileMethod(request);
+            }
+        } catch (Throwable t) {
+            // Make the output leading up to the error visible even if the VM does not survive it
+            buffers.drainTTY(true);
+            throw t;
+        } finally {
+            buffers.exitScope();
+            HotSpotAssumptionValidator.release();
+            metrics.end();
+        }
         assert result != null : "compileMethod must always return something";
         HotSpotCompilationRequestResult hsResult;
         if (result instanceof HotSpotCompilationRequestResult) {
@@ -687,13 +748,20 @@ public final class HotSpotJVMCIRuntime implements JVMCIRuntime {
      */
     @VMEntryPoint
     private void shutdown() throws Exception {
-        // Cleaners are normally only processed when a new Cleaner is
-        // instantiated so process all remaining cleaners now.
+        // Cleaners are processed asynchronously or in bounded batches
+        // when a new Cleaner is instantiated so process all remaining
+        // cleaners now.
         Cleaner.clean();
 
         for (HotSpotVMEventListener vmEventListener : getVmEventListeners()) {
             vmEventListener.notifyShutdown();
         }
+
+        if (Option.PrintInitPhases.getBoolean()) {
+            PrintStream out = new PrintStream(getLogStream());
+            InitTimer.printReport(out);
+            out.flush();
+        }
     }
 
     /**
@@ -733,39 +801,77 @@ public final class HotSpotJVMCIRuntime implements JVMCIRuntime {
      * @throws IndexOutOfBoundsException if copying would cause access of data outside array bounds
      */
     public int writeDebugOutput(byte[] bytes, int offset, int length, boolean flush, boolean canThrow) {
+        // Preserve the order with respect to output buffered by the current thread
+        HotSpotOutputBuffers.current().drainTTY(false);
         return compilerToVm.writeDebugOutput(bytes, offset, length, flush, canThrow);
     }
 
     /**
-     * Gets an output stream that writes to HotSpot's {@code tty} stream.
+     * Gets an output stream that writes to HotSpot's {@code tty} stream. Output written in a
+     * {@linkplain #bufferOutput() buffering scope} is buffered.
      */
     public OutputStream getLogStream() {
         return new OutputStream() {
 
             @Override
             public void write(byte[] b, int off, int len) throws IOException {
-                if (b == null) {
-                    throw new NullPointerException();
-                } else if (off < 0 || off > b.length || len < 0 || (off + len) > b.length || (off + len) < 0) {
-                    throw new IndexOutOfBoundsException();
-                } else if (len == 0) {
+                if (len == 0 && b != null) {
                     return;
                 }
-                compilerToVm.writeDebugOutput(b, off, len, false, true);
+                HotSpotOutputBuffers.current().writeTTY(b, off, len);
             }
 
             @Override
             public void write(int b) throws IOException {
-                write(new byte[]{(byte) b}, 0, 1);
+                HotSpotOutputBuffers.current().writeTTY(b);
             }
 
             @Override
             public void flush() throws IOException {
-                compilerToVm.flushDebugOutput();
+                HotSpotOutputBuffers.current().flushTTY();
             }
         };
     }
 
+    /**
+     * A scope in which the output written by a thread to the streams returned by
+     * {@link HotSpotJVMCIRuntime#getLogStream()} and
+     * {@link HotSpotJVMCIRuntime#getCompileLogStream()} is buffered.
+     */
+    public interface OutputBufferScope extends AutoCloseable {
+        /**
+         * Exits this scope. If this is the outermost scope entered by the current thread, the
+         * buffered output is transferred to the VM.
+         */
+        @Override
+        void close();
+    }
+
+    /**
+     * Enters a scope in which the output written by the current thread to the streams returned
+     * by {@link #getLogStream()} and {@link #getCompileLogStream()} is buffered until a buffer
+     * fills up, the stream is flushed or the outermost scope is closed. Compilations requested by
+     * HotSpot are performed in such a scope. Buffered output is also transferred before code is
+     * installed and, for {@code tty}, when a compilation requested by HotSpot fails with an
+     * exception. Buffered output is lost if the VM exits abruptly before it is transferred.
+     */
+    public OutputBufferScope bufferOutput() {
+        HotSpotOutputBuffers buffers = HotSpotOutputBuffers.current();
+        buffers.enterScope();
+        return buffers::exitScope;
+    }
+
+    /**
+     * Gets statistics about the streams returned by {@link #getLogStream()} and
+     * {@link #getCompileLogStream()}.
+     *
+     * @return an array of 2 values: the number of bytes written to the streams and the number of
+     *         transitions into the VM made to write or flush them
+     */
+    public long[] getOutputStatistics() {
+        return new long[]{HotSpotOutputBuffers.bytesWritten.sum(), HotSpotOutputBuffers.transitions.sum()};
+    }
+
     /**
      * Gets an output stream that writes to HotSpot's {@code CompileLog} stream. The stream can only
      * be used by the thread that created it and should be closed when writing is completed. Writing
@@ -804,8 +910,9 @@ public final class HotSpotJVMCIRuntime implements JVMCIRuntime {
     }
 
     /**
-     * Attempt to enlarge the number of per thread counters available. Requires a safepoint so
-     * resizing should be rare to avoid performance effects.
+     * Attempt to enlarge the number of per thread counters available. This requires a safepoint
+     * if the per thread storage for the counters has to be reallocated, in which case its capacity
+     * is at least doubled so that subsequent resizes are cheap.
      *
      * @param newSize
      * @return false if the resizing failed
@@ -814,24 +921,180 @@ public final class HotSpotJVMCIRuntime implements JVMCIRuntime {
         return compilerToVm.setCountersSize(newSize);
     }
 
-    private class CompileLogStream extends OutputStream {
+    /**
+     * Gets the object for reserving named groups of counters and for sampling and exporting the
+     * changes of the counters.
+     */
+    public HotSpotCounters getCounters() {
+        if (counters == null) {
+            synchronized (this) {
+                if (counters == null) {
+                    counters = new HotSpotCounters(compilerToVm);
+                }
+            }
+        }
+        return counters;
+    }
+
+    /**
+     * Gets the counters of the per-type caches that map {@code Method*} values to
+     * {@link HotSpotResolvedJavaMethod} objects, summed up over all types.
+     *
+     * @return an array of 3 values: the number of lookups that found an existing method object,
+     *         the number of lookups that created a new method object and the number of times a
+     *         cache was promoted to a larger table
+     */
+    public long[] getMethodCacheCounters() {
+        return new long[]{
+                        HotSpotResolvedObjectTypeImpl.methodCacheHits.sum(),
+                        HotSpotResolvedObjectTypeImpl.methodCacheMisses.sum(),
+                        HotSpotResolvedObjectTypeImpl.methodCachePromotions.sum()};
+    }
+
+    /**
+     * Gets the counters of the cache for the values of static final and {@code @Stable} fields.
+     *
+     * @return an array of 3 values: the number of reads served from the cache, the number of reads
+     *         that missed the cache and the number of per-type caches discarded after a class
+     *         redefinition
+     */
+    public long[] getFieldValueCacheCounters() {
+        return new long[]{
+                        HotSpotFieldValueCache.hits.sum(),
+                        HotSpotFieldValueCache.misses.sum(),
+                        HotSpotFieldValueCache.invalidations.sum()};
+    }
+
+    /**
+     * Gets the counters of the caches of installed runtime stubs.
+     *
+     * @return an array of 2 values: the number of stub installations that reused an installed stub
+     *         and the number of stub installations that installed new code
+     */
+    public long[] getRuntimeStubCacheCounters() {
+        return new long[]{
+                        HotSpotRuntimeStubCache.hits.sum(),
+                        HotSpotRuntimeStubCache.misses.sum()};
+    }
+
+    /**
+     * Gets the counters of the local {@link HotSpotObjectConstantScope}s.
+     *
+     * @return an array of 3 values: the number of local scopes closed, the number of foreign object
+     *         references they released and the maximum number of references released by a
+     *         single scope
+     */
+    public long[] getObjectConstantScopeCounters() {
+        return new long[]{
+                        HotSpotObjectConstantScope.localScopesClosed.sum(),
+                        HotSpotObjectConstantScope.handlesReleased.sum(),
+                        HotSpotObjectConstantScope.maxHandlesPerScope.get()};
+    }
+
+    /**
+     * Gets the counters for {@link HotSpotCodeCacheProvider#validateAssumptions}.
+     *
+     * @return an array of 3 values: the number of validations that did not call into the VM, the
+     *         number of validations that called into the VM and the number of validations that
+     *         found an assumption that no longer holds
+     */
+    public long[] getAssumptionValidationCounters() {
+        return new long[]{
+                        HotSpotAssumptionValidator.unchanged.sum(),
+                        HotSpotAssumptionValidator.checked.sum(),
+                        HotSpotAssumptionValidator.failed.sum()};
+    }
+
+    /**
+     * Gets the number of calls into the VM made so far for retrieving the metadata of
+     * {@link HotSpotResolvedObjectType}s (e.g. interfaces, component type, declared methods or
+     * finalizable subclasses).
+     */
+    public long getTypeMetadataQueryCount() {
+        return HotSpotResolvedObjectTypeImpl.typeMetadataQueries.sum();
+    }
+
+    /**
+     * Gets statistics about the release of native resources (e.g. handles) held by JVMCI objects
+     * that have become unreachable.
+     *
+     * @return an array of 5 values: the number of unreachable or live objects whose resources
+     *         have not been released yet, the number of objects whose resources have been released,
+     *         the number of batches in which they were released, the total time in nanoseconds
+     *         spent releasing them and the maximum time in nanoseconds spent releasing a single
+     *         batch
+     */
+    public long[] getCleanerStatistics() {
+        return Cleaner.getStatistics();
+    }
+
+    /**
+     * Gets the phases of the runtime initialization recorded so far, including the creation of
+     * the compiler and the first compilation once they have completed. Phases are only recorded if
+     * one of {@link Option#InitTimer}, {@link Option#PrintInitPhases} or
+     * {@link Option#InitPhaseEvents} is enabled.
+     */
+    public List<InitTimer.Phase> getInitPhases() {
+        return InitTimer.getPhases();
+    }
+
+    /**
+     * Number of phases returned by {@link #getInitPhases()} for which events have been committed.
+     */
+    private int committedInitPhases;
+
+    /**
+     * Commits an {@link EventProvider.InitPhaseEvent} for each phase returned by
+     * {@link #getInitPhases()} that has not been committed yet if {@link Option#InitPhaseEvents}
+     * is enabled.
+     */
+    private synchronized void commitInitPhaseEvents() {
+        if (!Option.InitPhaseEvents.getBoolean()) {
+            return;
+        }
+        List<EventProvider> eventProviders = JVMCIServiceLocator.getProviders(EventProvider.class);
+        if (eventProviders.isEmpty()) {
+            return;
+        }
+        EventProvider eventProvider = eventProviders.get(0);
+        List<InitTimer.Phase> phases = InitTimer.getPhases();
+        for (InitTimer.Phase phase : phases.subList(committedInitPhases, phases.size())) {
+            EventProvider.InitPhaseEvent event = eventProvider.newInitPhaseEvent();
+            if (!event.shouldWrite()) {
+                break;
+            }
+            event.setPhase(phase.getName());
+            event.setThread(phase.getThread());
+            event.setDepth(phase.getDepth());
+            event.setStartNanos(phase.getStartNanos());
+            event.setDurationNanos(phase.getDurationNanos());
+            event.setAllocatedBytes(phase.getAllocatedBytes());
+            event.commit();
+        }
+        committedInitPhases = phases.size();
+    }
+
+    private static class CompileLogStream extends OutputStream {
 
         CompileLogStream() {
         }
 
         @Override
         public void write(byte[] b, int off, int len) throws IOException {
-            compilerToVm.writeCompileLogOutput(b, off, len);
+            if (len == 0 && b != null) {
+                return;
+            }
+            HotSpotOutputBuffers.current().writeCompileLog(b, off, len);
         }
 
         @Override
         public void write(int b) throws IOException {
-            write(new byte[]{(byte) b}, 0, 1);
+            HotSpotOutputBuffers.current().writeCompileLog(b);
         }
 
         @Override
         public void flush() throws IOException {
-            compilerToVm.flushCompileLogOutput();
+            HotSpotOutputBuffers.current().flushCompileLog();
         }
     }
 
@@ -1061,6 +1324,7 @@ public final class HotSpotJVMCIRuntime implements JVMCIRuntime {
      * Calls {@link System#exit(int)} in HotSpot's runtime.
      */
     public void exitHotSpot(int status) {
+        HotSpotOutputBuffers.current().drainTTY(true);
         if (!IS_IN_NATIVE_IMAGE) {
             System.exit(status);
         }
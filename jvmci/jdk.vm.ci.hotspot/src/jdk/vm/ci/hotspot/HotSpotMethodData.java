@@ -89,6 +89,14 @@ final class HotSpotMethodData {
 
         final int argInfoDataSize = cellIndexToOffset(1);
 
+        final int counterDataCellCount = 1;
+        final int virtualCallDataCellCount = (virtualCallDataSize - config.dataLayoutHeaderSize) / config.dataLayoutCellSize;
+        final int typeStackSlotEntriesPerArgCellCount = config.typeStackSlotEntriesPerArgCellCount;
+        final int parametersTypeDataSize = cellIndexToOffset(1);
+
+        final int speculativeTrapDataSize = cellIndexToOffset(config.speculativeTrapDataCellCount);
+        final int speculativeTrapDataMethodOffset = cellIndexToOffset(config.speculativeTrapDataMethodOffset);
+
         // sorted by tag
         // @formatter:off
         final HotSpotMethodDataAccessor[] profileDataAccessors = {
@@ -102,10 +110,10 @@ final class HotSpotMethodData {
             new BranchData(this, config.dataLayoutBranchDataTag),
             new MultiBranchData(this, config.dataLayoutMultiBranchDataTag),
             new ArgInfoData(this, config.dataLayoutArgInfoDataTag),
-            new UnknownProfileData(this, config.dataLayoutCallTypeDataTag),
+            new CallTypeData(this, config.dataLayoutCallTypeDataTag),
             new VirtualCallTypeData(this, config.dataLayoutVirtualCallTypeDataTag),
-            new UnknownProfileData(this, config.dataLayoutParametersTypeDataTag),
-            new UnknownProfileData(this, config.dataLayoutSpeculativeTrapDataTag),
+            new ParametersTypeData(this, config.dataLayoutParametersTypeDataTag),
+            new SpeculativeTrapData(this, config.dataLayoutSpeculativeTrapDataTag),
         };
         // @formatter:on
 
@@ -161,6 +169,13 @@ final class HotSpotMethodData {
         }
     }
 
+    private static final ProfiledType[] NO_PROFILED_TYPES = new ProfiledType[0];
+
+    /**
+     * Denotes a metadata cell in {@link #snapshotMetadata} that has been resolved to {@code null}.
+     */
+    private static final Object NO_METADATA = new Object();
+
     /**
      * Reference to the C++ MethodData object.
      */
@@ -168,17 +183,100 @@ final class HotSpotMethodData {
     private final HotSpotResolvedJavaMethodImpl method;
     private final VMState state;
 
+    /**
+     * A copy of the bytes of the {@code MethodData} if this object is a snapshot, otherwise
+     * {@code null}. The {@code MethodData} fields are read with {@link Unsafe} relative to this
+     * object and {@link #base}.
+     */
+    private final byte[] snapshot;
+
+    /**
+     * The address of the {@code MethodData} or the offset of the first element in
+     * {@link #snapshot}.
+     */
+    private final long base;
+
+    /**
+     * The JVMCI objects for the metadata pointers in {@link #snapshot}, resolved on first access
+     * and indexed by the offset of the cell holding the pointer divided by the cell size.
+     */
+    private final Object[] snapshotMetadata;
+
+    /**
+     * Value of {@link #isProfileMature()} when the snapshot was taken.
+     */
+    private final boolean snapshotMature;
+
+    /**
+     * Lazily built index of the normal data records. The layout of the normal data is fixed when
+     * the {@code MethodData} is allocated so this index never needs to be rebuilt.
+     */
+    private volatile BCIIndex normalDataIndex;
+
+    /**
+     * Lazily built index of the extra data records. Records are appended to the extra data by the
+     * VM as deoptimizations happen so this index is revalidated on each access.
+     */
+    private volatile BCIIndex extraDataIndex;
+
     HotSpotMethodData(long metaspaceMethodData, HotSpotResolvedJavaMethodImpl method) {
         this.metaspaceMethodData = metaspaceMethodData;
         this.method = method;
         this.state = VMState.instance();
+        this.snapshot = null;
+        this.base = metaspaceMethodData;
+        this.snapshotMetadata = null;
+        this.snapshotMature = false;
+    }
+
+    private HotSpotMethodData(HotSpotMethodData live) {
+        this.metaspaceMethodData = live.metaspaceMethodData;
+        this.method = live.method;
+        this.state = live.state;
+        this.snapshotMature = live.isProfileMature();
+        int size = UNSAFE.getInt(metaspaceMethodData + state.config.methodDataSize);
+        this.snapshot = new byte[size];
+        this.base = Unsafe.ARRAY_BYTE_BASE_OFFSET;
+        UNSAFE.copyMemory(null, metaspaceMethodData, snapshot, base, size);
+        this.snapshotMetadata = new Object[size / state.config.dataLayoutCellSize];
+    }
+
+    /**
+     * Creates a copy of the current contents of the {@code MethodData}. All profile queries on the
+     * copy return the values at the time of the copy, which makes them consistent with each other
+     * for the duration of a compilation.
+     */
+    HotSpotMethodData snapshot() {
+        assert !isSnapshot();
+        return new HotSpotMethodData(this);
+    }
+
+    boolean isSnapshot() {
+        return snapshot != null;
+    }
+
+    private int getInt(long offset) {
+        return UNSAFE.getInt(snapshot, base + offset);
+    }
+
+    /**
+     * Reads a cell (platform word).
+     */
+    private long getCell(long offset) {
+        if (snapshot == null) {
+            return UNSAFE.getAddress(base + offset);
+        }
+        if (UNSAFE.addressSize() == 8) {
+            return UNSAFE.getLong(snapshot, base + offset);
+        }
+        return UNSAFE.getInt(snapshot, base + offset) & 0xFFFFFFFFL;
     }
 
     /**
      * @return value of the MethodData::_data_size field
      */
     private int normalDataSize() {
-        return UNSAFE.getInt(metaspaceMethodData + state.config.methodDataDataSize);
+        return getInt(state.config.methodDataDataSize);
     }
 
     /**
@@ -189,7 +287,7 @@ final class HotSpotMethodData {
      */
     private int extraDataSize() {
         final int extraDataBase = state.config.methodDataOopDataOffset + normalDataSize();
-        final int extraDataLimit = UNSAFE.getInt(metaspaceMethodData + state.config.methodDataSize);
+        final int extraDataLimit = getInt(state.config.methodDataSize);
         return extraDataLimit - extraDataBase;
     }
 
@@ -209,28 +307,201 @@ final class HotSpotMethodData {
         return position >= 0 && position < normalDataSize() + extraDataSize();
     }
 
+    /**
+     * An immutable map from BCIs to the positions of the data records for them. Each
+     * {@link HotSpotProfilingInfo} view of a {@link HotSpotMethodData} shares the same index.
+     */
+    static final class BCIIndex {
+
+        private static final int[] EMPTY = new int[0];
+
+        /**
+         * The BCIs of the indexed records in ascending order. A BCI may be repeated in the extra
+         * data in which case the records are in position order.
+         */
+        private final int[] bcis;
+
+        /**
+         * The position of the record for the BCI at the same index in {@link #bcis}.
+         */
+        private final int[] positions;
+
+        /**
+         * The position just after the last indexed record.
+         */
+        final int end;
+
+        /**
+         * The tag and BCI of the record at the highest indexed position or -1 if no record is
+         * indexed. Used to detect whether the indexed extra data has been changed by the VM.
+         */
+        private final int lastPosition;
+        private final int lastTag;
+        private final int lastBCI;
+
+        /**
+         * The position of the first record for each BCI or -1 if there is no record for the BCI.
+         * This is only built for snapshots since it is never invalidated.
+         */
+        private final int[] positionByBCI;
+
+        private BCIIndex(int[] bcis, int[] positions, int end, int lastPosition, int lastTag, int lastBCI, boolean direct) {
+            this.bcis = bcis;
+            this.positions = positions;
+            this.end = end;
+            this.lastPosition = lastPosition;
+            this.lastTag = lastTag;
+            this.lastBCI = lastBCI;
+            if (direct) {
+                int length = bcis.length == 0 ? 0 : bcis[bcis.length - 1] + 1;
+                positionByBCI = new int[length];
+                Arrays.fill(positionByBCI, -1);
+                for (int i = bcis.length - 1; i >= 0; i--) {
+                    positionByBCI[bcis[i]] = positions[i];
+                }
+            } else {
+                positionByBCI = null;
+            }
+        }
+
+        /**
+         * Gets the position of the first record for {@code bci} or -1 if there is no such record.
+         */
+        int find(int bci) {
+            if (positionByBCI != null) {
+                return bci < positionByBCI.length ? positionByBCI[bci] : -1;
+            }
+            int low = 0;
+            int high = bcis.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (bcis[mid] < bci) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            if (low < bcis.length && bcis[low] == bci) {
+                return positions[low];
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Gets the index of the normal data records, building it on first use.
+     */
+    BCIIndex getNormalDataIndex() {
+        BCIIndex index = normalDataIndex;
+        if (index == null) {
+            index = buildIndex(0, false);
+            normalDataIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Gets the index of the extra data records, rebuilding it if the VM has added, removed or
+     * moved records since the index was built.
+     */
+    BCIIndex getExtraDataIndex() {
+        BCIIndex index = extraDataIndex;
+        if (index == null || (snapshot == null && !isCurrentExtraDataIndex(index))) {
+            index = buildIndex(getExtraDataBeginOffset(), true);
+            extraDataIndex = index;
+        }
+        return index;
+    }
+
+    private boolean isCurrentExtraDataIndex(BCIIndex index) {
+        if (getExtraData(index.end) != null) {
+            // A record has been appended
+            return false;
+        }
+        if (index.lastPosition >= 0) {
+            HotSpotMethodDataAccessor last = getExtraData(index.lastPosition);
+            return last != null && last.getTag() == index.lastTag && last.getBCI(this, index.lastPosition) == index.lastBCI;
+        }
+        return index.end == getExtraDataBeginOffset();
+    }
+
+    private BCIIndex buildIndex(int begin, boolean extra) {
+        int[] bcis = BCIIndex.EMPTY;
+        int[] positions = BCIIndex.EMPTY;
+        int count = 0;
+        boolean sorted = true;
+        int lastPosition = -1;
+        int lastTag = -1;
+        int lastBCI = -1;
+        int position = begin;
+        HotSpotMethodDataAccessor data;
+        while ((data = extra ? getExtraData(position) : getNormalData(position)) != null) {
+            int bci = data.getBCI(this, position);
+            if (count == bcis.length) {
+                int length = Math.max(8, count * 2);
+                bcis = Arrays.copyOf(bcis, length);
+                positions = Arrays.copyOf(positions, length);
+            }
+            if (count != 0 && bci < bcis[count - 1]) {
+                sorted = false;
+            }
+            bcis[count] = bci;
+            positions[count] = position;
+            count++;
+            lastPosition = position;
+            lastTag = data.getTag();
+            lastBCI = bci;
+            position = position + data.getSize(this, position);
+        }
+        bcis = Arrays.copyOf(bcis, count);
+        positions = Arrays.copyOf(positions, count);
+        if (!sorted) {
+            sortByBCI(bcis, positions);
+        }
+        return new BCIIndex(bcis, positions, position, lastPosition, lastTag, lastBCI, snapshot != null);
+    }
+
+    /**
+     * Sorts {@code bcis} and {@code positions} by BCI, preserving the position order of records
+     * with the same BCI.
+     */
+    private static void sortByBCI(int[] bcis, int[] positions) {
+        for (int i = 1; i < bcis.length; i++) {
+            int bci = bcis[i];
+            int position = positions[i];
+            int j = i - 1;
+            while (j >= 0 && bcis[j] > bci) {
+                bcis[j + 1] = bcis[j];
+                positions[j + 1] = positions[j];
+                j--;
+            }
+            bcis[j + 1] = bci;
+            positions[j + 1] = position;
+        }
+    }
+
     public int getDeoptimizationCount(DeoptimizationReason reason) {
         HotSpotMetaAccessProvider metaAccess = (HotSpotMetaAccessProvider) runtime().getHostJVMCIBackend().getMetaAccess();
         int reasonIndex = metaAccess.convertDeoptReason(reason);
-        return UNSAFE.getByte(metaspaceMethodData + state.config.methodDataOopTrapHistoryOffset + reasonIndex) & 0xFF;
+        return UNSAFE.getByte(snapshot, base + state.config.methodDataOopTrapHistoryOffset + reasonIndex) & 0xFF;
     }
 
     public int getOSRDeoptimizationCount(DeoptimizationReason reason) {
         HotSpotMetaAccessProvider metaAccess = (HotSpotMetaAccessProvider) runtime().getHostJVMCIBackend().getMetaAccess();
         int reasonIndex = metaAccess.convertDeoptReason(reason);
-        return UNSAFE.getByte(metaspaceMethodData + state.config.methodDataOopTrapHistoryOffset + state.config.deoptReasonOSROffset + reasonIndex) & 0xFF;
+        return UNSAFE.getByte(snapshot, base + state.config.methodDataOopTrapHistoryOffset + state.config.deoptReasonOSROffset + reasonIndex) & 0xFF;
     }
 
     public int getDecompileCount() {
-        return UNSAFE.getInt(metaspaceMethodData + state.config.methodDataDecompiles);
+        return getInt(state.config.methodDataDecompiles);
     }
 
     public int getOverflowRecompileCount() {
-        return UNSAFE.getInt(metaspaceMethodData + state.config.methodDataOverflowRecompiles);
+        return getInt(state.config.methodDataOverflowRecompiles);
     }
 
     public int getOverflowTrapCount() {
-        return UNSAFE.getInt(metaspaceMethodData + state.config.methodDataOverflowTraps);
+        return getInt(state.config.methodDataOverflowTraps);
     }
 
     public HotSpotMethodDataAccessor getNormalData(int position) {
@@ -252,6 +523,23 @@ final class HotSpotMethodData {
         return data;
     }
 
+    /**
+     * Gets the type profiles of the parameters of the method as recorded in the
+     * {@code ParametersTypeData} of this {@code MethodData}.
+     *
+     * @return {@code null} if the parameters of the method are not profiled
+     * @see jdk.vm.ci.meta.ProfilingInfo#getParameterTypeProfiles()
+     */
+    JavaTypeProfile[] getParameterTypeProfiles() {
+        int position = getInt(state.config.methodDataParametersTypeDataDiOffset);
+        if (position == -1) {
+            return null;
+        }
+        HotSpotMethodDataAccessor data = getData(position);
+        assert data instanceof ParametersTypeData : data;
+        return ((ParametersTypeData) data).getParameterTypeProfiles(this, position);
+    }
+
     public static HotSpotMethodDataAccessor getNoDataAccessor(boolean exceptionPossiblyNotRecorded) {
         if (exceptionPossiblyNotRecorded) {
             return VMState.instance().noDataExceptionPossiblyNotRecordedAccessor;
@@ -270,21 +558,21 @@ final class HotSpotMethodData {
 
     int readUnsignedByte(int position, int offsetInBytes) {
         long fullOffsetInBytes = state.computeFullOffset(position, offsetInBytes);
-        return UNSAFE.getByte(metaspaceMethodData + fullOffsetInBytes) & 0xFF;
+        return UNSAFE.getByte(snapshot, base + fullOffsetInBytes) & 0xFF;
     }
 
     int readUnsignedShort(int position, int offsetInBytes) {
         long fullOffsetInBytes = state.computeFullOffset(position, offsetInBytes);
-        return UNSAFE.getShort(metaspaceMethodData + fullOffsetInBytes) & 0xFFFF;
+        return UNSAFE.getShort(snapshot, base + fullOffsetInBytes) & 0xFFFF;
     }
 
     /**
      * Since the values are stored in cells (platform words) this method uses
-     * {@link Unsafe#getAddress} to read the right value on both little and big endian machines.
+     * {@link #getCell(long)} to read the right value on both little and big endian machines.
      */
     private long readUnsignedInt(int position, int offsetInBytes) {
         long fullOffsetInBytes = state.computeFullOffset(position, offsetInBytes);
-        return UNSAFE.getAddress(metaspaceMethodData + fullOffsetInBytes) & 0xFFFFFFFFL;
+        return getCell(fullOffsetInBytes) & 0xFFFFFFFFL;
     }
 
     private int readUnsignedIntAsSignedInt(int position, int offsetInBytes) {
@@ -294,28 +582,129 @@ final class HotSpotMethodData {
 
     /**
      * Since the values are stored in cells (platform words) this method uses
-     * {@link Unsafe#getAddress} to read the right value on both little and big endian machines.
+     * {@link #getCell(long)} to read the right value on both little and big endian machines.
      */
     private int readInt(int position, int offsetInBytes) {
         long fullOffsetInBytes = state.computeFullOffset(position, offsetInBytes);
-        return (int) UNSAFE.getAddress(metaspaceMethodData + fullOffsetInBytes);
+        return (int) getCell(fullOffsetInBytes);
     }
 
+    private static final int METHOD_CELL = 0;
+    private static final int KLASS_CELL = 1;
+    private static final int TYPE_ENTRY_CELL = 2;
+
     private HotSpotResolvedJavaMethod readMethod(int position, int offsetInBytes) {
-        long fullOffsetInBytes = state.computeFullOffset(position, offsetInBytes);
+        int fullOffsetInBytes = state.computeFullOffset(position, offsetInBytes);
+        if (snapshot != null) {
+            return (HotSpotResolvedJavaMethod) readSnapshotMetadata(fullOffsetInBytes, METHOD_CELL);
+        }
         return compilerToVM().getResolvedJavaMethod(null, metaspaceMethodData + fullOffsetInBytes);
     }
 
     private HotSpotResolvedObjectTypeImpl readKlass(int position, int offsetInBytes) {
-        long fullOffsetInBytes = state.computeFullOffset(position, offsetInBytes);
+        int fullOffsetInBytes = state.computeFullOffset(position, offsetInBytes);
+        if (snapshot != null) {
+            return (HotSpotResolvedObjectTypeImpl) readSnapshotMetadata(fullOffsetInBytes, KLASS_CELL);
+        }
         return compilerToVM().getResolvedJavaType(metaspaceMethodData + fullOffsetInBytes, false);
     }
 
+    /**
+     * Gets the JVMCI object for the metadata pointer in the snapshot cell at
+     * {@code fullOffsetInBytes}. The pointer in the snapshot is never dereferenced as the metadata
+     * may have been unloaded since the snapshot was taken. Instead the live cell is resolved and
+     * the result is only used if it denotes the same metadata as the snapshot. The result is
+     * cached so that repeated queries are consistent.
+     *
+     * @param kind {@link #METHOD_CELL}, {@link #KLASS_CELL} or {@link #TYPE_ENTRY_CELL}
+     */
+    private MetaspaceObject readSnapshotMetadata(int fullOffsetInBytes, int kind) {
+        int index = fullOffsetInBytes / state.config.dataLayoutCellSize;
+        Object value = snapshotMetadata[index];
+        if (value == null) {
+            long pointer = getCell(fullOffsetInBytes);
+            if (kind == TYPE_ENTRY_CELL) {
+                pointer &= ~(long) state.config.typeEntriesStatusBits;
+            }
+            MetaspaceObject live = null;
+            if (pointer != 0) {
+                if (kind == METHOD_CELL) {
+                    live = (MetaspaceObject) compilerToVM().getResolvedJavaMethod(null, metaspaceMethodData + fullOffsetInBytes);
+                } else if (kind == KLASS_CELL) {
+                    live = compilerToVM().getResolvedJavaType(metaspaceMethodData + fullOffsetInBytes, false);
+                } else {
+                    live = compilerToVM().getTypeEntryKlass(metaspaceMethodData, fullOffsetInBytes);
+                }
+            }
+            value = live != null && live.getMetaspacePointer() == pointer ? live : NO_METADATA;
+            snapshotMetadata[index] = value;
+        }
+        return value == NO_METADATA ? null : (MetaspaceObject) value;
+    }
+
+    /**
+     * Decodes a {@code TypeEntries} cell which records a single type along with whether
+     * {@code null} was seen and whether more than one type was seen.
+     *
+     * @return {@code null} if nothing has been recorded in the cell
+     */
+    private JavaTypeProfile readTypeEntry(int position, int offsetInBytes) {
+        int fullOffsetInBytes = state.computeFullOffset(position, offsetInBytes);
+        long entry = getCell(fullOffsetInBytes);
+        TriState nullSeen = TriState.get((entry & state.config.typeEntriesNullSeen) != 0);
+        if ((entry & state.config.typeEntriesTypeUnknown) != 0) {
+            // More than one type has been seen
+            return new JavaTypeProfile(nullSeen, 1.0D, NO_PROFILED_TYPES);
+        }
+        if ((entry & ~(long) state.config.typeEntriesStatusBits) == 0) {
+            return nullSeen == TriState.TRUE ? new JavaTypeProfile(nullSeen, 0.0D, NO_PROFILED_TYPES) : null;
+        }
+        HotSpotResolvedObjectTypeImpl type;
+        if (snapshot != null) {
+            type = (HotSpotResolvedObjectTypeImpl) readSnapshotMetadata(fullOffsetInBytes, TYPE_ENTRY_CELL);
+        } else {
+            // The entry may be cleaned concurrently so the VM re-reads it
+            type = compilerToVM().getTypeEntryKlass(metaspaceMethodData, fullOffsetInBytes);
+        }
+        if (type == null) {
+            return null;
+        }
+        return new JavaTypeProfile(nullSeen, 0.0D, new ProfiledType[]{new ProfiledType(type, 1.0D)});
+    }
+
+    /**
+     * Decodes a {@code TypeStackSlotEntries} table.
+     *
+     * @param offsetInBytes the offset of the first entry in the table
+     * @param entries the number of entries in the table
+     * @return an array indexed by stack slot with a {@code null} element for each slot that is
+     *         not profiled
+     */
+    private JavaTypeProfile[] readTypeStackSlotEntries(int position, int offsetInBytes, int entries) {
+        int perArgSize = state.cellsToBytes(state.typeStackSlotEntriesPerArgCellCount);
+        int stackSlotOffset = offsetInBytes + state.cellsToBytes(state.config.typeStackSlotEntriesStackSlotEntry);
+        int typeOffset = offsetInBytes + state.cellsToBytes(state.config.typeStackSlotEntriesTypeEntry);
+        int[] stackSlots = new int[entries];
+        int length = 0;
+        for (int i = 0; i < entries; i++) {
+            stackSlots[i] = readInt(position, stackSlotOffset + i * perArgSize);
+            length = Math.max(length, stackSlots[i] + 1);
+        }
+        JavaTypeProfile[] profiles = new JavaTypeProfile[length];
+        for (int i = 0; i < entries; i++) {
+            profiles[stackSlots[i]] = readTypeEntry(position, typeOffset + i * perArgSize);
+        }
+        return profiles;
+    }
+
     /**
      * Returns whether profiling ran long enough that the profile information is mature. Other
      * informational data will still be valid even if the profile isn't mature.
      */
     public boolean isProfileMature() {
+        if (snapshot != null) {
+            return snapshotMature;
+        }
         return runtime().getCompilerToVM().isMature(metaspaceMethodData);
     }
 
@@ -706,14 +1095,147 @@ final class HotSpotMethodData {
 
     static class VirtualCallTypeData extends VirtualCallData {
 
+        private final TypeEntriesAtCall entries;
+
         VirtualCallTypeData(VMState state, int tag) {
-            super(state, tag, 0);
+            this(state, tag, new TypeEntriesAtCall(state, state.virtualCallDataCellCount));
+        }
+
+        private VirtualCallTypeData(VMState state, int tag, TypeEntriesAtCall entries) {
+            super(state, tag, entries.getStaticSize());
+            this.entries = entries;
+        }
+
+        @Override
+        protected int getDynamicSize(HotSpotMethodData data, int position) {
+            return entries.getDynamicSize(data, position);
+        }
+
+        @Override
+        JavaTypeProfile[] getArgumentTypeProfiles(HotSpotMethodData data, int position) {
+            return entries.getArgumentTypeProfiles(data, position);
+        }
+
+        @Override
+        JavaTypeProfile getReturnTypeProfile(HotSpotMethodData data, int position) {
+            return entries.getReturnTypeProfile(data, position);
+        }
+
+        @Override
+        public StringBuilder appendTo(StringBuilder sb, HotSpotMethodData data, int pos) {
+            return entries.appendTo(super.appendTo(sb, data, pos), data, pos);
+        }
+    }
+
+    /**
+     * Access to the argument and return type profiles appended to {@code CallTypeData} and
+     * {@code VirtualCallTypeData} (i.e. {@code TypeEntriesAtCall} in methodData.hpp).
+     */
+    static final class TypeEntriesAtCall {
+
+        private final VMState state;
+
+        /**
+         * Offset of the cell holding the number of cells following the header.
+         */
+        private final int cellCountOffset;
+
+        /**
+         * Offset of the first argument entry.
+         */
+        private final int argumentsOffset;
+
+        /**
+         * @param baseCellCount the number of cells preceding the entries in the record
+         */
+        TypeEntriesAtCall(VMState state, int baseCellCount) {
+            this.state = state;
+            this.cellCountOffset = state.cellIndexToOffset(baseCellCount + state.config.typeEntriesAtCallCellCountLocalOffset);
+            this.argumentsOffset = state.cellIndexToOffset(baseCellCount + state.config.typeEntriesAtCallHeaderCellCount);
+        }
+
+        /**
+         * Gets the size in bytes of the header of the entries and the record data preceding it.
+         */
+        int getStaticSize() {
+            return argumentsOffset;
+        }
+
+        /**
+         * Gets the size in bytes of the argument and return type entries.
+         */
+        int getDynamicSize(HotSpotMethodData data, int position) {
+            return state.cellsToBytes(getCellCount(data, position));
+        }
+
+        private int getCellCount(HotSpotMethodData data, int position) {
+            return data.readInt(position, cellCountOffset);
+        }
+
+        JavaTypeProfile[] getArgumentTypeProfiles(HotSpotMethodData data, int position) {
+            int arguments = getCellCount(data, position) / state.typeStackSlotEntriesPerArgCellCount;
+            if (arguments == 0) {
+                return null;
+            }
+            return data.readTypeStackSlotEntries(position, argumentsOffset, arguments);
+        }
+
+        JavaTypeProfile getReturnTypeProfile(HotSpotMethodData data, int position) {
+            int cellCount = getCellCount(data, position);
+            if (cellCount % state.typeStackSlotEntriesPerArgCellCount == 0) {
+                return null;
+            }
+            return data.readTypeEntry(position, argumentsOffset + state.cellsToBytes(cellCount - state.config.returnTypeEntryCellCount));
+        }
+
+        StringBuilder appendTo(StringBuilder sb, HotSpotMethodData data, int pos) {
+            JavaTypeProfile[] arguments = getArgumentTypeProfiles(data, pos);
+            if (arguments != null) {
+                for (int i = 0; i < arguments.length; i++) {
+                    if (arguments[i] != null) {
+                        sb.append(format("%n  argument in slot %d: %s", i, arguments[i]));
+                    }
+                }
+            }
+            JavaTypeProfile ret = getReturnTypeProfile(data, pos);
+            if (ret != null) {
+                sb.append(format("%n  return: %s", ret));
+            }
+            return sb;
+        }
+    }
+
+    static class CallTypeData extends CounterData {
+
+        private final TypeEntriesAtCall entries;
+
+        CallTypeData(VMState state, int tag) {
+            this(state, tag, new TypeEntriesAtCall(state, state.counterDataCellCount));
+        }
+
+        private CallTypeData(VMState state, int tag, TypeEntriesAtCall entries) {
+            super(state, tag, entries.getStaticSize());
+            this.entries = entries;
         }
 
         @Override
         protected int getDynamicSize(HotSpotMethodData data, int position) {
-            assert staticSize == 0;
-            return HotSpotJVMCIRuntime.runtime().compilerToVm.methodDataProfileDataSize(data.metaspaceMethodData, position);
+            return entries.getDynamicSize(data, position);
+        }
+
+        @Override
+        JavaTypeProfile[] getArgumentTypeProfiles(HotSpotMethodData data, int position) {
+            return entries.getArgumentTypeProfiles(data, position);
+        }
+
+        @Override
+        JavaTypeProfile getReturnTypeProfile(HotSpotMethodData data, int position) {
+            return entries.getReturnTypeProfile(data, position);
+        }
+
+        @Override
+        public StringBuilder appendTo(StringBuilder sb, HotSpotMethodData data, int pos) {
+            return entries.appendTo(super.appendTo(sb, data, pos), data, pos);
         }
     }
 
@@ -862,24 +1384,50 @@ final class HotSpotMethodData {
         }
     }
 
-    static class UnknownProfileData extends HotSpotMethodDataAccessor {
-        UnknownProfileData(VMState state, int tag) {
-            super(state, tag, 0);
+    static class ParametersTypeData extends ArrayData {
+
+        ParametersTypeData(VMState state, int tag) {
+            super(state, tag, state.parametersTypeDataSize);
         }
 
-        @Override
-        protected int getDynamicSize(HotSpotMethodData data, int position) {
-            assert staticSize == 0;
-            return HotSpotJVMCIRuntime.runtime().compilerToVm.methodDataProfileDataSize(data.metaspaceMethodData, position);
+        JavaTypeProfile[] getParameterTypeProfiles(HotSpotMethodData data, int position) {
+            int parameters = getLength(data, position) / state.typeStackSlotEntriesPerArgCellCount;
+            return data.readTypeStackSlotEntries(position, state.arrayDataStartOffset, parameters);
         }
 
         @Override
         public StringBuilder appendTo(StringBuilder sb, HotSpotMethodData data, int pos) {
-            sb.append("unknown profile data with tag: " + tag);
+            JavaTypeProfile[] parameters = getParameterTypeProfiles(data, pos);
+            sb.append("parameter types");
+            for (int i = 0; i < parameters.length; i++) {
+                if (parameters[i] != null) {
+                    sb.append(format("%n  parameter in slot %d: %s", i, parameters[i]));
+                }
+            }
             return sb;
         }
     }
 
+    static class SpeculativeTrapData extends HotSpotMethodDataAccessor {
+
+        SpeculativeTrapData(VMState state, int tag) {
+            super(state, tag, state.speculativeTrapDataSize);
+        }
+
+        /**
+         * Gets the method inlined at the BCI of this record for which a speculation failed.
+         */
+        HotSpotResolvedJavaMethod getMethod(HotSpotMethodData data, int position) {
+            return data.readMethod(position, state.speculativeTrapDataMethodOffset);
+        }
+
+        @Override
+        public StringBuilder appendTo(StringBuilder sb, HotSpotMethodData data, int pos) {
+            HotSpotResolvedJavaMethod method = getMethod(data, pos);
+            return sb.append(format("method(%s)", method == null ? null : method.format("%H.%n(%p)")));
+        }
+    }
+
     public void setCompiledIRSize(int size) {
         UNSAFE.putInt(metaspaceMethodData + state.config.methodDataIRSizeOffset, size);
     }
@@ -148,11 +148,91 @@ public class HotSpotNmethod extends HotSpotInstalledCode {
 
     @Override
     public Object executeVarargs(Object... args) throws InvalidInstalledCodeException {
+        checkCanExecute();
+        assert checkArgs(args);
+        return compilerToVM().executeHotSpotNmethod(args, this);
+    }
+
+    private void checkCanExecute() {
         if (IS_IN_NATIVE_IMAGE) {
             throw new HotSpotJVMCIUnsupportedOperationError("Cannot execute nmethod via mirror in native image");
         }
-        assert checkArgs(args);
-        return compilerToVM().executeHotSpotNmethod(args, this);
+    }
+
+    /**
+     * Executes this code without boxing the arguments or the result. This is a faster alternative
+     * to {@link #executeVarargs} for code whose method is static and whose parameter and return
+     * types are all {@code void} or integral types (i.e., {@code boolean}, {@code byte},
+     * {@code char}, {@code short}, {@code int} or {@code long}). A {@code boolean} result is
+     * returned as 0 or 1 and a {@code void} result is returned as 0.
+     *
+     * @throws IllegalArgumentException if the signature of the method does not match the arguments
+     */
+    public long executeLong() throws InvalidInstalledCodeException {
+        checkCanExecute();
+        return compilerToVM().executeHotSpotNmethodLong(this, 0, 0L, 0L, 0L);
+    }
+
+    /**
+     * @see #executeLong()
+     */
+    public long executeLong(long arg0) throws InvalidInstalledCodeException {
+        checkCanExecute();
+        return compilerToVM().executeHotSpotNmethodLong(this, 1, arg0, 0L, 0L);
+    }
+
+    /**
+     * @see #executeLong()
+     */
+    public long executeLong(long arg0, long arg1) throws InvalidInstalledCodeException {
+        checkCanExecute();
+        return compilerToVM().executeHotSpotNmethodLong(this, 2, arg0, arg1, 0L);
+    }
+
+    /**
+     * @see #executeLong()
+     */
+    public long executeLong(long arg0, long arg1, long arg2) throws InvalidInstalledCodeException {
+        checkCanExecute();
+        return compilerToVM().executeHotSpotNmethodLong(this, 3, arg0, arg1, arg2);
+    }
+
+    /**
+     * Executes this code without allocating an arguments array. This is a faster alternative to
+     * {@link #executeVarargs} for code whose receiver, parameter and return types are all
+     * {@code void} or reference types. The receiver, if any, is the first argument.
+     *
+     * @throws IllegalArgumentException if the signature of the method does not match the arguments
+     *             or an argument is not an instance of the corresponding parameter type
+     * @throws NullPointerException if the method is not static and the receiver is {@code null}
+     */
+    public Object executeObject() throws InvalidInstalledCodeException {
+        checkCanExecute();
+        return compilerToVM().executeHotSpotNmethodObject(this, 0, null, null, null);
+    }
+
+    /**
+     * @see #executeObject()
+     */
+    public Object executeObject(Object arg0) throws InvalidInstalledCodeException {
+        checkCanExecute();
+        return compilerToVM().executeHotSpotNmethodObject(this, 1, arg0, null, null);
+    }
+
+    /**
+     * @see #executeObject()
+     */
+    public Object executeObject(Object arg0, Object arg1) throws InvalidInstalledCodeException {
+        checkCanExecute();
+        return compilerToVM().executeHotSpotNmethodObject(this, 2, arg0, arg1, null);
+    }
+
+    /**
+     * @see #executeObject()
+     */
+    public Object executeObject(Object arg0, Object arg1, Object arg2) throws InvalidInstalledCodeException {
+        checkCanExecute();
+        return compilerToVM().executeHotSpotNmethodObject(this, 3, arg0, arg1, arg2);
     }
 
     @Override
@@ -22,9 +22,12 @@
  */
 package jdk.vm.ci.hotspot;
 
-import java.util.ArrayList;
-import java.util.List;
+import static jdk.vm.ci.hotspot.CompilerToVM.compilerToVM;
+
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 import jdk.vm.ci.services.Services;
 
@@ -43,12 +46,32 @@ import jdk.vm.ci.services.Services;
  * The object returned by {@link #enterGlobalScope()} or {@link #openLocalScope(Object)} should
  * always be used in a try-with-resources statement. Failure to close a scope will almost certainly
  * result in foreign objects being leaked.
+ *
+ * The foreign object references created in a local scope are released with a single call into the
+ * VM when the scope closes.
  */
 public final class HotSpotObjectConstantScope implements AutoCloseable {
     static final ThreadLocal<HotSpotObjectConstantScope> CURRENT = new ThreadLocal<>();
 
+    /**
+     * Counters across all local scopes. Exposed via
+     * {@link HotSpotJVMCIRuntime#getObjectConstantScopeCounters()}.
+     */
+    static final LongAdder localScopesClosed = new LongAdder();
+    static final LongAdder handlesReleased = new LongAdder();
+    static final LongAccumulator maxHandlesPerScope = new LongAccumulator(Math::max, 0L);
+
+    private static final int INITIAL_CAPACITY = 16;
+
     private final HotSpotObjectConstantScope parent;
-    private List<IndirectHotSpotObjectConstantImpl> foreignObjects;
+
+    /**
+     * The objects created in this scope and their handles. Only the first
+     * {@link #foreignObjectsCount} elements are valid.
+     */
+    private IndirectHotSpotObjectConstantImpl[] foreignObjects;
+    private long[] handles;
+    private int foreignObjectsCount;
 
     /**
      * An object whose {@link Object#toString()} value describes a non-global scope. This is
@@ -99,9 +122,15 @@ public final class HotSpotObjectConstantScope implements AutoCloseable {
     void add(IndirectHotSpotObjectConstantImpl obj) {
         assert !isGlobal();
         if (foreignObjects == null) {
-            foreignObjects = new ArrayList<>();
+            foreignObjects = new IndirectHotSpotObjectConstantImpl[INITIAL_CAPACITY];
+            handles = new long[INITIAL_CAPACITY];
+        } else if (foreignObjectsCount == foreignObjects.length) {
+            foreignObjects = Arrays.copyOf(foreignObjects, foreignObjectsCount * 2);
+            handles = Arrays.copyOf(handles, foreignObjectsCount * 2);
         }
-        foreignObjects.add(obj);
+        foreignObjects[foreignObjectsCount] = obj;
+        handles[foreignObjectsCount] = obj.getHandle();
+        foreignObjectsCount++;
     }
 
     @VMEntryPoint
@@ -110,12 +139,31 @@ public final class HotSpotObjectConstantScope implements AutoCloseable {
         if (CURRENT.get() != this) {
             throw new IllegalStateException("Cannot close non-active scope");
         }
-        if (foreignObjects != null) {
-            for (IndirectHotSpotObjectConstantImpl obj : foreignObjects) {
-                obj.clear(localScopeDescription);
-            }
-            foreignObjects = null;
+        if (foreignObjectsCount != 0) {
+            compilerToVM().deleteGlobalHandles(clearForeignObjects());
+        }
+        if (!isGlobal()) {
+            localScopesClosed.increment();
         }
         CURRENT.set(parent);
     }
+
+    /**
+     * Clears the foreign object references created in this scope and empties the scope.
+     *
+     * @return the handles of the cleared references in the order they were added, which the caller
+     *         must release
+     */
+    long[] clearForeignObjects() {
+        long[] result = Arrays.copyOf(handles, foreignObjectsCount);
+        for (int i = 0; i < foreignObjectsCount; i++) {
+            foreignObjects[i].clear(localScopeDescription);
+        }
+        handlesReleased.add(foreignObjectsCount);
+        maxHandlesPerScope.accumulate(foreignObjectsCount);
+        foreignObjects = null;
+        handles = null;
+        foreignObjectsCount = 0;
+        return result;
+    }
 }
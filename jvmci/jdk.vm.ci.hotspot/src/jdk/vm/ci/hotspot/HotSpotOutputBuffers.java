@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot;
+
+import static jdk.vm.ci.hotspot.CompilerToVM.compilerToVM;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-thread buffers for the output written to HotSpot's {@code tty} and {@code CompileLog}
+ * streams by {@link HotSpotJVMCIRuntime#getLogStream()} and
+ * {@link HotSpotJVMCIRuntime#getCompileLogStream()}. While a thread is in a
+ * {@linkplain HotSpotJVMCIRuntime#bufferOutput() buffering scope}, its writes are coalesced and
+ * transferred to the VM when a buffer fills up, when the stream is flushed or when the outermost
+ * scope is closed. Outside a scope, each write is transferred immediately but still without
+ * allocation.
+ */
+final class HotSpotOutputBuffers {
+
+    static final int CAPACITY = 8192;
+
+    private static final ThreadLocal<HotSpotOutputBuffers> current = ThreadLocal.withInitial(HotSpotOutputBuffers::new);
+
+    /**
+     * Number of bytes written to the streams.
+     */
+    static final LongAdder bytesWritten = new LongAdder();
+
+    /**
+     * Number of transitions into the VM made to write or flush the streams.
+     */
+    static final LongAdder transitions = new LongAdder();
+
+    /**
+     * Buffer for the {@code tty} output. Only allocated once the thread buffers a write to
+     * {@code tty}.
+     */
+    private byte[] tty;
+    private int ttyLength;
+
+    /**
+     * Buffer for the compile log. Only allocated if the thread writes to its compile log.
+     */
+    private byte[] compileLog;
+    private int compileLogLength;
+
+    /**
+     * Nesting depth of the buffering scopes entered by the thread.
+     */
+    private int depth;
+
+    static HotSpotOutputBuffers current() {
+        return current.get();
+    }
+
+    void enterScope() {
+        depth++;
+    }
+
+    void exitScope() {
+        assert depth > 0;
+        if (--depth == 0) {
+            drain();
+        }
+    }
+
+    /**
+     * Transfers all output buffered by the thread to the VM. Buffered compile log output is
+     * discarded if the thread has no compile log, in which case a message reporting the number
+     * of bytes discarded is written to {@code tty}.
+     */
+    void drain() {
+        drainTTY(false);
+        if (compileLogLength != 0) {
+            try {
+                drainCompileLog();
+            } catch (IllegalArgumentException e) {
+                String msg = String.format("[discarded %d bytes of compile log output: %s]%n", compileLogLength, e.getMessage());
+                compileLogLength = 0;
+                byte[] bytes = msg.getBytes();
+                transitions.increment();
+                compilerToVM().writeDebugOutput(bytes, 0, bytes.length, true, true);
+            }
+        }
+    }
+
+    private static void checkRange(byte[] b, int off, int len) {
+        if (b == null) {
+            throw new NullPointerException();
+        } else if (off < 0 || off > b.length || len < 0 || (off + len) > b.length || (off + len) < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    void writeTTY(byte[] b, int off, int len) {
+        checkRange(b, off, len);
+        bytesWritten.add(len);
+        if (len > CAPACITY - ttyLength) {
+            drainTTY(false);
+        }
+        if (len >= CAPACITY || (depth == 0 && ttyLength == 0)) {
+            transitions.increment();
+            compilerToVM().writeDebugOutput(b, off, len, false, true);
+            return;
+        }
+        if (tty == null) {
+            tty = new byte[CAPACITY];
+        }
+        System.arraycopy(b, off, tty, ttyLength, len);
+        ttyLength += len;
+        if (depth == 0) {
+            drainTTY(false);
+        }
+    }
+
+    void writeTTY(int b) {
+        bytesWritten.increment();
+        if (depth == 0 && ttyLength == 0) {
+            transitions.increment();
+            compilerToVM().writeDebugOutput(new byte[]{(byte) b}, 0, 1, false, true);
+            return;
+        }
+        if (tty == null) {
+            tty = new byte[CAPACITY];
+        }
+        if (ttyLength == CAPACITY) {
+            drainTTY(false);
+        }
+        tty[ttyLength++] = (byte) b;
+        if (depth == 0) {
+            drainTTY(false);
+        }
+    }
+
+    void flushTTY() {
+        transitions.increment();
+        if (ttyLength != 0) {
+            compilerToVM().writeDebugOutput(tty, 0, ttyLength, true, true);
+            ttyLength = 0;
+        } else {
+            compilerToVM().flushDebugOutput();
+        }
+    }
+
+    /**
+     * Transfers the buffered {@code tty} output to the VM.
+     */
+    void drainTTY(boolean flush) {
+        if (ttyLength != 0) {
+            transitions.increment();
+            compilerToVM().writeDebugOutput(tty, 0, ttyLength, flush, true);
+            ttyLength = 0;
+        }
+    }
+
+    void writeCompileLog(byte[] b, int off, int len) {
+        checkRange(b, off, len);
+        bytesWritten.add(len);
+        if (len > CAPACITY - compileLogLength) {
+            drainCompileLog();
+        }
+        if (len >= CAPACITY || (depth == 0 && compileLogLength == 0)) {
+            transitions.increment();
+            compilerToVM().writeCompileLogOutput(b, off, len);
+            return;
+        }
+        if (compileLog == null) {
+            compileLog = new byte[CAPACITY];
+        }
+        System.arraycopy(b, off, compileLog, compileLogLength, len);
+        compileLogLength += len;
+        if (depth == 0) {
+            drainCompileLog();
+        }
+    }
+
+    void writeCompileLog(int b) {
+        bytesWritten.increment();
+        if (depth == 0 && compileLogLength == 0) {
+            transitions.increment();
+            compilerToVM().writeCompileLogOutput(new byte[]{(byte) b}, 0, 1);
+            return;
+        }
+        if (compileLog == null) {
+            compileLog = new byte[CAPACITY];
+        }
+        if (compileLogLength == CAPACITY) {
+            drainCompileLog();
+        }
+        compileLog[compileLogLength++] = (byte) b;
+        if (depth == 0) {
+            drainCompileLog();
+        }
+    }
+
+    void flushCompileLog() {
+        drainCompileLog();
+        transitions.increment();
+        compilerToVM().flushCompileLogOutput();
+    }
+
+    private void drainCompileLog() {
+        if (compileLogLength != 0) {
+            int length = compileLogLength;
+            compileLogLength = 0;
+            transitions.increment();
+            compilerToVM().writeCompileLogOutput(compileLog, 0, length);
+        }
+    }
+}
@@ -35,8 +35,6 @@ final class HotSpotProfilingInfo implements ProfilingInfo {
 
     private boolean isMature;
     private int position;
-    private int hintPosition;
-    private int hintBCI;
     private HotSpotMethodDataAccessor dataAccessor;
 
     private boolean includeNormal;
@@ -48,8 +46,6 @@ final class HotSpotProfilingInfo implements ProfilingInfo {
         this.includeNormal = includeNormal;
         this.includeOSR = includeOSR;
         this.isMature = methodData.isProfileMature();
-        hintPosition = 0;
-        hintBCI = -1;
     }
 
     @Override
@@ -87,6 +83,32 @@ final class HotSpotProfilingInfo implements ProfilingInfo {
         return dataAccessor.getMethodProfile(methodData, position);
     }
 
+    @Override
+    public JavaTypeProfile[] getArgumentTypeProfiles(int bci) {
+        if (!isMature) {
+            return null;
+        }
+        findBCI(bci, false);
+        return dataAccessor.getArgumentTypeProfiles(methodData, position);
+    }
+
+    @Override
+    public JavaTypeProfile getReturnTypeProfile(int bci) {
+        if (!isMature) {
+            return null;
+        }
+        findBCI(bci, false);
+        return dataAccessor.getReturnTypeProfile(methodData, position);
+    }
+
+    @Override
+    public JavaTypeProfile[] getParameterTypeProfiles() {
+        if (!isMature) {
+            return null;
+        }
+        return methodData.getParameterTypeProfiles();
+    }
+
     @Override
     public double getBranchTakenProbability(int bci) {
         if (!isMature) {
@@ -142,34 +164,28 @@ final class HotSpotProfilingInfo implements ProfilingInfo {
         assert targetBCI >= 0 : "invalid BCI";
 
         if (methodData.hasNormalData()) {
-            int currentPosition = targetBCI < hintBCI ? 0 : hintPosition;
-            HotSpotMethodDataAccessor currentAccessor;
-            while ((currentAccessor = methodData.getNormalData(currentPosition)) != null) {
-                int currentBCI = currentAccessor.getBCI(methodData, currentPosition);
-                if (currentBCI == targetBCI) {
-                    normalDataFound(currentAccessor, currentPosition, currentBCI);
-                    return;
-                } else if (currentBCI > targetBCI) {
-                    break;
-                }
-                currentPosition = currentPosition + currentAccessor.getSize(methodData, currentPosition);
+            int currentPosition = methodData.getNormalDataIndex().find(targetBCI);
+            if (currentPosition >= 0) {
+                normalDataFound(methodData.getNormalData(currentPosition), currentPosition);
+                return;
             }
         }
 
         boolean exceptionPossiblyNotRecorded = false;
         if (searchExtraData && methodData.hasExtraData()) {
-            int currentPosition = methodData.getExtraDataBeginOffset();
-            HotSpotMethodDataAccessor currentAccessor;
-            while ((currentAccessor = methodData.getExtraData(currentPosition)) != null) {
-                int currentBCI = currentAccessor.getBCI(methodData, currentPosition);
-                if (currentBCI == targetBCI) {
+            HotSpotMethodData.BCIIndex index = methodData.getExtraDataIndex();
+            int currentPosition = index.find(targetBCI);
+            if (currentPosition >= 0) {
+                HotSpotMethodDataAccessor currentAccessor = methodData.getExtraData(currentPosition);
+                if (currentAccessor != null && currentAccessor.getBCI(methodData, currentPosition) == targetBCI) {
                     extraDataFound(currentAccessor, currentPosition);
                     return;
                 }
-                currentPosition = currentPosition + currentAccessor.getSize(methodData, currentPosition);
+                // The VM moved the record after the index was validated
+                exceptionPossiblyNotRecorded = true;
             }
 
-            if (!methodData.isWithin(currentPosition)) {
+            if (!methodData.isWithin(index.end)) {
                 exceptionPossiblyNotRecorded = true;
             }
         }
@@ -177,10 +193,8 @@ final class HotSpotProfilingInfo implements ProfilingInfo {
         noDataFound(exceptionPossiblyNotRecorded);
     }
 
-    private void normalDataFound(HotSpotMethodDataAccessor data, int pos, int bci) {
+    private void normalDataFound(HotSpotMethodDataAccessor data, int pos) {
         setCurrentData(data, pos);
-        this.hintPosition = position;
-        this.hintBCI = bci;
     }
 
     private void extraDataFound(HotSpotMethodDataAccessor data, int pos) {
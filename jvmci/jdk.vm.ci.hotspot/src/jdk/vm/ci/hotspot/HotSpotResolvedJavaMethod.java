@@ -25,6 +25,7 @@ package jdk.vm.ci.hotspot;
 import java.lang.reflect.Modifier;
 
 import jdk.vm.ci.meta.JavaMethod;
+import jdk.vm.ci.meta.ProfilingInfo;
 import jdk.vm.ci.meta.ResolvedJavaMethod;
 import jdk.vm.ci.meta.ResolvedJavaType;
 
@@ -126,5 +127,17 @@ public interface HotSpotResolvedJavaMethod extends ResolvedJavaMethod {
 
     boolean hasCodeAtLevel(int entryBCI, int level);
 
+    /**
+     * Returns an object that provides access to the profiling information recorded for this
+     * method.
+     *
+     * @param snapshot if {@code true}, the profile is copied once and all queries on the returned
+     *            object answer from the copy. This makes the answers consistent with each other
+     *            for the duration of a compilation while the VM keeps updating the profile.
+     *            Otherwise, every query reads the current state of the profile.
+     * @see #getProfilingInfo(boolean, boolean)
+     */
+    ProfilingInfo getProfilingInfo(boolean includeNormal, boolean includeOSR, boolean snapshot);
+
     int methodIdnum();
 }
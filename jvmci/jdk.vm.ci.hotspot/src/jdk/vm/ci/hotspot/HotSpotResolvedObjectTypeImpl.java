@@ -35,6 +35,7 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.nio.ByteOrder;
 import java.util.HashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import jdk.vm.ci.common.JVMCIError;
 import jdk.vm.ci.meta.Assumptions.AssumptionResult;
@@ -60,26 +61,50 @@ import jdk.vm.ci.meta.UnresolvedJavaType;
 final class HotSpotResolvedObjectTypeImpl extends HotSpotResolvedJavaType implements HotSpotResolvedObjectType, MetaspaceObject {
 
     private static final HotSpotResolvedJavaField[] NO_FIELDS = new HotSpotResolvedJavaField[0];
-    private static final int METHOD_CACHE_ARRAY_CAPACITY = 8;
+    private static final int METHOD_CACHE_MIN_CAPACITY = 8;
+
+    /**
+     * Counters for {@link #createMethod(long)} across all types. Exposed via
+     * {@link HotSpotJVMCIRuntime#getMethodCacheCounters()}.
+     */
+    static final LongAdder methodCacheHits = new LongAdder();
+    static final LongAdder methodCacheMisses = new LongAdder();
+    static final LongAdder methodCachePromotions = new LongAdder();
+
+    /**
+     * Counts the VM transitions made for retrieving type metadata. Exposed via
+     * {@link HotSpotJVMCIRuntime#getTypeMetadataQueryCount()}.
+     */
+    static final LongAdder typeMetadataQueries = new LongAdder();
 
     /**
      * The Java class this type represents.
      */
     private final long metadataPointer;
 
-    private HotSpotResolvedJavaMethodImpl[] methodCacheArray;
-    private HashMap<Long, HotSpotResolvedJavaMethodImpl> methodCacheHashMap;
+    /**
+     * Open addressing table (with linear probing) of the methods created for this type, keyed by
+     * their {@code Method*} value. Guarded by {@code this}.
+     */
+    private HotSpotResolvedJavaMethodImpl[] methodCache;
+    private int methodCacheSize;
     private volatile HotSpotResolvedJavaField[] instanceFields;
     private volatile HotSpotResolvedObjectTypeImpl[] interfaces;
     private HotSpotConstantPool constantPool;
     private final JavaConstant mirror;
     private HotSpotResolvedObjectTypeImpl superClass;
+    private volatile HotSpotResolvedObjectTypeSnapshot snapshot;
 
     /**
      * Managed exclusively by {@link HotSpotJDKReflection#getField}.
      */
     HashMap<HotSpotResolvedJavaFieldImpl, Field> reflectionFieldCache;
 
+    /**
+     * Managed exclusively by {@link HotSpotFieldValueCache}.
+     */
+    volatile HotSpotFieldValueCache.Values fieldValueCache;
+
     static HotSpotResolvedObjectTypeImpl getJavaLangObject() {
         return runtime().getJavaLangObject();
     }
@@ -152,9 +177,40 @@ final class HotSpotResolvedObjectTypeImpl extends HotSpotResolvedJavaType implem
         return UNSAFE.getInt(getMetaspaceKlass() + config.klassAccessFlagsOffset);
     }
 
+    /**
+     * Gets the snapshot of this type's immutable metadata, retrieving it from the VM if necessary.
+     *
+     * @param includeDeclaredMembers specifies if the snapshot must include the declared methods
+     *            and constructors of this type
+     */
+    private HotSpotResolvedObjectTypeSnapshot getSnapshot(boolean includeDeclaredMembers) {
+        HotSpotResolvedObjectTypeSnapshot s = snapshot;
+        if (s == null || (includeDeclaredMembers && s.declaredMethods == null)) {
+            s = new HotSpotResolvedObjectTypeSnapshot(this, includeDeclaredMembers);
+            snapshot = s;
+        }
+        return s;
+    }
+
+    /**
+     * Gets a snapshot whose methods are current, retrieving it again from the VM if a class has
+     * been redefined since the existing snapshot was retrieved.
+     *
+     * @param includeDeclaredMembers specifies if the snapshot must include the declared methods
+     *            and constructors of this type
+     */
+    private HotSpotResolvedObjectTypeSnapshot getMethodsSnapshot(boolean includeDeclaredMembers) {
+        HotSpotResolvedObjectTypeSnapshot s = getSnapshot(includeDeclaredMembers);
+        if (s.isStale()) {
+            s = new HotSpotResolvedObjectTypeSnapshot(this, includeDeclaredMembers || s.declaredMethods != null);
+            snapshot = s;
+        }
+        return s;
+    }
+
     @Override
     public ResolvedJavaType getComponentType() {
-        return runtime().compilerToVm.getComponentType(this);
+        return getSnapshot(false).componentType;
     }
 
     @Override
@@ -263,9 +319,8 @@ final class HotSpotResolvedObjectTypeImpl extends HotSpotResolvedJavaType implem
             return javaLangObject;
         }
 
-        // Cache result of native call
         if (superClass == null) {
-            superClass = compilerToVM().getResolvedJavaType(this, config().superOffset, false);
+            superClass = getSnapshot(false).superclass;
         }
         return superClass;
     }
@@ -279,7 +334,7 @@ final class HotSpotResolvedObjectTypeImpl extends HotSpotResolvedJavaType implem
                 types[1] = runtime().getJavaLangSerializable();
                 this.interfaces = types;
             } else {
-                interfaces = runtime().compilerToVm.getInterfaces(this);
+                interfaces = getSnapshot(false).interfaces;
             }
         }
         return interfaces;
@@ -290,6 +345,7 @@ final class HotSpotResolvedObjectTypeImpl extends HotSpotResolvedJavaType implem
         if (!isInterface()) {
             throw new JVMCIError("Cannot call getSingleImplementor() on a non-interface type: %s", this);
         }
+        typeMetadataQueries.increment();
         return compilerToVM().getImplementor(this);
     }
 
@@ -332,6 +388,7 @@ final class HotSpotResolvedObjectTypeImpl extends HotSpotResolvedJavaType implem
     @Override
     public AssumptionResult<Boolean> hasFinalizableSubclass() {
         assert !isArray();
+        typeMetadataQueries.increment();
         if (!compilerToVM().hasFinalizableSubclass(this)) {
             return new AssumptionResult<>(false, new NoFinalizableSubclass(this));
         }
@@ -421,7 +478,7 @@ final class HotSpotResolvedObjectTypeImpl extends HotSpotResolvedJavaType implem
         if (isArray()) {
             return null;
         }
-        return compilerToVM().getHostClass(this);
+        return getSnapshot(false).hostClass;
     }
 
     @Override
@@ -503,41 +560,98 @@ final class HotSpotResolvedObjectTypeImpl extends HotSpotResolvedJavaType implem
 
     @Override
     public long getFingerprint() {
+        HotSpotResolvedObjectTypeSnapshot s = getSnapshot(false);
+        if (s.fingerprintValid) {
+            return s.fingerprint;
+        }
+        typeMetadataQueries.increment();
         return compilerToVM().getFingerprint(getMetaspaceKlass());
     }
 
     synchronized HotSpotResolvedJavaMethod createMethod(long metaspaceHandle) {
         long metaspaceMethod = UNSAFE.getLong(metaspaceHandle);
-        // Maintain cache as array.
-        if (methodCacheArray == null) {
-            methodCacheArray = new HotSpotResolvedJavaMethodImpl[METHOD_CACHE_ARRAY_CAPACITY];
-        }
-
-        int i = 0;
-        for (; i < methodCacheArray.length; ++i) {
-            HotSpotResolvedJavaMethodImpl curMethod = methodCacheArray[i];
-            if (curMethod == null) {
-                HotSpotResolvedJavaMethodImpl newMethod = new HotSpotResolvedJavaMethodImpl(this, metaspaceHandle);
-                methodCacheArray[i] = newMethod;
-                return newMethod;
-            } else if (curMethod.getMetaspaceMethod() == metaspaceMethod) {
+        HotSpotResolvedJavaMethodImpl[] table = methodCache;
+        if (table == null) {
+            table = new HotSpotResolvedJavaMethodImpl[methodCacheCapacity(getMethodCount())];
+            methodCache = table;
+        }
+        int mask = table.length - 1;
+        int index = methodCacheIndex(metaspaceMethod) & mask;
+        HotSpotResolvedJavaMethodImpl curMethod;
+        while ((curMethod = table[index]) != null) {
+            if (curMethod.getMetaspaceMethod() == metaspaceMethod) {
+                methodCacheHits.increment();
                 return curMethod;
             }
+            index = (index + 1) & mask;
+        }
+        methodCacheMisses.increment();
+
+        HotSpotResolvedJavaMethodImpl newMethod = new HotSpotResolvedJavaMethodImpl(this, metaspaceHandle);
+        if (methodCacheSize + 1 > maxMethodCacheSize(table.length)) {
+            // More methods than declared by the class (e.g. due to redefinition)
+            methodCachePromotions.increment();
+            table = growMethodCache(table);
+            mask = table.length - 1;
+            index = methodCacheIndex(metaspaceMethod) & mask;
+            while (table[index] != null) {
+                index = (index + 1) & mask;
+            }
         }
+        table[index] = newMethod;
+        methodCacheSize++;
+        return newMethod;
+    }
 
-        // Fall-back to hash table.
-        if (methodCacheHashMap == null) {
-            methodCacheHashMap = new HashMap<>();
+    /**
+     * Gets the number of methods declared by this type or 0 if this is not an instance class.
+     */
+    private int getMethodCount() {
+        if (isArray()) {
+            return 0;
         }
+        HotSpotVMConfig config = config();
+        long methods = UNSAFE.getAddress(getMetaspaceKlass() + config.instanceKlassMethodsOffset);
+        return methods == 0 ? 0 : UNSAFE.getInt(methods + config.arrayU1LengthOffset);
+    }
 
-        HotSpotResolvedJavaMethodImpl lookupResult = methodCacheHashMap.get(metaspaceMethod);
-        if (lookupResult == null) {
-            HotSpotResolvedJavaMethodImpl newMethod = new HotSpotResolvedJavaMethodImpl(this, metaspaceHandle);
-            methodCacheHashMap.put(metaspaceMethod, newMethod);
-            return newMethod;
-        } else {
-            return lookupResult;
+    /**
+     * Gets the smallest power of 2 capacity for a method cache that can hold {@code methodCount}
+     * entries.
+     */
+    private static int methodCacheCapacity(int methodCount) {
+        int capacity = METHOD_CACHE_MIN_CAPACITY;
+        while (maxMethodCacheSize(capacity) < methodCount) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Keeps the load factor of a method cache table at or below 0.75.
+     */
+    private static int maxMethodCacheSize(int capacity) {
+        return capacity - (capacity >>> 2);
+    }
+
+    private static int methodCacheIndex(long metaspaceMethod) {
+        return (int) ((metaspaceMethod * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+
+    private HotSpotResolvedJavaMethodImpl[] growMethodCache(HotSpotResolvedJavaMethodImpl[] oldTable) {
+        HotSpotResolvedJavaMethodImpl[] newTable = new HotSpotResolvedJavaMethodImpl[oldTable.length * 2];
+        int mask = newTable.length - 1;
+        for (HotSpotResolvedJavaMethodImpl method : oldTable) {
+            if (method != null) {
+                int index = methodCacheIndex(method.getMetaspaceMethod()) & mask;
+                while (newTable[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                newTable[index] = method;
+            }
         }
+        methodCache = newTable;
+        return newTable;
     }
 
     @Override
@@ -944,18 +1058,18 @@ final class HotSpotResolvedObjectTypeImpl extends HotSpotResolvedJavaType implem
 
     @Override
     public ResolvedJavaMethod[] getDeclaredConstructors() {
-        return runtime().compilerToVm.getDeclaredConstructors(this);
+        return getMethodsSnapshot(true).declaredConstructors.clone();
     }
 
     @Override
     public ResolvedJavaMethod[] getDeclaredMethods() {
-        return runtime().compilerToVm.getDeclaredMethods(this);
+        return getMethodsSnapshot(true).declaredMethods.clone();
     }
 
     @Override
     public ResolvedJavaMethod getClassInitializer() {
         if (!isArray()) {
-            return compilerToVM().getClassInitializer(this);
+            return getMethodsSnapshot(false).classInitializer;
         }
         return null;
     }
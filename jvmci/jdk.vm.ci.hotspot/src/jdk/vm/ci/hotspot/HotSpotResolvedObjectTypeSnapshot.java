@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot;
+
+import static jdk.vm.ci.hotspot.HotSpotJVMCIRuntime.runtime;
+import static jdk.vm.ci.hotspot.UnsafeAccess.UNSAFE;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * The metadata of a {@link HotSpotResolvedObjectTypeImpl} that does not change once the class has
+ * been loaded, retrieved from the VM with a single
+ * {@link CompilerToVM#getTypeSnapshot(HotSpotResolvedObjectTypeImpl, boolean, Object[], long[])}
+ * call.
+ * <p>
+ * Metadata that depends on the current class hierarchy (e.g.
+ * {@link CompilerToVM#getImplementor(HotSpotResolvedObjectTypeImpl)} or
+ * {@link CompilerToVM#hasFinalizableSubclass(HotSpotResolvedObjectTypeImpl)}) is not part of a
+ * snapshot since it can change as classes are loaded. The methods of a snapshot are only valid
+ * until a class is redefined (see {@link #isStale()}).
+ */
+final class HotSpotResolvedObjectTypeSnapshot {
+
+    /**
+     * Indexes in the {@code references} array filled in by the VM. These must be kept in sync
+     * with {@code c2v_getTypeSnapshot}.
+     */
+    private static final int SUPERCLASS = 0;
+    private static final int INTERFACES = 1;
+    private static final int COMPONENT_TYPE = 2;
+    private static final int HOST_CLASS = 3;
+    private static final int CLASS_INITIALIZER = 4;
+    private static final int DECLARED_METHODS = 5;
+    private static final int DECLARED_CONSTRUCTORS = 6;
+    private static final int REFERENCES_LENGTH = 7;
+
+    /**
+     * Indexes in the {@code values} array filled in by the VM.
+     */
+    private static final int FINGERPRINT = 0;
+    private static final int FLAGS = 1;
+    private static final int VALUES_LENGTH = 2;
+
+    /**
+     * Bit in {@link #FLAGS} denoting that the VM supports {@link #FINGERPRINT}.
+     */
+    private static final long FINGERPRINT_VALID = 1;
+
+    private static final ResolvedJavaMethod[] NO_METHODS = new ResolvedJavaMethod[0];
+
+    /**
+     * The super class of an instance class or {@code null} for interfaces and array types.
+     */
+    final HotSpotResolvedObjectTypeImpl superclass;
+
+    /**
+     * The local interfaces of an instance class or {@code null} for array types.
+     */
+    final HotSpotResolvedObjectTypeImpl[] interfaces;
+
+    /**
+     * The component type of an array type or {@code null} for instance classes.
+     */
+    final HotSpotResolvedJavaType componentType;
+
+    final HotSpotResolvedObjectTypeImpl hostClass;
+    final HotSpotResolvedJavaMethodImpl classInitializer;
+
+    /**
+     * The declared methods and constructors. These are {@code null} if the snapshot was not
+     * requested to include them since retrieving them requires linking the class.
+     */
+    final ResolvedJavaMethod[] declaredMethods;
+    final ResolvedJavaMethod[] declaredConstructors;
+
+    final long fingerprint;
+    final boolean fingerprintValid;
+
+    /**
+     * The value of {@code JvmtiExport::_redefinition_count} before this snapshot was retrieved.
+     */
+    private final int redefinitionCount;
+
+    HotSpotResolvedObjectTypeSnapshot(HotSpotResolvedObjectTypeImpl type, boolean includeDeclaredMembers) {
+        Object[] references = new Object[REFERENCES_LENGTH];
+        long[] values = new long[VALUES_LENGTH];
+        redefinitionCount = currentRedefinitionCount();
+        HotSpotResolvedObjectTypeImpl.typeMetadataQueries.increment();
+        runtime().getCompilerToVM().getTypeSnapshot(type, includeDeclaredMembers, references, values);
+
+        superclass = (HotSpotResolvedObjectTypeImpl) references[SUPERCLASS];
+        interfaces = (HotSpotResolvedObjectTypeImpl[]) references[INTERFACES];
+        componentType = (HotSpotResolvedJavaType) references[COMPONENT_TYPE];
+        hostClass = (HotSpotResolvedObjectTypeImpl) references[HOST_CLASS];
+        classInitializer = (HotSpotResolvedJavaMethodImpl) references[CLASS_INITIALIZER];
+        if (includeDeclaredMembers && type.isArray()) {
+            declaredMethods = NO_METHODS;
+            declaredConstructors = NO_METHODS;
+        } else {
+            declaredMethods = (ResolvedJavaMethod[]) references[DECLARED_METHODS];
+            declaredConstructors = (ResolvedJavaMethod[]) references[DECLARED_CONSTRUCTORS];
+        }
+        fingerprint = values[FINGERPRINT];
+        fingerprintValid = (values[FLAGS] & FINGERPRINT_VALID) != 0;
+    }
+
+    private static int currentRedefinitionCount() {
+        long address = runtime().getConfig().jvmtiRedefinitionCountAddress;
+        return address == 0 ? 0 : UNSAFE.getIntVolatile(null, address);
+    }
+
+    /**
+     * Determines if a class has been redefined since this snapshot was retrieved, in which case
+     * {@link #classInitializer}, {@link #declaredMethods} and {@link #declaredConstructors} may
+     * refer to obsolete methods. The class hierarchy is not affected by redefinition.
+     */
+    boolean isStale() {
+        return redefinitionCount != currentRedefinitionCount();
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.vm.ci.code.DebugInfo;
+import jdk.vm.ci.code.StackSlot;
+import jdk.vm.ci.code.site.DataPatch;
+import jdk.vm.ci.code.site.DataSectionReference;
+import jdk.vm.ci.code.site.ExceptionHandler;
+import jdk.vm.ci.code.site.Infopoint;
+import jdk.vm.ci.code.site.Mark;
+import jdk.vm.ci.code.site.Site;
+
+/**
+ * Cache of the {@link HotSpotRuntimeStub}s installed by a {@link HotSpotCodeCacheProvider},
+ * keyed by the content of their {@link HotSpotCompiledCode}. Installing a stub whose name, code,
+ * sites and data section are identical to those of a previously installed stub returns the
+ * existing stub instead of encoding and installing the same code again. This is safe since
+ * runtime stubs are never freed.
+ */
+final class HotSpotRuntimeStubCache {
+
+    /**
+     * Counters across all caches. Exposed via
+     * {@link HotSpotJVMCIRuntime#getRuntimeStubCacheCounters()}.
+     */
+    static final LongAdder hits = new LongAdder();
+    static final LongAdder misses = new LongAdder();
+
+    /**
+     * The content of a {@link HotSpotCompiledCode} that determines the code installed for it. A key
+     * copies the parts of the compiled code it needs instead of referencing the compiled code
+     * itself. {@link Site#hashCode()} is not supported so the hash code only covers the sites'
+     * offsets.
+     */
+    static final class Key {
+        private final String name;
+        private final byte[] code;
+        private final byte[] dataSection;
+        private final int dataSectionAlignment;
+        private final Site[] sites;
+        private final boolean isImmutablePIC;
+        private final int totalFrameSize;
+        private final StackSlot deoptRescueSlot;
+        private final int hash;
+
+        private Key(HotSpotCompiledCode compiledCode) {
+            this.name = compiledCode.name;
+            this.code = Arrays.copyOf(compiledCode.targetCode, compiledCode.targetCodeSize);
+            this.dataSection = compiledCode.dataSection.clone();
+            this.dataSectionAlignment = compiledCode.dataSectionAlignment;
+            Site[] allSites = new Site[compiledCode.sites.length + compiledCode.dataSectionPatches.length];
+            System.arraycopy(compiledCode.sites, 0, allSites, 0, compiledCode.sites.length);
+            System.arraycopy(compiledCode.dataSectionPatches, 0, allSites, compiledCode.sites.length, compiledCode.dataSectionPatches.length);
+            this.sites = allSites;
+            this.isImmutablePIC = compiledCode.isImmutablePIC;
+            this.totalFrameSize = compiledCode.totalFrameSize;
+            this.deoptRescueSlot = compiledCode.deoptRescueSlot;
+            int h = name.hashCode();
+            h = h * 31 + Arrays.hashCode(code);
+            h = h * 31 + Arrays.hashCode(dataSection);
+            for (Site site : sites) {
+                h = h * 31 + site.pcOffset;
+            }
+            this.hash = h;
+        }
+
+        /**
+         * Determines if {@code site} only refers to values that remain valid after the compilation
+         * that created it has completed. In particular, an object constant in a
+         * {@link DataPatch} or in the frames of a {@link DebugInfo} may be a foreign object
+         * reference whose {@link HotSpotObjectConstantScope} has been closed.
+         */
+        private static boolean isScopeIndependent(Site site) {
+            if (site instanceof DataPatch) {
+                return ((DataPatch) site).reference instanceof DataSectionReference;
+            }
+            if (site instanceof Infopoint) {
+                DebugInfo debugInfo = ((Infopoint) site).debugInfo;
+                return debugInfo == null || (debugInfo.getBytecodePosition() == null && debugInfo.getVirtualObjectMapping() == null);
+            }
+            if (site instanceof Mark) {
+                return ((Mark) site).id instanceof Integer;
+            }
+            return site instanceof ExceptionHandler;
+        }
+
+        /**
+         * Creates a key for {@code compiledCode} or returns {@code null} if the installed code for
+         * {@code compiledCode} cannot be cached. This is the case if it has assumptions or if any
+         * of its sites is not {@linkplain #isScopeIndependent(Site) scope independent}.
+         */
+        static Key create(HotSpotCompiledCode compiledCode) {
+            if (compiledCode.assumptions != null && compiledCode.assumptions.length != 0) {
+                return null;
+            }
+            for (Site site : compiledCode.sites) {
+                if (!isScopeIndependent(site)) {
+                    return null;
+                }
+            }
+            for (Site site : compiledCode.dataSectionPatches) {
+                if (!isScopeIndependent(site)) {
+                    return null;
+                }
+            }
+            return new Key(compiledCode);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof Key) {
+                Key that = (Key) obj;
+                return this.hash == that.hash &&
+                                this.name.equals(that.name) &&
+                                Arrays.equals(this.code, that.code) &&
+                                Arrays.equals(this.dataSection, that.dataSection) &&
+                                this.dataSectionAlignment == that.dataSectionAlignment &&
+                                Arrays.equals(this.sites, that.sites) &&
+                                this.isImmutablePIC == that.isImmutablePIC &&
+                                this.totalFrameSize == that.totalFrameSize &&
+                                Objects.equals(this.deoptRescueSlot, that.deoptRescueSlot);
+            }
+            return false;
+        }
+    }
+
+    private final ConcurrentHashMap<Key, HotSpotRuntimeStub> stubs = new ConcurrentHashMap<>();
+
+    /**
+     * Gets a previously installed stub for {@code key}.
+     */
+    HotSpotRuntimeStub lookup(Key key) {
+        HotSpotRuntimeStub stub = stubs.get(key);
+        if (stub != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return stub;
+    }
+
+    /**
+     * Records {@code stub} as the installed code for {@code key}.
+     */
+    void add(Key key, HotSpotRuntimeStub stub) {
+        stubs.putIfAbsent(key, stub);
+    }
+}
@@ -25,31 +25,36 @@ package jdk.vm.ci.hotspot;
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.Arrays;
 
 import jdk.vm.ci.meta.ResolvedJavaMethod;
 import jdk.vm.ci.meta.ResolvedJavaType;
 import jdk.vm.ci.meta.SpeculationLog.SpeculationReasonEncoding;
 
 /**
- * Implements a {@link SpeculationReasonEncoding} that {@linkplain #getByteArray() produces} a byte
+ * Implements a {@link SpeculationReasonEncoding} that {@linkplain #copyTo produces} a byte
  * array. Data is added via a {@link DataOutputStream}. When producing the final byte array, if the
  * total length of data exceeds the length of a SHA-1 digest and a SHA-1 digest algorithm is
  * available, then a SHA-1 digest of the data is produced instead.
  */
 final class HotSpotSpeculationEncoding extends ByteArrayOutputStream implements SpeculationReasonEncoding {
 
-    private DataOutputStream dos = new DataOutputStream(this);
-    private byte[] result;
+    private final DataOutputStream dos = new DataOutputStream(this);
+
+    /**
+     * Specifies if the encoding is final. Once it is, the first {@link #count} bytes of
+     * {@link #buf} hold the encoded byte array.
+     */
+    private boolean closed;
 
     HotSpotSpeculationEncoding() {
         super(SHA1_LENGTH);
     }
 
     private void checkOpen() {
-        if (result != null) {
+        if (closed) {
             throw new IllegalArgumentException("Cannot update closed speculation encoding");
         }
     }
@@ -181,28 +186,40 @@ final class HotSpotSpeculationEncoding extends ByteArrayOutputStream implements
     }
 
     /**
-     * Gets the final encoded byte array and closes this encoding such that any further attempts to
-     * update it result in an {@link IllegalArgumentException}.
+     * Closes this encoding such that any further attempts to update it result in an
+     * {@link IllegalArgumentException}. The digest, if any, replaces the data in {@link #buf}.
      */
-    byte[] getByteArray() {
-        if (result == null) {
+    private void close0() {
+        if (!closed) {
             if (SHA1 != null && count > SHA1_LENGTH) {
                 try {
                     MessageDigest md = SHA1_IS_CLONEABLE ? (MessageDigest) SHA1.clone() : MessageDigest.getInstance("SHA-1");
                     md.update(buf, 0, count);
-                    result = md.digest();
-                } catch (CloneNotSupportedException | NoSuchAlgorithmException e) {
+                    count = md.digest(buf, 0, SHA1_LENGTH);
+                } catch (CloneNotSupportedException | NoSuchAlgorithmException | DigestException e) {
                     throw new InternalError(e);
                 }
-            } else {
-                if (buf.length == count) {
-                    // No need to copy the byte array
-                    return buf;
-                }
-                result = Arrays.copyOf(buf, count);
             }
-            dos = null;
+            closed = true;
         }
-        return result;
+    }
+
+    /**
+     * Gets the length of the final encoded byte array and closes this encoding such that any
+     * further attempts to update it result in an {@link IllegalArgumentException}.
+     */
+    int getEncodedLength() {
+        close0();
+        return count;
+    }
+
+    /**
+     * Copies the final encoded byte array to {@code dst} starting at {@code offset} and closes
+     * this encoding such that any further attempts to update it result in an
+     * {@link IllegalArgumentException}.
+     */
+    void copyTo(byte[] dst, int offset) {
+        close0();
+        System.arraycopy(buf, 0, dst, offset, count);
     }
 }
@@ -49,6 +49,12 @@ public class HotSpotSpeculationLog implements SpeculationLog {
 
     private static final byte[] NO_FLATTENED_SPECULATIONS = {};
 
+    /**
+     * Initial number of speculations for which space is reserved in the flattened speculations
+     * buffer.
+     */
+    private static final int INITIAL_SPECULATIONS_CAPACITY = 8;
+
     /**
      * Creates a speculation log that manages a failed speculation list. That is, when this object
      * dies, the native resources of the list are freed.
@@ -105,7 +111,7 @@ public class HotSpotSpeculationLog implements SpeculationLog {
      * @return {@code false} if the speculation could not be appended to the list
      */
     public boolean addFailedSpeculation(Speculation speculation) {
-        return compilerToVM().addFailedSpeculation(getFailedSpeculationsAddress(), ((HotSpotSpeculation) speculation).encoding);
+        return compilerToVM().addFailedSpeculation(getFailedSpeculationsAddress(), ((HotSpotSpeculation) speculation).getEncodedBytes());
     }
 
     /**
@@ -120,18 +126,28 @@ public class HotSpotSpeculationLog implements SpeculationLog {
 
         /**
          * A speculation id is a long encoding an offset (high 32 bits) and a length (low 32 bts).
-         * Combined, the index and length denote where the {@linkplain #encoding encoded
-         * speculation} is in a {@linkplain HotSpotSpeculationLog#getFlattenedSpeculations
-         * flattened} speculations array.
+         * Combined, the index and length denote where the encoded speculation is in
+         * {@link #flattened}.
          */
         private final JavaConstant id;
 
-        private final byte[] encoding;
+        /**
+         * The {@linkplain HotSpotSpeculationLog#getFlattenedSpeculations flattened} speculations
+         * array holding the encoding of this speculation. The bytes denoted by {@link #id} are
+         * never overwritten, even if the log has since grown into a new array.
+         */
+        private final byte[] flattened;
 
-        HotSpotSpeculation(SpeculationReason reason, JavaConstant id, byte[] encoding) {
+        HotSpotSpeculation(SpeculationReason reason, JavaConstant id, byte[] flattened) {
             super(reason);
             this.id = id;
-            this.encoding = encoding;
+            this.flattened = flattened;
+        }
+
+        byte[] getEncodedBytes() {
+            long indexAndLength = id.asLong();
+            int index = decodeIndex(indexAndLength);
+            return Arrays.copyOfRange(flattened, index, index + decodeLength(indexAndLength));
         }
 
         public JavaConstant getEncoding() {
@@ -143,7 +159,7 @@ public class HotSpotSpeculationLog implements SpeculationLog {
             long indexAndLength = id.asLong();
             int index = decodeIndex(indexAndLength);
             int length = decodeLength(indexAndLength);
-            return String.format("{0x%016x[index: %d, len: %d, hash: 0x%x]: %s}", indexAndLength, index, length, Arrays.hashCode(encoding), getReason());
+            return String.format("{0x%016x[index: %d, len: %d, hash: 0x%x]: %s}", indexAndLength, index, length, hash(flattened, index, length), getReason());
         }
     }
 
@@ -163,47 +179,100 @@ public class HotSpotSpeculationLog implements SpeculationLog {
     private byte[][] failedSpeculations;
 
     /**
-     * Speculations made during the compilation associated with this log.
+     * Index of {@link #failedSpeculations} by content. Kept in sync with
+     * {@link #failedSpeculations} by {@link #collectFailedSpeculations()}.
+     */
+    private EncodingTable failedSpeculationsTable;
+
+    /**
+     * The reasons for the speculations made during the compilation associated with this log.
      */
-    private List<byte[]> speculations;
     private List<SpeculationReason> speculationReasons;
 
+    /**
+     * The encodings of the speculations made during the compilation associated with this log,
+     * appended in the order the speculations were made. Only the first
+     * {@link #flattenedSpeculationsLength} bytes are valid. The encoding of
+     * {@code speculationReasons.get(i)} starts at {@code flattenedIndexes[i]}.
+     */
+    private byte[] flattenedSpeculations;
+    private int flattenedSpeculationsLength;
+    private int[] flattenedIndexes;
+
+    /**
+     * Maps the encodings in {@link #flattenedSpeculations} to their index in
+     * {@link #speculationReasons}.
+     */
+    private EncodingTable speculationsTable;
+
+    /**
+     * Buffer into which {@link #maySpeculate} encodes the speculation to be checked.
+     */
+    private byte[] scratch;
+
     @Override
     public void collectFailedSpeculations() {
         if (failedSpeculationsAddress != 0 && UnsafeAccess.UNSAFE.getLong(failedSpeculationsAddress) != 0) {
+            int oldLength = failedSpeculations == null ? 0 : failedSpeculations.length;
             failedSpeculations = compilerToVM().getFailedSpeculations(failedSpeculationsAddress, failedSpeculations);
             assert failedSpeculations.getClass() == byte[][].class;
+            if (failedSpeculationsTable == null) {
+                failedSpeculationsTable = new EncodingTable() {
+                    @Override
+                    boolean matches(int value, byte[] key, int offset, int length) {
+                        byte[] failed = failedSpeculations[value];
+                        return failed.length == length && regionEquals(failed, 0, key, offset, length);
+                    }
+                };
+            }
+            // The native list is append-only so only the new failures need to be indexed
+            for (int i = oldLength; i < failedSpeculations.length; i++) {
+                failedSpeculationsTable.putIfAbsent(failedSpeculations[i], 0, failedSpeculations[i].length, i);
+            }
         }
     }
 
+    /**
+     * Gets the buffer holding the flattened speculations. The buffer is not copied so only the
+     * first {@link #getFlattenedSpeculationsLength()} bytes are valid and its contents may change
+     * as further speculations are made.
+     *
+     * @param validate if {@code true}, a {@link BailoutException} is thrown if any of the
+     *            speculations has failed since the last call to
+     *            {@link #collectFailedSpeculations()}
+     */
     byte[] getFlattenedSpeculations(boolean validate) {
-        if (speculations == null) {
+        if (flattenedSpeculations == null) {
             return NO_FLATTENED_SPECULATIONS;
         }
         if (validate) {
             int newFailuresStart = failedSpeculations == null ? 0 : failedSpeculations.length;
             collectFailedSpeculations();
             if (failedSpeculations != null && failedSpeculations.length != newFailuresStart) {
-                for (SpeculationReason reason : speculationReasons) {
-                    byte[] encoding = encode(reason);
-                    // Only check against new failures
-                    if (contains(failedSpeculations, newFailuresStart, encoding)) {
-                        throw new BailoutException(false, "Speculation failed: " + reason);
+                // Only check against new failures
+                for (int i = newFailuresStart; i < failedSpeculations.length; i++) {
+                    int index = speculationsTable.get(failedSpeculations[i], 0, failedSpeculations[i].length);
+                    if (index >= 0) {
+                        throw new BailoutException(false, "Speculation failed: " + speculationReasons.get(index));
                     }
                 }
             }
         }
-        int size = 0;
-        for (byte[] s : speculations) {
-            size += s.length;
-        }
-        byte[] result = new byte[size];
-        size = 0;
-        for (byte[] s : speculations) {
-            System.arraycopy(s, 0, result, size, s.length);
-            size += s.length;
-        }
-        return result;
+        return flattenedSpeculations;
+    }
+
+    /**
+     * Gets the number of valid bytes in {@link #getFlattenedSpeculations(boolean)}.
+     */
+    int getFlattenedSpeculationsLength() {
+        return flattenedSpeculationsLength;
+    }
+
+    /**
+     * Gets the number of speculations made during the compilation associated with this log.
+     */
+    int getSpeculationCount() {
+        return speculationReasons == null ? 0 : speculationReasons.size();
     }
 
     @Override
@@ -212,24 +281,123 @@ public class HotSpotSpeculationLog implements SpeculationLog {
             collectFailedSpeculations();
         }
         if (failedSpeculations != null && failedSpeculations.length != 0) {
-            byte[] encoding = encode(reason);
-            return !contains(failedSpeculations, 0, encoding);
+            HotSpotSpeculationEncoding encoding = encode(reason);
+            int length = encoding.getEncodedLength();
+            if (scratch == null || scratch.length < length) {
+                scratch = new byte[length];
+            }
+            encoding.copyTo(scratch, 0);
+            return failedSpeculationsTable.get(scratch, 0, length) < 0;
+        }
+        return true;
+    }
+
+    static int hash(byte[] b, int offset, int length) {
+        int h = 1;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + b[i];
+        }
+        return h;
+    }
+
+    static boolean regionEquals(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[aOffset + i] != b[bOffset + i]) {
+                return false;
+            }
         }
         return true;
     }
 
     /**
-     * @return {@code true} if {@code needle} is in {@code haystack[fromIndex..haystack.length-1]}
+     * An open addressing hash table mapping speculation encodings, compared by content, to
+     * non-negative {@code int} values. The table does not store the encodings. Instead, the
+     * encoding for a value is compared to a key by {@link #matches}. This allows a key to be a
+     * region of a larger array.
      */
-    private static boolean contains(byte[][] haystack, int fromIndex, byte[] needle) {
-        for (int i = fromIndex; i < haystack.length; i++) {
-            byte[] fs = haystack[i];
+    private abstract static class EncodingTable {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private int[] hashes = new int[INITIAL_CAPACITY];
+        private int[] values = newValues(INITIAL_CAPACITY);
+        private int size;
+
+        private static int[] newValues(int capacity) {
+            int[] result = new int[capacity];
+            Arrays.fill(result, -1);
+            return result;
+        }
+
+        private static int spread(int h) {
+            return h ^ (h >>> 16);
+        }
+
+        /**
+         * Determines if the encoding mapped to {@code value} equals the {@code length} bytes in
+         * {@code key} starting at {@code offset}.
+         */
+        abstract boolean matches(int value, byte[] key, int offset, int length);
 
-            if (Arrays.equals(fs, needle)) {
-                return true;
+        /**
+         * Gets the value for the encoding in the given region of {@code key} or -1 if there is no
+         * entry for it.
+         */
+        int get(byte[] key, int offset, int length) {
+            int h = spread(hash(key, offset, length));
+            int mask = values.length - 1;
+            for (int i = h & mask; values[i] >= 0; i = (i + 1) & mask) {
+                if (hashes[i] == h && matches(values[i], key, offset, length)) {
+                    return values[i];
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Adds an entry for the encoding in the given region of {@code key} if there is none. If
+         * the entry is added, {@link #matches} must subsequently recognize the encoding as the one
+         * for {@code value}.
+         *
+         * @return the value of the existing entry for the encoding or -1 if {@code value} was
+         *         added
+         */
+        int putIfAbsent(byte[] key, int offset, int length, int value) {
+            assert value >= 0;
+            int h = spread(hash(key, offset, length));
+            int mask = values.length - 1;
+            int i = h & mask;
+            for (; values[i] >= 0; i = (i + 1) & mask) {
+                if (hashes[i] == h && matches(values[i], key, offset, length)) {
+                    return values[i];
+                }
+            }
+            hashes[i] = h;
+            values[i] = value;
+            if (++size * 4 > values.length * 3) {
+                rehash();
+            }
+            return -1;
+        }
+
+        private void rehash() {
+            int[] oldHashes = hashes;
+            int[] oldValues = values;
+            int capacity = oldValues.length * 2;
+            hashes = new int[capacity];
+            values = newValues(capacity);
+            int mask = capacity - 1;
+            for (int j = 0; j < oldValues.length; j++) {
+                if (oldValues[j] >= 0) {
+                    int i = oldHashes[j] & mask;
+                    while (values[i] >= 0) {
+                        i = (i + 1) & mask;
+                    }
+                    hashes[i] = oldHashes[j];
+                    values[i] = oldValues[j];
+                }
             }
         }
-        return false;
     }
 
     private static long encodeIndexAndLength(int index, int length) {
@@ -246,46 +414,56 @@ public class HotSpotSpeculationLog implements SpeculationLog {
 
     @Override
     public Speculation speculate(SpeculationReason reason) {
-        byte[] encoding = encode(reason);
-        JavaConstant id;
-        if (speculations == null) {
-            speculations = new ArrayList<>();
+        HotSpotSpeculationEncoding encoding = encode(reason);
+        int length = encoding.getEncodedLength();
+        if (flattenedSpeculations == null) {
             speculationReasons = new ArrayList<>();
-            id = JavaConstant.forLong(encodeIndexAndLength(0, encoding.length));
-            speculations.add(encoding);
-            speculationReasons.add(reason);
-        } else {
-            id = null;
-            int flattenedIndex = 0;
-            for (byte[] fs : speculations) {
-                if (Arrays.equals(fs, encoding)) {
-                    id = JavaConstant.forLong(encodeIndexAndLength(flattenedIndex, fs.length));
-                    break;
+            speculationsTable = new EncodingTable() {
+                @Override
+                boolean matches(int value, byte[] key, int offset, int keyLength) {
+                    int start = flattenedIndexes[value];
+                    int end = value + 1 < speculationReasons.size() ? flattenedIndexes[value + 1] : flattenedSpeculationsLength;
+                    return end - start == keyLength && regionEquals(flattenedSpeculations, start, key, offset, keyLength);
                 }
-                flattenedIndex += fs.length;
-            }
-            if (id == null) {
-                id = JavaConstant.forLong(encodeIndexAndLength(flattenedIndex, encoding.length));
-                speculations.add(encoding);
-                speculationReasons.add(reason);
+            };
+            flattenedIndexes = new int[INITIAL_SPECULATIONS_CAPACITY];
+            flattenedSpeculations = new byte[INITIAL_SPECULATIONS_CAPACITY * length];
+        }
+        // Encode into the free space of the buffer. The bytes are only
+        // kept if the speculation has not been made before.
+        int flattenedIndex = flattenedSpeculationsLength;
+        int newLength = flattenedIndex + length;
+        if (newLength > flattenedSpeculations.length) {
+            flattenedSpeculations = Arrays.copyOf(flattenedSpeculations, Math.max(newLength, flattenedSpeculations.length * 2));
+        }
+        encoding.copyTo(flattenedSpeculations, flattenedIndex);
+        int index = speculationReasons.size();
+        int existing = speculationsTable.putIfAbsent(flattenedSpeculations, flattenedIndex, length, index);
+        if (existing >= 0) {
+            flattenedIndex = flattenedIndexes[existing];
+        } else {
+            if (index == flattenedIndexes.length) {
+                flattenedIndexes = Arrays.copyOf(flattenedIndexes, index * 2);
             }
+            flattenedIndexes[index] = flattenedIndex;
+            flattenedSpeculationsLength = newLength;
+            speculationReasons.add(reason);
         }
-
-        return new HotSpotSpeculation(reason, id, encoding);
+        JavaConstant id = JavaConstant.forLong(encodeIndexAndLength(flattenedIndex, length));
+        return new HotSpotSpeculation(reason, id, flattenedSpeculations);
     }
 
-    private static byte[] encode(SpeculationReason reason) {
+    private static HotSpotSpeculationEncoding encode(SpeculationReason reason) {
         HotSpotSpeculationEncoding encoding = (HotSpotSpeculationEncoding) reason.encode(HotSpotSpeculationEncoding::new);
-        byte[] result = encoding == null ? null : encoding.getByteArray();
-        if (result == null) {
+        if (encoding == null) {
             throw new IllegalArgumentException(HotSpotSpeculationLog.class.getName() + " expects " + reason.getClass().getName() + ".encode() to return a non-empty encoding");
         }
-        return result;
+        return encoding;
     }
 
     @Override
     public boolean hasSpeculations() {
-        return speculations != null;
+        return flattenedSpeculations != null;
     }
 
     @Override
@@ -294,14 +472,11 @@ public class HotSpotSpeculationLog implements SpeculationLog {
             return NO_SPECULATION;
         }
         int flattenedIndex = decodeIndex(constant.asLong());
-        int index = 0;
-        for (byte[] s : speculations) {
-            if (flattenedIndex == 0) {
-                SpeculationReason reason = speculationReasons.get(index);
-                return new HotSpotSpeculation(reason, constant, s);
+        if (flattenedSpeculations != null) {
+            int index = Arrays.binarySearch(flattenedIndexes, 0, speculationReasons.size(), flattenedIndex);
+            if (index >= 0) {
+                return new HotSpotSpeculation(speculationReasons.get(index), constant, flattenedSpeculations);
             }
-            index++;
-            flattenedIndex -= s.length;
         }
         throw new IllegalArgumentException("Unknown encoded speculation: " + constant);
     }
@@ -321,17 +496,18 @@ public class HotSpotSpeculationLog implements SpeculationLog {
 
         buf.format("], speculations:[");
 
-        int size = 0;
-        if (speculations != null) {
+        byte[] flattened = Arrays.copyOf(getFlattenedSpeculations(false), flattenedSpeculationsLength);
+        if (flattenedSpeculations != null) {
             sep = "";
-            for (int i = 0; i < speculations.size(); i++) {
-                byte[] s = speculations.get(i);
-                size += s.length;
+            for (int i = 0; i < speculationReasons.size(); i++) {
+                int start = flattenedIndexes[i];
+                int end = i + 1 < speculationReasons.size() ? flattenedIndexes[i + 1] : flattenedSpeculationsLength;
+                byte[] s = Arrays.copyOfRange(flattened, start, end);
                 buf.format("%s{len:%d, hash:0x%x, reason:{%s}}", sep, s.length, Arrays.hashCode(s), speculationReasons.get(i));
                 sep = ", ";
             }
         }
-        buf.format("], len:%d, hash:0x%x}", size, Arrays.hashCode(getFlattenedSpeculations(false)));
+        buf.format("], len:%d, hash:0x%x}", flattened.length, Arrays.hashCode(flattened));
         return buf.toString();
     }
 
@@ -347,12 +523,13 @@ public class HotSpotSpeculationLog implements SpeculationLog {
         }
 
         @Override
-        void doCleanup() {
+        void doCleanup(Batch batch) {
             long pointer = UnsafeAccess.UNSAFE.getAddress(address);
             if (pointer != 0) {
-                compilerToVM().releaseFailedSpeculations(address);
+                batch.releaseFailedSpeculations(address);
+            } else {
+                UnsafeAccess.UNSAFE.freeMemory(address);
             }
-            UnsafeAccess.UNSAFE.freeMemory(address);
         }
 
         final long address;
@@ -39,4 +39,40 @@ public class HotSpotStackIntrospection implements StackIntrospection {
         CompilerToVM compilerToVM = runtime.getCompilerToVM();
         return compilerToVM.iterateFrames(initialMethods, matchingMethods, initialSkip, visitor);
     }
+
+    /**
+     * Fills {@code buffer} with the first frames on the current thread's stack whose method is in
+     * {@code matchingMethods}. Unlike
+     * {@link #iterateFrames(ResolvedJavaMethod[], ResolvedJavaMethod[], int, InspectedFrameVisitor)},
+     * this does not allocate a frame object with its locals per frame nor call back into Java
+     * per frame. Subsequent frames are retrieved with {@link #nextFrames(HotSpotFrameBuffer)}.
+     *
+     * @param matchingMethods the methods of the frames to be returned or {@code null} to return all
+     *            frames
+     * @param initialSkip the number of matching frames to skip
+     * @return the number of frames in {@code buffer}, 0 if there are no matching frames
+     */
+    public int iterateFrames(ResolvedJavaMethod[] matchingMethods, int initialSkip, HotSpotFrameBuffer buffer) {
+        CompilerToVM compilerToVM = runtime.getCompilerToVM();
+        buffer.matchingMethods = matchingMethods;
+        buffer.setSize(compilerToVM.iterateFramesInto(matchingMethods, 0L, 0, initialSkip, buffer.methods, buffer.frames));
+        return buffer.size;
+    }
+
+    /**
+     * Replaces the frames in {@code buffer} with the matching frames following the last frame in
+     * {@code buffer}.
+     *
+     * @return the number of frames in {@code buffer}, 0 if the end of the stack has been reached
+     * @throws IllegalStateException if the last frame in {@code buffer} is no longer on the stack
+     */
+    public int nextFrames(HotSpotFrameBuffer buffer) {
+        if (buffer.size == 0) {
+            return 0;
+        }
+        CompilerToVM compilerToVM = runtime.getCompilerToVM();
+        int last = buffer.size - 1;
+        buffer.setSize(compilerToVM.iterateFramesInto(buffer.matchingMethods, buffer.getStackPointer(last), buffer.getFrameNumber(last), 0, buffer.methods, buffer.frames));
+        return buffer.size;
+    }
 }
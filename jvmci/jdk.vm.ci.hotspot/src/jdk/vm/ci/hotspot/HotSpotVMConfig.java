@@ -99,6 +99,7 @@ class HotSpotVMConfig extends HotSpotVMConfigAccess {
     final int instanceKlassInitStateOffset = getFieldOffset("InstanceKlass::_init_state", Integer.class, "u1");
     final int instanceKlassConstantsOffset = getFieldOffset("InstanceKlass::_constants", Integer.class, "ConstantPool*");
     final int instanceKlassFieldsOffset = getFieldOffset("InstanceKlass::_fields", Integer.class, "Array<u2>*");
+    final int instanceKlassMethodsOffset = getFieldOffset("InstanceKlass::_methods", Integer.class, "Array<Method*>*");
     final int instanceKlassAnnotationsOffset = getFieldOffset("InstanceKlass::_annotations", Integer.class, "Annotations*");
     final int klassVtableStartOffset = getFieldValue("CompilerToVM::Data::Klass_vtable_start_offset", Integer.class, "int");
     final int klassVtableLengthOffset = getFieldValue("CompilerToVM::Data::Klass_vtable_length_offset", Integer.class, "int");
@@ -170,6 +171,7 @@ class HotSpotVMConfig extends HotSpotVMConfigAccess {
     final int methodDataOopDataOffset = getFieldOffset("MethodData::_data[0]", Integer.class, "intptr_t");
     final int methodDataOopTrapHistoryOffset = getFieldOffset("MethodData::_trap_hist._array[0]", Integer.class, "u1");
     final int methodDataIRSizeOffset = getFieldOffset("MethodData::_jvmci_ir_size", Integer.class, "int");
+    final int methodDataParametersTypeDataDiOffset = getFieldOffset("MethodData::_parameters_type_data_di", Integer.class, "int");
 
     final int methodDataDecompiles = getFieldOffset("MethodData::_nof_decompiles", Integer.class, "uint");
     final int methodDataOverflowRecompiles = getFieldOffset("MethodData::_nof_overflow_recompiles", Integer.class, "uint");
@@ -256,6 +258,19 @@ class HotSpotVMConfig extends HotSpotVMConfigAccess {
     final int vmSymbolsFirstSID = getConstant("vmSymbols::FIRST_SID", Integer.class);
     final int vmSymbolsSIDLimit = getConstant("vmSymbols::SID_LIMIT", Integer.class);
 
+    /**
+     * Address of the number of class redefinitions performed so far or 0 if the VM does not
+     * support JVMTI.
+     */
+    final long jvmtiRedefinitionCountAddress = getFieldAddress("JvmtiExport::_redefinition_count", "int", 0L);
+
+    /**
+     * Address of the number of modifications to the class hierarchy. This is incremented each time
+     * a class is added to the hierarchy and thus whenever a class hierarchy dependency may have been
+     * invalidated.
+     */
+    final long systemDictionaryModificationsAddress = getFieldAddress("SystemDictionary::_number_of_modifications", "int");
+
     final long symbolInit = getFieldValue("CompilerToVM::Data::symbol_init", Long.class);
     final long symbolClinit = getFieldValue("CompilerToVM::Data::symbol_clinit", Long.class);
 
@@ -346,6 +361,9 @@ class HotSpotVMConfig extends HotSpotVMConfigAccess {
     final int vmIntrinsicLinkToSpecial = getConstant("vmIntrinsics::_linkToSpecial", Integer.class);
     final int vmIntrinsicLinkToInterface = getConstant("vmIntrinsics::_linkToInterface", Integer.class);
 
+    final int compileStateQueueWaitNanosOffset = getFieldOffset("JVMCICompileState::_queue_wait_nanos", Integer.class, "jlong");
+    final int compileStateDecompileCountOffset = getFieldOffset("JVMCICompileState::_decompile_count", Integer.class, "jint");
+
     final int codeInstallResultOk = getConstant("JVMCIEnv::ok", Integer.class);
     final int codeInstallResultDependenciesFailed = getConstant("JVMCIEnv::dependencies_failed", Integer.class);
     final int codeInstallResultDependenciesInvalid = getConstant("JVMCIEnv::dependencies_invalid", Integer.class);
@@ -385,4 +403,16 @@ class HotSpotVMConfig extends HotSpotVMConfigAccess {
     final int arrayDataArrayLenOffset = getConstant("ArrayData::array_len_off_set", Integer.class);
     final int arrayDataArrayStartOffset = getConstant("ArrayData::array_start_off_set", Integer.class);
     final int multiBranchDataPerCaseCellCount = getConstant("MultiBranchData::per_case_cell_count", Integer.class);
+
+    final int typeEntriesNullSeen = getConstant("TypeEntries::null_seen", Integer.class);
+    final int typeEntriesTypeUnknown = getConstant("TypeEntries::type_unknown", Integer.class);
+    final int typeEntriesStatusBits = getConstant("TypeEntries::status_bits", Integer.class);
+    final int typeStackSlotEntriesStackSlotEntry = getConstant("TypeStackSlotEntries::stack_slot_entry", Integer.class);
+    final int typeStackSlotEntriesTypeEntry = getConstant("TypeStackSlotEntries::type_entry", Integer.class);
+    final int typeStackSlotEntriesPerArgCellCount = getConstant("TypeStackSlotEntries::per_arg_cell_count", Integer.class);
+    final int returnTypeEntryCellCount = getConstant("ReturnTypeEntry::cell_count", Integer.class);
+    final int typeEntriesAtCallHeaderCellCount = getConstant("TypeEntriesAtCall::header_cell_count", Integer.class);
+    final int typeEntriesAtCallCellCountLocalOffset = getConstant("TypeEntriesAtCall::cell_count_local_offset", Integer.class);
+    final int speculativeTrapDataMethodOffset = getConstant("SpeculativeTrapData::method_offset", Integer.class);
+    final int speculativeTrapDataCellCount = getConstant("SpeculativeTrapData::speculative_trap_cell_count", Integer.class);
 }
@@ -48,12 +48,12 @@ public class HotSpotVMConfigAccess {
      * @throws JVMCIError if the symbol is not present and {@code notPresent == null}
      */
     public long getAddress(String name, Long notPresent) {
-        Long entry = store.vmAddresses.get(name);
+        Long entry = store.lookupAddress(name);
         if (entry == null) {
             if (notPresent != null) {
                 return notPresent;
             }
-            throw missingEntry("address", name, store.vmFlags.keySet());
+            throw missingEntry("address", name, store.getFlags().keySet());
 
         }
         return entry;
@@ -80,12 +80,12 @@ public class HotSpotVMConfigAccess {
      * @throws JVMCIError if the constant is not present and {@code notPresent == null}
      */
     public <T> T getConstant(String name, Class<T> type, T notPresent) {
-        Long c = store.vmConstants.get(name);
+        Long c = store.lookupConstant(name);
         if (c == null) {
             if (notPresent != null) {
                 return notPresent;
             }
-            throw missingEntry("constant", name, store.vmConstants.keySet());
+            throw missingEntry("constant", name, store.getConstants().keySet());
         }
         return type.cast(convertValue(name, type, c, null));
     }
@@ -306,12 +306,12 @@ public class HotSpotVMConfigAccess {
      * @throws JVMCIError if the field is not present and {@code required == true}
      */
     private VMField getField(String name, String cppType, boolean required) {
-        VMField entry = store.vmFields.get(name);
+        VMField entry = store.lookupField(name);
         if (entry == null) {
             if (!required) {
                 return null;
             }
-            throw missingEntry("field", name, store.vmFields.keySet());
+            throw missingEntry("field", name, store.getFields().keySet());
         }
 
         // Make sure the native type is still the type we expect.
@@ -345,7 +345,7 @@ public class HotSpotVMConfigAccess {
      * @throws JVMCIError if the flag is not present and {@code notPresent == null}
      */
     public <T> T getFlag(String name, Class<T> type, T notPresent) {
-        VMFlag entry = store.vmFlags.get(name);
+        VMFlag entry = store.lookupFlag(name);
         Object value;
         String cppType;
         if (entry == null) {
@@ -355,7 +355,7 @@ public class HotSpotVMConfigAccess {
                 if (notPresent != null) {
                     return notPresent;
                 }
-                throw missingEntry("flag", name, store.vmFlags.keySet());
+                throw missingEntry("flag", name, store.getFlags().keySet());
             } else {
                 cppType = null;
             }
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot;
+
+import static jdk.vm.ci.hotspot.UnsafeAccess.UNSAFE;
+import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import jdk.vm.ci.common.JVMCIError;
+
+/**
+ * Decodes the compact binary encoding of the VM configuration returned by
+ * {@link CompilerToVM#readConfigurationBlob()}. Entries are only decoded when they are looked up.
+ * <p>
+ * All values are in native byte order. The blob starts with a header of 8 {@code int}s: a magic
+ * number, a version, the offset of the string table and the offsets of the field, constant,
+ * address, flag and intrinsic sections. Each section starts with a header of 4 {@code int}s (the
+ * number of records, the record size, the number of hash buckets and the hash table size),
+ * followed by the records and, for sections keyed by name, a perfect hash table. The table consists
+ * of a displacement (i.e. hash seed) per bucket followed by the record index per table slot. Record
+ * names are looked up by hashing them with seed 0 to select a bucket and then with the bucket's
+ * displacement to select a slot. Each string in the string table is encoded as a big-endian
+ * {@code u2} length followed by the characters of the string.
+ * <p>
+ * The format must be kept in sync with {@code readConfigurationBlob0} in
+ * {@code jvmciCompilerToVMInit.cpp}.
+ */
+final class HotSpotVMConfigBlob {
+
+    private static final int MAGIC = 0x4A564D43;
+    private static final int VERSION = 1;
+
+    private static final int FIELDS = 0;
+    private static final int CONSTANTS = 1;
+    private static final int ADDRESSES = 2;
+    private static final int FLAGS = 3;
+    private static final int INTRINSICS = 4;
+
+    private static final int SECTION_HEADER_SIZE = 16;
+    private static final int FIELD_RECORD_SIZE = 40;
+    private static final int VALUE_RECORD_SIZE = 16;
+    private static final int INTRINSIC_RECORD_SIZE = 16;
+
+    /**
+     * Kinds of the value of a static field.
+     */
+    private static final int NO_VALUE = 0;
+    private static final int BOOLEAN_VALUE = 1;
+
+    private final byte[] blob;
+    private final int strings;
+    private final int[] sections;
+
+    HotSpotVMConfigBlob(byte[] blob) {
+        this.blob = blob;
+        if (blob.length < 32 || getInt(0) != MAGIC || getInt(4) != VERSION) {
+            throw new JVMCIError("Invalid VM configuration blob");
+        }
+        strings = getInt(8);
+        sections = new int[]{getInt(12), getInt(16), getInt(20), getInt(24), getInt(28)};
+        checkRecordSize(FIELDS, FIELD_RECORD_SIZE);
+        checkRecordSize(CONSTANTS, VALUE_RECORD_SIZE);
+        checkRecordSize(ADDRESSES, VALUE_RECORD_SIZE);
+        checkRecordSize(FLAGS, VALUE_RECORD_SIZE);
+        checkRecordSize(INTRINSICS, INTRINSIC_RECORD_SIZE);
+    }
+
+    private void checkRecordSize(int section, int recordSize) {
+        if (getInt(sections[section] + 4) != recordSize) {
+            throw new JVMCIError("Invalid record size in VM configuration blob section %d: %d", section, getInt(sections[section] + 4));
+        }
+    }
+
+    private int getInt(int offset) {
+        return UNSAFE.getInt(blob, ARRAY_BYTE_BASE_OFFSET + (long) offset);
+    }
+
+    private long getLong(int offset) {
+        return UNSAFE.getLong(blob, ARRAY_BYTE_BASE_OFFSET + (long) offset);
+    }
+
+    private int stringLength(int offset) {
+        return ((blob[offset] & 0xFF) << 8) | (blob[offset + 1] & 0xFF);
+    }
+
+    private String getString(int index) {
+        if (index < 0) {
+            return null;
+        }
+        int offset = strings + index;
+        return new String(blob, offset + 2, stringLength(offset), StandardCharsets.ISO_8859_1);
+    }
+
+    private boolean stringEquals(int index, String s) {
+        int offset = strings + index;
+        int length = stringLength(offset);
+        if (length != s.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if ((blob[offset + 2 + i] & 0xFF) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hash function for the perfect hash tables. Must be kept in sync with
+     * {@code config_name_hash} in {@code jvmciCompilerToVMInit.cpp}.
+     */
+    private static int hash(String name, int seed) {
+        int h = 0x811c9dc5 ^ seed;
+        for (int i = 0; i < name.length(); i++) {
+            h ^= name.charAt(i);
+            h *= 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    int count(int section) {
+        return getInt(sections[section]);
+    }
+
+    private int record(int section, int index) {
+        int s = sections[section];
+        return s + SECTION_HEADER_SIZE + index * getInt(s + 4);
+    }
+
+    /**
+     * Gets the offset of the record named {@code name} in {@code section} or -1 if there is no
+     * such record.
+     */
+    private int find(int section, String name) {
+        int s = sections[section];
+        int count = getInt(s);
+        int bucketCount = getInt(s + 8);
+        int tableSize = getInt(s + 12);
+        if (tableSize == 0) {
+            return -1;
+        }
+        int displacements = s + SECTION_HEADER_SIZE + count * getInt(s + 4);
+        int slots = displacements + bucketCount * Integer.BYTES;
+        int displacement = getInt(displacements + (hash(name, 0) & (bucketCount - 1)) * Integer.BYTES);
+        int index = getInt(slots + (hash(name, displacement) & (tableSize - 1)) * Integer.BYTES);
+        if (index < 0) {
+            return -1;
+        }
+        int record = record(section, index);
+        return stringEquals(getInt(record), name) ? record : -1;
+    }
+
+    private VMField decodeField(String name, int record) {
+        String type = getString(getInt(record + 4));
+        int kind = getInt(record + 8);
+        long offset = getLong(record + 16);
+        long address = getLong(record + 24);
+        Object value;
+        if (kind == NO_VALUE) {
+            value = null;
+        } else if (kind == BOOLEAN_VALUE) {
+            value = getLong(record + 32) != 0;
+        } else {
+            value = getLong(record + 32);
+        }
+        return new VMField(name, type, offset, address, value);
+    }
+
+    private VMFlag decodeFlag(String name, int record) {
+        String type = getString(getInt(record + 4));
+        long value = getLong(record + 8);
+        return new VMFlag(name, type, "bool".equals(type) ? (Object) (value != 0) : (Object) value);
+    }
+
+    VMField getField(String name) {
+        int record = find(FIELDS, name);
+        return record < 0 ? null : decodeField(name, record);
+    }
+
+    Long getConstant(String name) {
+        int record = find(CONSTANTS, name);
+        return record < 0 ? null : getLong(record + 8);
+    }
+
+    Long getAddress(String name) {
+        int record = find(ADDRESSES, name);
+        return record < 0 ? null : getLong(record + 8);
+    }
+
+    VMFlag getFlag(String name) {
+        int record = find(FLAGS, name);
+        return record < 0 ? null : decodeFlag(name, record);
+    }
+
+    int fieldCount() {
+        return count(FIELDS);
+    }
+
+    int constantCount() {
+        return count(CONSTANTS);
+    }
+
+    int addressCount() {
+        return count(ADDRESSES);
+    }
+
+    int flagCount() {
+        return count(FLAGS);
+    }
+
+    int intrinsicCount() {
+        return count(INTRINSICS);
+    }
+
+    HashMap<String, VMField> decodeFields() {
+        int count = count(FIELDS);
+        HashMap<String, VMField> result = new HashMap<>(count);
+        for (int i = 0; i < count; i++) {
+            int record = record(FIELDS, i);
+            String name = getString(getInt(record));
+            result.put(name, decodeField(name, record));
+        }
+        return result;
+    }
+
+    private HashMap<String, Long> decodeValues(int section) {
+        int count = count(section);
+        HashMap<String, Long> result = new HashMap<>(count);
+        for (int i = 0; i < count; i++) {
+            int record = record(section, i);
+            result.put(getString(getInt(record)), getLong(record + 8));
+        }
+        return result;
+    }
+
+    HashMap<String, Long> decodeConstants() {
+        return decodeValues(CONSTANTS);
+    }
+
+    HashMap<String, Long> decodeAddresses() {
+        return decodeValues(ADDRESSES);
+    }
+
+    HashMap<String, VMFlag> decodeFlags() {
+        int count = count(FLAGS);
+        HashMap<String, VMFlag> result = new HashMap<>(count);
+        for (int i = 0; i < count; i++) {
+            int record = record(FLAGS, i);
+            String name = getString(getInt(record));
+            result.put(name, decodeFlag(name, record));
+        }
+        return result;
+    }
+
+    List<VMIntrinsicMethod> decodeIntrinsics() {
+        int count = count(INTRINSICS);
+        List<VMIntrinsicMethod> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int record = record(INTRINSICS, i);
+            String declaringClass = getString(getInt(record));
+            String name = getString(getInt(record + 4));
+            String descriptor = getString(getInt(record + 8));
+            result.add(new VMIntrinsicMethod(declaringClass, name, descriptor, getInt(record + 12)));
+        }
+        return result;
+    }
+}
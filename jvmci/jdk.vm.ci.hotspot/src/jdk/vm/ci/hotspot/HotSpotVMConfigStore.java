@@ -33,6 +33,7 @@ import java.util.TreeMap;
 
 import jdk.vm.ci.common.InitTimer;
 import jdk.vm.ci.common.JVMCIError;
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime.Option;
 
 /**
  * Access to VM configuration data.
@@ -45,7 +46,7 @@ public final class HotSpotVMConfigStore {
      * @return an unmodifiable map from the symbol names to their addresses
      */
     public Map<String, Long> getAddresses() {
-        return Collections.unmodifiableMap(vmAddresses);
+        return Collections.unmodifiableMap(vmAddresses());
     }
 
     /**
@@ -54,7 +55,7 @@ public final class HotSpotVMConfigStore {
      * @return an unmodifiable map from the names of C++ constants to their values
      */
     public Map<String, Long> getConstants() {
-        return Collections.unmodifiableMap(vmConstants);
+        return Collections.unmodifiableMap(vmConstants());
     }
 
     /**
@@ -63,7 +64,7 @@ public final class HotSpotVMConfigStore {
      * @return an unmodifiable map from VM flag names to {@link VMFlag} objects
      */
     public Map<String, VMFlag> getFlags() {
-        return Collections.unmodifiableMap(vmFlags);
+        return Collections.unmodifiableMap(vmFlags());
     }
 
     /**
@@ -72,26 +73,34 @@ public final class HotSpotVMConfigStore {
      * @return an unmodifiable map from VM field names to {@link VMField} objects
      */
     public Map<String, VMField> getFields() {
-        return Collections.unmodifiableMap(vmFields);
+        return Collections.unmodifiableMap(vmFields());
     }
 
     /**
      * Gets the VM intrinsic descriptions exposed by this object.
      */
     public List<VMIntrinsicMethod> getIntrinsics() {
-        return Collections.unmodifiableList(vmIntrinsics);
+        return Collections.unmodifiableList(vmIntrinsics());
     }
 
-    final HashMap<String, VMField> vmFields;
-    final HashMap<String, Long> vmConstants;
-    final HashMap<String, Long> vmAddresses;
-    final HashMap<String, VMFlag> vmFlags;
-    final List<VMIntrinsicMethod> vmIntrinsics;
+    /**
+     * The VM configuration in binary form or {@code null} if {@link Option#VMConfigBlob} is
+     * {@code false}. The maps below are only created from the blob when all entries are requested
+     * by one of the public accessors.
+     */
+    private final HotSpotVMConfigBlob blob;
+
+    private volatile HashMap<String, VMField> vmFields;
+    private volatile HashMap<String, Long> vmConstants;
+    private volatile HashMap<String, Long> vmAddresses;
+    private volatile HashMap<String, VMFlag> vmFlags;
+    private volatile List<VMIntrinsicMethod> vmIntrinsics;
     final CompilerToVM compilerToVm;
 
     /**
-     * Reads the database of VM info. The return value encodes the info in a nested object array
-     * that is described by the pseudo Java object {@code info} below:
+     * Reads the database of VM info, either in the {@linkplain HotSpotVMConfigBlob binary format}
+     * or as Java objects. In the latter case, the return value encodes the info in a nested object
+     * array that is described by the pseudo Java object {@code info} below:
      *
      * <pre>
      *     info = [
@@ -106,6 +115,13 @@ public final class HotSpotVMConfigStore {
     @SuppressWarnings("try")
     HotSpotVMConfigStore(CompilerToVM compilerToVm) {
         this.compilerToVm = compilerToVm;
+        if (Option.VMConfigBlob.getBoolean()) {
+            try (InitTimer t = timer("CompilerToVm readConfigurationBlob")) {
+                blob = new HotSpotVMConfigBlob(compilerToVm.readConfigurationBlob());
+            }
+            return;
+        }
+        blob = null;
         Object[] data;
         try (InitTimer t = timer("CompilerToVm readConfiguration")) {
             data = compilerToVm.readConfiguration();
@@ -120,38 +136,121 @@ public final class HotSpotVMConfigStore {
         Object[] vmAddressesInfo  = (Object[])  data[2];
         VMFlag[] vmFlagsInfo      = (VMFlag[])  data[3];
 
-        vmFields     = new HashMap<>(vmFieldsInfo.length);
-        vmConstants  = new HashMap<>(vmConstantsInfo.length);
-        vmAddresses  = new HashMap<>(vmAddressesInfo.length);
-        vmFlags      = new HashMap<>(vmFlagsInfo.length);
+        HashMap<String, VMField> fields     = new HashMap<>(vmFieldsInfo.length);
+        HashMap<String, Long> constants     = new HashMap<>(vmConstantsInfo.length);
+        HashMap<String, Long> addresses     = new HashMap<>(vmAddressesInfo.length);
+        HashMap<String, VMFlag> flags       = new HashMap<>(vmFlagsInfo.length);
         vmIntrinsics = Arrays.asList((VMIntrinsicMethod[]) data[4]);
         // @formatter:on
 
         try (InitTimer t = timer("HotSpotVMConfigStore<init> fill maps")) {
             for (VMField vmField : vmFieldsInfo) {
-                vmFields.put(vmField.name, vmField);
+                fields.put(vmField.name, vmField);
             }
 
             for (int i = 0; i < vmConstantsInfo.length / 2; i++) {
                 String name = (String) vmConstantsInfo[i * 2];
                 Long value = (Long) vmConstantsInfo[i * 2 + 1];
-                vmConstants.put(name, value);
+                constants.put(name, value);
             }
 
             for (int i = 0; i < vmAddressesInfo.length / 2; i++) {
                 String name = (String) vmAddressesInfo[i * 2];
                 Long value = (Long) vmAddressesInfo[i * 2 + 1];
-                vmAddresses.put(name, value);
+                addresses.put(name, value);
             }
 
             for (VMFlag vmFlag : vmFlagsInfo) {
-                vmFlags.put(vmFlag.name, vmFlag);
+                flags.put(vmFlag.name, vmFlag);
             }
         }
+        vmFields = fields;
+        vmConstants = constants;
+        vmAddresses = addresses;
+        vmFlags = flags;
+    }
+
+    private HashMap<String, VMField> vmFields() {
+        HashMap<String, VMField> result = vmFields;
+        if (result == null) {
+            vmFields = result = blob.decodeFields();
+        }
+        return result;
+    }
+
+    private HashMap<String, Long> vmConstants() {
+        HashMap<String, Long> result = vmConstants;
+        if (result == null) {
+            vmConstants = result = blob.decodeConstants();
+        }
+        return result;
+    }
+
+    private HashMap<String, Long> vmAddresses() {
+        HashMap<String, Long> result = vmAddresses;
+        if (result == null) {
+            vmAddresses = result = blob.decodeAddresses();
+        }
+        return result;
+    }
+
+    private HashMap<String, VMFlag> vmFlags() {
+        HashMap<String, VMFlag> result = vmFlags;
+        if (result == null) {
+            vmFlags = result = blob.decodeFlags();
+        }
+        return result;
+    }
+
+    private List<VMIntrinsicMethod> vmIntrinsics() {
+        List<VMIntrinsicMethod> result = vmIntrinsics;
+        if (result == null) {
+            vmIntrinsics = result = blob.decodeIntrinsics();
+        }
+        return result;
+    }
+
+    /**
+     * Gets the C++ field named {@code name} or {@code null} if there is no such field.
+     */
+    VMField lookupField(String name) {
+        return blob != null ? blob.getField(name) : vmFields.get(name);
+    }
+
+    /**
+     * Gets the value of the C++ constant named {@code name} or {@code null} if there is no such
+     * constant.
+     */
+    Long lookupConstant(String name) {
+        return blob != null ? blob.getConstant(name) : vmConstants.get(name);
+    }
+
+    /**
+     * Gets the address of the C++ symbol named {@code name} or {@code null} if there is no such
+     * symbol.
+     */
+    Long lookupAddress(String name) {
+        return blob != null ? blob.getAddress(name) : vmAddresses.get(name);
+    }
+
+    /**
+     * Gets the VM flag named {@code name} or {@code null} if there is no such flag.
+     */
+    VMFlag lookupFlag(String name) {
+        return blob != null ? blob.getFlag(name) : vmFlags.get(name);
     }
 
     @Override
     public String toString() {
+        if (blob != null) {
+            return String.format("%s[%d fields, %d constants, %d addresses, %d flags, %d intrinsics]",
+                            getClass().getSimpleName(),
+                            blob.fieldCount(),
+                            blob.constantCount(),
+                            blob.addressCount(),
+                            blob.flagCount(),
+                            blob.intrinsicCount());
+        }
         return String.format("%s[%d fields, %d constants, %d addresses, %d flags, %d intrinsics]",
                         getClass().getSimpleName(),
                         vmFields.size(),
@@ -140,11 +140,11 @@ final class IndirectHotSpotObjectConstantImpl extends HotSpotObjectConstantImpl
     }
 
     /**
-     * Clears the foreign object reference.
+     * Clears the foreign object reference after its handle has been released by the scope
+     * described by {@code scopeDescription}.
      */
     void clear(Object scopeDescription) {
         checkHandle();
-        CompilerToVM.compilerToVM().deleteGlobalHandle(objectHandle);
         if (rawAudit == null) {
             rawAudit = scopeDescription;
         }
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.hotspot;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * Maps {@code Klass*} values to weakly referenced {@link HotSpotResolvedObjectTypeImpl} mirrors.
+ * <p>
+ * The map is split into a fixed number of segments, each being an open addressing table with
+ * linear probing keyed directly by the {@code long} klass pointer. Lookups of an existing mirror
+ * are lock-free. Creating a mirror locks only the segment the klass pointer hashes to which
+ * guarantees that at most one live mirror exists per {@code Klass*}. Entries whose mirror has
+ * been reclaimed are purged from the tables as they are enqueued on a {@link ReferenceQueue}.
+ */
+final class KlassPointerTypeCache {
+
+    /**
+     * Number of segments. Must be a power of 2.
+     */
+    private static final int SEGMENT_COUNT = 16;
+
+    /**
+     * Initial capacity of each segment table. Must be a power of 2.
+     */
+    private static final int INITIAL_SEGMENT_CAPACITY = 32;
+
+    static final class Entry extends WeakReference<HotSpotResolvedObjectTypeImpl> {
+        final long klassPointer;
+
+        Entry(long klassPointer, HotSpotResolvedObjectTypeImpl referent, ReferenceQueue<HotSpotResolvedObjectTypeImpl> queue) {
+            super(referent, queue);
+            this.klassPointer = klassPointer;
+        }
+    }
+
+    /**
+     * Marks a table slot whose entry was removed. Since a {@code Klass*} is never 0, the key of
+     * this entry never matches a lookup.
+     */
+    private static final Entry TOMBSTONE = new Entry(0L, null, null);
+
+    private static final class Segment {
+
+        /**
+         * The table is only ever replaced (never cleared) which means a racing reader observes
+         * either a stale or the current version of a slot. A stale {@code null} simply causes the
+         * reader to take the locked path.
+         */
+        private volatile Entry[] table = new Entry[INITIAL_SEGMENT_CAPACITY];
+
+        /**
+         * Number of non-null slots in {@link #table}, including {@link #TOMBSTONE}s. Guarded by
+         * {@code this}.
+         */
+        private int used;
+
+        /**
+         * Number of slots in {@link #table} holding an entry other than {@link #TOMBSTONE}.
+         * Guarded by {@code this}.
+         */
+        private int live;
+
+        synchronized HotSpotResolvedObjectTypeImpl getOrCreate(long klassPointer, String signature, ReferenceQueue<HotSpotResolvedObjectTypeImpl> queue) {
+            Entry[] t = table;
+            int index = find(t, klassPointer);
+            if (index >= 0) {
+                HotSpotResolvedObjectTypeImpl javaType = t[index].get();
+                if (javaType != null) {
+                    return javaType;
+                }
+            }
+            HotSpotResolvedObjectTypeImpl javaType = new HotSpotResolvedObjectTypeImpl(klassPointer, signature);
+            Entry entry = new Entry(klassPointer, javaType, queue);
+
+            // Re-read the table in case it changed while creating the mirror
+            t = table;
+            index = find(t, klassPointer);
+            if (index >= 0) {
+                // Overwrite the cleared entry. Its pending removal will not find it anymore.
+                t[index] = entry;
+                return javaType;
+            }
+            if ((used + 1) * 2 > t.length) {
+                t = rehash(t);
+            }
+            int mask = t.length - 1;
+            int i = slot(klassPointer) & mask;
+            while (t[i] != null && t[i] != TOMBSTONE) {
+                i = (i + 1) & mask;
+            }
+            if (t[i] == null) {
+                used++;
+            }
+            live++;
+            t[i] = entry;
+            return javaType;
+        }
+
+        synchronized void remove(Entry entry) {
+            Entry[] t = table;
+            int index = find(t, entry.klassPointer);
+            if (index >= 0 && t[index] == entry) {
+                t[index] = TOMBSTONE;
+                live--;
+            }
+        }
+
+        /**
+         * Creates a new table without {@link #TOMBSTONE}s, doubling the capacity if at least
+         * half of the entries are live.
+         */
+        private Entry[] rehash(Entry[] oldTable) {
+            int capacity = oldTable.length;
+            if (live * 4 >= capacity) {
+                capacity *= 2;
+            }
+            Entry[] newTable = new Entry[capacity];
+            int mask = capacity - 1;
+            for (Entry e : oldTable) {
+                if (e != null && e != TOMBSTONE) {
+                    int i = slot(e.klassPointer) & mask;
+                    while (newTable[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    newTable[i] = e;
+                }
+            }
+            used = live;
+            table = newTable;
+            return newTable;
+        }
+    }
+
+    private final Segment[] segments;
+    private final ReferenceQueue<HotSpotResolvedObjectTypeImpl> queue = new ReferenceQueue<>();
+
+    KlassPointerTypeCache() {
+        segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    private static long mix(long klassPointer) {
+        return klassPointer * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * Gets the initial probe position for {@code klassPointer}. Uses different hash bits than
+     * {@link #segmentFor(long)}.
+     */
+    private static int slot(long klassPointer) {
+        return (int) (mix(klassPointer) >>> 32);
+    }
+
+    private Segment segmentFor(long klassPointer) {
+        return segments[(int) (mix(klassPointer) >>> 60) & (SEGMENT_COUNT - 1)];
+    }
+
+    /**
+     * Gets the index of the slot in {@code t} whose entry has the key {@code klassPointer} or -1
+     * if there is no such slot.
+     */
+    private static int find(Entry[] t, long klassPointer) {
+        int mask = t.length - 1;
+        int i = slot(klassPointer) & mask;
+        Entry e;
+        while ((e = t[i]) != null) {
+            if (e.klassPointer == klassPointer) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the mirror for {@code klassPointer}, creating it if it does not exist or has been
+     * reclaimed.
+     */
+    HotSpotResolvedObjectTypeImpl get(long klassPointer, String signature) {
+        assert klassPointer != 0;
+        Segment segment = segmentFor(klassPointer);
+        Entry[] t = segment.table;
+        int index = find(t, klassPointer);
+        if (index >= 0) {
+            Entry entry = t[index];
+            HotSpotResolvedObjectTypeImpl javaType = entry.get();
+            if (javaType != null) {
+                return javaType;
+            }
+        }
+        expungeStaleEntries();
+        return segment.getOrCreate(klassPointer, signature, queue);
+    }
+
+    /**
+     * Removes the entries whose mirror has been reclaimed. Each segment is locked individually
+     * to avoid lock ordering issues between segments.
+     */
+    private void expungeStaleEntries() {
+        Entry entry;
+        while ((entry = (Entry) queue.poll()) != null) {
+            segmentFor(entry.klassPointer).remove(entry);
+        }
+    }
+}
@@ -23,12 +23,12 @@
 package jdk.vm.ci.hotspot;
 
 import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Formatter;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * Support for translating exceptions between different runtime heaps.
@@ -111,39 +111,139 @@ final class TranslatedException extends Exception {
     }
 
     /**
-     * Encodes an exception message to distinguish a null message from an empty message.
-     *
-     * @return {@code value} with a space prepended iff {@code value != null}
+     * Growable buffer for the binary encoding of an exception. Strings are written via a string
+     * table built while encoding. A string is written as a {@linkplain #writeInt varint} id: 0
+     * denotes {@code null}, an id less than or equal to the number of strings written so far
+     * denotes the string with that id and the next id is followed by the length and UTF-8 bytes of
+     * a new string.
      */
-    private static String encodeMessage(String value) {
-        return value != null ? ' ' + value : value;
-    }
+    private static final class Encoder {
+        private byte[] buf = new byte[256];
+        private int pos;
+        private final HashMap<String, Integer> strings = new HashMap<>();
+
+        private void ensureCapacity(int n) {
+            if (pos + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+            }
+        }
+
+        /**
+         * Writes {@code value} as an unsigned LEB128 varint.
+         */
+        void writeInt(int value) {
+            ensureCapacity(5);
+            int v = value;
+            while ((v & ~0x7F) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        /**
+         * Writes {@code value} as a zig-zag encoded varint.
+         */
+        void writeSignedInt(int value) {
+            writeInt((value << 1) ^ (value >> 31));
+        }
+
+        void writeString(String s) {
+            if (s == null) {
+                writeInt(0);
+                return;
+            }
+            Integer id = strings.get(s);
+            if (id != null) {
+                writeInt(id);
+                return;
+            }
+            int newId = strings.size() + 1;
+            strings.put(s, newId);
+            writeInt(newId);
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
 
-    private static String decodeMessage(String value) {
-        if (value.length() == 0) {
-            return null;
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
         }
-        return value.substring(1);
     }
 
-    private static String encodedString(String value) {
-        return Objects.toString(value, "").replace('|', '_');
+    /**
+     * Decoder for the format written by {@link Encoder}.
+     */
+    private static final class Decoder {
+        private final byte[] buf;
+        private int pos;
+        private final ArrayList<String> strings = new ArrayList<>();
+
+        Decoder(byte[] buf) {
+            this.buf = buf;
+        }
+
+        boolean atEnd() {
+            return pos == buf.length;
+        }
+
+        int readInt() {
+            int value = 0;
+            for (int shift = 0;; shift += 7) {
+                byte b = buf[pos++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        int readSignedInt() {
+            int v = readInt();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        String readString() {
+            int id = readInt();
+            if (id == 0) {
+                return null;
+            }
+            if (id <= strings.size()) {
+                return strings.get(id - 1);
+            }
+            if (id != strings.size() + 1) {
+                throw new IllegalArgumentException("invalid string id " + id + " at " + pos);
+            }
+            int length = readInt();
+            String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            strings.add(s);
+            return s;
+        }
     }
 
+    private static final StackTraceElement[] NO_STACK_TRACE = {};
+
     /**
-     * Encodes {@code throwable} including its stack and causes as a string. The encoding format of
-     * a single exception is:
+     * Encodes {@code throwable} including its stack and causes. The encoding format of a single
+     * exception is:
      *
      * <pre>
-     * <exception class name> '|' <exception message> '|' <stack size> '|' [<class> '|' <method> '|' <file> '|' <line> '|' ]*
+     * <exception class name> <exception message> <stack size> [<class> <method> <file> <line>]*
      * </pre>
      *
-     * Each exception is encoded before the exception it causes.
+     * where the strings are encoded by {@link Encoder#writeString}, the stack size by
+     * {@link Encoder#writeInt} and the line numbers by {@link Encoder#writeSignedInt}. Each
+     * exception is encoded before the exception it causes.
+     *
+     * @param maxStackDepth the maximum number of frames encoded for each exception or a negative
+     *            value for no limit
      */
-    @VMEntryPoint
-    static String encodeThrowable(Throwable throwable) throws Throwable {
+    static byte[] encodeThrowable(Throwable throwable, int maxStackDepth) throws Throwable {
         try {
-            Formatter enc = new Formatter();
+            Encoder enc = new Encoder();
             List<Throwable> throwables = new ArrayList<>();
             for (Throwable current = throwable; current != null; current = current.getCause()) {
                 throwables.add(current);
@@ -153,36 +253,82 @@ final class TranslatedException extends Exception {
             Collections.reverse(throwables);
 
             for (Throwable current : throwables) {
-                enc.format("%s|%s|", current.getClass().getName(), encodedString(encodeMessage(current.getMessage())));
+                enc.writeString(current.getClass().getName());
+                enc.writeString(current.getMessage());
                 StackTraceElement[] stackTrace = current.getStackTrace();
                 if (stackTrace == null) {
-                    stackTrace = new StackTraceElement[0];
+                    stackTrace = NO_STACK_TRACE;
+                }
+                int depth = 0;
+                for (StackTraceElement frame : stackTrace) {
+                    if (frame != null) {
+                        depth++;
+                    }
                 }
-                enc.format("%d|", stackTrace.length);
-                for (int i = 0; i < stackTrace.length; i++) {
+                if (maxStackDepth >= 0 && depth > maxStackDepth) {
+                    depth = maxStackDepth;
+                }
+                enc.writeInt(depth);
+                for (int i = 0; depth != 0; i++) {
                     StackTraceElement frame = stackTrace[i];
                     if (frame != null) {
-                        enc.format("%s|%s|%s|%d|", frame.getClassName(), frame.getMethodName(),
-                                        encodedString(frame.getFileName()), frame.getLineNumber());
+                        enc.writeString(frame.getClassName());
+                        enc.writeString(frame.getMethodName());
+                        enc.writeString(frame.getFileName());
+                        enc.writeSignedInt(frame.getLineNumber());
+                        depth--;
                     }
                 }
             }
-            return enc.toString();
+            return enc.toByteArray();
         } catch (Throwable e) {
             assert printStackTrace(e);
             try {
-                return e.getClass().getName() + "|" + encodedString(e.getMessage()) + "|0|";
+                return encodeError(e.getClass().getName(), e.getMessage());
             } catch (Throwable e2) {
                 assert printStackTrace(e2);
-                return "java.lang.Throwable|too many errors during encoding|0|";
+                return encodeError("java.lang.Throwable", "too many errors during encoding");
             }
         }
     }
 
+    private static byte[] encodeError(String className, String message) {
+        Encoder enc = new Encoder();
+        enc.writeString(className);
+        enc.writeString(message);
+        enc.writeInt(0);
+        return enc.toByteArray();
+    }
+
+    /**
+     * Encodes {@code throwable} with the stack depth limited by
+     * {@link HotSpotJVMCIRuntime.Option#TranslatedExceptionStackDepth}.
+     */
+    @VMEntryPoint
+    static byte[] encodeThrowable(Throwable throwable) throws Throwable {
+        return encodeThrowable(throwable, getMaxStackDepth());
+    }
+
+    /**
+     * Gets the value of {@link HotSpotJVMCIRuntime.Option#TranslatedExceptionStackDepth}. Since
+     * this is called while translating an exception, an invalid value of the option is ignored
+     * instead of raising another exception.
+     *
+     * @return the value of the option or -1 if it is invalid
+     */
+    private static int getMaxStackDepth() {
+        try {
+            return HotSpotJVMCIRuntime.Option.TranslatedExceptionStackDepth.getInt();
+        } catch (Throwable e) {
+            assert printStackTrace(e);
+            return -1;
+        }
+    }
+
     /**
      * Gets the stack of the current thread without the frames between this call and the one just
      * below the frame of the first method in {@link CompilerToVM}. The chopped frames are specific
-     * to the implementation of {@link HotSpotJVMCIRuntime#decodeThrowable(String)}.
+     * to the implementation of {@link HotSpotJVMCIRuntime#decodeThrowable(byte[])}.
      */
     private static StackTraceElement[] getStackTraceSuffix() {
         StackTraceElement[] stack = new Exception().getStackTrace();
@@ -201,31 +347,30 @@ final class TranslatedException extends Exception {
      * Decodes {@code encodedThrowable} into a {@link TranslatedException}.
      *
      * @param encodedThrowable an encoded exception in the format specified by
-     *            {@link #encodeThrowable}
+     *            {@link #encodeThrowable(Throwable, int)}
      */
     @VMEntryPoint
-    static Throwable decodeThrowable(String encodedThrowable) {
+    static Throwable decodeThrowable(byte[] encodedThrowable) {
         try {
-            int i = 0;
-            String[] parts = encodedThrowable.split("\\|");
+            Decoder dec = new Decoder(encodedThrowable);
             Throwable cause = null;
             Throwable throwable = null;
-            while (i != parts.length) {
-                String exceptionClassName = parts[i++];
-                String exceptionMessage = decodeMessage(parts[i++]);
+            StackTraceElement[] suffix = null;
+            while (!dec.atEnd()) {
+                String exceptionClassName = dec.readString();
+                String exceptionMessage = dec.readString();
                 throwable = create(exceptionClassName, exceptionMessage, cause);
-                int stackTraceDepth = Integer.parseInt(parts[i++]);
+                int stackTraceDepth = dec.readInt();
 
-                StackTraceElement[] suffix = getStackTraceSuffix();
+                if (suffix == null) {
+                    suffix = getStackTraceSuffix();
+                }
                 StackTraceElement[] stackTrace = new StackTraceElement[stackTraceDepth + suffix.length];
                 for (int j = 0; j < stackTraceDepth; j++) {
-                    String className = parts[i++];
-                    String methodName = parts[i++];
-                    String fileName = parts[i++];
-                    int lineNumber = Integer.parseInt(parts[i++]);
-                    if (fileName.isEmpty()) {
-                        fileName = null;
-                    }
+                    String className = dec.readString();
+                    String methodName = dec.readString();
+                    String fileName = dec.readString();
+                    int lineNumber = dec.readSignedInt();
                     stackTrace[j] = new StackTraceElement(className, methodName, fileName, lineNumber);
                 }
                 System.arraycopy(suffix, 0, stackTrace, stackTraceDepth, suffix.length);
@@ -235,7 +380,7 @@ final class TranslatedException extends Exception {
             return throwable;
         } catch (Throwable translationFailure) {
             assert printStackTrace(translationFailure);
-            return new TranslatedException("Error decoding exception: " + encodedThrowable, translationFailure.getClass().getName());
+            return new TranslatedException("Error decoding exception of " + encodedThrowable.length + " bytes", translationFailure.getClass().getName());
         }
     }
 }
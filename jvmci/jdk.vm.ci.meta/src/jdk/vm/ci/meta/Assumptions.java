@@ -25,9 +25,8 @@
 package jdk.vm.ci.meta;
 
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Set;
+import java.util.NoSuchElementException;
 
 /**
  * Class for recording assumptions made during compilation.
@@ -306,7 +305,176 @@ public final class Assumptions implements Iterable<Assumptions.Assumption> {
         }
     }
 
-    private final Set<Assumption> assumptions = new HashSet<>();
+    /*
+     * The recorded assumptions are stored in insertion order as entries in a set of parallel
+     * arrays. An entry consists of a kind and up to 3 operands. The Assumption object for an entry
+     * is only allocated when it is needed so that recording a duplicate assumption does not
+     * allocate. The entries are indexed by an open addressing hash table.
+     */
+
+    private static final byte NO_FINALIZABLE_SUBCLASS = 1;
+    private static final byte CONCRETE_SUBTYPE = 2;
+    private static final byte LEAF_TYPE = 3;
+    private static final byte CONCRETE_METHOD = 4;
+
+    /**
+     * Kind of an entry whose single operand is an arbitrary {@link Assumption}.
+     */
+    private static final byte OTHER = 5;
+
+    private static final int OPERANDS_PER_ENTRY = 3;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private static final byte[] NO_KINDS = {};
+    private static final Object[] NO_OPERANDS = {};
+    private static final Assumption[] NO_ASSUMPTIONS = {};
+    private static final int[] NO_TABLE = {};
+
+    /**
+     * Number of recorded assumptions.
+     */
+    private int size;
+
+    private byte[] kinds = NO_KINDS;
+    private int[] hashes;
+    private Object[] operands = NO_OPERANDS;
+
+    /**
+     * The {@link Assumption} object for each entry or {@code null} if it has not yet been created.
+     */
+    private Assumption[] assumptions = NO_ASSUMPTIONS;
+
+    /**
+     * Hash table mapping to an entry index plus 1. A value of 0 denotes an empty slot. The length
+     * of the table is a power of 2 and at least twice the number of entries.
+     */
+    private int[] table = NO_TABLE;
+
+    private static int hash(byte kind, Object a, Object b, Object c) {
+        int h = kind;
+        h = h * 31 + a.hashCode();
+        if (b != null) {
+            h = h * 31 + b.hashCode();
+            if (c != null) {
+                h = h * 31 + c.hashCode();
+            }
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private boolean entryEquals(int index, byte kind, int h, Object a, Object b, Object c) {
+        if (kinds[index] != kind || hashes[index] != h) {
+            return false;
+        }
+        int base = index * OPERANDS_PER_ENTRY;
+        return operands[base].equals(a) && (b == null || operands[base + 1].equals(b)) && (c == null || operands[base + 2].equals(c));
+    }
+
+    /**
+     * Gets the index of the entry for an assumption or -1 if it has not been recorded.
+     */
+    private int find(byte kind, int h, Object a, Object b, Object c) {
+        if (size == 0) {
+            return -1;
+        }
+        int mask = table.length - 1;
+        for (int slot = h & mask;; slot = (slot + 1) & mask) {
+            int index = table[slot] - 1;
+            if (index < 0) {
+                return -1;
+            }
+            if (entryEquals(index, kind, h, a, b, c)) {
+                return index;
+            }
+        }
+    }
+
+    private void insert(int index) {
+        int mask = table.length - 1;
+        int slot = hashes[index] & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = index + 1;
+    }
+
+    private void grow() {
+        int capacity = Math.max(INITIAL_CAPACITY, kinds.length * 2);
+        kinds = Arrays.copyOf(kinds, capacity);
+        hashes = hashes == null ? new int[capacity] : Arrays.copyOf(hashes, capacity);
+        operands = Arrays.copyOf(operands, capacity * OPERANDS_PER_ENTRY);
+        assumptions = Arrays.copyOf(assumptions, capacity);
+        table = new int[capacity * 2];
+        for (int i = 0; i < size; i++) {
+            insert(i);
+        }
+    }
+
+    /**
+     * Records an assumption unless an equal assumption has already been recorded.
+     *
+     * @param assumption the {@link Assumption} object for the assumption or {@code null} if it has
+     *            not been created
+     */
+    private void add(byte kind, Object a, Object b, Object c, Assumption assumption) {
+        int h = hash(kind, a, b, c);
+        if (find(kind, h, a, b, c) >= 0) {
+            return;
+        }
+        if (size == kinds.length) {
+            grow();
+        }
+        int index = size++;
+        kinds[index] = kind;
+        hashes[index] = h;
+        int base = index * OPERANDS_PER_ENTRY;
+        operands[base] = a;
+        operands[base + 1] = b;
+        operands[base + 2] = c;
+        assumptions[index] = assumption;
+        insert(index);
+    }
+
+    private void add(Assumption assumption) {
+        if (assumption instanceof NoFinalizableSubclass) {
+            add(NO_FINALIZABLE_SUBCLASS, ((NoFinalizableSubclass) assumption).receiverType, null, null, assumption);
+        } else if (assumption instanceof ConcreteSubtype) {
+            ConcreteSubtype cs = (ConcreteSubtype) assumption;
+            add(CONCRETE_SUBTYPE, cs.context, cs.subtype, null, assumption);
+        } else if (assumption instanceof LeafType) {
+            add(LEAF_TYPE, ((LeafType) assumption).context, null, null, assumption);
+        } else if (assumption instanceof ConcreteMethod) {
+            ConcreteMethod cm = (ConcreteMethod) assumption;
+            add(CONCRETE_METHOD, cm.method, cm.context, cm.impl, assumption);
+        } else {
+            add(OTHER, assumption, null, null, assumption);
+        }
+    }
+
+    /**
+     * Gets the {@link Assumption} object for the entry at {@code index}, creating it if necessary.
+     */
+    private Assumption assumptionAt(int index) {
+        Assumption assumption = assumptions[index];
+        if (assumption == null) {
+            int base = index * OPERANDS_PER_ENTRY;
+            switch (kinds[index]) {
+                case NO_FINALIZABLE_SUBCLASS:
+                    assumption = new NoFinalizableSubclass((ResolvedJavaType) operands[base]);
+                    break;
+                case CONCRETE_SUBTYPE:
+                    assumption = new ConcreteSubtype((ResolvedJavaType) operands[base], (ResolvedJavaType) operands[base + 1]);
+                    break;
+                case CONCRETE_METHOD:
+                    assumption = new ConcreteMethod((ResolvedJavaMethod) operands[base], (ResolvedJavaType) operands[base + 1], (ResolvedJavaMethod) operands[base + 2]);
+                    break;
+                default:
+                    throw new InternalError("entry without assumption object: " + kinds[index]);
+            }
+            assumptions[index] = assumption;
+        }
+        return assumption;
+    }
 
     /**
      * Returns whether any assumptions have been registered.
@@ -314,7 +482,29 @@ public final class Assumptions implements Iterable<Assumptions.Assumption> {
      * @return {@code true} if at least one assumption has been registered, {@code false} otherwise.
      */
     public boolean isEmpty() {
-        return assumptions.isEmpty();
+        return size == 0;
+    }
+
+    /**
+     * Gets the number of recorded assumptions. Since assumptions are never removed, the
+     * assumptions recorded after a given point are those at the indexes from the size at that
+     * point onwards.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the assumption at position {@code index} in the order in which the assumptions were
+     * first recorded.
+     *
+     * @throws IndexOutOfBoundsException if {@code index < 0 || index >= size()}
+     */
+    public Assumption get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        return assumptionAt(index);
     }
 
     @Override
@@ -329,17 +519,42 @@ public final class Assumptions implements Iterable<Assumptions.Assumption> {
         }
         if (obj instanceof Assumptions) {
             Assumptions that = (Assumptions) obj;
-            if (!this.assumptions.equals(that.assumptions)) {
+            if (this.size != that.size) {
                 return false;
             }
+            for (int i = 0; i < size; i++) {
+                int base = i * OPERANDS_PER_ENTRY;
+                if (that.find(kinds[i], hashes[i], operands[base], operands[base + 1], operands[base + 2]) < 0) {
+                    return false;
+                }
+            }
             return true;
         }
         return false;
     }
 
+    /**
+     * Returns an iterator over the recorded assumptions in the order in which they were first
+     * recorded.
+     */
     @Override
     public Iterator<Assumption> iterator() {
-        return assumptions.iterator();
+        return new Iterator<Assumption>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Assumption next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                return assumptionAt(index++);
+            }
+        };
     }
 
     /**
@@ -348,7 +563,7 @@ public final class Assumptions implements Iterable<Assumptions.Assumption> {
      * @param receiverType the type that is assumed to have no finalizable subclasses
      */
     public void recordNoFinalizableSubclassAssumption(ResolvedJavaType receiverType) {
-        record(new NoFinalizableSubclass(receiverType));
+        add(NO_FINALIZABLE_SUBCLASS, receiverType, null, null, null);
     }
 
     /**
@@ -359,7 +574,10 @@ public final class Assumptions implements Iterable<Assumptions.Assumption> {
      * @param subtype the one concrete subtype
      */
     public void recordConcreteSubtype(ResolvedJavaType context, ResolvedJavaType subtype) {
-        record(new ConcreteSubtype(context, subtype));
+        assert context.isAbstract();
+        assert subtype.isConcrete() || context.isInterface() : subtype.toString() + " : " + context.toString();
+        assert !subtype.isArray() || subtype.getElementalType().isFinalFlagSet() : subtype.toString() + " : " + context.toString();
+        add(CONCRETE_SUBTYPE, context, subtype, null, null);
     }
 
     /**
@@ -371,18 +589,22 @@ public final class Assumptions implements Iterable<Assumptions.Assumption> {
      * @param impl the concrete method that is the only possible target for the virtual call
      */
     public void recordConcreteMethod(ResolvedJavaMethod method, ResolvedJavaType context, ResolvedJavaMethod impl) {
-        record(new ConcreteMethod(method, context, impl));
+        add(CONCRETE_METHOD, method, context, impl, null);
     }
 
     public void record(Assumption assumption) {
-        assumptions.add(assumption);
+        add(assumption);
     }
 
     /**
      * Gets a copy of the assumptions recorded in this object as an array.
      */
     public Assumption[] toArray() {
-        return assumptions.toArray(new Assumption[assumptions.size()]);
+        Assumption[] result = new Assumption[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = assumptionAt(i);
+        }
+        return result;
     }
 
     /**
@@ -390,11 +612,14 @@ public final class Assumptions implements Iterable<Assumptions.Assumption> {
      */
     public void record(Assumptions other) {
         assert other != this;
-        assumptions.addAll(other.assumptions);
+        for (int i = 0; i < other.size; i++) {
+            int base = i * OPERANDS_PER_ENTRY;
+            add(other.kinds[i], other.operands[base], other.operands[base + 1], other.operands[base + 2], other.assumptions[i]);
+        }
     }
 
     @Override
     public String toString() {
-        return "Assumptions[" + assumptions + "]";
+        return "Assumptions[" + Arrays.toString(toArray()) + "]";
     }
 }
@@ -68,6 +68,39 @@ public interface ProfilingInfo {
      */
     JavaMethodProfile getMethodProfile(int bci);
 
+    /**
+     * Returns the profiles of the types of the reference arguments passed by the invoke at the
+     * given BCI. The profile of an argument is at the index of the stack slot it occupies in the
+     * callee's frame, where the receiver (if any) is in slot 0 and {@code long} and {@code double}
+     * arguments take 2 slots. The element for a slot whose argument is not profiled is
+     * {@code null}.
+     *
+     * @return an array of profiles indexed by stack slot, or null if not available.
+     */
+    default JavaTypeProfile[] getArgumentTypeProfiles(int bci) {
+        return null;
+    }
+
+    /**
+     * Returns the profile of the types of the values returned by the invoke at the given BCI.
+     *
+     * @return Returns a JavaTypeProfile object, or null if not available.
+     */
+    default JavaTypeProfile getReturnTypeProfile(int bci) {
+        return null;
+    }
+
+    /**
+     * Returns the profiles of the types of the reference parameters this method was invoked with.
+     * The profile of a parameter is at the index of its local variable slot, where the receiver (if
+     * any) is in slot 0. The element for a slot whose parameter is not profiled is {@code null}.
+     *
+     * @return an array of profiles indexed by local variable slot, or null if not available.
+     */
+    default JavaTypeProfile[] getParameterTypeProfiles() {
+        return null;
+    }
+
     /**
      * Returns information if the given BCI did ever throw an exception.
      *
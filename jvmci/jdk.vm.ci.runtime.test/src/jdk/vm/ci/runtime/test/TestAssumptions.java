@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jdk.vm.ci.runtime.test;
+
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import jdk.vm.ci.meta.Assumptions;
+import jdk.vm.ci.meta.Assumptions.Assumption;
+import jdk.vm.ci.meta.Assumptions.CallSiteTargetValue;
+import jdk.vm.ci.meta.Assumptions.ConcreteMethod;
+import jdk.vm.ci.meta.Assumptions.ConcreteSubtype;
+import jdk.vm.ci.meta.Assumptions.LeafType;
+import jdk.vm.ci.meta.Assumptions.NoFinalizableSubclass;
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.ResolvedJavaType;
+
+/**
+ * Tests recording of assumptions in {@link Assumptions}.
+ */
+public class TestAssumptions extends TypeUniverse {
+
+    private static ResolvedJavaType type(Class<?> c) {
+        return metaAccess.lookupJavaType(c);
+    }
+
+    private static ResolvedJavaMethod toStringMethod(Class<?> c) throws NoSuchMethodException {
+        return metaAccess.lookupJavaMethod(c.getDeclaredMethod("toString"));
+    }
+
+    /**
+     * Gets a list of distinct assumptions, more than fit into the initial capacity of an
+     * {@link Assumptions} object.
+     */
+    private static List<Assumption> distinctAssumptions() throws NoSuchMethodException {
+        List<Assumption> result = new ArrayList<>();
+        result.add(new ConcreteSubtype(type(AbstractList.class), type(ArrayList.class)));
+        result.add(new ConcreteSubtype(type(List.class), type(AbstractList.class)));
+        result.add(new ConcreteMethod(toStringMethod(Object.class), type(AbstractList.class), toStringMethod(AbstractCollection.class)));
+        result.add(new LeafType(type(AbstractList.class)));
+        result.add(new CallSiteTargetValue(JavaConstant.forInt(1), JavaConstant.forInt(2)));
+        for (ResolvedJavaType type : javaTypes) {
+            if (result.size() == 40) {
+                break;
+            }
+            result.add(new NoFinalizableSubclass(type));
+        }
+        return result;
+    }
+
+    private static Assumptions record(List<Assumption> list) {
+        Assumptions assumptions = new Assumptions();
+        for (Assumption assumption : list) {
+            assumptions.record(assumption);
+        }
+        return assumptions;
+    }
+
+    @Test
+    public void deduplicateTest() throws NoSuchMethodException {
+        ResolvedJavaType abstractList = type(AbstractList.class);
+        ResolvedJavaType arrayList = type(ArrayList.class);
+        ResolvedJavaMethod method = toStringMethod(Object.class);
+        ResolvedJavaMethod impl = toStringMethod(AbstractCollection.class);
+
+        Assumptions assumptions = new Assumptions();
+        Assert.assertTrue(assumptions.isEmpty());
+        for (int i = 0; i < 3; i++) {
+            assumptions.recordNoFinalizableSubclassAssumption(arrayList);
+            assumptions.recordConcreteSubtype(abstractList, arrayList);
+            assumptions.recordConcreteMethod(method, abstractList, impl);
+            assumptions.record(new NoFinalizableSubclass(arrayList));
+            assumptions.record(new ConcreteSubtype(abstractList, arrayList));
+            assumptions.record(new ConcreteMethod(method, abstractList, impl));
+            assumptions.record(new CallSiteTargetValue(JavaConstant.forInt(1), JavaConstant.forInt(2)));
+        }
+        Assert.assertFalse(assumptions.isEmpty());
+        Assumption[] expected = {
+                        new NoFinalizableSubclass(arrayList),
+                        new ConcreteSubtype(abstractList, arrayList),
+                        new ConcreteMethod(method, abstractList, impl),
+                        new CallSiteTargetValue(JavaConstant.forInt(1), JavaConstant.forInt(2))};
+        Assert.assertArrayEquals(expected, assumptions.toArray());
+
+        // Merging does not add duplicates either
+        Assumptions other = new Assumptions();
+        other.recordConcreteSubtype(abstractList, arrayList);
+        other.recordNoFinalizableSubclassAssumption(abstractList);
+        assumptions.record(other);
+        Assert.assertEquals(expected.length + 1, assumptions.toArray().length);
+    }
+
+    @Test
+    public void orderTest() throws NoSuchMethodException {
+        List<Assumption> list = distinctAssumptions();
+        Assumptions assumptions = record(list);
+        Assert.assertArrayEquals(list.toArray(), assumptions.toArray());
+        Assert.assertEquals(list.size(), assumptions.size());
+        Iterator<Assumption> iterator = assumptions.iterator();
+        for (int i = 0; i < list.size(); i++) {
+            Assert.assertTrue(iterator.hasNext());
+            Assert.assertEquals(list.get(i), iterator.next());
+            Assert.assertEquals(list.get(i), assumptions.get(i));
+        }
+        Assert.assertFalse(iterator.hasNext());
+
+        Assumptions merged = new Assumptions();
+        merged.record(assumptions);
+        Assert.assertArrayEquals(list.toArray(), merged.toArray());
+    }
+
+    @Test
+    public void equalsAndHashCodeTest() throws NoSuchMethodException {
+        List<Assumption> list = distinctAssumptions();
+        Assumptions assumptions = record(list);
+
+        List<Assumption> reversed = new ArrayList<>(list);
+        Collections.reverse(reversed);
+        Assert.assertEquals(assumptions, record(reversed));
+        Assert.assertNotEquals(assumptions, record(list.subList(1, list.size())));
+        Assert.assertNotEquals(record(list.subList(1, list.size())), assumptions);
+
+        // Assumption objects created lazily by toArray are equal to the recorded ones
+        Assumptions lazy = new Assumptions();
+        ResolvedJavaType abstractList = type(AbstractList.class);
+        ResolvedJavaType arrayList = type(ArrayList.class);
+        ResolvedJavaMethod method = toStringMethod(Object.class);
+        ResolvedJavaMethod impl = toStringMethod(AbstractCollection.class);
+        lazy.recordNoFinalizableSubclassAssumption(arrayList);
+        lazy.recordConcreteSubtype(abstractList, arrayList);
+        lazy.recordConcreteMethod(method, abstractList, impl);
+        Assumption[] expected = {
+                        new NoFinalizableSubclass(arrayList),
+                        new ConcreteSubtype(abstractList, arrayList),
+                        new ConcreteMethod(method, abstractList, impl)};
+        Assumption[] actual = lazy.toArray();
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(expected[i], actual[i]);
+            Assert.assertEquals(expected[i].hashCode(), actual[i].hashCode());
+        }
+        Assert.assertEquals(lazy, record(Arrays.asList(expected)));
+    }
+}
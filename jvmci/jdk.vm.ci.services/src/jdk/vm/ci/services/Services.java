@@ -24,19 +24,30 @@
  */
 package jdk.vm.ci.services;
 
+import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.reflect.Field;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Enumeration;
 import java.util.Formatter;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Properties;
+import java.util.ServiceConfigurationError;
 import java.util.ServiceLoader;
 
 import sun.misc.VM;
@@ -166,6 +177,160 @@ public final class Services {
 
     private static final Map<Class<?>, List<?>> servicesCache = IS_BUILDING_NATIVE_IMAGE ? new HashMap<>() : null;
 
+    /**
+     * The names of the providers found for each service. Providers are only instantiated when the
+     * {@link Iterable} returned by {@link #load0} is iterated.
+     */
+    private static final Map<Class<?>, List<String>> providerNamesCache = new HashMap<>();
+
+    /**
+     * Path relative to {@code java.home} of the default location of an optional index of the JVMCI
+     * service providers. The {@code "jvmci.ServiceProviderIndex"} system property can be used to
+     * specify another location. The index is in {@link Properties} format, mapping the name of a
+     * service to a comma separated list of the names of its providers. The providers of a service
+     * listed in the index are found without scanning {@code META-INF/services} in the JVMCI class
+     * path. The providers of other services are found by scanning.
+     */
+    private static final String PROVIDER_INDEX = "lib" + File.separator + "jvmci" + File.separator + "service-providers";
+
+    /**
+     * The provider index read by {@link #getProviderIndex()}.
+     */
+    private static Map<String, List<String>> providerIndex;
+
+    /**
+     * Gets the provider index, reading it if this is the first successful call.
+     *
+     * @throws ServiceConfigurationError if the index exists but cannot be read
+     */
+    private static Map<String, List<String>> getProviderIndex() {
+        assert Thread.holdsLock(providerNamesCache);
+        if (providerIndex == null) {
+            String path = getSavedProperty("jvmci.ServiceProviderIndex");
+            File file = null;
+            if (path != null) {
+                file = new File(path);
+            } else {
+                String javaHome = getSavedProperty("java.home");
+                if (javaHome != null) {
+                    file = new File(javaHome, PROVIDER_INDEX);
+                }
+            }
+            if (file != null && file.isFile()) {
+                try (InputStream in = new FileInputStream(file)) {
+                    providerIndex = parseProviderIndex(in);
+                } catch (IOException e) {
+                    throw new ServiceConfigurationError("Error reading JVMCI service provider index " + file, e);
+                }
+            } else {
+                providerIndex = Collections.emptyMap();
+            }
+        }
+        return providerIndex;
+    }
+
+    private static Map<String, List<String>> parseProviderIndex(InputStream in) throws IOException {
+        Properties props = new Properties();
+        props.load(in);
+        Map<String, List<String>> index = new HashMap<>(props.size());
+        for (String service : props.stringPropertyNames()) {
+            List<String> providers = new ArrayList<>();
+            for (String provider : props.getProperty(service).split(",")) {
+                provider = provider.trim();
+                if (!provider.isEmpty()) {
+                    providers.add(provider);
+                }
+            }
+            index.put(service, providers);
+        }
+        return index;
+    }
+
+    /**
+     * Scans the {@code META-INF/services} resources visible to {@code cl} for the names of the
+     * providers of {@code service}, in the same way as {@link ServiceLoader}.
+     */
+    private static List<String> scanProviderNames(Class<?> service, ClassLoader cl) {
+        List<String> names = new ArrayList<>();
+        try {
+            Enumeration<URL> configs = cl.getResources("META-INF/services/" + service.getName());
+            while (configs.hasMoreElements()) {
+                URL config = configs.nextElement();
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(config.openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        int comment = line.indexOf('#');
+                        if (comment >= 0) {
+                            line = line.substring(0, comment);
+                        }
+                        line = line.trim();
+                        if (!line.isEmpty() && !names.contains(line)) {
+                            names.add(line);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new ServiceConfigurationError(service.getName() + ": Error reading configuration file", e);
+        }
+        return names;
+    }
+
+    private static List<String> getProviderNames(Class<?> service, ClassLoader cl) {
+        synchronized (providerNamesCache) {
+            List<String> names = providerNamesCache.get(service);
+            if (names == null) {
+                names = getProviderIndex().get(service.getName());
+                if (names == null) {
+                    names = scanProviderNames(service, cl);
+                }
+                names = Collections.unmodifiableList(names);
+                providerNamesCache.put(service, names);
+            }
+            return names;
+        }
+    }
+
+    private static <S> S instantiate(Class<S> service, ClassLoader cl, String name) {
+        Class<?> c;
+        try {
+            c = Class.forName(name, false, cl);
+        } catch (ClassNotFoundException e) {
+            throw new ServiceConfigurationError(service.getName() + ": Provider " + name + " not found", e);
+        }
+        if (!service.isAssignableFrom(c)) {
+            throw new ServiceConfigurationError(service.getName() + ": Provider " + name + " not a subtype");
+        }
+        try {
+            return service.cast(c.newInstance());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new ServiceConfigurationError(service.getName() + ": Provider " + name + " could not be instantiated", e);
+        }
+    }
+
+    /**
+     * Creates an {@link Iterable} whose iterators instantiate the providers named by
+     * {@code names} as they are iterated over, like the iterators of a {@link ServiceLoader}.
+     */
+    private static <S> Iterable<S> providers(Class<S> service, ClassLoader cl, List<String> names) {
+        return () -> new Iterator<S>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < names.size();
+            }
+
+            @Override
+            public S next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return instantiate(service, cl, names.get(index++));
+            }
+        };
+    }
+
     @SuppressWarnings("unchecked")
     private static <S> Iterable<S> load0(Class<S> service) {
         if (IS_IN_NATIVE_IMAGE || IS_BUILDING_NATIVE_IMAGE) {
@@ -194,7 +359,7 @@ public final class Services {
                     // to force service loading to use only the boot class loader).
                     cl = findBootClassLoaderChild(ClassLoader.getSystemClassLoader());
                 }
-                providers = ServiceLoader.load(service, cl);
+                providers = providers(service, cl, getProviderNames(service, cl));
             } catch (UnsatisfiedLinkError e) {
                 jvmciEnabled = false;
             } catch (InternalError e) {
@@ -199,7 +199,9 @@ suite = {
         "jdk.vm.ci.common",
         "jdk.vm.ci.runtime",
         "jdk.vm.ci.code.test",
+        "mx:JMH_1_21",
       ],
+      "annotationProcessors" : ["mx:JMH_1_21"],
       "checkstyle" : "jdk.vm.ci.hotspot",
       "javaCompliance" : "1.8",
       "workingSets" : "JVMCI",
@@ -372,7 +374,7 @@ suite = {
         "JVMCI_API",
         "JVMCI_HOTSPOT",
       ],
-      "exclude" : ["mx:JUNIT"],
+      "exclude" : ["mx:JUNIT", "mx:JMH_1_21"],
     },
   },
 }
@@ -370,6 +370,12 @@ void CompileTask::initialize(int compile_id,
   _failure_reason = NULL;
   _failure_reason_on_C_heap = false;
 
+#if INCLUDE_JVMCI
+  if (_has_waiter) {
+    // JVMCI compilations report the time they spent in the queue
+    _time_queued = os::elapsed_counter();
+  }
+#endif
   if (LogCompilation) {
     _time_queued = os::elapsed_counter();
     if (hot_method.not_null()) {
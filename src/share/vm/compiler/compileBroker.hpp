@@ -105,6 +105,7 @@ class CompileTask : public CHeapObj<mtCompiler> {
     assert((t == NULL) != (_jvmci_compiler_thread == NULL), "must be");
     _jvmci_compiler_thread = t;
   }
+  jlong        time_queued() const               { return _time_queued; }
 #endif
 
   nmethodLocker* code_handle() const             { return _code_handle; }
@@ -88,6 +88,13 @@ void JVMCI::release_handle(jmetadata handle) {
   _metadata_handles->chain_free_list(handle);
 }
 
+void JVMCI::release_handles(jmetadata* handles, int length) {
+  MutexLocker ml(JVMCI_lock);
+  for (int i = 0; i < length; i++) {
+    _metadata_handles->chain_free_list(handles[i]);
+  }
+}
+
 #ifdef INCLUDE_ALL_GCS
 oop JVMCI::ensure_oop_alive(oop obj) {
     if (UseG1GC && obj != NULL) {
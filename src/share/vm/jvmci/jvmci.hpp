@@ -91,6 +91,7 @@ class JVMCI : public AllStatic {
   static jmetadata allocate_handle(const constantPoolHandle& handle);
 
   static void release_handle(jmetadata handle);
+  static void release_handles(jmetadata* handles, int length);
 
   static JVMCIRuntime* compiler_runtime() { return _compiler_runtime; }
   static JVMCIRuntime* java_runtime()     { return _java_runtime; }
@@ -488,6 +488,39 @@ MonitorValue* CodeInstaller::get_monitor_value(JVMCIObject value, GrowableArray<
   return new MonitorValue(owner_value, lock_data_loc, eliminated);
 }
 
+void CodeInstaller::record_assumptions(JVMCIObjectArray assumptions, int length, JVMCI_TRAPS) {
+  for (int i = 0; i < length; ++i) {
+    JVMCIObject assumption = JVMCIENV->get_object_at(assumptions, i);
+    if (assumption.is_non_null()) {
+      if (jvmci_env()->isa_Assumptions_NoFinalizableSubclass(assumption)) {
+        assumption_NoFinalizableSubclass(assumption);
+      } else if (jvmci_env()->isa_Assumptions_ConcreteSubtype(assumption)) {
+        assumption_ConcreteSubtype(assumption);
+      } else if (jvmci_env()->isa_Assumptions_LeafType(assumption)) {
+        assumption_LeafType(assumption);
+      } else if (jvmci_env()->isa_Assumptions_ConcreteMethod(assumption)) {
+        assumption_ConcreteMethod(assumption);
+      } else if (jvmci_env()->isa_Assumptions_CallSiteTargetValue(assumption)) {
+        assumption_CallSiteTargetValue(assumption, JVMCI_CHECK);
+      } else {
+        JVMCI_ERROR("unexpected Assumption subclass %s", jvmci_env()->klass_name(assumption));
+      }
+    }
+  }
+}
+
+bool CodeInstaller::check_assumptions(JVMCIObjectArray assumptions, int length, JVMCI_TRAPS) {
+  _oop_recorder = new OopRecorder(&_arena, true);
+  _dependencies = new Dependencies(&_arena, _oop_recorder, NULL);
+  record_assumptions(assumptions, length, JVMCI_CHECK_false);
+  _dependencies->encode_content_bytes();
+
+  // Prevent SystemDictionary::add_to_hierarchy from running while
+  // the dependencies are checked
+  MutexLocker ml(Compile_lock);
+  return _dependencies->validate_dependencies(NULL, true, NULL) == Dependencies::end_marker;
+}
+
 void CodeInstaller::initialize_dependencies(JVMCIObject compiled_code, OopRecorder* oop_recorder, JVMCI_TRAPS) {
   JavaThread* thread = JavaThread::current();
   CompilerThread* compilerThread = thread->is_Compiler_thread() ? thread->as_CompilerThread() : NULL;
@@ -495,25 +528,7 @@ void CodeInstaller::initialize_dependencies(JVMCIObject compiled_code, OopRecord
   _dependencies = new Dependencies(&_arena, _oop_recorder, compilerThread != NULL ? compilerThread->log() : NULL);
   JVMCIObjectArray assumptions = jvmci_env()->get_HotSpotCompiledCode_assumptions(compiled_code);
   if (assumptions.is_non_null()) {
-    int length = JVMCIENV->get_length(assumptions);
-    for (int i = 0; i < length; ++i) {
-      JVMCIObject assumption = JVMCIENV->get_object_at(assumptions, i);
-      if (assumption.is_non_null()) {
-        if (jvmci_env()->isa_Assumptions_NoFinalizableSubclass(assumption)) {
-          assumption_NoFinalizableSubclass(assumption);
-        } else if (jvmci_env()->isa_Assumptions_ConcreteSubtype(assumption)) {
-          assumption_ConcreteSubtype(assumption);
-        } else if (jvmci_env()->isa_Assumptions_LeafType(assumption)) {
-          assumption_LeafType(assumption);
-        } else if (jvmci_env()->isa_Assumptions_ConcreteMethod(assumption)) {
-          assumption_ConcreteMethod(assumption);
-        } else if (jvmci_env()->isa_Assumptions_CallSiteTargetValue(assumption)) {
-          assumption_CallSiteTargetValue(assumption, JVMCI_CHECK);
-        } else {
-          JVMCI_ERROR("unexpected Assumption subclass %s", jvmci_env()->klass_name(assumption));
-        }
-      }
-    }
+    record_assumptions(assumptions, JVMCIENV->get_length(assumptions), JVMCI_CHECK);
   }
   if (JvmtiExport::can_hotswap_or_post_breakpoint()) {
     JVMCIObjectArray methods = jvmci_env()->get_HotSpotCompiledCode_methods(compiled_code);
@@ -234,6 +234,10 @@ public:
   JVMCIEnv* jvmci_env() { return _jvmci_env; }
   JVMCIRuntime* runtime() { return _jvmci_env->runtime(); }
 
+  // Determines if the first length assumptions in assumptions still hold
+  // without installing any code.
+  bool check_assumptions(JVMCIObjectArray assumptions, int length, JVMCI_TRAPS);
+
   static address runtime_call_target_address(oop runtime_call);
   static VMReg get_hotspot_reg(jint jvmciRegisterNumber, JVMCI_TRAPS);
   static bool is_general_purpose_reg(VMReg hotspotRegister);
@@ -253,6 +257,7 @@ protected:
   // extract the fields of the HotSpotCompiledCode
   void initialize_fields(JVMCIObject target, JVMCIObject compiled_code, JVMCI_TRAPS);
   void initialize_dependencies(JVMCIObject compiled_code, OopRecorder* oop_recorder, JVMCI_TRAPS);
+  void record_assumptions(JVMCIObjectArray assumptions, int length, JVMCI_TRAPS);
 
   int estimate_stubs_size(JVMCI_TRAPS);
 
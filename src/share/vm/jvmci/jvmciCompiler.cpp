@@ -31,6 +31,7 @@
 
 JVMCICompiler* JVMCICompiler::_instance = NULL;
 elapsedTimer JVMCICompiler::_codeInstallTimer;
+elapsedTimer JVMCICompiler::_codeInstallLockTimer;
 
 JVMCICompiler::JVMCICompiler() : AbstractCompiler(jvmci) {
   _bootstrapping = false;
@@ -155,4 +156,5 @@ void JVMCICompiler::print_timers() {
 void JVMCICompiler::print_compilation_timers() {
   TRACE_jvmci_1("JVMCICompiler::print_timers");
   tty->print_cr("       JVMCI code install time:        %6.3f s",    _codeInstallTimer.seconds());
+  tty->print_cr("       JVMCI code install lock time:   %6.3f s",    _codeInstallLockTimer.seconds());
 }
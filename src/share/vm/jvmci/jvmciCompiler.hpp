@@ -45,6 +45,9 @@ private:
 
   static elapsedTimer _codeInstallTimer;
 
+  // Accumulated time Compile_lock is held while registering an nmethod
+  static elapsedTimer _codeInstallLockTimer;
+
 public:
   /**
    * Exits the VM due to an unexpected exception.
@@ -111,6 +114,7 @@ public:
   static void print_compilation_timers();
 
   static elapsedTimer* codeInstallTimer() { return &_codeInstallTimer; }
+  static elapsedTimer* codeInstallLockTimer() { return &_codeInstallLockTimer; }
 };
 
 #endif // SHARE_VM_JVMCI_JVMCI_COMPILER_HPP
@@ -200,6 +200,13 @@ C2V_VMENTRY_NULL(jobjectArray, readConfiguration, (JNIEnv* env))
   return config;
 }
 
+jbyteArray readConfigurationBlob0(JNIEnv *env, JVMCI_TRAPS);
+
+C2V_VMENTRY_NULL(jbyteArray, readConfigurationBlob, (JNIEnv* env))
+  jbyteArray config = readConfigurationBlob0(env, JVMCI_CHECK_NULL);
+  return config;
+}
+
 C2V_VMENTRY_NULL(jobject, getFlagValue, (JNIEnv* env, jobject c2vm, jobject name_handle))
 #define RETURN_BOXED_LONG(value) jvalue p; p.j = (jlong) (value); JVMCIObject box = JVMCIENV->create_box(T_LONG, &p, JVMCI_CHECK_NULL); return box.as_jobject();
 #define RETURN_BOXED_DOUBLE(value) jvalue p; p.d = (jdouble) (value); JVMCIObject box = JVMCIENV->create_box(T_DOUBLE, &p, JVMCI_CHECK_NULL); return box.as_jobject();
@@ -826,7 +833,7 @@ C2V_VMENTRY(void, setNotInlinableOrCompilable,(JNIEnv* env, jobject,  jobject jv
 C2V_END
 
 C2V_VMENTRY_0(jint, installCode, (JNIEnv *env, jobject, jobject target, jobject compiled_code,
-            jobject installed_code, jlong failed_speculations_address, jbyteArray speculations_obj))
+            jobject installed_code, jlong failed_speculations_address, jbyteArray speculations_obj, jint speculations_len))
   HandleMark hm;
   JNIHandleMark jni_hm(thread);
 
@@ -836,9 +843,16 @@ C2V_VMENTRY_0(jint, installCode, (JNIEnv *env, jobject, jobject target, jobject
   JVMCIObject installed_code_handle = JVMCIENV->wrap(installed_code);
   JVMCIPrimitiveArray speculations_handle = JVMCIENV->wrap(speculations_obj);
 
-  int speculations_len = JVMCIENV->get_length(speculations_handle);
-  char* speculations = NEW_RESOURCE_ARRAY(char, speculations_len);
-  JVMCIENV->copy_bytes_to(speculations_handle, (jbyte*) speculations, 0, speculations_len);
+  // Only the first speculations_len bytes of the array are used. This allows
+  // the speculation log to pass its growable buffer without trimming it first.
+  if (speculations_len < 0 || speculations_len > JVMCIENV->get_length(speculations_handle)) {
+    JVMCI_THROW_MSG_0(ArrayIndexOutOfBoundsException, err_msg("invalid speculations length: %d", speculations_len));
+  }
+  char* speculations = NULL;
+  if (speculations_len != 0) {
+    speculations = NEW_RESOURCE_ARRAY(char, speculations_len);
+    JVMCIENV->copy_bytes_to(speculations_handle, (jbyte*) speculations, 0, speculations_len);
+  }
 
   JVMCICompiler* compiler = JVMCICompiler::instance(true, CHECK_JNI_ERR);
 
@@ -886,6 +900,19 @@ C2V_VMENTRY_0(jint, installCode, (JNIEnv *env, jobject, jobject target, jobject
   return result;
 C2V_END
 
+C2V_VMENTRY_0(jboolean, validateAssumptions, (JNIEnv* env, jobject, jobjectArray assumptions, jint length))
+  ResourceMark rm;
+  HandleMark hm;
+  JNIHandleMark jni_hm(thread);
+
+  JVMCIObjectArray assumptions_handle = JVMCIENV->wrap(assumptions);
+  if (length < 0 || length > JVMCIENV->get_length(assumptions_handle)) {
+    JVMCI_THROW_MSG_0(ArrayIndexOutOfBoundsException, err_msg("invalid assumptions length: %d", length));
+  }
+  CodeInstaller installer(JVMCIENV, false);
+  return installer.check_assumptions(assumptions_handle, length, JVMCI_CHECK_0);
+C2V_END
+
 C2V_VMENTRY_0(jint, getMetadata, (JNIEnv *env, jobject, jobject target, jobject compiled_code, jobject metadata))
 #if INCLUDE_AOT
   ResourceMark rm;
@@ -1065,6 +1092,132 @@ C2V_VMENTRY_NULL(jobject, executeHotSpotNmethod, (JNIEnv* env, jobject, jobject
   }
 C2V_END
 
+static bool is_integral_type(BasicType t) {
+  return is_subword_type(t) || t == T_INT || t == T_LONG;
+}
+
+static bool is_reference_type(BasicType t) {
+  return t == T_OBJECT || t == T_ARRAY;
+}
+
+// Checks that the parameters of the method of an nmethod executed with an arity
+// specialized execute call match the number and kind of the arguments.
+static bool check_execute_signature(const methodHandle& mh, int argc, bool reference_args) {
+  int count = mh->is_static() ? 0 : 1;
+  if (!mh->is_static() && !reference_args) {
+    return false;
+  }
+  for (SignatureStream ss(mh->signature()); !ss.at_return_type(); ss.next()) {
+    if (reference_args ? !is_reference_type(ss.type()) : !is_integral_type(ss.type())) {
+      return false;
+    }
+    count++;
+  }
+  BasicType rt = mh->result_type();
+  return count == argc && (rt == T_VOID || (reference_args ? is_reference_type(rt) : is_integral_type(rt)));
+}
+
+// Non-boxing variant of executeHotSpotNmethod for a static method whose parameter
+// and return types are all integral. Only the first argc arguments are used.
+C2V_VMENTRY_0(jlong, executeHotSpotNmethodLong, (JNIEnv* env, jobject, jobject hs_nmethod, jint argc, jlong arg0, jlong arg1, jlong arg2))
+  requireInHotSpot("executeHotSpotNmethodLong", JVMCI_CHECK_0);
+
+  HandleMark hm;
+
+  JVMCIObject nmethod_mirror = JVMCIENV->wrap(hs_nmethod);
+  nmethodLocker locker;
+  nmethod* nm = JVMCIENV->get_nmethod(nmethod_mirror, locker);
+  if (nm == NULL) {
+    JVMCI_THROW_0(InvalidInstalledCodeException);
+  }
+  methodHandle mh = nm->method();
+  if (!check_execute_signature(mh, argc, false)) {
+    JVMCI_THROW_MSG_0(IllegalArgumentException, err_msg("Cannot execute %s with %d integral arguments", mh->name_and_sig_as_C_string(), argc));
+  }
+  jlong args[] = { arg0, arg1, arg2 };
+  JavaCallArguments jca(mh->size_of_parameters());
+  int i = 0;
+  for (SignatureStream ss(mh->signature()); !ss.at_return_type(); ss.next()) {
+    jlong arg = args[i++];
+    switch (ss.type()) {
+      case T_LONG:    jca.push_long(arg); break;
+      case T_BOOLEAN: jca.push_int(arg != 0 ? 1 : 0); break;
+      case T_BYTE:    jca.push_int((jbyte) arg); break;
+      case T_CHAR:    jca.push_int((jchar) arg); break;
+      case T_SHORT:   jca.push_int((jshort) arg); break;
+      default:        jca.push_int((jint) arg); break;
+    }
+  }
+  BasicType rt = mh->result_type();
+  JavaValue result(rt);
+  jca.set_alternative_target(nm);
+  JavaCalls::call(&result, mh, &jca, CHECK_0);
+
+  switch (rt) {
+    case T_VOID:    return 0;
+    case T_LONG:    return result.get_jlong();
+    case T_BOOLEAN: return (jboolean) result.get_jint();
+    case T_BYTE:    return (jbyte) result.get_jint();
+    case T_CHAR:    return (jchar) result.get_jint();
+    case T_SHORT:   return (jshort) result.get_jint();
+    default:        return result.get_jint();
+  }
+C2V_END
+
+// Variant of executeHotSpotNmethod for a method whose receiver, parameter and
+// return types are all reference types. Only the first argc arguments are used.
+C2V_VMENTRY_NULL(jobject, executeHotSpotNmethodObject, (JNIEnv* env, jobject, jobject hs_nmethod, jint argc, jobject arg0, jobject arg1, jobject arg2))
+  requireInHotSpot("executeHotSpotNmethodObject", JVMCI_CHECK_NULL);
+
+  HandleMark hm;
+
+  JVMCIObject nmethod_mirror = JVMCIENV->wrap(hs_nmethod);
+  nmethodLocker locker;
+  nmethod* nm = JVMCIENV->get_nmethod(nmethod_mirror, locker);
+  if (nm == NULL) {
+    JVMCI_THROW_NULL(InvalidInstalledCodeException);
+  }
+  methodHandle mh = nm->method();
+  if (!check_execute_signature(mh, argc, true)) {
+    JVMCI_THROW_MSG_NULL(IllegalArgumentException, err_msg("Cannot execute %s with %d reference arguments", mh->name_and_sig_as_C_string(), argc));
+  }
+  jobject args[] = { arg0, arg1, arg2 };
+  InstanceKlass* holder = mh->method_holder();
+  JavaCallArguments jca(mh->size_of_parameters());
+  int i = 0;
+  if (!mh->is_static()) {
+    Handle receiver(THREAD, JNIHandles::resolve(args[i++]));
+    if (receiver.is_null()) {
+      JVMCI_THROW_NULL(NullPointerException);
+    }
+    if (!receiver->is_a(holder)) {
+      JVMCI_THROW_MSG_NULL(IllegalArgumentException, err_msg("Receiver of %s is a %s", mh->name_and_sig_as_C_string(), receiver->klass()->external_name()));
+    }
+    jca.push_oop(receiver);
+  }
+  Handle loader(THREAD, holder->class_loader());
+  Handle protection_domain(THREAD, holder->protection_domain());
+  for (SignatureStream ss(mh->signature()); !ss.at_return_type(); ss.next()) {
+    Handle arg(THREAD, JNIHandles::resolve(args[i]));
+    if (arg.not_null()) {
+      Klass* type = ss.as_klass(loader, protection_domain, SignatureStream::NCDFError, CHECK_NULL);
+      if (!arg->is_a(type)) {
+        JVMCI_THROW_MSG_NULL(IllegalArgumentException, err_msg("Argument %d of %s is a %s", i, mh->name_and_sig_as_C_string(), arg->klass()->external_name()));
+      }
+    }
+    jca.push_oop(arg);
+    i++;
+  }
+  JavaValue result(mh->result_type() == T_VOID ? T_VOID : T_OBJECT);
+  jca.set_alternative_target(nm);
+  JavaCalls::call(&result, mh, &jca, CHECK_NULL);
+
+  if (result.get_type() == T_VOID) {
+    return NULL;
+  }
+  return JNIHandles::make_local((oop) result.get_jobject());
+C2V_END
+
 C2V_VMENTRY_NULL(jlongArray, getLineNumberTable, (JNIEnv* env, jobject, jobject jvmci_method))
   Method* method = JVMCIENV->asMethod(jvmci_method);
   if (!method->has_linenumber_table()) {
@@ -1150,6 +1303,21 @@ C2V_VMENTRY_NULL(jlongArray, collectCounters, (JNIEnv* env, jobject))
   return (jlongArray) JVMCIENV->get_jobject(array);
 C2V_END
 
+C2V_VMENTRY_0(jint, collectCountersInto, (JNIEnv* env, jobject, jlongArray values_obj))
+  if (values_obj == NULL) {
+    JVMCI_THROW_0(NullPointerException);
+  }
+  JVMCIPrimitiveArray values = JVMCIENV->wrap(values_obj);
+  int length = JVMCIENV->get_length(values);
+  jlong* temp_array = NEW_RESOURCE_ARRAY(jlong, MAX2(length, 1));
+  int size = JavaThread::collect_counters(temp_array, length);
+  int count = MIN2(length, size);
+  if (count > 0) {
+    JVMCIENV->copy_longs_from(temp_array, values, 0, count);
+  }
+  return size;
+C2V_END
+
 C2V_VMENTRY_0(int, getCountersSize, (JNIEnv* env, jobject))
   return JVMCICounterSize;
 C2V_END
@@ -1158,6 +1326,10 @@ C2V_VMENTRY_0(jboolean, setCountersSize, (JNIEnv* env, jobject, jint new_size))
   return JavaThread::resize_all_jvmci_counters(new_size);
 C2V_END
 
+C2V_VMENTRY_0(jlong, getThreadAllocatedBytes, (JNIEnv* env, jobject))
+  return thread->cooked_allocated_bytes();
+C2V_END
+
 C2V_VMENTRY_0(jint, allocateCompileId, (JNIEnv* env, jobject, jobject jvmci_method, int entry_bci))
   HandleMark hm;
   if (jvmci_method == NULL) {
@@ -1212,6 +1384,83 @@ bool matches(jobjectArray methods, Method* method, GrowableArray<Method*>** reso
   return false;
 }
 
+// Creates a HotSpotStackFrameReference for vf, a compiled or interpreted frame that is
+// virtual frame number frame_number in the physical frame fst.current(). For a compiled
+// frame, the virtual objects of the physical frame are reallocated so that the locals
+// can be read. realloc_called records whether this has already been done for some
+// of the objects while visiting another virtual frame in the same physical frame.
+static Handle new_frame_reference(jobject compilerToVM, StackFrameStream& fst, vframe* vf, int frame_number, bool* realloc_called, JVMCIEnv* JVMCIENV, TRAPS) {
+  JavaThread* thread = (JavaThread*) THREAD;
+  Handle frame_reference = HotSpotJVMCI::HotSpotStackFrameReference::klass()->allocate_instance(CHECK_(Handle()));
+  StackValueCollection* locals = NULL;
+  if (vf->is_compiled_frame()) {
+    // compiled method frame
+    compiledVFrame* cvf = compiledVFrame::cast(vf);
+    ScopeDesc* scope = cvf->scope();
+    // native wrappers do not have a scope
+    if (scope != NULL && scope->objects() != NULL) {
+      GrowableArray<ScopeValue*>* objects;
+      if (!*realloc_called) {
+        objects = scope->objects();
+      } else {
+        // some object might already have been re-allocated, only reallocate the non-allocated ones
+        objects = new GrowableArray<ScopeValue*>(scope->objects()->length());
+        for (int i = 0; i < scope->objects()->length(); i++) {
+          ObjectValue* sv = (ObjectValue*) scope->objects()->at(i);
+          if (sv->value().is_null()) {
+            objects->append(sv);
+          }
+        }
+      }
+      bool realloc_failures = Deoptimization::realloc_objects(thread, fst.current(), fst.register_map(), objects, CHECK_(Handle()));
+      Deoptimization::reassign_fields(fst.current(), fst.register_map(), objects, realloc_failures, false);
+      *realloc_called = true;
+
+      GrowableArray<ScopeValue*>* local_values = scope->locals();
+      typeArrayHandle array = oopFactory::new_boolArray(local_values->length(), CHECK_(Handle()));
+      for (int i = 0; i < local_values->length(); i++) {
+        ScopeValue* value = local_values->at(i);
+        if (value->is_object()) {
+          array->bool_at_put(i, true);
+        }
+      }
+      HotSpotJVMCI::HotSpotStackFrameReference::set_localIsVirtual(JVMCIENV, frame_reference(), array());
+    } else {
+      HotSpotJVMCI::HotSpotStackFrameReference::set_localIsVirtual(JVMCIENV, frame_reference(), NULL);
+    }
+
+    locals = cvf->locals();
+    HotSpotJVMCI::HotSpotStackFrameReference::set_bci(JVMCIENV, frame_reference(), cvf->bci());
+    JVMCIObject method = JVMCIENV->get_jvmci_method(cvf->method(), JVMCI_CHECK_(Handle()));
+    HotSpotJVMCI::HotSpotStackFrameReference::set_method(JVMCIENV, frame_reference(), JNIHandles::resolve(method.as_jobject()));
+  } else {
+    // interpreted method frame
+    assert(vf->is_interpreted_frame(), "must be");
+    interpretedVFrame* ivf = interpretedVFrame::cast(vf);
+    locals = ivf->locals_no_oop_map_cache();
+    HotSpotJVMCI::HotSpotStackFrameReference::set_bci(JVMCIENV, frame_reference(), ivf->bci());
+    JVMCIObject method = JVMCIENV->get_jvmci_method(ivf->method(), JVMCI_CHECK_(Handle()));
+    HotSpotJVMCI::HotSpotStackFrameReference::set_method(JVMCIENV, frame_reference(), JNIHandles::resolve(method.as_jobject()));
+    HotSpotJVMCI::HotSpotStackFrameReference::set_localIsVirtual(JVMCIENV, frame_reference(), NULL);
+  }
+
+  HotSpotJVMCI::HotSpotStackFrameReference::set_compilerToVM(JVMCIENV, frame_reference(), JNIHandles::resolve(compilerToVM));
+  HotSpotJVMCI::HotSpotStackFrameReference::set_stackPointer(JVMCIENV, frame_reference(), (jlong) fst.current()->sp());
+  HotSpotJVMCI::HotSpotStackFrameReference::set_frameNumber(JVMCIENV, frame_reference(), frame_number);
+
+  // initialize the locals array
+  objArrayHandle array = oopFactory::new_objectArray(locals->size(), CHECK_(Handle()));
+  for (int i = 0; i < locals->size(); i++) {
+    StackValue* var = locals->at(i);
+    if (var->type() == T_OBJECT) {
+      array->obj_at_put(i, locals->at(i)->get_obj()());
+    }
+  }
+  HotSpotJVMCI::HotSpotStackFrameReference::set_locals(JVMCIENV, frame_reference(), array());
+  HotSpotJVMCI::HotSpotStackFrameReference::set_objectsMaterialized(JVMCIENV, frame_reference(), JNI_FALSE);
+  return frame_reference;
+}
+
 C2V_VMENTRY_NULL(jobject, iterateFrames, (JNIEnv* env, jobject compilerToVM, jobjectArray initial_methods, jobjectArray match_methods, jint initialSkip, jobject visitor))
 
   if (!thread->has_last_Java_frame()) {
@@ -1234,90 +1483,19 @@ C2V_VMENTRY_NULL(jobject, iterateFrames, (JNIEnv* env, jobject compilerToVM, job
     // look for the given method
     bool realloc_called = false;
     while (true) {
-      StackValueCollection* locals = NULL;
-      if (vf->is_compiled_frame()) {
-        // compiled method frame
-        compiledVFrame* cvf = compiledVFrame::cast(vf);
-        if (methods == NULL || matches(methods, cvf->method(), &resolved_methods, JVMCIENV)) {
+      if (vf->is_compiled_frame() || vf->is_interpreted_frame()) {
+        Method* method = javaVFrame::cast(vf)->method();
+        if (methods == NULL || matches(methods, method, &resolved_methods, JVMCIENV)) {
           if (initialSkip > 0) {
             initialSkip --;
           } else {
-            frame_reference = HotSpotJVMCI::HotSpotStackFrameReference::klass()->allocate_instance(CHECK_NULL);
-            ScopeDesc* scope = cvf->scope();
-            // native wrappers do not have a scope
-            if (scope != NULL && scope->objects() != NULL) {
-              GrowableArray<ScopeValue*>* objects;
-              if (!realloc_called) {
-                objects = scope->objects();
-              } else {
-                // some object might already have been re-allocated, only reallocate the non-allocated ones
-                objects = new GrowableArray<ScopeValue*>(scope->objects()->length());
-                for (int i = 0; i < scope->objects()->length(); i++) {
-                  ObjectValue* sv = (ObjectValue*) scope->objects()->at(i);
-                  if (sv->value().is_null()) {
-                    objects->append(sv);
-                  }
-                }
-              }
-              bool realloc_failures = Deoptimization::realloc_objects(thread, fst.current(), fst.register_map(), objects, CHECK_NULL);
-              Deoptimization::reassign_fields(fst.current(), fst.register_map(), objects, realloc_failures, false);
-              realloc_called = true;
-
-              GrowableArray<ScopeValue*>* local_values = scope->locals();
-              typeArrayHandle array = oopFactory::new_boolArray(local_values->length(), CHECK_NULL);
-              for (int i = 0; i < local_values->length(); i++) {
-                ScopeValue* value = local_values->at(i);
-                if (value->is_object()) {
-                  array->bool_at_put(i, true);
-                }
-              }
-              HotSpotJVMCI::HotSpotStackFrameReference::set_localIsVirtual(JVMCIENV, frame_reference(), array());
-            } else {
-              HotSpotJVMCI::HotSpotStackFrameReference::set_localIsVirtual(JVMCIENV, frame_reference(), NULL);
-            }
-
-            locals = cvf->locals();
-            HotSpotJVMCI::HotSpotStackFrameReference::set_bci(JVMCIENV, frame_reference(), cvf->bci());
-            JVMCIObject method = JVMCIENV->get_jvmci_method(cvf->method(), JVMCI_CHECK_NULL);
-            HotSpotJVMCI::HotSpotStackFrameReference::set_method(JVMCIENV, frame_reference(), JNIHandles::resolve(method.as_jobject()));
-          }
-        }
-      } else if (vf->is_interpreted_frame()) {
-        // interpreted method frame
-        interpretedVFrame* ivf = interpretedVFrame::cast(vf);
-        if (methods == NULL || matches(methods, ivf->method(), &resolved_methods, JVMCIENV)) {
-          if (initialSkip > 0) {
-            initialSkip --;
-          } else {
-            frame_reference = HotSpotJVMCI::HotSpotStackFrameReference::klass()->allocate_instance(CHECK_NULL);
-            locals = ivf->locals_no_oop_map_cache();
-            HotSpotJVMCI::HotSpotStackFrameReference::set_bci(JVMCIENV, frame_reference(), ivf->bci());
-            JVMCIObject method = JVMCIENV->get_jvmci_method(ivf->method(), JVMCI_CHECK_NULL);
-            HotSpotJVMCI::HotSpotStackFrameReference::set_method(JVMCIENV, frame_reference(), JNIHandles::resolve(method.as_jobject()));
-            HotSpotJVMCI::HotSpotStackFrameReference::set_localIsVirtual(JVMCIENV, frame_reference(), NULL);
+            frame_reference = new_frame_reference(compilerToVM, fst, vf, frame_number, &realloc_called, JVMCIENV, CHECK_NULL);
           }
         }
       }
 
-      assert((locals == NULL) == (frame_reference.is_null()), "should be synchronized");
-
-      // locals != NULL means that we found a matching frame and result is already partially initialized
-      if (locals != NULL) {
-        HotSpotJVMCI::HotSpotStackFrameReference::set_compilerToVM(JVMCIENV, frame_reference(), JNIHandles::resolve(compilerToVM));
-        HotSpotJVMCI::HotSpotStackFrameReference::set_stackPointer(JVMCIENV, frame_reference(), (jlong) fst.current()->sp());
-        HotSpotJVMCI::HotSpotStackFrameReference::set_frameNumber(JVMCIENV, frame_reference(), frame_number);
-
-        // initialize the locals array
-        objArrayHandle array = oopFactory::new_objectArray(locals->size(), CHECK_NULL);
-        for (int i = 0; i < locals->size(); i++) {
-          StackValue* var = locals->at(i);
-          if (var->type() == T_OBJECT) {
-            array->obj_at_put(i, locals->at(i)->get_obj()());
-          }
-        }
-        HotSpotJVMCI::HotSpotStackFrameReference::set_locals(JVMCIENV, frame_reference(), array());
-        HotSpotJVMCI::HotSpotStackFrameReference::set_objectsMaterialized(JVMCIENV, frame_reference(), JNI_FALSE);
-
+      // a non-null frame_reference means that we found a matching frame
+      if (frame_reference.not_null()) {
         JavaValue result(T_OBJECT);
         JavaCallArguments args(JNIHandles::resolve_non_null(visitor));
         if (visitor_method.is_null()) {
@@ -1387,6 +1565,103 @@ C2V_VMENTRY_NULL(jobject, iterateFrames, (JNIEnv* env, jobject compilerToVM, job
   return NULL;
 C2V_END
 
+// Number of jlong entries per frame in the frames buffer filled by iterateFramesInto.
+// Must be kept in sync with HotSpotFrameBuffer.
+static const int FRAME_BUFFER_STRIDE = 3;
+
+C2V_VMENTRY_0(jint, iterateFramesInto, (JNIEnv* env, jobject, jobjectArray match_methods, jlong resume_stack_pointer, jint resume_frame_number, jint skip, jobjectArray methods_buffer, jlongArray frames_buffer))
+  if (!thread->has_last_Java_frame()) {
+    return 0;
+  }
+  requireInHotSpot("iterateFramesInto", JVMCI_CHECK_0);
+
+  objArrayHandle methods(THREAD, (objArrayOop) JNIHandles::resolve_non_null(methods_buffer));
+  typeArrayHandle frames(THREAD, (typeArrayOop) JNIHandles::resolve_non_null(frames_buffer));
+  int capacity = MIN2(methods->length(), frames->length() / FRAME_BUFFER_STRIDE);
+  GrowableArray<Method*>* resolved_methods = NULL;
+  bool resuming = resume_stack_pointer != 0;
+  int count = 0;
+
+  for (StackFrameStream fst(thread); !fst.is_done() && count < capacity; fst.next()) {
+    if (resuming && fst.current()->sp() != (intptr_t*) resume_stack_pointer) {
+      continue;
+    }
+    int frame_number = 0;
+    for (vframe* vf = vframe::new_vframe(fst.current(), fst.register_map(), thread); count < capacity; vf = vf->sender(), frame_number++) {
+      if (resuming) {
+        // continue after the last frame returned by the previous call
+        resuming = frame_number < resume_frame_number;
+      } else if (vf->is_compiled_frame() || vf->is_interpreted_frame()) {
+        Method* method = javaVFrame::cast(vf)->method();
+        if (match_methods == NULL || matches(match_methods, method, &resolved_methods, JVMCIENV)) {
+          if (skip > 0) {
+            skip--;
+          } else {
+            JVMCIObject jvmci_method = JVMCIENV->get_jvmci_method(method, JVMCI_CHECK_0);
+            methods->obj_at_put(count, JNIHandles::resolve(jvmci_method.as_jobject()));
+            frames->long_at_put(count * FRAME_BUFFER_STRIDE, (jlong) fst.current()->sp());
+            frames->long_at_put(count * FRAME_BUFFER_STRIDE + 1, javaVFrame::cast(vf)->bci());
+            frames->long_at_put(count * FRAME_BUFFER_STRIDE + 2, ((jlong) frame_number << 1) | (vf->is_compiled_frame() ? 1 : 0));
+            count++;
+          }
+        }
+      }
+      if (vf->is_top()) {
+        break;
+      }
+    }
+    if (resuming) {
+      JVMCI_THROW_MSG_0(IllegalStateException, "vframe not found");
+    }
+  }
+  if (resuming) {
+    JVMCI_THROW_MSG_0(IllegalStateException, "stack frame not found");
+  }
+  return count;
+C2V_END
+
+C2V_VMENTRY(void, getStackFrameReferences, (JNIEnv* env, jobject compilerToVM, jlongArray frames_buffer, jint from, jint to, jobjectArray references_buffer))
+  requireInHotSpot("getStackFrameReferences", JVMCI_CHECK);
+  HotSpotJVMCI::HotSpotStackFrameReference::klass()->initialize(CHECK);
+
+  typeArrayHandle frames(THREAD, (typeArrayOop) JNIHandles::resolve_non_null(frames_buffer));
+  objArrayHandle references(THREAD, (objArrayOop) JNIHandles::resolve_non_null(references_buffer));
+  intptr_t* stack_pointer = (intptr_t*) frames->long_at(from * FRAME_BUFFER_STRIDE);
+  if (thread->has_last_Java_frame()) {
+    for (StackFrameStream fst(thread); !fst.is_done(); fst.next()) {
+      if (fst.current()->sp() != stack_pointer) {
+        continue;
+      }
+      // All requested frames are virtual frames of this physical frame, in ascending
+      // frame number order. Creating them while walking a single vframe chain makes
+      // them share the virtual objects reallocated for the physical frame.
+      bool realloc_called = false;
+      int frame_number = 0;
+      vframe* vf = vframe::new_vframe(fst.current(), fst.register_map(), thread);
+      for (int index = from; index < to; index++) {
+        int requested = (int) (frames->long_at(index * FRAME_BUFFER_STRIDE + 2) >> 1);
+        while (frame_number < requested) {
+          if (vf->is_top()) {
+            JVMCI_THROW_MSG(IllegalStateException, "vframe not found");
+          }
+          vf = vf->sender();
+          frame_number++;
+        }
+        if (frame_number != requested) {
+          JVMCI_THROW_MSG(IllegalStateException, "vframe not found");
+        }
+        if (!vf->is_compiled_frame() && !vf->is_interpreted_frame()) {
+          JVMCI_THROW_MSG(IllegalStateException, "Java frame expected");
+        }
+        Handle frame_reference = new_frame_reference(compilerToVM, fst, vf, frame_number, &realloc_called, JVMCIENV, CHECK);
+        references->obj_at_put(index, frame_reference());
+      }
+      return;
+    }
+  }
+  JVMCI_THROW_MSG(IllegalStateException, "stack frame not found");
+C2V_END
+
 C2V_VMENTRY(void, resolveInvokeDynamicInPool, (JNIEnv* env, jobject, jobject jvmci_constant_pool, jint index))
   constantPoolHandle cp = JVMCIENV->asConstantPool(jvmci_constant_pool);
   CallInfo callInfo;
@@ -1737,6 +2012,17 @@ C2V_VMENTRY_0(jint, methodDataProfileDataSize, (JNIEnv* env, jobject, jlong meta
   JVMCI_THROW_MSG_0(IllegalArgumentException, err_msg("Invalid profile data position %d", position));
 C2V_END
 
+C2V_VMENTRY_NULL(jobject, getTypeEntryKlass, (JNIEnv* env, jobject, jlong metaspace_method_data, jint offset))
+  MethodData* mdo = JVMCIENV->asMethodData(metaspace_method_data);
+  if (offset < in_bytes(MethodData::data_offset()) || offset + (jint) sizeof(intptr_t) > mdo->size_in_bytes()) {
+    JVMCI_THROW_MSG_NULL(IllegalArgumentException, err_msg("Invalid type entry offset %d", offset));
+  }
+  intptr_t entry = *(intptr_t*) ((address) mdo + offset);
+  JVMCIKlassHandle klass(THREAD, TypeEntries::valid_klass(entry));
+  JVMCIObject result = JVMCIENV->get_jvmci_type(klass, JVMCI_CHECK_NULL);
+  return JVMCIENV->get_jobject(result);
+C2V_END
+
 C2V_VMENTRY_0(jlong, getFingerprint, (JNIEnv* env, jobject, jlong metaspace_klass))
 #if INCLUDE_AOT
   Klass *k = JVMCIENV->asKlass(JVMCIENV->wrap(metaspace_klass));
@@ -1941,6 +2227,26 @@ C2V_VMENTRY_NULL(jobject, boxPrimitive, (JNIEnv* env, jobject, jobject object))
   return JVMCIENV->get_jobject(result);
 C2V_END
 
+// Creates an array of the JVMCI mirrors for the constructors (if `constructors` is true)
+// or the non-initializer, non-overpass methods (if `constructors` is false) of a linked class.
+static JVMCIObjectArray get_declared_methods(InstanceKlass* iklass, bool constructors, JVMCI_TRAPS) {
+  assert(iklass->is_linked(), "must be");
+  GrowableArray<Method*> methods_array;
+  for (int i = 0; i < iklass->methods()->length(); i++) {
+    Method* m = iklass->methods()->at(i);
+    bool include = constructors ? (m->is_initializer() && !m->is_static()) : (!m->is_initializer() && !m->is_overpass());
+    if (include) {
+      methods_array.append(m);
+    }
+  }
+  JVMCIObjectArray methods = JVMCIENV->new_ResolvedJavaMethod_array(methods_array.length(), JVMCI_CHECK_NULL);
+  for (int i = 0; i < methods_array.length(); i++) {
+    JVMCIObject method = JVMCIENV->get_jvmci_method(methods_array.at(i), JVMCI_CHECK_NULL);
+    JVMCIENV->put_object_at(methods, i, method);
+  }
+  return methods;
+}
+
 C2V_VMENTRY_NULL(jobjectArray, getDeclaredConstructors, (JNIEnv* env, jobject, jobject holder))
   if (holder == NULL) {
     JVMCI_THROW_0(NullPointerException);
@@ -1955,18 +2261,7 @@ C2V_VMENTRY_NULL(jobjectArray, getDeclaredConstructors, (JNIEnv* env, jobject, j
   // Ensure class is linked
   iklass->link_class(CHECK_NULL);
 
-  GrowableArray<Method*> constructors_array;
-  for (int i = 0; i < iklass->methods()->length(); i++) {
-    Method* m = iklass->methods()->at(i);
-    if (m->is_initializer() && !m->is_static()) {
-      constructors_array.append(m);
-    }
-  }
-  JVMCIObjectArray methods = JVMCIENV->new_ResolvedJavaMethod_array(constructors_array.length(), JVMCI_CHECK_NULL);
-  for (int i = 0; i < constructors_array.length(); i++) {
-    JVMCIObject method = JVMCIENV->get_jvmci_method(constructors_array.at(i), JVMCI_CHECK_NULL);
-    JVMCIENV->put_object_at(methods, i, method);
-  }
+  JVMCIObjectArray methods = get_declared_methods(iklass, true, JVMCI_CHECK_NULL);
   return JVMCIENV->get_jobjectArray(methods);
 C2V_END
 
@@ -1984,19 +2279,73 @@ C2V_VMENTRY_NULL(jobjectArray, getDeclaredMethods, (JNIEnv* env, jobject, jobjec
   // Ensure class is linked
   iklass->link_class(CHECK_NULL);
 
-  GrowableArray<Method*> methods_array;
-  for (int i = 0; i < iklass->methods()->length(); i++) {
-    Method* m = iklass->methods()->at(i);
-    if (!m->is_initializer() && !m->is_overpass()) {
-      methods_array.append(m);
-    }
+  JVMCIObjectArray methods = get_declared_methods(iklass, false, JVMCI_CHECK_NULL);
+  return JVMCIENV->get_jobjectArray(methods);
+C2V_END
+
+// Fills in the `references` and `values` arrays of a HotSpotResolvedObjectTypeSnapshot.
+// The indexes used here must be kept in sync with that class.
+C2V_VMENTRY(void, getTypeSnapshot, (JNIEnv* env, jobject, jobject jvmci_type, jboolean include_declared_members, jobjectArray references_handle, jlongArray values_handle))
+  if (jvmci_type == NULL || references_handle == NULL || values_handle == NULL) {
+    JVMCI_THROW(NullPointerException);
   }
-  JVMCIObjectArray methods = JVMCIENV->new_ResolvedJavaMethod_array(methods_array.length(), JVMCI_CHECK_NULL);
-  for (int i = 0; i < methods_array.length(); i++) {
-    JVMCIObject method = JVMCIENV->get_jvmci_method(methods_array.at(i), JVMCI_CHECK_NULL);
-    JVMCIENV->put_object_at(methods, i, method);
+  Klass* klass = JVMCIENV->asKlass(jvmci_type);
+  JVMCIObjectArray references = JVMCIENV->wrap(references_handle);
+  JVMCIPrimitiveArray values = JVMCIENV->wrap(values_handle);
+  if (JVMCIENV->get_length(references) != 7 || JVMCIENV->get_length(values) != 2) {
+    JVMCI_THROW_MSG(IllegalArgumentException, "unexpected type snapshot array length");
+  }
+
+  jlong flags = 0;
+  if (klass->oop_is_instance()) {
+    InstanceKlass* iklass = InstanceKlass::cast(klass);
+    if (!iklass->is_interface()) {
+      JVMCIKlassHandle super_klass(THREAD, iklass->super());
+      JVMCIObject super_type = JVMCIENV->get_jvmci_type(super_klass, JVMCI_CHECK);
+      JVMCIENV->put_object_at(references, 0, super_type);
+    }
+
+    int size = iklass->local_interfaces()->length();
+    JVMCIObjectArray interfaces = JVMCIENV->new_HotSpotResolvedObjectTypeImpl_array(size, JVMCI_CHECK);
+    for (int index = 0; index < size; index++) {
+      JVMCIKlassHandle interface_klass(THREAD, iklass->local_interfaces()->at(index));
+      JVMCIObject type = JVMCIENV->get_jvmci_type(interface_klass, JVMCI_CHECK);
+      JVMCIENV->put_object_at(interfaces, index, type);
+    }
+    JVMCIENV->put_object_at(references, 1, interfaces);
+
+    JVMCIKlassHandle host_klass(THREAD, iklass->host_klass());
+    JVMCIObject host_type = JVMCIENV->get_jvmci_type(host_klass, JVMCI_CHECK);
+    JVMCIENV->put_object_at(references, 3, host_type);
+
+    JVMCIObject clinit = JVMCIENV->get_jvmci_method(iklass->class_initializer(), JVMCI_CHECK);
+    JVMCIENV->put_object_at(references, 4, clinit);
+
+    if (include_declared_members) {
+      // Ensure class is linked
+      iklass->link_class(CHECK);
+      JVMCIObjectArray methods = get_declared_methods(iklass, false, JVMCI_CHECK);
+      JVMCIENV->put_object_at(references, 5, methods);
+      JVMCIObjectArray constructors = get_declared_methods(iklass, true, JVMCI_CHECK);
+      JVMCIENV->put_object_at(references, 6, constructors);
+    }
+#if INCLUDE_AOT
+    JVMCIENV->put_long_at(values, 0, iklass->get_stored_fingerprint());
+    flags |= 1;
+#endif
+  } else if (klass->oop_is_array()) {
+    oop component_mirror = Reflection::array_component_type(klass->java_mirror(), CHECK);
+    Klass* component_klass = java_lang_Class::as_Klass(component_mirror);
+    JVMCIObject component_type;
+    if (component_klass != NULL) {
+      JVMCIKlassHandle klass_handle(THREAD, component_klass);
+      component_type = JVMCIENV->get_jvmci_type(klass_handle, JVMCI_CHECK);
+    } else {
+      component_type = JVMCIENV->get_jvmci_primitive_type(java_lang_Class::primitive_type(component_mirror));
+    }
+    JVMCIENV->put_object_at(references, 2, component_type);
   }
-  return JVMCIENV->get_jobjectArray(methods);
+  JVMCIENV->put_long_at(values, 1, flags);
 C2V_END
 
 C2V_VMENTRY_NULL(jobject, readFieldValue, (JNIEnv* env, jobject, jobject object, jobject field, jboolean is_volatile))
@@ -2271,7 +2620,8 @@ C2V_VMENTRY_NULL(jobject, getObject, (JNIEnv* env, jobject, jobject x, long disp
   return JVMCIENV->get_jobject(result);
 }
 
-C2V_VMENTRY(void, deleteGlobalHandle, (JNIEnv* env, jobject, jlong h))
+// Deletes a handle in JVMCI::_object_handles. A NULL handle is ignored.
+static void delete_global_handle(jlong h) {
   jobject handle = (jobject)(address)h;
   if (handle != NULL) {
     assert(JVMCI::is_global_handle(handle), "Invalid delete of global JNI handle");
@@ -2279,6 +2629,33 @@ C2V_VMENTRY(void, deleteGlobalHandle, (JNIEnv* env, jobject, jlong h))
   }
 }
 
+C2V_VMENTRY(void, deleteGlobalHandle, (JNIEnv* env, jobject, jlong h))
+  delete_global_handle(h);
+}
+
+C2V_VMENTRY(void, deleteGlobalHandles, (JNIEnv* env, jobject, jlongArray handles_obj))
+  JVMCIPrimitiveArray handles = JVMCIENV->wrap(handles_obj);
+  int length = JVMCIENV->get_length(handles);
+  // Copy the handles in one go instead of reading them one at a time
+  // since each read is a JNI call when called from the JVMCI shared library
+  jlong* values = NEW_RESOURCE_ARRAY(jlong, length);
+  JVMCIENV->copy_longs_to(handles, values, 0, length);
+  for (int i = 0; i < length; i++) {
+    delete_global_handle(values[i]);
+  }
+}
+
+C2V_VMENTRY(void, releaseMetadataHandles, (JNIEnv* env, jobject, jlongArray handles_obj))
+  JVMCIPrimitiveArray handles = JVMCIENV->wrap(handles_obj);
+  int length = JVMCIENV->get_length(handles);
+  jmetadata* metadata_handles = NEW_RESOURCE_ARRAY(jmetadata, length);
+  for (int i = 0; i < length; i++) {
+    metadata_handles[i] = (jmetadata)(address) JVMCIENV->get_long_at(handles, i);
+    assert(metadata_handles[i] != NULL, "cannot release NULL metadata handle");
+  }
+  JVMCI::release_handles(metadata_handles, length);
+}
+
 static void requireJVMCINativeLibrary(JVMCI_TRAPS) {
   if (!UseJVMCINativeLibrary) {
     JVMCI_THROW_MSG(UnsupportedOperationException, "JVMCI shared library is not enabled (requires -XX:+UseJVMCINativeLibrary)");
@@ -2664,8 +3041,13 @@ C2V_VMENTRY_0(jlong, getFailedSpeculationsAddress, (JNIEnv* env, jobject, jobjec
   return (jlong) method_data->get_failed_speculations_address();
 }
 
-C2V_VMENTRY(void, releaseFailedSpeculations, (JNIEnv* env, jobject, jlong failed_speculations_address))
-  FailedSpeculation::free_failed_speculations((FailedSpeculation**)(address) failed_speculations_address);
+C2V_VMENTRY(void, releaseFailedSpeculations, (JNIEnv* env, jobject, jlongArray failed_speculations_addresses))
+  JVMCIPrimitiveArray addresses = JVMCIENV->wrap(failed_speculations_addresses);
+  int length = JVMCIENV->get_length(addresses);
+  for (int i = 0; i < length; i++) {
+    jlong failed_speculations_address = JVMCIENV->get_long_at(addresses, i);
+    FailedSpeculation::free_failed_speculations((FailedSpeculation**)(address) failed_speculations_address);
+  }
 }
 
 C2V_VMENTRY_0(jboolean, addFailedSpeculation, (JNIEnv* env, jobject, jlong failed_speculations_address, jbyteArray speculation_obj))
@@ -2762,11 +3144,15 @@ JNINativeMethod CompilerToVM::methods[] = {
   {CC "getConstantPool",                              CC "(" METASPACE_OBJECT ")" HS_CONSTANT_POOL,                                         FN_PTR(getConstantPool)},
   {CC "getResolvedJavaType0",                         CC "(Ljava/lang/Object;JZ)" HS_RESOLVED_KLASS,                                        FN_PTR(getResolvedJavaType0)},
   {CC "readConfiguration",                            CC "()[" OBJECT,                                                                      FN_PTR(readConfiguration)},
-  {CC "installCode",                                  CC "(" TARGET_DESCRIPTION HS_COMPILED_CODE INSTALLED_CODE "J[B)I",                    FN_PTR(installCode)},
+  {CC "readConfigurationBlob",                        CC "()[B",                                                                            FN_PTR(readConfigurationBlob)},
+  {CC "installCode",                                  CC "(" TARGET_DESCRIPTION HS_COMPILED_CODE INSTALLED_CODE "J[BI)I",                   FN_PTR(installCode)},
+  {CC "validateAssumptions",                          CC "([" OBJECT "I)Z",                                                                 FN_PTR(validateAssumptions)},
   {CC "getMetadata",                                  CC "(" TARGET_DESCRIPTION HS_COMPILED_CODE HS_METADATA ")I",                          FN_PTR(getMetadata)},
   {CC "resetCompilationStatistics",                   CC "()V",                                                                             FN_PTR(resetCompilationStatistics)},
   {CC "disassembleCodeBlob",                          CC "(" INSTALLED_CODE ")" STRING,                                                     FN_PTR(disassembleCodeBlob)},
   {CC "executeHotSpotNmethod",                        CC "(["OBJECT HS_NMETHOD ")" OBJECT,                                                  FN_PTR(executeHotSpotNmethod)},
+  {CC "executeHotSpotNmethodLong",                    CC "(" HS_NMETHOD "IJJJ)J",                                                           FN_PTR(executeHotSpotNmethodLong)},
+  {CC "executeHotSpotNmethodObject",                  CC "(" HS_NMETHOD "I" OBJECT OBJECT OBJECT ")" OBJECT,                                FN_PTR(executeHotSpotNmethodObject)},
   {CC "getLineNumberTable",                           CC "(" HS_RESOLVED_METHOD ")[J",                                                      FN_PTR(getLineNumberTable)},
   {CC "getLocalVariableTableStart",                   CC "(" HS_RESOLVED_METHOD ")J",                                                       FN_PTR(getLocalVariableTableStart)},
   {CC "getLocalVariableTableLength",                  CC "(" HS_RESOLVED_METHOD ")I",                                                       FN_PTR(getLocalVariableTableLength)},
@@ -2774,18 +3160,23 @@ JNINativeMethod CompilerToVM::methods[] = {
   {CC "invalidateHotSpotNmethod",                     CC "(" HS_NMETHOD ")V",                                                               FN_PTR(invalidateHotSpotNmethod)},
   {CC "readUncompressedOop",                          CC "(J)" OBJECTCONSTANT,                                                              FN_PTR(readUncompressedOop)},
   {CC "collectCounters",                              CC "()[J",                                                                            FN_PTR(collectCounters)},
+  {CC "collectCountersInto",                          CC "([J)I",                                                                           FN_PTR(collectCountersInto)},
   {CC "getCountersSize",                              CC "()I",                                                                             FN_PTR(getCountersSize)},
   {CC "setCountersSize",                              CC "(I)Z",                                                                            FN_PTR(setCountersSize)},
+  {CC "getThreadAllocatedBytes",                      CC "()J",                                                                             FN_PTR(getThreadAllocatedBytes)},
   {CC "allocateCompileId",                            CC "(" HS_RESOLVED_METHOD "I)I",                                                      FN_PTR(allocateCompileId)},
   {CC "isMature",                                     CC "(" METASPACE_METHOD_DATA ")Z",                                                    FN_PTR(isMature)},
   {CC "hasCompiledCodeForOSR",                        CC "(" HS_RESOLVED_METHOD "II)Z",                                                     FN_PTR(hasCompiledCodeForOSR)},
   {CC "getSymbol",                                    CC "(J)" STRING,                                                                      FN_PTR(getSymbol)},
   {CC "iterateFrames",                                CC "([" RESOLVED_METHOD "[" RESOLVED_METHOD "I" INSPECTED_FRAME_VISITOR ")" OBJECT,   FN_PTR(iterateFrames)},
   {CC "materializeVirtualObjects",                    CC "(" HS_STACK_FRAME_REF "Z)V",                                                      FN_PTR(materializeVirtualObjects)},
+  {CC "iterateFramesInto",                            CC "([" RESOLVED_METHOD "JII[" OBJECT "[J)I",                                         FN_PTR(iterateFramesInto)},
+  {CC "getStackFrameReferences",                      CC "([JII[" HS_STACK_FRAME_REF ")V",                                                  FN_PTR(getStackFrameReferences)},
   {CC "shouldDebugNonSafepoints",                     CC "()Z",                                                                             FN_PTR(shouldDebugNonSafepoints)},
   {CC "writeDebugOutput",                             CC "([BIIZZ)I",                                                                       FN_PTR(writeDebugOutput)},
   {CC "flushDebugOutput",                             CC "()V",                                                                             FN_PTR(flushDebugOutput)},
   {CC "methodDataProfileDataSize",                    CC "(JI)I",                                                                           FN_PTR(methodDataProfileDataSize)},
+  {CC "getTypeEntryKlass",                            CC "(JI)" HS_RESOLVED_KLASS,                                                          FN_PTR(getTypeEntryKlass)},
   {CC "getFingerprint",                               CC "(J)J",                                                                            FN_PTR(getFingerprint)},
   {CC "getHostClass",                                 CC "(" HS_RESOLVED_KLASS ")" HS_RESOLVED_KLASS,                                       FN_PTR(getHostClass)},
   {CC "interpreterFrameSize",                         CC "(" BYTECODE_FRAME ")I",                                                           FN_PTR(interpreterFrameSize)},
@@ -2801,6 +3192,7 @@ JNINativeMethod CompilerToVM::methods[] = {
   {CC "boxPrimitive",                                 CC "(" OBJECT")" OBJECTCONSTANT,                                                      FN_PTR(boxPrimitive)},
   {CC "getDeclaredConstructors",                      CC "(" HS_RESOLVED_KLASS ")[" RESOLVED_METHOD,                                        FN_PTR(getDeclaredConstructors)},
   {CC "getDeclaredMethods",                           CC "(" HS_RESOLVED_KLASS ")[" RESOLVED_METHOD,                                        FN_PTR(getDeclaredMethods)},
+  {CC "getTypeSnapshot",                              CC "(" HS_RESOLVED_KLASS "Z[" OBJECT "[J)V",                                          FN_PTR(getTypeSnapshot)},
   {CC "readFieldValue",                               CC "(" HS_RESOLVED_KLASS HS_RESOLVED_FIELD "Z)" JAVACONSTANT,                         FN_PTR(readFieldValue)},
   {CC "readFieldValue",                               CC "(" OBJECTCONSTANT HS_RESOLVED_FIELD "Z)" JAVACONSTANT,                            FN_PTR(readFieldValue)},
   {CC "isInstance",                                   CC "(" HS_RESOLVED_KLASS OBJECTCONSTANT ")Z",                                         FN_PTR(isInstance)},
@@ -2820,6 +3212,8 @@ JNINativeMethod CompilerToVM::methods[] = {
   {CC "getLong",                                      CC "(" OBJECTCONSTANT "J)J",                                                          FN_PTR(getLong)},
   {CC "getObject",                                    CC "(" OBJECTCONSTANT "J)" OBJECTCONSTANT,                                            FN_PTR(getObject)},
   {CC "deleteGlobalHandle",                           CC "(J)V",                                                                            FN_PTR(deleteGlobalHandle)},
+  {CC "deleteGlobalHandles",                          CC "([J)V",                                                                           FN_PTR(deleteGlobalHandles)},
+  {CC "releaseMetadataHandles",                       CC "([J)V",                                                                           FN_PTR(releaseMetadataHandles)},
   {CC "registerNativeMethods",                        CC "(" CLASS ")[J",                                                                   FN_PTR(registerNativeMethods)},
   {CC "isCurrentThreadAttached",                      CC "()Z",                                                                             FN_PTR(isCurrentThreadAttached)},
   {CC "getCurrentJavaThread",                         CC "()J",                                                                             FN_PTR(getCurrentJavaThread)},
@@ -2834,7 +3228,7 @@ JNINativeMethod CompilerToVM::methods[] = {
   {CC "asReflectionField",                            CC "(" HS_RESOLVED_KLASS "I)" REFLECTION_FIELD,                                       FN_PTR(asReflectionField)},
   {CC "getFailedSpeculations",                        CC "(J[[B)[[B",                                                                       FN_PTR(getFailedSpeculations)},
   {CC "getFailedSpeculationsAddress",                 CC "(" HS_RESOLVED_METHOD ")J",                                                       FN_PTR(getFailedSpeculationsAddress)},
-  {CC "releaseFailedSpeculations",                    CC "(J)V",                                                                            FN_PTR(releaseFailedSpeculations)},
+  {CC "releaseFailedSpeculations",                    CC "([J)V",                                                                           FN_PTR(releaseFailedSpeculations)},
   {CC "addFailedSpeculation",                         CC "(J[B)Z",                                                                          FN_PTR(addFailedSpeculation)},
   {CC "callSystemExit",                               CC "(I)V",                                                                            FN_PTR(callSystemExit)},
 };
@@ -423,3 +423,386 @@ jobjectArray readConfiguration0(JNIEnv *env, JVMCI_TRAPS) {
 
   return JVMCIENV->get_jobjectArray(data);
 }
+
+// Hash function used for the perfect hash tables in the configuration blob.
+// Must be kept in sync with HotSpotVMConfigBlob.hash.
+static juint config_name_hash(const char* name, juint seed) {
+  juint h = 0x811c9dc5 ^ seed;
+  for (const char* p = name; *p != '\0'; p++) {
+    h ^= (u1) *p;
+    h *= 0x01000193;
+  }
+  h ^= h >> 16;
+  h *= 0x85ebca6b;
+  h ^= h >> 13;
+  return h;
+}
+
+// The string table of a configuration blob. Each string is
+// encoded as a u2 length followed by the characters of the string.
+class ConfigBlobStrings : public StackObj {
+ private:
+  GrowableArray<u1> _data;
+  ResourceHashtable<const char*, int, &CompilerToVM::cstring_hash, &CompilerToVM::cstring_equals> _offsets;
+
+ public:
+  // Gets the offset of `s` in this string table, adding it first if necessary.
+  int offset_of(const char* s) {
+    if (s == NULL) {
+      return -1;
+    }
+    int* existing = _offsets.get(s);
+    if (existing != NULL) {
+      return *existing;
+    }
+    int offset = _data.length();
+    size_t len = strlen(s);
+    assert(len <= max_jushort, "string too long");
+    _data.append((u1) (len >> 8));
+    _data.append((u1) len);
+    for (size_t i = 0; i < len; i++) {
+      _data.append((u1) s[i]);
+    }
+    _offsets.put(s, offset);
+    return offset;
+  }
+
+  int size() const { return _data.length(); }
+  void write(u1* dest) const {
+    for (int i = 0; i < _data.length(); i++) {
+      dest[i] = _data.at(i);
+    }
+  }
+};
+
+// A section of a configuration blob. A section is made up of a header,
+// fixed size records and (for named records) a perfect hash table mapping
+// record names to record indexes.
+class ConfigBlobSection : public StackObj {
+ public:
+  enum {
+    header_size = 16
+  };
+
+ private:
+  int _record_size;
+  bool _hashed;
+  GrowableArray<u1> _records;
+  GrowableArray<const char*> _names;
+  ResourceHashtable<const char*, int, &CompilerToVM::cstring_hash, &CompilerToVM::cstring_equals> _index;
+  int _bucket_count;
+  int _table_size;
+  int* _displacements;
+  int* _slots;
+
+  int bucket_of(const char* name, int bucket_count) {
+    return (int) (config_name_hash(name, 0) & (bucket_count - 1));
+  }
+
+  // Tries to assign each bucket a displacement such that all names
+  // hash to distinct slots of a table with `table_size` entries.
+  bool try_build(int bucket_count, int table_size) {
+    int count = _names.length();
+    int* bucket_start = NEW_RESOURCE_ARRAY(int, bucket_count + 1);
+    int* fill = NEW_RESOURCE_ARRAY(int, bucket_count);
+    int* members = NEW_RESOURCE_ARRAY(int, count);
+    int* probes = NEW_RESOURCE_ARRAY(int, count);
+    int* order = NEW_RESOURCE_ARRAY(int, bucket_count);
+    int* slots = NEW_RESOURCE_ARRAY(int, table_size);
+    int* displacements = NEW_RESOURCE_ARRAY(int, bucket_count);
+
+    // Counting sort of the names by bucket
+    memset(bucket_start, 0, sizeof(int) * (bucket_count + 1));
+    for (int i = 0; i < count; i++) {
+      bucket_start[bucket_of(_names.at(i), bucket_count) + 1]++;
+    }
+    int max_bucket_size = 0;
+    for (int b = 0; b < bucket_count; b++) {
+      max_bucket_size = MAX2(max_bucket_size, bucket_start[b + 1]);
+      bucket_start[b + 1] += bucket_start[b];
+      fill[b] = bucket_start[b];
+    }
+    for (int i = 0; i < count; i++) {
+      members[fill[bucket_of(_names.at(i), bucket_count)]++] = i;
+    }
+
+    // Place the largest buckets first
+    int n = 0;
+    for (int size = max_bucket_size; size > 0; size--) {
+      for (int b = 0; b < bucket_count; b++) {
+        if (bucket_start[b + 1] - bucket_start[b] == size) {
+          order[n++] = b;
+        }
+      }
+    }
+
+    for (int s = 0; s < table_size; s++) {
+      slots[s] = -1;
+    }
+    memset(displacements, 0, sizeof(int) * bucket_count);
+    for (int k = 0; k < n; k++) {
+      int b = order[k];
+      int start = bucket_start[b];
+      int end = bucket_start[b + 1];
+      bool placed = false;
+      for (juint d = 1; d <= max_jushort && !placed; d++) {
+        int j = start;
+        for (; j < end; j++) {
+          int s = (int) (config_name_hash(_names.at(members[j]), d) & (table_size - 1));
+          if (slots[s] != -1) {
+            break;
+          }
+          bool collision = false;
+          for (int m = start; m < j; m++) {
+            if (probes[m] == s) {
+              collision = true;
+              break;
+            }
+          }
+          if (collision) {
+            break;
+          }
+          probes[j] = s;
+        }
+        if (j == end) {
+          for (j = start; j < end; j++) {
+            slots[probes[j]] = members[j];
+          }
+          displacements[b] = (int) d;
+          placed = true;
+        }
+      }
+      if (!placed) {
+        return false;
+      }
+    }
+    _bucket_count = bucket_count;
+    _table_size = table_size;
+    _displacements = displacements;
+    _slots = slots;
+    return true;
+  }
+
+ public:
+  ConfigBlobSection(int record_size, bool hashed) :
+    _record_size(record_size), _hashed(hashed), _bucket_count(0), _table_size(0), _displacements(NULL), _slots(NULL) {}
+
+  // Gets the position in this section of the record for `name`. The record
+  // is added first if necessary. Otherwise, the record is overwritten which
+  // mirrors the last definition of a name taking precedence.
+  int record(const char* name) {
+    if (_hashed) {
+      int* existing = _index.get(name);
+      if (existing != NULL) {
+        return *existing * _record_size;
+      }
+      _index.put(name, _names.length());
+    }
+    _names.append(name);
+    int pos = _records.length();
+    for (int i = 0; i < _record_size; i++) {
+      _records.append(0);
+    }
+    return pos;
+  }
+
+  void put_int(int pos, jint value)   { memcpy(_records.adr_at(pos), &value, sizeof(jint)); }
+  void put_long(int pos, jlong value) { memcpy(_records.adr_at(pos), &value, sizeof(jlong)); }
+
+  // Computes a perfect hash table for the record names using the hash and
+  // displace scheme: names are distributed into buckets using seed 0 and each
+  // bucket is assigned the smallest seed (displacement) that maps all of its
+  // names to free table slots.
+  void build_perfect_hash() {
+    int count = _names.length();
+    if (!_hashed || count == 0) {
+      return;
+    }
+    int bucket_count = 1;
+    while (bucket_count * 2 < count) {
+      bucket_count <<= 1;
+    }
+    int table_size = 1;
+    while (table_size < count * 2) {
+      table_size <<= 1;
+    }
+    while (!try_build(bucket_count, table_size)) {
+      table_size <<= 1;
+    }
+  }
+
+  int size() const {
+    return (int) align_size_up(header_size + _records.length() + (_bucket_count + _table_size) * (int) sizeof(jint), BytesPerLong);
+  }
+
+  void write(u1* dest) const {
+    jint header[] = { _names.length(), _record_size, _bucket_count, _table_size };
+    memcpy(dest, header, sizeof(header));
+    u1* p = dest + header_size;
+    for (int i = 0; i < _records.length(); i++) {
+      *p++ = _records.at(i);
+    }
+    if (_bucket_count != 0) {
+      memcpy(p, _displacements, sizeof(jint) * _bucket_count);
+      p += sizeof(jint) * _bucket_count;
+      memcpy(p, _slots, sizeof(jint) * _table_size);
+    }
+  }
+};
+
+// Builds the compact binary encoding of the VM configuration returned by
+// CompilerToVM.readConfigurationBlob. The format must be kept in sync with
+// jdk.vm.ci.hotspot.HotSpotVMConfigBlob.
+jbyteArray readConfigurationBlob0(JNIEnv *env, JVMCI_TRAPS) {
+  Thread* THREAD = Thread::current();
+  CompilerToVM::Data::initialize(JVMCI_CHECK_NULL);
+
+  enum {
+    magic = 0x4A564D43, // "JVMC"
+    version = 1,
+    header_size = 32,
+    field_record_size = 40,
+    value_record_size = 16,
+    intrinsic_record_size = 16,
+    no_value = 0,
+    boolean_value = 1,
+    long_value = 2
+  };
+
+  ConfigBlobStrings strings;
+  ConfigBlobSection fields(field_record_size, true);
+  ConfigBlobSection constants(value_record_size, true);
+  ConfigBlobSection addresses(value_record_size, true);
+  ConfigBlobSection flags(value_record_size, true);
+  ConfigBlobSection intrinsics(intrinsic_record_size, false);
+
+  // Field record: name, type, value kind, unused, offset, address, value
+  int len = VMStructs::localHotSpotVMStructs_count();
+  for (int i = 0; i < len ; i++) {
+    VMStructEntry vmField = VMStructs::localHotSpotVMStructs[i];
+    size_t name_buf_len = strlen(vmField.typeName) + strlen(vmField.fieldName) + 2 /* "::" */;
+    char* name_buf = NEW_RESOURCE_ARRAY_IN_THREAD(THREAD, char, name_buf_len + 1);
+    sprintf(name_buf, "%s::%s", vmField.typeName, vmField.fieldName);
+    jint kind = no_value;
+    jlong value = 0;
+    if (vmField.isStatic && vmField.typeString != NULL) {
+      if (strcmp(vmField.typeString, "bool") == 0) {
+        kind = boolean_value;
+        value = *(jbyte*) vmField.address != 0;
+      } else if (strcmp(vmField.typeString, "int") == 0 ||
+                 strcmp(vmField.typeString, "jint") == 0) {
+        kind = long_value;
+        value = *(jint*) vmField.address;
+      } else if (strcmp(vmField.typeString, "uint64_t") == 0) {
+        kind = long_value;
+        value = (jlong) *(uint64_t*) vmField.address;
+      } else if (strcmp(vmField.typeString, "address") == 0 ||
+                 strcmp(vmField.typeString, "intptr_t") == 0 ||
+                 strcmp(vmField.typeString, "uintptr_t") == 0 ||
+                 strcmp(vmField.typeString, "size_t") == 0 ||
+                 // All foo* types are addresses.
+                 vmField.typeString[strlen(vmField.typeString) - 1] == '*') {
+        kind = long_value;
+        value = (jlong) *((address*) vmField.address);
+      }
+    }
+    int pos = fields.record(name_buf);
+    fields.put_int(pos, strings.offset_of(name_buf));
+    fields.put_int(pos + 4, strings.offset_of(vmField.typeString));
+    fields.put_int(pos + 8, kind);
+    fields.put_long(pos + 16, vmField.offset);
+    fields.put_long(pos + 24, (jlong) vmField.address);
+    fields.put_long(pos + 32, value);
+  }
+
+  // Constant, address and flag record: name, type (flags only), value
+  int ints_len = VMStructs::localHotSpotVMIntConstants_count();
+  for (int i = 0; i < ints_len ; i++) {
+    VMIntConstantEntry c = VMStructs::localHotSpotVMIntConstants[i];
+    int pos = constants.record(c.name);
+    constants.put_int(pos, strings.offset_of(c.name));
+    constants.put_int(pos + 4, -1);
+    constants.put_long(pos + 8, c.value);
+  }
+  int longs_len = VMStructs::localHotSpotVMLongConstants_count();
+  for (int i = 0; i < longs_len ; i++) {
+    VMLongConstantEntry c = VMStructs::localHotSpotVMLongConstants[i];
+    int pos = constants.record(c.name);
+    constants.put_int(pos, strings.offset_of(c.name));
+    constants.put_int(pos + 4, -1);
+    constants.put_long(pos + 8, c.value);
+  }
+
+  len = VMStructs::localHotSpotVMAddresses_count();
+  for (int i = 0; i < len ; i++) {
+    VMAddressEntry a = VMStructs::localHotSpotVMAddresses[i];
+    int pos = addresses.record(a.name);
+    addresses.put_int(pos, strings.offset_of(a.name));
+    addresses.put_int(pos + 4, -1);
+    addresses.put_long(pos + 8, (jlong) a.value);
+  }
+
+#define ADD_BLOB_FLAG(type, name, value) {                         \
+  CHECK_FLAG(type, name)                                           \
+  int pos = flags.record(#name);                                   \
+  flags.put_int(pos, strings.offset_of(#name));                    \
+  flags.put_int(pos + 4, strings.offset_of(#type));                \
+  flags.put_long(pos + 8, value);                                  \
+}
+#define ADD_BLOB_BOOL_FLAG(name)  ADD_BLOB_FLAG(bool, name, name ? 1 : 0)
+#define ADD_BLOB_INTX_FLAG(name)  ADD_BLOB_FLAG(intx, name, (jlong) name)
+#define ADD_BLOB_UINTX_FLAG(name) ADD_BLOB_FLAG(uintx, name, (jlong) name)
+
+  PREDEFINED_CONFIG_FLAGS(ADD_BLOB_BOOL_FLAG, ADD_BLOB_INTX_FLAG, ADD_BLOB_UINTX_FLAG)
+
+#undef ADD_BLOB_FLAG
+#undef ADD_BLOB_BOOL_FLAG
+#undef ADD_BLOB_INTX_FLAG
+#undef ADD_BLOB_UINTX_FLAG
+
+  // Intrinsic record: declaring class, name, descriptor, id
+#define SID_ENUM(n) vmSymbols::VM_SYMBOL_ENUM_NAME(n)
+#define VM_SYMBOL_TO_OFFSET(s) strings.offset_of(vmSymbols::symbol_at(SID_ENUM(s))->as_C_string())
+#define VM_INTRINSIC_BLOB_INFO(id, kls, name, sig, ignore_fcode) {        \
+    int pos = intrinsics.record(NULL);                                    \
+    intrinsics.put_int(pos, VM_SYMBOL_TO_OFFSET(kls));                    \
+    intrinsics.put_int(pos + 4, VM_SYMBOL_TO_OFFSET(name));               \
+    intrinsics.put_int(pos + 8, VM_SYMBOL_TO_OFFSET(sig));                \
+    intrinsics.put_int(pos + 12, (jint) vmIntrinsics::id);                \
+  }
+
+  VM_INTRINSICS_DO(VM_INTRINSIC_BLOB_INFO, VM_SYMBOL_IGNORE, VM_SYMBOL_IGNORE, VM_SYMBOL_IGNORE, VM_ALIAS_IGNORE)
+#undef SID_ENUM
+#undef VM_SYMBOL_TO_OFFSET
+#undef VM_INTRINSIC_BLOB_INFO
+
+  fields.build_perfect_hash();
+  constants.build_perfect_hash();
+  addresses.build_perfect_hash();
+  flags.build_perfect_hash();
+
+  ConfigBlobSection* sections[] = { &fields, &constants, &addresses, &flags, &intrinsics };
+  const int section_count = sizeof(sections) / sizeof(sections[0]);
+  jint header[header_size / sizeof(jint)];
+  header[0] = magic;
+  header[1] = version;
+  int offset = header_size;
+  for (int i = 0; i < section_count; i++) {
+    header[3 + i] = offset;
+    offset += sections[i]->size();
+  }
+  header[2] = offset;
+  int blob_size = offset + strings.size();
+
+  u1* blob = NEW_RESOURCE_ARRAY_IN_THREAD(THREAD, u1, blob_size);
+  memset(blob, 0, blob_size);
+  memcpy(blob, header, header_size);
+  for (int i = 0; i < section_count; i++) {
+    sections[i]->write(blob + header[3 + i]);
+  }
+  strings.write(blob + header[2]);
+
+  JVMCIPrimitiveArray result = JVMCIENV->new_byteArray(blob_size, JVMCI_CHECK_NULL);
+  JVMCIENV->copy_bytes_from((jbyte*) blob, result, 0, blob_size);
+  return JVMCIENV->get_jbyteArray(result);
+}
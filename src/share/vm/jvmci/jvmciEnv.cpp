@@ -24,8 +24,10 @@
 
 #include "precompiled.hpp"
 #include "code/codeCache.hpp"
+#include "compiler/compileBroker.hpp"
 #include "memory/oopFactory.hpp"
 #include "memory/resourceArea.hpp"
+#include "oops/methodData.hpp"
 #include "oops/typeArrayOop.hpp"
 #include "runtime/arguments.hpp"
 #include "runtime/jniHandles.hpp"
@@ -41,7 +43,19 @@ JVMCICompileState::JVMCICompileState(CompileTask* task, int system_dictionary_mo
   _system_dictionary_modification_counter(system_dictionary_modification_counter),
   _failure_reason(NULL),
   _failure_reason_on_C_heap(false),
-  _retryable(true) {
+  _retryable(true),
+  _queue_wait_nanos(-1),
+  _decompile_count(0) {
+  if (task != NULL) {
+    if (task->time_queued() != 0) {
+      jlong ticks = os::elapsed_counter() - task->time_queued();
+      _queue_wait_nanos = (jlong) (ticks * ((double) NANOSECS_PER_SEC / os::elapsed_frequency()));
+    }
+    MethodData* mdo = task->method()->method_data();
+    if (mdo != NULL) {
+      _decompile_count = (jint) mdo->decompile_count();
+    }
+  }
   // Get Jvmti capabilities under lock to get consistent values.
   MutexLocker mu(JvmtiThreadState_lock);
   _jvmti_can_hotswap_or_post_breakpoint = JvmtiExport::can_hotswap_or_post_breakpoint() ? 1 : 0;
@@ -321,16 +335,22 @@ void JVMCIEnv::translate_hotspot_exception_to_jni_exception(JavaThread* THREAD,
     JVMCIRuntime::exit_on_pending_exception(this, "HotSpotJVMCIRuntime.encodeThrowable should not throw an exception");
   }
 
-  oop encoded_throwable_string = (oop) result.get_jobject();
+  typeArrayOop encoded_throwable = (typeArrayOop) result.get_jobject();
 
+  // Copy the encoding out of the HotSpot heap before transitioning to native
   ResourceMark rm;
-  const char* encoded_throwable_chars = java_lang_String::as_utf8_string(encoded_throwable_string);
+  int encoded_throwable_length = encoded_throwable->length();
+  jbyte* encoded_throwable_bytes = NEW_RESOURCE_ARRAY(jbyte, encoded_throwable_length);
+  if (encoded_throwable_length != 0) {
+    memcpy(encoded_throwable_bytes, encoded_throwable->byte_at_addr(0), encoded_throwable_length);
+  }
 
   JNIAccessMark jni(this);
-  jobject jni_encoded_throwable_string = jni()->NewStringUTF(encoded_throwable_chars);
+  jbyteArray jni_encoded_throwable = jni()->NewByteArray(encoded_throwable_length);
+  jni()->SetByteArrayRegion(jni_encoded_throwable, 0, encoded_throwable_length, encoded_throwable_bytes);
   jthrowable jni_throwable = (jthrowable) jni()->CallStaticObjectMethod(JNIJVMCI::HotSpotJVMCIRuntime::clazz(),
                                 JNIJVMCI::HotSpotJVMCIRuntime::decodeThrowable_method(),
-                                jni_encoded_throwable_string);
+                                jni_encoded_throwable);
   jni()->Throw(jni_throwable);
 }
 
@@ -514,6 +534,18 @@ void JVMCIEnv::copy_bytes_from(jbyte* src, JVMCIPrimitiveArray dest, int offset,
   }
 }
 
+void JVMCIEnv::copy_longs_to(JVMCIPrimitiveArray src, jlong* dest, int offset, jsize length) {
+  if (length == 0) {
+    return;
+  }
+  if (is_hotspot()) {
+    memcpy(dest, HotSpotJVMCI::resolve(src)->long_at_addr(offset), length * sizeof(jlong));
+  } else {
+    JNIAccessMark jni(this);
+    jni()->GetLongArrayRegion(src.as_jlongArray(), offset, length, dest);
+  }
+}
+
 void JVMCIEnv::copy_longs_from(jlong* src, JVMCIPrimitiveArray dest, int offset, jsize length) {
   if (length == 0) {
     return;
@@ -100,6 +100,12 @@ class JVMCICompileState : public ResourceObj {
   jbyte  _jvmti_can_post_on_exceptions;
   jbyte  _jvmti_can_pop_frame;
 
+  // Time in nanoseconds the task spent in the compile queue or -1 if unknown
+  jlong  _queue_wait_nanos;
+
+  // Number of times the method was deoptimized and recompiled
+  jint   _decompile_count;
+
   // Compilation result values.
   bool             _retryable;
   const char*      _failure_reason;
@@ -120,6 +126,9 @@ class JVMCICompileState : public ResourceObj {
   bool  jvmti_can_post_on_exceptions() const         { return  _jvmti_can_post_on_exceptions != 0; }
   bool  jvmti_can_pop_frame() const                  { return  _jvmti_can_pop_frame != 0; }
 
+  jlong queue_wait_nanos() const                     { return _queue_wait_nanos; }
+  jint  decompile_count() const                      { return _decompile_count; }
+
   const char* failure_reason() { return _failure_reason; }
   bool failure_reason_on_C_heap() { return _failure_reason_on_C_heap; }
   bool retryable() { return _retryable; }
@@ -241,6 +250,7 @@ public:
   void copy_bytes_to(JVMCIPrimitiveArray src, jbyte* dest, int offset, jsize length);
   void copy_bytes_from(jbyte* src, JVMCIPrimitiveArray dest, int offset, jsize length);
 
+  void copy_longs_to(JVMCIPrimitiveArray src, jlong* dest, int offset, jsize length);
   void copy_longs_from(jlong* src, JVMCIPrimitiveArray dest, int offset, jsize length);
 
   JVMCIObjectArray initialize_intrinsics(JVMCI_TRAPS);
@@ -24,6 +24,7 @@
 #include "precompiled.hpp"
 #include "compiler/compileBroker.hpp"
 #include "jvmci/jniAccessMark.inline.hpp"
+#include "jvmci/jvmciCompiler.hpp"
 #include "jvmci/jvmciCompilerToVM.hpp"
 #include "jvmci/jvmciRuntime.hpp"
 #include "memory/oopFactory.hpp"
@@ -1504,6 +1505,18 @@ JVMCI::CodeInstallResult JVMCIRuntime::register_method(JVMCIEnv* JVMCIENV,
     nmethod_mirror_index = -1;
   }
 
+  // Encode the dependencies now, so we can check them right away. This
+  // and all encoding of the code, debug info and oop maps is done before
+  // taking the locks below to keep the time they are held short.
+  dependencies->encode_content_bytes();
+
+  // Record the dependencies for the current compile in the log
+  if (LogCompilation) {
+    for (Dependencies::DepStream deps(dependencies); deps.next(); ) {
+      deps.log_dependency();
+    }
+  }
+
   JVMCI::CodeInstallResult result;
   {
     // To prevent compile queue updates.
@@ -1513,15 +1526,9 @@ JVMCI::CodeInstallResult JVMCIRuntime::register_method(JVMCIEnv* JVMCIENV,
     // and invalidating our dependencies until we install this method.
     MutexLocker ml(Compile_lock);
 
-    // Encode the dependencies now, so we can check them right away.
-    dependencies->encode_content_bytes();
-
-    // Record the dependencies for the current compile in the log
-    if (LogCompilation) {
-      for (Dependencies::DepStream deps(dependencies); deps.next(); ) {
-        deps.log_dependency();
-      }
-    }
+    // Accumulates the time Compile_lock is held. The timer is only
+    // updated while holding Compile_lock so it needs no other synchronization.
+    TraceTime lock_time("installCode lock", JVMCICompiler::codeInstallLockTimer());
 
     // Check for {class loads, evolution, breakpoints} during compilation
     result = validate_compile_task_dependencies(dependencies, JVMCIENV->compile_state(), &failure_detail);
@@ -26,7 +26,6 @@
 
 MetadataHandleBlock* MetadataHandleBlock::_last = NULL;
 intptr_t             MetadataHandleBlock::_free_list = 0;
-int                  MetadataHandleBlock::_allocate_before_rebuild = 0;
 
 jmetadata MetadataHandleBlock::allocate_metadata_handle(Metadata* obj) {
   assert(obj->is_valid() && obj->is_metadata(), "must be");
@@ -53,50 +52,16 @@ jmetadata MetadataHandleBlock::allocate_metadata_handle(Metadata* obj) {
     return allocate_metadata_handle(obj);
   }
 
-  // No space available, we have to rebuild free list or expand
-  if (_allocate_before_rebuild == 0) {
-    rebuild_free_list();        // updates _allocate_before_rebuild counter
-  } else {
-    // Append new block
-    // This can block, but the caller has a metadata handle around this object.
-    _last->_next = allocate_block();
-    _last = _last->_next;
-    _allocate_before_rebuild--;
-  }
-  return allocate_metadata_handle(obj);  // retry
-}
-
-
-void MetadataHandleBlock::rebuild_free_list() {
-  assert(_allocate_before_rebuild == 0 && _free_list == 0, "just checking");
-  int free = 0;
-  int blocks = 0;
-  for (MetadataHandleBlock* current = this; current != NULL; current = current->_next) {
-    for (int index = 0; index < current->_top; index++) {
-      HandleRecord* handle = &(current->_handles)[index];
-      if (handle->value() == NULL) {
-        // this handle was cleared out by a delete call, reuse it
-        chain_free_list(handle);
-        free++;
-      }
-    }
-    // we should not rebuild free list if there are unused handles at the end
-    assert(current->_top == block_size_in_handles, "just checking");
-    blocks++;
-  }
-  // Heuristic: if more than half of the handles are NOT free we rebuild next time
-  // as well, otherwise we append a corresponding number of new blocks before
-  // attempting a free list rebuild again.
-  int total = blocks * block_size_in_handles;
-  int extra = total - 2*free;
-  if (extra > 0) {
-    // Not as many free handles as we would like - compute number of new blocks to append
-    _allocate_before_rebuild = (extra + block_size_in_handles - 1) / block_size_in_handles;
-  }
+  // No space available and the free list is empty. Released handles are
+  // chained on the free list eagerly so there is nothing to reclaim by
+  // scanning the existing blocks. Append new block.
+  // This can block, but the caller has a metadata handle around this object.
+  _last->_next = allocate_block();
+  _last = _last->_next;
   if (TraceJNIHandleAllocation) {
-    tty->print_cr("Rebuild free list MetadataHandleBlock " PTR_FORMAT " blocks=%d used=%d free=%d add=%d",
-                  p2i(this), blocks, total-free, free, _allocate_before_rebuild);
+    tty->print_cr("Append block to MetadataHandleBlock " PTR_FORMAT, p2i(this));
   }
+  return allocate_metadata_handle(obj);  // retry
 }
 
 void MetadataHandleBlock::metadata_do(void f(Metadata*)) {
@@ -143,8 +108,7 @@ void MetadataHandleBlock::do_unloading() {
         if (klass->class_loader_data()->is_unloading()) {
           // This needs to be marked so that it's no longer scanned
           // but can't be put on the free list yet. The
-          // HandleCleaner will set this to NULL and
-          // put it on the free list.
+          // HandleCleaner will put it on the free list.
           jlong old_value = Atomic::cmpxchg((jlong) (ptr_tag), (jlong*)handle, (jlong) value);
           if (old_value == (jlong) value) {
             // Success
@@ -76,9 +76,10 @@ typedef struct _jmetadata *jmetadata;
 // JVMCI maintains direct references to metadata. To make these references safe in the face of
 // class redefinition, they are held in handles so they can be scanned during GC. They are
 // managed in a cooperative way between the Java code and HotSpot. A handle is filled in and
-// passed back to the Java code which is responsible for setting the handle to NULL when it
-// is no longer in use. This is done by jdk.vm.ci.hotspot.HandleCleaner. The
-// rebuild_free_list function notices when the handle is clear and reclaims it for re-use.
+// passed back to the Java code which is responsible for releasing the handle when it
+// is no longer in use. This is done in batches by jdk.vm.ci.hotspot.HandleCleaner which
+// calls CompilerToVM.releaseMetadataHandles. Released handles are chained on a free list
+// from which they are reused in constant time.
 class MetadataHandleBlock : public CHeapObj<mtJVMCI> {
  private:
   enum SomeConstants {
@@ -102,7 +103,6 @@ class MetadataHandleBlock : public CHeapObj<mtJVMCI> {
   // Having two types of blocks complicates the code and the space overhead is negligible.
   static MetadataHandleBlock* _last;                   // Last block in use
   static intptr_t        _free_list;                   // Handle free list
-  static int             _allocate_before_rebuild;     // Number of blocks to allocate before rebuilding free list
 
   MetadataHandleBlock() {
     _top = 0;
@@ -143,8 +143,6 @@ class MetadataHandleBlock : public CHeapObj<mtJVMCI> {
     return NULL;
   }
 
-  void rebuild_free_list();
-
   jmetadata allocate_metadata_handle(Metadata* metadata);
 
  public:
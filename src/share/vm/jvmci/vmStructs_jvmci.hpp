@@ -90,6 +90,8 @@
   static_field(CompilerToVM::Data,             symbol_init,                            address)                                      \
   static_field(CompilerToVM::Data,             symbol_clinit,                          address)                                      \
                                                                                                                                      \
+  static_field(SystemDictionary,               _number_of_modifications,               int)                                          \
+                                                                                                                                     \
   static_field(StubRoutines,                   _sha1_implCompress,                     address)                                      \
   static_field(StubRoutines,                   _sha1_implCompressMB,                   address)                                      \
   static_field(StubRoutines,                   _sha256_implCompress,                   address)                                      \
@@ -109,6 +111,8 @@
   nonstatic_field(JVMCICompileState,           _jvmti_can_access_local_variables,      jbyte)                                        \
   nonstatic_field(JVMCICompileState,           _jvmti_can_post_on_exceptions,          jbyte)                                        \
   nonstatic_field(JVMCICompileState,           _jvmti_can_pop_frame,                   jbyte)                                        \
+  nonstatic_field(JVMCICompileState,           _queue_wait_nanos,                      jlong)                                        \
+  nonstatic_field(JVMCICompileState,           _decompile_count,                       jint)                                         \
                                                                                                                                      \
   volatile_nonstatic_field(JavaThread,         _doing_unsafe_access,                   bool)                                         \
   nonstatic_field(JavaThread,                  _pending_deoptimization,                int)                                          \
@@ -118,6 +122,7 @@
   nonstatic_field(JavaThread,                  _should_post_on_exceptions_flag,        int)                                          \
   nonstatic_field(JavaThread,                  _jni_environment,                       JNIEnv)                                       \
   nonstatic_field(MethodData,                  _jvmci_ir_size,                         int)                                          \
+  nonstatic_field(MethodData,                  _parameters_type_data_di,               int)                                          \
   nonstatic_field(ConstantPool,                _flags,                                 int)                                          \
   nonstatic_field(Annotations,                 _fields_annotations,                    Array<AnnotationArray*>*)                     \
 
@@ -170,6 +175,17 @@
   declare_constant(ArrayData::array_len_off_set)                                                  \
   declare_constant(ArrayData::array_start_off_set)                                                \
   declare_constant(MultiBranchData::per_case_cell_count)                                          \
+  declare_constant(TypeEntries::null_seen)                                                        \
+  declare_constant(TypeEntries::type_unknown)                                                     \
+  declare_constant(TypeEntries::status_bits)                                                      \
+  declare_constant(TypeStackSlotEntries::stack_slot_entry)                                        \
+  declare_constant(TypeStackSlotEntries::type_entry)                                              \
+  declare_constant(TypeStackSlotEntries::per_arg_cell_count)                                      \
+  declare_constant(ReturnTypeEntry::cell_count)                                                   \
+  declare_preprocessor_constant("TypeEntriesAtCall::header_cell_count", TypeEntriesAtCall::header_cell_count()) \
+  declare_preprocessor_constant("TypeEntriesAtCall::cell_count_local_offset", TypeEntriesAtCall::cell_count_local_offset()) \
+  declare_constant(SpeculativeTrapData::method_offset)                                            \
+  declare_constant(SpeculativeTrapData::speculative_trap_cell_count)                              \
                                                                                                   \
   declare_constant(CodeInstaller::VERIFIED_ENTRY)                                                 \
   declare_constant(CodeInstaller::UNVERIFIED_ENTRY)                                               \
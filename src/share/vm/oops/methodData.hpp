@@ -863,6 +863,7 @@ public:
 // profiled object is to be found so that the interpreter can locate
 // it quickly.
 class TypeStackSlotEntries : public TypeEntries {
+  friend class VMStructs;
 
 private:
   enum {
@@ -946,6 +947,7 @@ public:
 // Type entry used for return from a call. A single cell to record the
 // type.
 class ReturnTypeEntry : public TypeEntries {
+  friend class VMStructs;
 
 private:
   enum {
@@ -2067,6 +2069,7 @@ public:
 // data space in the MDO. If we run out of space, the trap data for
 // the ProfileData at that bci is updated.
 class SpeculativeTrapData : public ProfileData {
+  friend class VMStructs;
 protected:
   enum {
     method_offset,
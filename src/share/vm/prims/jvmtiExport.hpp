@@ -187,9 +187,15 @@ class JvmtiExport : public AllStatic {
   // only be set by the friend class and can be queried by other sub
   // systems as needed to relax invariant checks.
   static bool _has_redefined_a_class;
+
+  // Number of RedefineClasses() operations performed so far. Compilers
+  // caching values derived from class metadata (e.g. JVMCI) use this
+  // to detect that their caches may be stale.
+  static int _redefinition_count;
   friend class VM_RedefineClasses;
   inline static void set_has_redefined_a_class() {
     JVMTI_ONLY(_has_redefined_a_class = true;)
+    JVMTI_ONLY(_redefinition_count++;)
   }
   // Flag to indicate if the compiler has recorded all dependencies. When the
   // can_redefine_classes capability is enabled in the OnLoad phase then the compiler
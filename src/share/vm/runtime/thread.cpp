@@ -1427,25 +1427,29 @@ void WatcherThread::print_on(outputStream* st) const {
 #if INCLUDE_JVMCI
 
 jlong* JavaThread::_jvmci_old_thread_counters;
+int JavaThread::_jvmci_counters_capacity;
 
 bool jvmci_counters_include(JavaThread* thread) {
   oop threadObj = thread->threadObj();
   return !JVMCICountersExcludeCompiler || !thread->is_Compiler_thread();
 }
 
-void JavaThread::collect_counters(jlong* array, int length) {
-  assert(length == JVMCICounterSize, "wrong value");
+int JavaThread::collect_counters(jlong* array, int length) {
   MutexLocker tl(Threads_lock);
-  for (int i = 0; i < length; i++) {
+  // Read the size under Threads_lock so that it is consistent with the per thread arrays
+  int size = (int) JVMCICounterSize;
+  int count = MIN2(length, size);
+  for (int i = 0; i < count; i++) {
     array[i] = _jvmci_old_thread_counters[i];
   }
   for (JavaThread* tp = Threads::first(); tp != NULL; tp = tp->next()) {
     if (jvmci_counters_include(tp)) {
-      for (int i = 0; i < length; i++) {
+      for (int i = 0; i < count; i++) {
         array[i] += tp->_jvmci_counters[i];
       }
     }
   }
+  return size;
 }
 
 // Attempt to enlarge the array for per thread counters.
@@ -1483,15 +1487,17 @@ bool JavaThread::resize_counters(int current_size, int new_size) {
 class VM_JVMCIResizeCounters : public VM_Operation {
  private:
   int _new_size;
+  int _new_capacity;
   bool _failed;
 
  public:
-  VM_JVMCIResizeCounters(int new_size) : _new_size(new_size), _failed(false) { }
+  VM_JVMCIResizeCounters(int new_size, int new_capacity) : _new_size(new_size), _new_capacity(new_capacity), _failed(false) { }
   VMOp_Type type()                  const        { return VMOp_JVMCIResizeCounters; }
   bool allow_nested_vm_operations() const        { return true; }
   void doit() {
-    // Resize the old thread counters array
-    jlong* new_counters = resize_counters_array(JavaThread::_jvmci_old_thread_counters, JVMCICounterSize, _new_size);
+    // Resize the old thread counters array. Only the counters below
+    // JVMCICounterSize are live, the remainder of each array is cleared.
+    jlong* new_counters = resize_counters_array(JavaThread::_jvmci_old_thread_counters, JVMCICounterSize, _new_capacity);
     if (new_counters == NULL) {
       _failed = true;
       return;
@@ -1501,12 +1507,13 @@ class VM_JVMCIResizeCounters : public VM_Operation {
 
     // Now resize each threads array
     for (JavaThread* thread = Threads::first(); thread != NULL; thread = thread->next()) {
-      if (!thread->resize_counters(JVMCICounterSize, _new_size)) {
+      if (!thread->resize_counters(JVMCICounterSize, _new_capacity)) {
         _failed = true;
         break;
       }
     }
     if (!_failed) {
+      JavaThread::_jvmci_counters_capacity = _new_capacity;
       JVMCICounterSize = _new_size;
     }
   }
@@ -1515,7 +1522,27 @@ class VM_JVMCIResizeCounters : public VM_Operation {
 };
 
 bool JavaThread::resize_all_jvmci_counters(int new_size) {
-  VM_JVMCIResizeCounters op(new_size);
+  {
+    MutexLocker tl(Threads_lock);
+    if (new_size <= _jvmci_counters_capacity) {
+      // The per thread arrays are large enough so no safepoint is needed. Only
+      // the owning thread writes to its array and only below JVMCICounterSize
+      // so the counters becoming live can be cleared while the threads run.
+      for (int i = JVMCICounterSize; i < new_size; i++) {
+        _jvmci_old_thread_counters[i] = 0;
+      }
+      for (JavaThread* tp = Threads::first(); tp != NULL; tp = tp->next()) {
+        for (int i = JVMCICounterSize; i < new_size; i++) {
+          tp->_jvmci_counters[i] = 0;
+        }
+      }
+      OrderAccess::release();
+      JVMCICounterSize = new_size;
+      return true;
+    }
+  }
+  // Grow the capacity geometrically so that later resizes do not need a safepoint
+  VM_JVMCIResizeCounters op(new_size, MAX2(new_size, 2 * _jvmci_counters_capacity));
   VMThread::execute(&op);
   return !op.failed();
 }
@@ -1563,8 +1590,8 @@ void JavaThread::initialize() {
   _jvmci._alternate_call_target = NULL;
   assert(_jvmci._implicit_exception_pc == NULL, "must be");
   _jvmci_counters = NULL;
-  if (JVMCICounterSize > 0) {
-    resize_counters(0, (int) JVMCICounterSize);
+  if (_jvmci_counters_capacity > 0) {
+    resize_counters(0, _jvmci_counters_capacity);
   }
 #endif
   (void)const_cast<oop&>(_exception_oop = oop(NULL));
@@ -1749,7 +1776,7 @@ JavaThread::~JavaThread() {
   if (_thread_stat != NULL) delete _thread_stat;
 
 #if INCLUDE_JVMCI
-  if (JVMCICounterSize > 0) {
+  if (_jvmci_counters != NULL) {
     if (jvmci_counters_include(this)) {
       for (int i = 0; i < JVMCICounterSize; i++) {
         _jvmci_old_thread_counters[i] += _jvmci_counters[i];
@@ -3537,6 +3564,7 @@ jint Threads::create_vm(JavaVMInitArgs* args, bool* canTryAgain) {
   vm_init_globals();
 
 #if INCLUDE_JVMCI
+  JavaThread::_jvmci_counters_capacity = (int) JVMCICounterSize;
   if (JVMCICounterSize > 0) {
     JavaThread::_jvmci_old_thread_counters = NEW_C_HEAP_ARRAY(jlong, JVMCICounterSize, mtInternal);
     memset(JavaThread::_jvmci_old_thread_counters, 0, sizeof(jlong) * JVMCICounterSize);
@@ -4209,7 +4237,7 @@ bool Threads::destroy_vm() {
   delete thread;
 
 #if INCLUDE_JVMCI
-  if (JVMCICounterSize > 0) {
+  if (JavaThread::_jvmci_old_thread_counters != NULL) {
     FREE_C_HEAP_ARRAY(jlong, JavaThread::_jvmci_old_thread_counters, mtInternal);
   }
 #endif
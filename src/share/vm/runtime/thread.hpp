@@ -958,7 +958,15 @@ class JavaThread: public Thread {
 
  public:
   static jlong* _jvmci_old_thread_counters;
-  static void collect_counters(jlong* array, int length);
+
+  // Length of _jvmci_old_thread_counters and of each _jvmci_counters array.
+  // Only the first JVMCICounterSize entries of these arrays are live.
+  static int _jvmci_counters_capacity;
+
+  // Sums the first min(length, JVMCICounterSize) counters over all
+  // threads into array and returns the value of JVMCICounterSize
+  // at the time the counters were summed.
+  static int collect_counters(jlong* array, int length);
 
   bool resize_counters(int current_size, int new_size);
 
@@ -239,7 +239,8 @@ static inline uint64_t cast_uint64_t(size_t x)
     static_field(JvmtiExport,                     _can_access_local_variables,                  bool)                                  \
     static_field(JvmtiExport,                     _can_hotswap_or_post_breakpoint,              bool)                                  \
     static_field(JvmtiExport,                     _can_post_on_exceptions,                      bool)                                  \
-    static_field(JvmtiExport,                     _can_walk_any_space,                          bool)
+    static_field(JvmtiExport,                     _can_walk_any_space,                          bool)                                  \
+    static_field(JvmtiExport,                     _redefinition_count,                          int)
 #else
   #define JVMTI_STRUCTS(static_field)
 #endif // INCLUDE_JVMTI